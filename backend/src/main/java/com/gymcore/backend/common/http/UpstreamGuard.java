@@ -0,0 +1,178 @@
+package com.gymcore.backend.common.http;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Per-upstream protection for one {@code RestTemplate}: a concurrency cap, a circuit breaker and latency
+ * counters. After {@code failureThreshold} consecutive failures (I/O errors or 5xx) the circuit opens and calls
+ * fail immediately for {@code openDuration}; then a single trial call decides whether it closes again.
+ * Rejections surface as {@link UpstreamUnavailableException}, which RestTemplate wraps in a
+ * {@code ResourceAccessException} like any other I/O failure.
+ */
+public class UpstreamGuard implements ClientHttpRequestInterceptor {
+
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Semaphore inFlight;
+    private final int maxConcurrent;
+    private final Clock clock;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final long[] latencySamplesMs = new long[LATENCY_SAMPLES];
+    private int sampleCount;
+    private int nextSample;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInFlight;
+
+    public UpstreamGuard(String name, int maxConcurrent, int failureThreshold, Duration openDuration) {
+        this(name, maxConcurrent, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    UpstreamGuard(String name, int maxConcurrent, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        boolean trial = admit();
+        if (!inFlight.tryAcquire()) {
+            rejected.increment();
+            releaseTrial(trial);
+            throw new UpstreamUnavailableException(name + " has " + maxConcurrent + " calls in flight.");
+        }
+        long started = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().is5xxServerError()) {
+                recordFailure(started, trial);
+            } else {
+                recordSuccess(started);
+            }
+            return response;
+        } catch (IOException | RuntimeException exception) {
+            recordFailure(started, trial);
+            throw exception;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        long[] sorted = Arrays.copyOf(latencySamplesMs, sampleCount);
+        Arrays.sort(sorted);
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("name", name);
+        snapshot.put("state", state.name());
+        snapshot.put("calls", calls.sum());
+        snapshot.put("failures", failures.sum());
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("inFlight", maxConcurrent - inFlight.availablePermits());
+        snapshot.put("maxConcurrent", maxConcurrent);
+        snapshot.put("p50LatencyMs", percentile(sorted, 0.50));
+        snapshot.put("p95LatencyMs", percentile(sorted, 0.95));
+        snapshot.put("maxLatencyMs", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        return snapshot;
+    }
+
+    /** @return whether this call is the half-open trial */
+    private synchronized boolean admit() throws UpstreamUnavailableException {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                rejected.increment();
+                throw new UpstreamUnavailableException(name + " circuit is open after repeated failures.");
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejected.increment();
+                throw new UpstreamUnavailableException(name + " circuit is testing recovery.");
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void releaseTrial(boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    private synchronized void recordSuccess(long startedNanos) {
+        calls.increment();
+        recordLatency(startedNanos);
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        trialInFlight = false;
+    }
+
+    private synchronized void recordFailure(long startedNanos, boolean trial) {
+        calls.increment();
+        failures.increment();
+        recordLatency(startedNanos);
+        consecutiveFailures++;
+        if (trial || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+        }
+        trialInFlight = false;
+    }
+
+    private void recordLatency(long startedNanos) {
+        latencySamplesMs[nextSample] = Duration.ofNanos(System.nanoTime() - startedNanos).toMillis();
+        nextSample = (nextSample + 1) % LATENCY_SAMPLES;
+        sampleCount = Math.min(sampleCount + 1, LATENCY_SAMPLES);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public static class UpstreamUnavailableException extends IOException {
+
+        public UpstreamUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.gymcore.backend.common.scheduling;
 
+import com.gymcore.backend.common.service.NotificationsChangedEvent;
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -132,11 +137,87 @@ public class DailyJobService {
                       AND n.ExtraKey = CONCAT('WAITING_DAY_', p.DaysWaiting)
               );
             """;
+    // Rewrites recent closed days of dbo.DailyRevenueRollup from dbo.Payments. Today stays incremental-only so
+    // payments confirmed while this runs are not counted twice.
+    static final String RECONCILE_DAILY_REVENUE_ROLLUP_SQL = """
+            DECLARE @today DATE = CAST(GETDATE() AS DATE);
+            DECLARE @from DATE = DATEADD(DAY, -35, @today);
+
+            ;WITH Actual AS (
+                SELECT
+                    CAST(COALESCE(p.PaidAt, p.CreatedAt) AS DATE) AS RevenueDate,
+                    SUM(CASE WHEN p.OrderID IS NOT NULL THEN p.Amount ELSE 0 END) AS ProductRevenue,
+                    SUM(CASE WHEN p.CustomerMembershipID IS NOT NULL THEN p.Amount ELSE 0 END) AS MembershipRevenue,
+                    SUM(p.Amount) AS TotalRevenue,
+                    COUNT(1) AS PaymentCount
+                FROM dbo.Payments p
+                WHERE p.Status = 'SUCCESS'
+                  AND COALESCE(p.PaidAt, p.CreatedAt) >= @from
+                  AND COALESCE(p.PaidAt, p.CreatedAt) < @today
+                GROUP BY CAST(COALESCE(p.PaidAt, p.CreatedAt) AS DATE)
+            )
+            MERGE dbo.DailyRevenueRollup WITH (HOLDLOCK) AS r
+            USING Actual AS s
+            ON r.RevenueDate = s.RevenueDate
+            WHEN MATCHED AND (r.ProductRevenue <> s.ProductRevenue
+                    OR r.MembershipRevenue <> s.MembershipRevenue
+                    OR r.TotalRevenue <> s.TotalRevenue
+                    OR r.PaymentCount <> s.PaymentCount) THEN
+                UPDATE SET
+                    ProductRevenue = s.ProductRevenue,
+                    MembershipRevenue = s.MembershipRevenue,
+                    TotalRevenue = s.TotalRevenue,
+                    PaymentCount = s.PaymentCount,
+                    UpdatedAt = SYSDATETIME()
+            WHEN NOT MATCHED BY TARGET THEN
+                INSERT (RevenueDate, ProductRevenue, MembershipRevenue, TotalRevenue, PaymentCount)
+                VALUES (s.RevenueDate, s.ProductRevenue, s.MembershipRevenue, s.TotalRevenue, s.PaymentCount)
+            WHEN NOT MATCHED BY SOURCE AND r.RevenueDate >= @from AND r.RevenueDate < @today THEN
+                DELETE;
+            """;
+    // Rewrites recent closed days of dbo.CheckInHourlyRollup from dbo.CheckIns; today is left to the trigger.
+    static final String RECONCILE_CHECKIN_HOURLY_ROLLUP_SQL = """
+            DECLARE @today DATE = CAST(GETDATE() AS DATE);
+            DECLARE @from DATE = DATEADD(DAY, -35, @today);
+
+            ;WITH Actual AS (
+                SELECT
+                    CAST(ci.CheckInTime AS DATE) AS CheckInDate,
+                    DATEPART(HOUR, ci.CheckInTime) AS HourOfDay,
+                    COUNT(1) AS CheckInCount
+                FROM dbo.CheckIns ci
+                WHERE ci.CheckInTime >= @from
+                  AND ci.CheckInTime < @today
+                GROUP BY CAST(ci.CheckInTime AS DATE), DATEPART(HOUR, ci.CheckInTime)
+            )
+            MERGE dbo.CheckInHourlyRollup WITH (HOLDLOCK) AS r
+            USING Actual AS s
+            ON r.CheckInDate = s.CheckInDate AND r.HourOfDay = s.HourOfDay
+            WHEN MATCHED AND r.CheckInCount <> s.CheckInCount THEN
+                UPDATE SET
+                    CheckInCount = s.CheckInCount,
+                    UpdatedAt = SYSDATETIME()
+            WHEN NOT MATCHED BY TARGET THEN
+                INSERT (CheckInDate, HourOfDay, CheckInCount)
+                VALUES (s.CheckInDate, s.HourOfDay, s.CheckInCount)
+            WHEN NOT MATCHED BY SOURCE AND r.CheckInDate >= @from AND r.CheckInDate < @today THEN
+                DELETE;
+            """;
 
     private final JdbcTemplate jdbcTemplate;
+    private final AdminDashboardSnapshotService dashboardSnapshotService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchemaCapabilities schemaCapabilities;
+    private final MembershipStateResolver membershipStates;
 
-    public DailyJobService(JdbcTemplate jdbcTemplate) {
+    public DailyJobService(JdbcTemplate jdbcTemplate, AdminDashboardSnapshotService dashboardSnapshotService,
+            ApplicationEventPublisher eventPublisher, SchemaCapabilities schemaCapabilities,
+            MembershipStateResolver membershipStates) {
         this.jdbcTemplate = jdbcTemplate;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.eventPublisher = eventPublisher;
+        this.schemaCapabilities = schemaCapabilities;
+        this.membershipStates = membershipStates;
     }
 
     /**
@@ -145,6 +226,8 @@ public class DailyJobService {
      * - Expire memberships
      * - Cancel PT sessions if membership expires
      * - Remind customers to pick up paid orders on a low-noise cadence
+     * - Reconcile the daily revenue rollup for the last 35 closed days
+     * - Reconcile the hourly check-in rollup for the last 35 closed days, once alter.txt has added it
      */
     @Scheduled(cron = "0 0 0 * * *")
     @Transactional
@@ -157,6 +240,14 @@ public class DailyJobService {
             runStep("cancel-pt-sessions", CANCEL_PT_SESSIONS_FOR_EXPIRED_MEMBERSHIPS_SQL);
             runStep("notify-cancelled-pt-sessions", PT_CANCELLATION_NOTIFICATION_SQL);
             runStep("pickup-waiting-reminders", PICKUP_WAITING_REMINDER_SQL);
+            runStep("reconcile-daily-revenue-rollup", RECONCILE_DAILY_REVENUE_ROLLUP_SQL);
+            if (schemaCapabilities.checkinHourlyRollup()) {
+                runStep("reconcile-checkin-hourly-rollup", RECONCILE_CHECKIN_HOURLY_ROLLUP_SQL);
+            }
+            membershipStates.invalidateAll();
+            dashboardSnapshotService.invalidate();
+            // Reminder steps insert for many customers at once; open notification streams pick them up after commit.
+            eventPublisher.publishEvent(NotificationsChangedEvent.allUsers());
             System.out.println("Daily membership jobs completed successfully.");
         } catch (Exception e) {
             System.err.println("Error running daily membership jobs: " + e.getMessage());
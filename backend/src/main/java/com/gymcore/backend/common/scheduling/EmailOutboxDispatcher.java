@@ -0,0 +1,117 @@
+package com.gymcore.backend.common.scheduling;
+
+import com.gymcore.backend.common.service.EmailOutboxHandler;
+import com.gymcore.backend.common.service.EmailOutboxService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drains {@code dbo.EmailOutbox}: claims a batch, sends it on a small fixed pool so a slow SMTP relay
+ * never holds more than {@code app.mail.outbox.concurrency} connections, then records the outcome. The drain
+ * loop runs on its own worker, so a slow relay never holds up the shared scheduler thread.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxService emailOutboxService;
+    private final Map<String, EmailOutboxHandler> handlers = new HashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    @Value("${app.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.concurrency:4}")
+    private int concurrency;
+
+    private ExecutorService worker;
+    private ExecutorService senders;
+
+    public EmailOutboxDispatcher(EmailOutboxService emailOutboxService, List<EmailOutboxHandler> handlers) {
+        this.emailOutboxService = emailOutboxService;
+        for (EmailOutboxHandler handler : handlers) {
+            this.handlers.put(handler.messageType(), handler);
+        }
+    }
+
+    @PostConstruct
+    void startSenders() {
+        worker = Executors.newSingleThreadExecutor();
+        senders = Executors.newFixedThreadPool(Math.max(1, concurrency));
+    }
+
+    @PreDestroy
+    void stopSenders() {
+        worker.shutdownNow();
+        senders.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:5000}")
+    public void dispatchPending() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RuntimeException exception) {
+            draining.set(false);
+            throw exception;
+        }
+    }
+
+    void drain() {
+        List<EmailOutboxService.OutboxMessage> batch;
+        do {
+            batch = emailOutboxService.claimBatch(batchSize);
+            List<Callable<Void>> sends = new ArrayList<>(batch.size());
+            for (EmailOutboxService.OutboxMessage message : batch) {
+                sends.add(() -> {
+                    deliver(message);
+                    return null;
+                });
+            }
+            try {
+                senders.invokeAll(sends);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private void deliver(EmailOutboxService.OutboxMessage message) {
+        EmailOutboxHandler handler = handlers.get(message.messageType());
+        if (handler == null) {
+            emailOutboxService.markFailed(message, "No handler for message type " + message.messageType() + ".");
+            return;
+        }
+        try {
+            handler.deliver(message.referenceId());
+            emailOutboxService.markSent(message);
+        } catch (Exception exception) {
+            log.warn("Queued {} email for reference {} failed (attempt {}): {}", message.messageType(),
+                    message.referenceId(), message.attempts(), exception.getMessage());
+            emailOutboxService.markFailed(message, exception.getMessage());
+        }
+    }
+}
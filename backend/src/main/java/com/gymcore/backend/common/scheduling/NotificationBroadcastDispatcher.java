@@ -0,0 +1,90 @@
+package com.gymcore.backend.common.scheduling;
+
+import com.gymcore.backend.common.service.NotificationBroadcastService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Fans out queued customer broadcasts off the request thread. One worker drains the queue a chunk at a
+ * time, so a broadcast to every customer never holds one long transaction or a large lock footprint on
+ * {@code dbo.Notifications}.
+ */
+@Service
+public class NotificationBroadcastDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationBroadcastDispatcher.class);
+
+    private final NotificationBroadcastService broadcastService;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    @Value("${app.notifications.broadcast.chunk-size:500}")
+    private int chunkSize;
+
+    private ExecutorService worker;
+
+    public NotificationBroadcastDispatcher(NotificationBroadcastService broadcastService) {
+        this.broadcastService = broadcastService;
+    }
+
+    @PostConstruct
+    void startWorker() {
+        worker = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    void stopWorker() {
+        worker.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.broadcast.poll-interval-ms:3000}")
+    public void dispatchPending() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            worker.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RuntimeException exception) {
+            draining.set(false);
+            throw exception;
+        }
+    }
+
+    void drain() {
+        NotificationBroadcastService.Broadcast broadcast;
+        while (!Thread.currentThread().isInterrupted() && (broadcast = broadcastService.claimNext()) != null) {
+            fanOut(broadcast);
+        }
+    }
+
+    private void fanOut(NotificationBroadcastService.Broadcast broadcast) {
+        int cursor = broadcast.lastUserId();
+        try {
+            while (cursor != NotificationBroadcastService.NO_MORE_RECIPIENTS) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // Shutting down: the row stays RUNNING and is reclaimed from its cursor after restart.
+                    return;
+                }
+                cursor = broadcastService.deliverNextChunk(broadcast, cursor, Math.max(1, chunkSize));
+            }
+            broadcastService.markCompleted(broadcast);
+        } catch (Exception exception) {
+            log.warn("Broadcast {} ({}) stopped after user {} (attempt {}): {}", broadcast.broadcastId(),
+                    broadcast.notificationType(), cursor, broadcast.attempts(), exception.getMessage());
+            broadcastService.markFailed(broadcast, exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.gymcore.backend.common.scheduling;
+
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
+import com.gymcore.backend.modules.product.service.PayOsService;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Expires membership and product checkouts whose PayOS payment is still PENDING once its payment link can no
+ * longer be paid, so the membership pages no longer do it on every view. A checkout is only swept
+ * {@link #SWEEP_AFTER_MINUTES} after creation: the link's own lifetime plus a grace period for late webhooks, so
+ * sp_ConfirmPaymentSuccess never finds a paid checkout already cancelled. Stale payments are walked in
+ * (CreatedAt, PaymentID) order, which IX_Payments_Status_Time already serves, one short transaction per batch.
+ * The keyset cursor also moves past rows a batch could not expire, so they are not picked up again in the same
+ * sweep.
+ */
+@Service
+public class PendingCheckoutSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingCheckoutSweeper.class);
+
+    /** A payment made just before its link expired may be confirmed by a webhook this much later. */
+    static final int LATE_WEBHOOK_GRACE_MINUTES = 15;
+
+    /** Age at which a PENDING checkout is expired; must stay past the PayOS link lifetime. */
+    public static final int SWEEP_AFTER_MINUTES = PayOsService.PAYMENT_LINK_LIFETIME_MINUTES + LATE_WEBHOOK_GRACE_MINUTES;
+
+    /** Cursor start; every payment was created after it. */
+    static final Timestamp SWEEP_START = Timestamp.valueOf("1900-01-01 00:00:00");
+
+    /**
+     * Cancels one batch of stale membership checkouts and returns every row the batch looked at. READPAST skips
+     * payments a confirmation is updating right now; UPDLOCK makes a confirmation that arrives mid-batch wait and
+     * then find the payment no longer PENDING. A pending Day Pass gets EndDate = StartDate, as cancelling one on
+     * the request path did.
+     */
+    static final String EXPIRE_MEMBERSHIP_CHECKOUTS_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @afterCreatedAt DATETIME2 = ?;
+            DECLARE @afterPaymentId INT = ?;
+            DECLARE @cutoff DATETIME2 = DATEADD(MINUTE, -?, SYSDATETIME());
+            DECLARE @batch TABLE (
+                PaymentID INT PRIMARY KEY,
+                CreatedAt DATETIME2 NOT NULL,
+                CustomerMembershipID INT NOT NULL,
+                CustomerID INT NOT NULL
+            );
+            DECLARE @expired TABLE (PaymentID INT PRIMARY KEY);
+
+            INSERT INTO @batch (PaymentID, CreatedAt, CustomerMembershipID, CustomerID)
+            SELECT TOP (?) p.PaymentID, p.CreatedAt, p.CustomerMembershipID, cm.CustomerID
+            FROM dbo.Payments p WITH (UPDLOCK, READPAST)
+            JOIN dbo.CustomerMemberships cm ON cm.CustomerMembershipID = p.CustomerMembershipID
+            WHERE p.Status = 'PENDING'
+              AND p.CreatedAt < @cutoff
+              AND (p.CreatedAt > @afterCreatedAt OR (p.CreatedAt = @afterCreatedAt AND p.PaymentID > @afterPaymentId))
+              AND cm.Status = 'PENDING'
+            ORDER BY p.CreatedAt, p.PaymentID;
+
+            UPDATE p
+            SET p.Status = 'CANCELLED',
+                p.PayOS_Status = COALESCE(NULLIF(p.PayOS_Status, ''), 'EXPIRED')
+            OUTPUT INSERTED.PaymentID INTO @expired
+            FROM dbo.Payments p
+            JOIN @batch b ON b.PaymentID = p.PaymentID
+            WHERE p.Status = 'PENDING';
+
+            UPDATE cm
+            SET cm.Status = 'CANCELLED',
+                cm.EndDate = CASE WHEN mp.PlanType = 'DAY_PASS' THEN cm.StartDate ELSE cm.EndDate END,
+                cm.UpdatedAt = SYSDATETIME()
+            FROM dbo.CustomerMemberships cm
+            JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
+            JOIN @batch b ON b.CustomerMembershipID = cm.CustomerMembershipID
+            JOIN @expired e ON e.PaymentID = b.PaymentID
+            WHERE cm.Status = 'PENDING';
+
+            SELECT b.PaymentID, b.CreatedAt, b.CustomerID,
+                   CAST(CASE WHEN e.PaymentID IS NULL THEN 0 ELSE 1 END AS BIT) AS Expired
+            FROM @batch b
+            LEFT JOIN @expired e ON e.PaymentID = b.PaymentID
+            ORDER BY b.CreatedAt, b.PaymentID;
+            """;
+
+    /** Same as {@link #EXPIRE_MEMBERSHIP_CHECKOUTS_SQL} for product orders waiting on their payment. */
+    static final String EXPIRE_ORDER_CHECKOUTS_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @afterCreatedAt DATETIME2 = ?;
+            DECLARE @afterPaymentId INT = ?;
+            DECLARE @cutoff DATETIME2 = DATEADD(MINUTE, -?, SYSDATETIME());
+            DECLARE @batch TABLE (
+                PaymentID INT PRIMARY KEY,
+                CreatedAt DATETIME2 NOT NULL,
+                OrderID INT NOT NULL,
+                CustomerID INT NOT NULL
+            );
+            DECLARE @expired TABLE (PaymentID INT PRIMARY KEY);
+
+            INSERT INTO @batch (PaymentID, CreatedAt, OrderID, CustomerID)
+            SELECT TOP (?) p.PaymentID, p.CreatedAt, p.OrderID, o.CustomerID
+            FROM dbo.Payments p WITH (UPDLOCK, READPAST)
+            JOIN dbo.Orders o ON o.OrderID = p.OrderID
+            WHERE p.Status = 'PENDING'
+              AND p.CreatedAt < @cutoff
+              AND (p.CreatedAt > @afterCreatedAt OR (p.CreatedAt = @afterCreatedAt AND p.PaymentID > @afterPaymentId))
+              AND o.Status = 'PENDING'
+            ORDER BY p.CreatedAt, p.PaymentID;
+
+            UPDATE p
+            SET p.Status = 'CANCELLED',
+                p.PayOS_Status = COALESCE(NULLIF(p.PayOS_Status, ''), 'EXPIRED')
+            OUTPUT INSERTED.PaymentID INTO @expired
+            FROM dbo.Payments p
+            JOIN @batch b ON b.PaymentID = p.PaymentID
+            WHERE p.Status = 'PENDING';
+
+            UPDATE o
+            SET o.Status = 'CANCELLED',
+                o.UpdatedAt = SYSDATETIME()
+            FROM dbo.Orders o
+            JOIN @batch b ON b.OrderID = o.OrderID
+            JOIN @expired e ON e.PaymentID = b.PaymentID
+            WHERE o.Status = 'PENDING';
+
+            SELECT b.PaymentID, b.CreatedAt, b.CustomerID,
+                   CAST(CASE WHEN e.PaymentID IS NULL THEN 0 ELSE 1 END AS BIT) AS Expired
+            FROM @batch b
+            LEFT JOIN @expired e ON e.PaymentID = b.PaymentID
+            ORDER BY b.CreatedAt, b.PaymentID;
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MembershipStateResolver membershipStates;
+
+    @Value("${app.checkout.sweeper.batch-size:200}")
+    private int batchSize;
+
+    public PendingCheckoutSweeper(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            MembershipStateResolver membershipStates) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.membershipStates = membershipStates;
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.sweeper.interval-ms:60000}",
+            initialDelayString = "${app.checkout.sweeper.interval-ms:60000}")
+    public void sweep() {
+        Set<Integer> membershipCustomers = new HashSet<>();
+        int memberships = expireBatches(EXPIRE_MEMBERSHIP_CHECKOUTS_SQL, membershipCustomers);
+        for (Integer customerId : membershipCustomers) {
+            membershipStates.invalidateCustomer(customerId);
+        }
+        int orders = expireBatches(EXPIRE_ORDER_CHECKOUTS_SQL, new HashSet<>());
+        if (memberships > 0 || orders > 0) {
+            log.info("Expired {} membership and {} product checkouts older than {} minutes.", memberships,
+                    orders, SWEEP_AFTER_MINUTES);
+        }
+    }
+
+    /** Runs {@code sql} batch by batch; returns how many checkouts expired and collects their customers. */
+    int expireBatches(String sql, Set<Integer> customerIds) {
+        int size = Math.max(1, batchSize);
+        Timestamp afterCreatedAt = SWEEP_START;
+        int afterPaymentId = 0;
+        int expired = 0;
+        List<SweptPayment> batch;
+        do {
+            Timestamp cursorCreatedAt = afterCreatedAt;
+            int cursorPaymentId = afterPaymentId;
+            batch = transactionTemplate.execute(status -> jdbcTemplate.query(sql, (rs, rowNum) -> new SweptPayment(
+                    rs.getInt("PaymentID"),
+                    rs.getTimestamp("CreatedAt"),
+                    rs.getInt("CustomerID"),
+                    rs.getBoolean("Expired")),
+                    cursorCreatedAt, cursorPaymentId, SWEEP_AFTER_MINUTES, size));
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            for (SweptPayment payment : batch) {
+                if (payment.expired()) {
+                    expired++;
+                    customerIds.add(payment.customerId());
+                }
+            }
+            SweptPayment last = batch.getLast();
+            afterCreatedAt = last.createdAt();
+            afterPaymentId = last.paymentId();
+        } while (batch.size() == size);
+        return expired;
+    }
+
+    private record SweptPayment(int paymentId, Timestamp createdAt, int customerId, boolean expired) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.gymcore.backend.common.service;
+
+/**
+ * Sends one kind of queued email. Implementations load whatever they need from {@code referenceId};
+ * throwing schedules a retry with backoff.
+ */
+public interface EmailOutboxHandler {
+
+    String messageType();
+
+    void deliver(int referenceId) throws Exception;
+}
@@ -0,0 +1,133 @@
+package com.gymcore.backend.common.service;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Persistent queue of emails that must not be sent on the request thread (PayOS webhook, for one).
+ * Rows are claimed in batches by {@link com.gymcore.backend.common.scheduling.EmailOutboxDispatcher}.
+ */
+@Service
+public class EmailOutboxService {
+
+    // UPDLOCK, HOLDLOCK serializes concurrent enqueues for one reference; UX_EmailOutbox_OneQueued backs it up.
+    static final String ENQUEUE_SQL = """
+            INSERT INTO dbo.EmailOutbox (MessageType, ReferenceID)
+            SELECT ?, ?
+            WHERE NOT EXISTS (
+                SELECT 1
+                FROM dbo.EmailOutbox WITH (UPDLOCK, HOLDLOCK)
+                WHERE MessageType = ?
+                  AND ReferenceID = ?
+                  AND Status IN ('PENDING', 'SENDING')
+            )
+            """;
+    // READPAST lets several backend instances claim disjoint batches; SENDING rows left behind by a
+    // crashed instance become claimable again after the stale window.
+    static final String CLAIM_BATCH_SQL = """
+            WITH batch AS (
+                SELECT TOP (?) *
+                FROM dbo.EmailOutbox WITH (UPDLOCK, READPAST, ROWLOCK)
+                WHERE (Status = 'PENDING' AND NextAttemptAt <= SYSDATETIME())
+                   OR (Status = 'SENDING' AND UpdatedAt < DATEADD(MINUTE, -?, SYSDATETIME()))
+                ORDER BY NextAttemptAt, EmailOutboxID
+            )
+            UPDATE batch
+            SET Status = 'SENDING',
+                Attempts = Attempts + 1,
+                UpdatedAt = SYSDATETIME()
+            OUTPUT inserted.EmailOutboxID, inserted.MessageType, inserted.ReferenceID, inserted.Attempts;
+            """;
+    static final String MARK_SENT_SQL = """
+            UPDATE dbo.EmailOutbox
+            SET Status = 'SENT',
+                SentAt = SYSDATETIME(),
+                LastError = NULL,
+                UpdatedAt = SYSDATETIME()
+            WHERE EmailOutboxID = ?
+            """;
+    static final String MARK_RETRY_SQL = """
+            UPDATE dbo.EmailOutbox
+            SET Status = 'PENDING',
+                NextAttemptAt = DATEADD(SECOND, ?, SYSDATETIME()),
+                LastError = ?,
+                UpdatedAt = SYSDATETIME()
+            WHERE EmailOutboxID = ?
+            """;
+    static final String MARK_FAILED_SQL = """
+            UPDATE dbo.EmailOutbox
+            SET Status = 'FAILED',
+                LastError = ?,
+                UpdatedAt = SYSDATETIME()
+            WHERE EmailOutboxID = ?
+            """;
+
+    private static final int STALE_SENDING_MINUTES = 10;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.base-backoff-seconds:30}")
+    private long baseBackoffSeconds;
+
+    @Value("${app.mail.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    public EmailOutboxService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Queues one email. A message that is already waiting for the same reference is not queued twice.
+     */
+    public boolean enqueue(String messageType, int referenceId) {
+        try {
+            return jdbcTemplate.update(ENQUEUE_SQL, messageType, referenceId, messageType, referenceId) > 0;
+        } catch (DuplicateKeyException exception) {
+            // A concurrent enqueue for the same reference won; the message is already queued.
+            return false;
+        }
+    }
+
+    public List<OutboxMessage> claimBatch(int batchSize) {
+        return jdbcTemplate.query(CLAIM_BATCH_SQL, (rs, rowNum) -> new OutboxMessage(
+                rs.getLong("EmailOutboxID"),
+                rs.getString("MessageType"),
+                rs.getInt("ReferenceID"),
+                rs.getInt("Attempts")), batchSize, STALE_SENDING_MINUTES);
+    }
+
+    public void markSent(OutboxMessage message) {
+        jdbcTemplate.update(MARK_SENT_SQL, message.outboxId());
+    }
+
+    public void markFailed(OutboxMessage message, String error) {
+        String safeError = truncate(error == null || error.isBlank() ? "Unknown mail error." : error);
+        if (message.attempts() >= maxAttempts) {
+            jdbcTemplate.update(MARK_FAILED_SQL, safeError, message.outboxId());
+            return;
+        }
+        jdbcTemplate.update(MARK_RETRY_SQL, backoffSeconds(message.attempts()), safeError, message.outboxId());
+    }
+
+    /**
+     * Exponential backoff: base, 2x base, 4x base ... capped at the configured maximum.
+     */
+    long backoffSeconds(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(baseBackoffSeconds << exponent, maxBackoffSeconds);
+    }
+
+    private String truncate(String value) {
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    public record OutboxMessage(long outboxId, String messageType, int referenceId, int attempts) {
+    }
+}
@@ -0,0 +1,236 @@
+package com.gymcore.backend.common.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Customer-wide notifications recorded once in {@code dbo.NotificationBroadcasts} and fanned out by
+ * {@link com.gymcore.backend.common.scheduling.NotificationBroadcastDispatcher} in UserID-ordered chunks.
+ * Each chunk is its own short statement and the cursor ({@code LastUserID}) is saved after it, so a
+ * restarted backend resumes where the last chunk ended. Re-running a chunk is harmless: the insert skips
+ * users that already have the notification.
+ */
+@Service
+public class NotificationBroadcastService {
+
+    public static final int NO_MORE_RECIPIENTS = -1;
+
+    static final String ENQUEUE_SQL = """
+            INSERT INTO dbo.NotificationBroadcasts (NotificationType, Title, Message, LinkUrl, RefId, ExtraKey)
+            SELECT ?, ?, ?, ?, ?, ?
+            WHERE NOT EXISTS (
+                SELECT 1
+                FROM dbo.NotificationBroadcasts
+                WHERE NotificationType = ?
+                  AND ((RefId = ?) OR (RefId IS NULL AND ? IS NULL))
+                  AND ((ExtraKey = ?) OR (ExtraKey IS NULL AND ? IS NULL))
+                  AND Status IN ('PENDING', 'RUNNING')
+            )
+            """;
+    // RUNNING rows whose worker stopped touching them (crash, redeploy) are claimed again and resume
+    // from their saved cursor.
+    static final String CLAIM_NEXT_SQL = """
+            WITH next AS (
+                SELECT TOP (1) *
+                FROM dbo.NotificationBroadcasts WITH (UPDLOCK, READPAST, ROWLOCK)
+                WHERE Status = 'PENDING'
+                   OR (Status = 'RUNNING' AND UpdatedAt < DATEADD(MINUTE, -?, SYSDATETIME()))
+                ORDER BY CreatedAt, BroadcastID
+            )
+            UPDATE next
+            SET Status = 'RUNNING',
+                Attempts = Attempts + 1,
+                UpdatedAt = SYSDATETIME()
+            OUTPUT inserted.BroadcastID, inserted.NotificationType, inserted.Title, inserted.Message,
+                   inserted.LinkUrl, inserted.RefId, inserted.ExtraKey, inserted.LastUserID,
+                   inserted.Attempts;
+            """;
+    static final String NEXT_CHUNK_END_SQL = """
+            SELECT MAX(chunk.UserID)
+            FROM (
+                SELECT TOP (?) u.UserID
+                FROM dbo.Users u
+                JOIN dbo.Roles r ON r.RoleID = u.RoleID
+                WHERE r.RoleName = N'Customer'
+                  AND u.IsActive = 1
+                  AND u.UserID > ?
+                ORDER BY u.UserID
+            ) chunk
+            """;
+    static final String DELIVER_CHUNK_SQL = """
+            INSERT INTO dbo.Notifications (UserID, NotificationType, Title, Message, LinkUrl, RefId, ExtraKey)
+            SELECT u.UserID, ?, ?, ?, ?, ?, ?
+            FROM dbo.Users u
+            JOIN dbo.Roles r ON r.RoleID = u.RoleID
+            WHERE r.RoleName = N'Customer'
+              AND u.IsActive = 1
+              AND u.UserID > ?
+              AND u.UserID <= ?
+              AND NOT EXISTS (
+                  SELECT 1
+                  FROM dbo.Notifications n
+                  WHERE n.UserID = u.UserID
+                    AND n.NotificationType = ?
+                    AND ((n.RefId = ?) OR (n.RefId IS NULL AND ? IS NULL))
+                    AND ((n.ExtraKey = ?) OR (n.ExtraKey IS NULL AND ? IS NULL))
+              )
+            """;
+    static final String ADVANCE_CURSOR_SQL = """
+            UPDATE dbo.NotificationBroadcasts
+            SET LastUserID = ?,
+                DeliveredCount = DeliveredCount + ?,
+                UpdatedAt = SYSDATETIME()
+            WHERE BroadcastID = ?
+              AND LastUserID = ?
+            """;
+    static final String MARK_COMPLETED_SQL = """
+            UPDATE dbo.NotificationBroadcasts
+            SET Status = 'COMPLETED',
+                LastError = NULL,
+                CompletedAt = SYSDATETIME(),
+                UpdatedAt = SYSDATETIME()
+            WHERE BroadcastID = ?
+            """;
+    static final String MARK_RETRY_SQL = """
+            UPDATE dbo.NotificationBroadcasts
+            SET Status = 'PENDING',
+                LastError = ?,
+                UpdatedAt = SYSDATETIME()
+            WHERE BroadcastID = ?
+            """;
+    static final String MARK_FAILED_SQL = """
+            UPDATE dbo.NotificationBroadcasts
+            SET Status = 'FAILED',
+                LastError = ?,
+                UpdatedAt = SYSDATETIME()
+            WHERE BroadcastID = ?
+            """;
+    static final String RECENT_BROADCASTS_SQL = """
+            SELECT TOP (?) BroadcastID, NotificationType, Title, RefId, Status, LastUserID, DeliveredCount,
+                   Attempts, LastError, CreatedAt, UpdatedAt, CompletedAt
+            FROM dbo.NotificationBroadcasts
+            ORDER BY CreatedAt DESC, BroadcastID DESC
+            """;
+
+    private static final int STALE_RUNNING_MINUTES = 10;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.notifications.broadcast.max-attempts:5}")
+    private int maxAttempts;
+
+    public NotificationBroadcastService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Records a broadcast to every active customer. An identical broadcast that is still being delivered is
+     * not recorded twice.
+     */
+    public boolean enqueue(String type, String title, String message, String linkUrl, Integer refId,
+            String extraKey) {
+        return jdbcTemplate.update(ENQUEUE_SQL, type, title, message, linkUrl, refId, extraKey,
+                type, refId, refId, extraKey, extraKey) > 0;
+    }
+
+    public Broadcast claimNext() {
+        List<Broadcast> claimed = jdbcTemplate.query(CLAIM_NEXT_SQL, this::mapBroadcast, STALE_RUNNING_MINUTES);
+        return claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    /**
+     * Delivers the next {@code chunkSize} customers after {@code afterUserId} and saves the cursor.
+     *
+     * @return the new cursor, or {@link #NO_MORE_RECIPIENTS} once every customer has been reached
+     */
+    public int deliverNextChunk(Broadcast broadcast, int afterUserId, int chunkSize) {
+        Integer chunkEnd = jdbcTemplate.queryForObject(NEXT_CHUNK_END_SQL, Integer.class, chunkSize, afterUserId);
+        if (chunkEnd == null) {
+            return NO_MORE_RECIPIENTS;
+        }
+        int delivered = jdbcTemplate.update(DELIVER_CHUNK_SQL,
+                broadcast.notificationType(), broadcast.title(), broadcast.message(), broadcast.linkUrl(),
+                broadcast.refId(), broadcast.extraKey(),
+                afterUserId, chunkEnd,
+                broadcast.notificationType(), broadcast.refId(), broadcast.refId(),
+                broadcast.extraKey(), broadcast.extraKey());
+        int advanced = jdbcTemplate.update(ADVANCE_CURSOR_SQL, chunkEnd, delivered, broadcast.broadcastId(),
+                afterUserId);
+        if (advanced == 0) {
+            throw new IllegalStateException("Broadcast " + broadcast.broadcastId()
+                    + " cursor moved; another worker has taken it over.");
+        }
+        if (delivered > 0) {
+            eventPublisher.publishEvent(NotificationsChangedEvent.forUserRange(afterUserId + 1, chunkEnd));
+        }
+        return chunkEnd;
+    }
+
+    public void markCompleted(Broadcast broadcast) {
+        jdbcTemplate.update(MARK_COMPLETED_SQL, broadcast.broadcastId());
+    }
+
+    public void markFailed(Broadcast broadcast, String error) {
+        String safeError = truncate(error == null || error.isBlank() ? "Unknown broadcast error." : error);
+        jdbcTemplate.update(broadcast.attempts() >= maxAttempts ? MARK_FAILED_SQL : MARK_RETRY_SQL, safeError,
+                broadcast.broadcastId());
+    }
+
+    public List<Map<String, Object>> recentBroadcasts(int limit) {
+        return jdbcTemplate.query(RECENT_BROADCASTS_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("broadcastId", rs.getLong("BroadcastID"));
+            row.put("notificationType", rs.getString("NotificationType"));
+            row.put("title", rs.getString("Title"));
+            row.put("refId", rs.getObject("RefId"));
+            row.put("status", rs.getString("Status"));
+            row.put("lastUserId", rs.getInt("LastUserID"));
+            row.put("deliveredCount", rs.getInt("DeliveredCount"));
+            row.put("attempts", rs.getInt("Attempts"));
+            row.put("lastError", rs.getString("LastError"));
+            row.put("createdAt", rs.getTimestamp("CreatedAt"));
+            row.put("updatedAt", rs.getTimestamp("UpdatedAt"));
+            row.put("completedAt", rs.getTimestamp("CompletedAt"));
+            return row;
+        }, limit);
+    }
+
+    private Broadcast mapBroadcast(ResultSet rs, int rowNum) throws SQLException {
+        return new Broadcast(
+                rs.getLong("BroadcastID"),
+                rs.getString("NotificationType"),
+                rs.getString("Title"),
+                rs.getString("Message"),
+                rs.getString("LinkUrl"),
+                (Integer) rs.getObject("RefId"),
+                rs.getString("ExtraKey"),
+                rs.getInt("LastUserID"),
+                rs.getInt("Attempts"));
+    }
+
+    private String truncate(String value) {
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    public record Broadcast(
+            long broadcastId,
+            String notificationType,
+            String title,
+            String message,
+            String linkUrl,
+            Integer refId,
+            String extraKey,
+            int lastUserId,
+            int attempts) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.gymcore.backend.common.service;
+
+import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Per-user server-sent event streams for the notification bell. Writers publish a
+ * {@link NotificationsChangedEvent}; after their transaction commits, every open stream of an affected user
+ * receives the rows it has not seen yet ({@code notification} events) and its unread count
+ * ({@code unread-count}). An idle stream holds no thread: the servlet request is async and pushes run on
+ * virtual threads.
+ */
+@Service
+public class NotificationPushService {
+
+    static final int MAX_DELTA_ROWS = 50;
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationPushService.class);
+
+    private final CurrentUserService currentUserService;
+    private final UserNotificationService notificationService;
+    private final ConcurrentSkipListMap<Integer, UserChannel> channels = new ConcurrentSkipListMap<>();
+    private final ExecutorService pushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.notifications.push.timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    public NotificationPushService(CurrentUserService currentUserService, UserNotificationService notificationService) {
+        this.currentUserService = currentUserService;
+        this.notificationService = notificationService;
+    }
+
+    public SseEmitter subscribe(String authorizationHeader) {
+        CurrentUserService.UserInfo user = currentUserService.requireUser(authorizationHeader);
+        int userId = user.userId();
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        int latestNotificationId = notificationService.latestNotificationId(userId);
+        channels.compute(userId, (key, existing) -> {
+            UserChannel target = existing == null ? new UserChannel(latestNotificationId) : existing;
+            target.emitters.add(emitter);
+            return target;
+        });
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(failure -> unsubscribe(userId, emitter));
+        send(userId, emitter, "unread-count", Map.of("unreadCount", notificationService.countUnread(userId)));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsChanged(NotificationsChangedEvent event) {
+        ConcurrentNavigableMap<Integer, UserChannel> affected =
+                channels.subMap(event.fromUserId(), true, event.toUserId(), true);
+        for (Integer userId : affected.keySet()) {
+            pushExecutor.execute(() -> pushDelta(userId));
+        }
+    }
+
+    /** Comment frames keep proxies from closing idle streams and flush out connections that are already gone. */
+    @Scheduled(fixedDelayString = "${app.notifications.push.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        channels.forEach((userId, channel) -> {
+            for (SseEmitter emitter : channel.emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException exception) {
+                    unsubscribe(userId, emitter);
+                }
+            }
+        });
+    }
+
+    public int openStreamCount() {
+        return channels.values().stream().mapToInt(channel -> channel.emitters.size()).sum();
+    }
+
+    @PreDestroy
+    void closeStreams() {
+        pushExecutor.shutdownNow();
+        channels.values().forEach(channel -> channel.emitters.forEach(SseEmitter::complete));
+        channels.clear();
+    }
+
+    void pushDelta(int userId) {
+        UserChannel channel = channels.get(userId);
+        if (channel == null) {
+            return;
+        }
+        // One push per user at a time so two events cannot both send the same rows.
+        channel.lock.lock();
+        try {
+            List<Map<String, Object>> delta;
+            do {
+                delta = notificationService.findNotificationsAfter(userId, channel.lastNotificationId,
+                        MAX_DELTA_ROWS);
+                for (Map<String, Object> notification : delta) {
+                    broadcast(userId, channel, "notification", notification);
+                    channel.lastNotificationId = Math.max(channel.lastNotificationId,
+                            (Integer) notification.get("notificationId"));
+                }
+            } while (delta.size() == MAX_DELTA_ROWS);
+            broadcast(userId, channel, "unread-count", Map.of("unreadCount", notificationService.countUnread(userId)));
+        } catch (RuntimeException exception) {
+            log.warn("Notification push for user {} failed: {}", userId, exception.getMessage());
+        } finally {
+            channel.lock.unlock();
+        }
+    }
+
+    private void broadcast(int userId, UserChannel channel, String name, Map<String, Object> data) {
+        for (SseEmitter emitter : channel.emitters) {
+            send(userId, emitter, name, data);
+        }
+    }
+
+    private void send(int userId, SseEmitter emitter, String name, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException exception) {
+            // The browser went away or the emitter already completed.
+            unsubscribe(userId, emitter);
+        }
+    }
+
+    private void unsubscribe(int userId, SseEmitter emitter) {
+        channels.computeIfPresent(userId, (key, channel) -> {
+            channel.emitters.remove(emitter);
+            return channel.emitters.isEmpty() ? null : channel;
+        });
+    }
+
+    private static final class UserChannel {
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private int lastNotificationId;
+
+        private UserChannel(int lastNotificationId) {
+            this.lastNotificationId = lastNotificationId;
+        }
+    }
+}
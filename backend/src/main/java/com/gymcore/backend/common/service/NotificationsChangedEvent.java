@@ -0,0 +1,20 @@
+package com.gymcore.backend.common.service;
+
+/**
+ * Published after {@code dbo.Notifications} changes for the users in {@code [fromUserId, toUserId]}.
+ * Bulk writers (daily jobs, broadcast chunks) publish a range instead of listing every recipient.
+ */
+public record NotificationsChangedEvent(int fromUserId, int toUserId) {
+
+    public static NotificationsChangedEvent forUser(int userId) {
+        return new NotificationsChangedEvent(userId, userId);
+    }
+
+    public static NotificationsChangedEvent forUserRange(int fromUserId, int toUserId) {
+        return new NotificationsChangedEvent(fromUserId, toUserId);
+    }
+
+    public static NotificationsChangedEvent allUsers() {
+        return new NotificationsChangedEvent(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+}
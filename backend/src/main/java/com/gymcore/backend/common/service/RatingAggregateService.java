@@ -0,0 +1,184 @@
+package com.gymcore.backend.common.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintained rating aggregates (sum, count and a 1-5 histogram) per product and per coach, so list and detail
+ * reads join one row instead of grouping {@code ProductReviews} / {@code CoachFeedback}. Review writes apply
+ * their delta through {@link #applyProductRating} / {@link #applyCoachRating} inside the caller's transaction;
+ * {@link #rebuild()} recomputes everything from the review tables.
+ *
+ * <p>Until docs/alter.txt section 4g has created the stats tables, the stats sources fall back to grouping the
+ * review tables and the apply methods do nothing.
+ */
+@Service
+public class RatingAggregateService {
+
+    static final String PRODUCT_STATS_SQL = """
+            SELECT ProductID,
+                   CAST(RatingSum AS FLOAT) / NULLIF(RatingCount, 0) AS AverageRating,
+                   RatingCount AS ReviewCount,
+                   Rating1Count, Rating2Count, Rating3Count, Rating4Count, Rating5Count
+            FROM dbo.ProductRatingStats
+            """;
+    static final String LEGACY_PRODUCT_STATS_SQL = """
+            SELECT ProductID,
+                   AVG(CAST(Rating AS FLOAT)) AS AverageRating,
+                   COUNT(*) AS ReviewCount,
+                   SUM(CASE WHEN Rating = 1 THEN 1 ELSE 0 END) AS Rating1Count,
+                   SUM(CASE WHEN Rating = 2 THEN 1 ELSE 0 END) AS Rating2Count,
+                   SUM(CASE WHEN Rating = 3 THEN 1 ELSE 0 END) AS Rating3Count,
+                   SUM(CASE WHEN Rating = 4 THEN 1 ELSE 0 END) AS Rating4Count,
+                   SUM(CASE WHEN Rating = 5 THEN 1 ELSE 0 END) AS Rating5Count
+            FROM dbo.ProductReviews
+            GROUP BY ProductID
+            """;
+    static final String COACH_STATS_SQL = """
+            SELECT CoachID,
+                   CAST(RatingSum AS FLOAT) / NULLIF(RatingCount, 0) AS AvgRating,
+                   RatingCount AS ReviewCount,
+                   Rating1Count, Rating2Count, Rating3Count, Rating4Count, Rating5Count
+            FROM dbo.CoachRatingStats
+            """;
+    static final String LEGACY_COACH_STATS_SQL = """
+            SELECT CoachID,
+                   AVG(CAST(Rating AS FLOAT)) AS AvgRating,
+                   COUNT(*) AS ReviewCount,
+                   SUM(CASE WHEN Rating = 1 THEN 1 ELSE 0 END) AS Rating1Count,
+                   SUM(CASE WHEN Rating = 2 THEN 1 ELSE 0 END) AS Rating2Count,
+                   SUM(CASE WHEN Rating = 3 THEN 1 ELSE 0 END) AS Rating3Count,
+                   SUM(CASE WHEN Rating = 4 THEN 1 ELSE 0 END) AS Rating4Count,
+                   SUM(CASE WHEN Rating = 5 THEN 1 ELSE 0 END) AS Rating5Count
+            FROM dbo.CoachFeedback
+            GROUP BY CoachID
+            """;
+
+    /**
+     * Adds one rating and removes another (either may be NULL) for a key. HOLDLOCK keeps two first reviews of
+     * the same product from both inserting the stats row.
+     */
+    private static final String APPLY_DELTA_SQL_TEMPLATE = """
+            MERGE dbo.%1$s WITH (HOLDLOCK) AS target
+            USING (SELECT CAST(? AS INT) AS KeyID, CAST(? AS INT) AS AddedRating, CAST(? AS INT) AS RemovedRating) AS src
+                ON target.%2$s = src.KeyID
+            WHEN MATCHED THEN
+                UPDATE SET RatingSum = target.RatingSum + COALESCE(src.AddedRating, 0) - COALESCE(src.RemovedRating, 0),
+                           RatingCount = target.RatingCount + IIF(src.AddedRating IS NULL, 0, 1)
+                                         - IIF(src.RemovedRating IS NULL, 0, 1),
+                           Rating1Count = target.Rating1Count + IIF(src.AddedRating = 1, 1, 0) - IIF(src.RemovedRating = 1, 1, 0),
+                           Rating2Count = target.Rating2Count + IIF(src.AddedRating = 2, 1, 0) - IIF(src.RemovedRating = 2, 1, 0),
+                           Rating3Count = target.Rating3Count + IIF(src.AddedRating = 3, 1, 0) - IIF(src.RemovedRating = 3, 1, 0),
+                           Rating4Count = target.Rating4Count + IIF(src.AddedRating = 4, 1, 0) - IIF(src.RemovedRating = 4, 1, 0),
+                           Rating5Count = target.Rating5Count + IIF(src.AddedRating = 5, 1, 0) - IIF(src.RemovedRating = 5, 1, 0),
+                           UpdatedAt = SYSDATETIME()
+            WHEN NOT MATCHED AND src.AddedRating IS NOT NULL THEN
+                INSERT (%2$s, RatingSum, RatingCount, Rating1Count, Rating2Count, Rating3Count, Rating4Count, Rating5Count)
+                VALUES (src.KeyID, src.AddedRating, 1, IIF(src.AddedRating = 1, 1, 0), IIF(src.AddedRating = 2, 1, 0),
+                        IIF(src.AddedRating = 3, 1, 0), IIF(src.AddedRating = 4, 1, 0), IIF(src.AddedRating = 5, 1, 0));
+            """;
+    static final String APPLY_PRODUCT_DELTA_SQL = APPLY_DELTA_SQL_TEMPLATE.formatted("ProductRatingStats", "ProductID");
+    static final String APPLY_COACH_DELTA_SQL = APPLY_DELTA_SQL_TEMPLATE.formatted("CoachRatingStats", "CoachID");
+
+    /** Recomputes every row from the review table; keys whose reviews are all gone drop back to zero. */
+    private static final String REBUILD_SQL_TEMPLATE = """
+            MERGE dbo.%1$s WITH (HOLDLOCK) AS target
+            USING (
+                SELECT %2$s AS KeyID,
+                       SUM(Rating) AS RatingSum,
+                       COUNT(*) AS RatingCount,
+                       SUM(CASE WHEN Rating = 1 THEN 1 ELSE 0 END) AS Rating1Count,
+                       SUM(CASE WHEN Rating = 2 THEN 1 ELSE 0 END) AS Rating2Count,
+                       SUM(CASE WHEN Rating = 3 THEN 1 ELSE 0 END) AS Rating3Count,
+                       SUM(CASE WHEN Rating = 4 THEN 1 ELSE 0 END) AS Rating4Count,
+                       SUM(CASE WHEN Rating = 5 THEN 1 ELSE 0 END) AS Rating5Count
+                FROM dbo.%3$s WITH (TABLOCK)
+                GROUP BY %2$s
+            ) AS src
+                ON target.%2$s = src.KeyID
+            WHEN MATCHED THEN
+                UPDATE SET RatingSum = src.RatingSum, RatingCount = src.RatingCount,
+                           Rating1Count = src.Rating1Count, Rating2Count = src.Rating2Count,
+                           Rating3Count = src.Rating3Count, Rating4Count = src.Rating4Count,
+                           Rating5Count = src.Rating5Count, UpdatedAt = SYSDATETIME()
+            WHEN NOT MATCHED BY TARGET THEN
+                INSERT (%2$s, RatingSum, RatingCount, Rating1Count, Rating2Count, Rating3Count, Rating4Count, Rating5Count)
+                VALUES (src.KeyID, src.RatingSum, src.RatingCount, src.Rating1Count, src.Rating2Count,
+                        src.Rating3Count, src.Rating4Count, src.Rating5Count)
+            WHEN NOT MATCHED BY SOURCE AND target.RatingCount <> 0 THEN
+                UPDATE SET RatingSum = 0, RatingCount = 0, Rating1Count = 0, Rating2Count = 0, Rating3Count = 0,
+                           Rating4Count = 0, Rating5Count = 0, UpdatedAt = SYSDATETIME();
+            """;
+    static final String REBUILD_PRODUCT_STATS_SQL = REBUILD_SQL_TEMPLATE.formatted(
+            "ProductRatingStats", "ProductID", "ProductReviews");
+    static final String REBUILD_COACH_STATS_SQL = REBUILD_SQL_TEMPLATE.formatted(
+            "CoachRatingStats", "CoachID", "CoachFeedback");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaCapabilities schemaCapabilities;
+
+    public RatingAggregateService(JdbcTemplate jdbcTemplate, SchemaCapabilities schemaCapabilities) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaCapabilities = schemaCapabilities;
+    }
+
+    /**
+     * Derived table with ProductID, AverageRating, ReviewCount and Rating1Count..Rating5Count; products without
+     * reviews may be missing, so callers LEFT JOIN it.
+     */
+    public String productStatsSql() {
+        return schemaCapabilities.ratingAggregates() ? PRODUCT_STATS_SQL : LEGACY_PRODUCT_STATS_SQL;
+    }
+
+    /** Like {@link #productStatsSql()} keyed by CoachID, with the average named AvgRating. */
+    public String coachStatsSql() {
+        return schemaCapabilities.ratingAggregates() ? COACH_STATS_SQL : LEGACY_COACH_STATS_SQL;
+    }
+
+    /**
+     * Must run in the same transaction as the review write it mirrors.
+     *
+     * @param addedRating the rating written, or null for a delete
+     * @param removedRating the rating replaced or deleted, or null for a new review
+     */
+    public void applyProductRating(int productId, Integer addedRating, Integer removedRating) {
+        applyDelta(APPLY_PRODUCT_DELTA_SQL, productId, addedRating, removedRating);
+    }
+
+    /** Same contract as {@link #applyProductRating}, for coach feedback. */
+    public void applyCoachRating(int coachId, Integer addedRating, Integer removedRating) {
+        applyDelta(APPLY_COACH_DELTA_SQL, coachId, addedRating, removedRating);
+    }
+
+    /**
+     * Recomputes both stats tables from the review tables, e.g. after a bulk import or a manual fix. Requires
+     * the stats tables ({@link SchemaCapabilities#ratingAggregates()}).
+     */
+    public Map<String, Object> rebuild() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productRowsChanged", jdbcTemplate.update(REBUILD_PRODUCT_STATS_SQL));
+        result.put("coachRowsChanged", jdbcTemplate.update(REBUILD_COACH_STATS_SQL));
+        return result;
+    }
+
+    private void applyDelta(String sql, int keyId, Integer addedRating, Integer removedRating) {
+        if (!schemaCapabilities.ratingAggregates() || Objects.equals(addedRating, removedRating)) {
+            return;
+        }
+        jdbcTemplate.update(sql, keyId, addedRating, removedRating);
+    }
+
+    /** Histogram as {@code {"1": n, ..., "5": n}} from a row of a stats source. */
+    public static Map<String, Object> histogram(ResultSet rs) throws SQLException {
+        Map<String, Object> histogram = new LinkedHashMap<>();
+        for (int rating = 1; rating <= 5; rating++) {
+            histogram.put(String.valueOf(rating), rs.getInt("Rating" + rating + "Count"));
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,160 @@
+package com.gymcore.backend.common.service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Optional schema features that docs/alter.txt adds after the base script. The columns are read from
+ * INFORMATION_SCHEMA in one query at startup and again on {@link #refresh()}, so request paths branch on a
+ * cached flag instead of probing metadata. Run the refresh after applying alter.txt to a live database.
+ */
+@Service
+public class SchemaCapabilities {
+
+    static final String CAPABILITY_COLUMNS_SQL = """
+            SELECT TABLE_NAME, COLUMN_NAME
+            FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE TABLE_SCHEMA = 'dbo'
+              AND TABLE_NAME IN ('OrderInvoices', 'OrderInvoiceItems', 'PTRecurringRequests', 'Promotions',
+                                 'ProductRatingStats', 'CoachRatingStats', 'CheckIns', 'CheckInHourlyRollup')
+            """;
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaCapabilities.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object loadLock = new Object();
+
+    private volatile Capabilities capabilities;
+
+    public SchemaCapabilities(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void loadOnStartup() {
+        try {
+            Capabilities loaded = refresh();
+            log.info("Schema capabilities loaded: {}", loaded.toMap());
+        } catch (RuntimeException exception) {
+            // Leave it unresolved; the first request that needs a flag loads it instead of failing startup.
+            log.warn("Failed to read schema capabilities at startup: {}", exception.getMessage());
+        }
+    }
+
+    public Capabilities current() {
+        Capabilities resolved = capabilities;
+        if (resolved != null) {
+            return resolved;
+        }
+        synchronized (loadLock) {
+            return capabilities != null ? capabilities : refresh();
+        }
+    }
+
+    public Capabilities refresh() {
+        Set<String> columns = new HashSet<>();
+        jdbcTemplate.query(CAPABILITY_COLUMNS_SQL, rs -> {
+            columns.add(key(rs.getString("TABLE_NAME"), rs.getString("COLUMN_NAME")));
+        });
+        Capabilities loaded = Capabilities.from(columns);
+        capabilities = loaded;
+        return loaded;
+    }
+
+    public boolean invoiceTables() {
+        return current().invoiceTables();
+    }
+
+    public boolean invoiceItemsTable() {
+        return current().invoiceItemsTable();
+    }
+
+    public boolean pickupTracking() {
+        return current().pickupTracking();
+    }
+
+    public boolean invoiceEmailTracking() {
+        return current().invoiceEmailTracking();
+    }
+
+    public boolean ptRequestDenyReason() {
+        return current().ptRequestDenyReason();
+    }
+
+    public boolean promotionClaimCap() {
+        return current().promotionClaimCap();
+    }
+
+    public boolean ratingAggregates() {
+        return current().ratingAggregates();
+    }
+
+    public boolean checkinScanIds() {
+        return current().checkinScanIds();
+    }
+
+    public boolean checkinHourlyRollup() {
+        return current().checkinHourlyRollup();
+    }
+
+    private static String key(String tableName, String columnName) {
+        return tableName + "." + columnName;
+    }
+
+    public record Capabilities(
+            boolean invoiceTables,
+            boolean invoiceItemsTable,
+            boolean pickupTracking,
+            boolean invoiceEmailTracking,
+            boolean ptRequestDenyReason,
+            boolean promotionClaimCap,
+            boolean ratingAggregates,
+            boolean checkinScanIds,
+            boolean checkinHourlyRollup,
+            LocalDateTime loadedAt) {
+
+        static Capabilities from(Set<String> columns) {
+            // A table that exists always has at least its key column.
+            boolean invoiceTables = columns.contains(key("OrderInvoices", "InvoiceID"));
+            return new Capabilities(
+                    invoiceTables,
+                    columns.contains(key("OrderInvoiceItems", "InvoiceItemID")),
+                    invoiceTables
+                            && columns.contains(key("OrderInvoices", "PickedUpAt"))
+                            && columns.contains(key("OrderInvoices", "PickedUpByUserID")),
+                    invoiceTables
+                            && columns.contains(key("OrderInvoices", "EmailSendError"))
+                            && columns.contains(key("OrderInvoices", "EmailSentAt")),
+                    columns.contains(key("PTRecurringRequests", "DenyReason")),
+                    columns.contains(key("Promotions", "MaxClaims")),
+                    columns.contains(key("ProductRatingStats", "ProductID"))
+                            && columns.contains(key("CoachRatingStats", "CoachID")),
+                    columns.contains(key("CheckIns", "ClientScanID")),
+                    columns.contains(key("CheckInHourlyRollup", "CheckInDate")),
+                    LocalDateTime.now());
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("invoiceTables", invoiceTables);
+            map.put("invoiceItemsTable", invoiceItemsTable);
+            map.put("pickupTracking", pickupTracking);
+            map.put("invoiceEmailTracking", invoiceEmailTracking);
+            map.put("ptRequestDenyReason", ptRequestDenyReason);
+            map.put("promotionClaimCap", promotionClaimCap);
+            map.put("ratingAggregates", ratingAggregates);
+            map.put("checkinScanIds", checkinScanIds);
+            map.put("checkinHourlyRollup", checkinHourlyRollup);
+            map.put("loadedAt", loadedAt);
+            return map;
+        }
+    }
+}
@@ -1,29 +1,95 @@
 package com.gymcore.backend.common.service;
 
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class UserNotificationService {
 
+    static final int DEFAULT_FEED_PAGE_SIZE = 20;
+    static final int MAX_FEED_PAGE_SIZE = 100;
+
+    // Types that stay ACTION_REQUIRED while unread; ACTIONABLE_TYPE_SQL mirrors resolveReminderIntent so the
+    // feed can filter and count buckets in SQL.
+    private static final List<String> ACTION_REQUIRED_TYPES = List.of(
+            "PROMOTION_POST_PUBLISHED",
+            "PT_REPLACEMENT_OFFER",
+            "PT_REQUEST_CREATED",
+            "PT_RESCHEDULE_REQUESTED",
+            "PT_SESSION_CANCELLED_BY_COACH",
+            "PT_REQUEST_DENIED",
+            "PT_RESCHEDULE_DENIED");
+    static final String ACTIONABLE_TYPE_SQL = "(NotificationType LIKE 'MEMBERSHIP[_]EXPIRES%'"
+            + " OR NotificationType LIKE '%PICKUP%'"
+            + " OR NotificationType IN ("
+            + String.join(", ", ACTION_REQUIRED_TYPES.stream().map(type -> "'" + type + "'").toList())
+            + "))";
+    static final String FEED_COUNTS_SQL = """
+            SELECT COUNT(*) AS Total,
+                   COALESCE(SUM(CASE WHEN IsRead = 0 THEN 1 ELSE 0 END), 0) AS Unread,
+                   COALESCE(SUM(CASE WHEN IsRead = 0 AND %s THEN 1 ELSE 0 END), 0) AS UnreadActionable
+            FROM dbo.Notifications
+            WHERE UserID = ?
+              AND (? = 0 OR IsRead = 0)
+            """.formatted(ACTIONABLE_TYPE_SQL);
+    static final String FEED_PAGE_SQL_TEMPLATE = """
+            SELECT TOP (?) NotificationID, NotificationType, Title, Message, LinkUrl, RefId, ExtraKey, IsRead, CreatedAt
+            FROM dbo.Notifications
+            WHERE UserID = ?
+              AND (? = 0 OR IsRead = 0)%s%s
+            ORDER BY CreatedAt DESC, NotificationID DESC
+            """;
+    static final String NOTIFICATIONS_AFTER_SQL = """
+            SELECT TOP (?) NotificationID, NotificationType, Title, Message, LinkUrl, RefId, ExtraKey, IsRead, CreatedAt
+            FROM dbo.Notifications
+            WHERE UserID = ?
+              AND NotificationID > ?
+            ORDER BY NotificationID
+            """;
+    static final String UNREAD_COUNT_SQL = """
+            SELECT COUNT(*)
+            FROM dbo.Notifications
+            WHERE UserID = ?
+              AND IsRead = 0
+            """;
+    static final String LATEST_NOTIFICATION_ID_SQL = """
+            SELECT MAX(NotificationID)
+            FROM dbo.Notifications
+            WHERE UserID = ?
+            """;
+    private static final String FEED_CURSOR_CLAUSE =
+            "\n  AND (CreatedAt < ? OR (CreatedAt = ? AND NotificationID < ?))";
+
     private final JdbcTemplate jdbcTemplate;
     private final CurrentUserService currentUserService;
+    private final NotificationBroadcastService broadcastService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserNotificationService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService) {
+    public UserNotificationService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
+            NotificationBroadcastService broadcastService, ApplicationEventPublisher eventPublisher) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
+        this.broadcastService = broadcastService;
+        this.eventPublisher = eventPublisher;
     }
 
     public void notifyUser(int userId, String type, String title, String message, String linkUrl, Integer refId,
             String extraKey) {
-        jdbcTemplate.update("""
+        int inserted = jdbcTemplate.update("""
                 INSERT INTO dbo.Notifications (UserID, NotificationType, Title, Message, LinkUrl, RefId, ExtraKey)
                 SELECT ?, ?, ?, ?, ?, ?, ?
                 WHERE NOT EXISTS (
@@ -36,27 +102,18 @@ public class UserNotificationService {
                 )
                 """, userId, type, title, message, linkUrl, refId, extraKey,
                 userId, type, refId, refId, extraKey, extraKey);
+        if (inserted > 0) {
+            eventPublisher.publishEvent(NotificationsChangedEvent.forUser(userId));
+        }
     }
 
+    /**
+     * Queues the notification for every active customer; NotificationBroadcastDispatcher delivers it in
+     * chunks, so the caller's transaction only writes one row.
+     */
     public void notifyAllCustomers(String type, String title, String message, String linkUrl, Integer refId,
             String extraKey) {
-        jdbcTemplate.update("""
-                INSERT INTO dbo.Notifications (UserID, NotificationType, Title, Message, LinkUrl, RefId, ExtraKey)
-                SELECT u.UserID, ?, ?, ?, ?, ?, ?
-                FROM dbo.Users u
-                JOIN dbo.Roles r ON r.RoleID = u.RoleID
-                WHERE r.RoleName = N'Customer'
-                  AND u.IsActive = 1
-                  AND NOT EXISTS (
-                      SELECT 1
-                      FROM dbo.Notifications n
-                      WHERE n.UserID = u.UserID
-                        AND n.NotificationType = ?
-                        AND ((n.RefId = ?) OR (n.RefId IS NULL AND ? IS NULL))
-                        AND ((n.ExtraKey = ?) OR (n.ExtraKey IS NULL AND ? IS NULL))
-                  )
-                """, type, title, message, linkUrl, refId, extraKey,
-                type, refId, refId, extraKey, extraKey);
+        broadcastService.enqueue(type, title, message, linkUrl, refId, extraKey);
     }
 
     public Map<String, Object> getCurrentUserNotifications(String authorizationHeader, boolean unreadOnly) {
@@ -114,6 +171,70 @@ public class UserNotificationService {
         return response;
     }
 
+    /**
+     * One page of the bell feed, newest first. {@code cursor} is the {@code nextCursor} of the previous page;
+     * the page is a seek on (UserID, CreatedAt, NotificationID) and the bucket counts come from one aggregate,
+     * so the cost does not grow with the user's notification history.
+     */
+    public Map<String, Object> getCurrentUserNotificationFeed(String authorizationHeader, boolean unreadOnly,
+            String view, String cursor, Integer pageSize) {
+        CurrentUserService.UserInfo user = currentUserService.requireUser(authorizationHeader);
+        ReminderFeedView requestedView = ReminderFeedView.from(view);
+        int limit = pageSize == null ? DEFAULT_FEED_PAGE_SIZE : Math.max(1, Math.min(pageSize, MAX_FEED_PAGE_SIZE));
+        FeedCursor after = FeedCursor.decode(cursor);
+
+        List<Object> args = new ArrayList<>(List.of(limit + 1, user.userId(), unreadOnly ? 1 : 0));
+        if (after != null) {
+            args.add(after.createdAt());
+            args.add(after.createdAt());
+            args.add(after.notificationId());
+        }
+        String sql = FEED_PAGE_SQL_TEMPLATE.formatted(feedViewClause(requestedView),
+                after == null ? "" : FEED_CURSOR_CLAUSE);
+        List<Map<String, Object>> rows = jdbcTemplate.query(sql, this::mapNotification, args.toArray());
+        boolean hasMore = rows.size() > limit;
+        List<Map<String, Object>> notifications = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? FeedCursor.from(notifications.get(limit - 1)).encode() : null;
+
+        Map<String, Object> counts = jdbcTemplate.queryForObject(FEED_COUNTS_SQL, (rs, rowNum) -> {
+            int total = rs.getInt("Total");
+            int actionable = rs.getInt("UnreadActionable");
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("total", total);
+            map.put("actionable", actionable);
+            map.put("history", total - actionable);
+            map.put("unread", rs.getInt("Unread"));
+            map.put("unreadActionable", actionable);
+            return map;
+        }, user.userId(), unreadOnly ? 1 : 0);
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("pageSize", limit);
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", nextCursor);
+
+        Map<String, Object> appliedFilters = new LinkedHashMap<>();
+        appliedFilters.put("unreadOnly", unreadOnly);
+        appliedFilters.put("view", requestedView.apiValue());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("notifications", notifications);
+        response.put("page", page);
+        response.put("unreadCount", counts.get("unread"));
+        response.put("counts", counts);
+        response.put("appliedFilters", appliedFilters);
+        return response;
+    }
+
+    private String feedViewClause(ReminderFeedView view) {
+        // Same split as buildReminderProjection: ACTIONABLE means unread and action-required.
+        return switch (view) {
+            case ACTIONABLE -> "\n  AND IsRead = 0 AND " + ACTIONABLE_TYPE_SQL;
+            case HISTORY -> "\n  AND (IsRead = 1 OR NOT " + ACTIONABLE_TYPE_SQL + ")";
+            case ALL -> "";
+        };
+    }
+
     public Map<String, Object> markNotificationReadState(String authorizationHeader, int notificationId, boolean isRead) {
         CurrentUserService.UserInfo user = currentUserService.requireUser(authorizationHeader);
         int updated = jdbcTemplate.update("""
@@ -121,6 +242,9 @@ public class UserNotificationService {
                 SET IsRead = ?
                 WHERE NotificationID = ? AND UserID = ?
                 """, isRead, notificationId, user.userId());
+        if (updated > 0) {
+            eventPublisher.publishEvent(NotificationsChangedEvent.forUser(user.userId()));
+        }
         return Map.of(
                 "success", updated > 0,
                 "notificationId", notificationId,
@@ -134,11 +258,28 @@ public class UserNotificationService {
                 SET IsRead = 1
                 WHERE UserID = ? AND IsRead = 0
                 """, user.userId());
+        if (updated > 0) {
+            eventPublisher.publishEvent(NotificationsChangedEvent.forUser(user.userId()));
+        }
         return Map.of(
                 "success", true,
                 "updatedCount", updated);
     }
 
+    public List<Map<String, Object>> findNotificationsAfter(int userId, int afterNotificationId, int limit) {
+        return jdbcTemplate.query(NOTIFICATIONS_AFTER_SQL, this::mapNotification, limit, userId, afterNotificationId);
+    }
+
+    public int countUnread(int userId) {
+        Integer count = jdbcTemplate.queryForObject(UNREAD_COUNT_SQL, Integer.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    public int latestNotificationId(int userId) {
+        Integer latest = jdbcTemplate.queryForObject(LATEST_NOTIFICATION_ID_SQL, Integer.class, userId);
+        return latest == null ? 0 : latest;
+    }
+
     private Map<String, Object> mapNotification(ResultSet rs, int rowNum) throws SQLException {
         Map<String, Object> notification = new LinkedHashMap<>();
         notification.put("notificationId", rs.getInt("NotificationID"));
@@ -197,13 +338,7 @@ public class UserNotificationService {
         }
         if (type.startsWith("MEMBERSHIP_EXPIRES")
                 || type.contains("PICKUP")
-                || "PROMOTION_POST_PUBLISHED".equals(type)
-                || "PT_REPLACEMENT_OFFER".equals(type)
-                || "PT_REQUEST_CREATED".equals(type)
-                || "PT_RESCHEDULE_REQUESTED".equals(type)
-                || "PT_SESSION_CANCELLED_BY_COACH".equals(type)
-                || "PT_REQUEST_DENIED".equals(type)
-                || "PT_RESCHEDULE_DENIED".equals(type)) {
+                || ACTION_REQUIRED_TYPES.contains(type)) {
             return ReminderIntent.ACTION_REQUIRED;
         }
         return ReminderIntent.INFORMATIONAL;
@@ -272,6 +407,33 @@ public class UserNotificationService {
         return "Open notification";
     }
 
+    private record FeedCursor(Timestamp createdAt, int notificationId) {
+
+        private static FeedCursor from(Map<String, Object> notification) {
+            return new FeedCursor(Timestamp.from(Instant.parse(String.valueOf(notification.get("createdAt")))),
+                    (Integer) notification.get("notificationId"));
+        }
+
+        private static FeedCursor decode(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('|');
+                return new FeedCursor(Timestamp.from(Instant.parse(decoded.substring(0, separator))),
+                        Integer.parseInt(decoded.substring(separator + 1)));
+            } catch (RuntimeException exception) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid notification cursor.");
+            }
+        }
+
+        private String encode() {
+            String raw = createdAt.toInstant() + "|" + notificationId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     private enum ReminderFeedView {
         ALL("all"),
         ACTIONABLE("actionable"),
@@ -1,15 +1,84 @@
 package com.gymcore.backend.config;
 
+import com.gymcore.backend.common.http.UpstreamGuard;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * One client per upstream so a stalled provider only exhausts its own connections. Each is a JDK
+ * {@link HttpClient} (pooled keep-alive connections) with explicit connect/read timeouts, wrapped by an
+ * {@link UpstreamGuard}.
+ */
 @Configuration
 public class RestClientConfig {
 
+    @Value("${app.http.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.http.circuit.open-seconds:30}")
+    private long openSeconds;
+
     @Bean
-    RestTemplate restTemplate() {
-        return new RestTemplate();
+    UpstreamGuard payOsUpstream(@Value("${app.http.payos.max-concurrent:20}") int maxConcurrent) {
+        return guard("payos", maxConcurrent);
+    }
+
+    @Bean
+    UpstreamGuard googleUpstream(@Value("${app.http.google.max-concurrent:20}") int maxConcurrent) {
+        return guard("google", maxConcurrent);
+    }
+
+    @Bean
+    UpstreamGuard geminiUpstream(@Value("${app.http.gemini.max-concurrent:32}") int maxConcurrent) {
+        return guard("gemini", maxConcurrent);
+    }
+
+    @Bean
+    RestTemplate payOsRestTemplate(
+            @Qualifier("payOsUpstream") UpstreamGuard payOsUpstream,
+            @Value("${app.http.payos.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${app.http.payos.read-timeout-ms:10000}") long readTimeoutMs) {
+        return restTemplate(payOsUpstream, connectTimeoutMs, readTimeoutMs);
+    }
+
+    @Bean
+    RestTemplate googleRestTemplate(
+            @Qualifier("googleUpstream") UpstreamGuard googleUpstream,
+            @Value("${app.http.google.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${app.http.google.read-timeout-ms:5000}") long readTimeoutMs) {
+        return restTemplate(googleUpstream, connectTimeoutMs, readTimeoutMs);
     }
-}
 
+    /** The read timeout bounds the wait for response headers; a streamed reply may take longer to finish. */
+    @Bean
+    RestTemplate geminiRestTemplate(
+            @Qualifier("geminiUpstream") UpstreamGuard geminiUpstream,
+            @Value("${app.http.gemini.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${app.http.gemini.read-timeout-ms:60000}") long readTimeoutMs) {
+        return restTemplate(geminiUpstream, connectTimeoutMs, readTimeoutMs);
+    }
+
+    private UpstreamGuard guard(String name, int maxConcurrent) {
+        return new UpstreamGuard(name, Math.max(1, maxConcurrent), Math.max(1, failureThreshold),
+                Duration.ofSeconds(openSeconds));
+    }
+
+    private static RestTemplate restTemplate(UpstreamGuard guard, long connectTimeoutMs, long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(guard);
+        return restTemplate;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gymcore.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Active when {@code spring.threads.virtual.enabled=true}. Spring Boot then runs MVC handlers, {@code @Scheduled}
+ * jobs and async tasks on virtual threads; this wraps the DataSource in a {@link BoundedDataSource} so that
+ * concurrency only ever waits for, rather than exhausts, the Hikari pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadJdbcConfig {
+
+    private static final int FALLBACK_POOL_SIZE = 10;
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        int configuredLimit = environment.getProperty("app.jdbc.concurrency-limit", Integer.class, 0);
+        long acquireTimeoutMs = environment.getProperty("app.jdbc.acquire-timeout-ms", Long.class, 10_000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BoundedDataSource) {
+                    return bean;
+                }
+                return new BoundedDataSource(dataSource, concurrencyLimit(dataSource, configuredLimit),
+                        acquireTimeoutMs);
+            }
+        };
+    }
+
+    static int concurrencyLimit(DataSource dataSource, int configuredLimit) {
+        if (configuredLimit > 0) {
+            return configuredLimit;
+        }
+        // Default to the pool size: waiting beyond it only moves the queue into Hikari.
+        return dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : FALLBACK_POOL_SIZE;
+    }
+}
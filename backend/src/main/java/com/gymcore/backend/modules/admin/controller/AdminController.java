@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -34,6 +35,51 @@ public class AdminController {
                 adminService.execute("get-dashboard-summary", authorizationHeader, null));
     }
 
+    @PostMapping("/schema-capabilities/refresh")
+    public ApiResponse<Map<String, Object>> refreshSchemaCapabilities(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        return ApiResponse.ok("Schema capabilities refreshed.",
+                adminService.execute("refresh-schema-capabilities", authorizationHeader, null));
+    }
+
+    @PostMapping("/ratings/rebuild")
+    public ApiResponse<Map<String, Object>> rebuildRatingAggregates(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        return ApiResponse.ok("Rating aggregates rebuilt.",
+                adminService.execute("rebuild-rating-aggregates", authorizationHeader, null));
+    }
+
+    @GetMapping("/checkins/occupancy")
+    public ApiResponse<Map<String, Object>> getOccupancy(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        return ApiResponse.ok("Current occupancy retrieved.",
+                adminService.execute("get-occupancy", authorizationHeader, null));
+    }
+
+    @GetMapping("/checkins/heatmap")
+    public ApiResponse<Map<String, Object>> getCheckinHeatmap(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
+            @RequestParam(required = false) Integer weeks) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("weeks", weeks);
+        return ApiResponse.ok("Check-in heatmap retrieved.",
+                adminService.execute("get-checkin-heatmap", authorizationHeader, filters));
+    }
+
+    @GetMapping("/notification-broadcasts")
+    public ApiResponse<Map<String, Object>> getNotificationBroadcasts(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        return ApiResponse.ok("Notification broadcasts retrieved.",
+                adminService.execute("get-notification-broadcasts", authorizationHeader, null));
+    }
+
+    @GetMapping("/upstream-health")
+    public ApiResponse<Map<String, Object>> getUpstreamHealth(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        return ApiResponse.ok("Upstream health retrieved.",
+                adminService.execute("get-upstream-health", authorizationHeader, null));
+    }
+
     @GetMapping("/revenue/overview")
     public ApiResponse<Map<String, Object>> getRevenueOverview(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
@@ -67,6 +113,26 @@ public class AdminController {
                 .body(new ByteArrayResource(export.content()));
     }
 
+    @GetMapping("/revenue/export/stream.xlsx")
+    public ResponseEntity<StreamingResponseBody> streamRevenueExcel(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
+            @RequestParam(required = false) String preset,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) String year) {
+        AdminService.StreamingRevenueExport export = adminService.streamRevenueExcel(
+                authorizationHeader, collectRevenueFilters(preset, from, to, month, year));
+        StreamingResponseBody body = output -> export.writer().writeTo(output);
+        return ResponseEntity.ok()
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(export.fileName()).build().toString())
+                .contentType(MediaType.parseMediaType(
+                        "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
     @GetMapping("/reports/revenue")
     public ApiResponse<Map<String, Object>> getRevenueReport(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
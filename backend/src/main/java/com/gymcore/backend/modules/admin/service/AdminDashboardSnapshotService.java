@@ -0,0 +1,444 @@
+package com.gymcore.backend.modules.admin.service;
+
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds the admin dashboard summary and keeps it for {@code app.admin.dashboard-cache-seconds}. All counters
+ * come from one aggregated statement; the five short lists are read alongside it. Payment, membership and PT
+ * writes call {@link #invalidate()} so the next load is rebuilt instead of waiting out the TTL.
+ */
+@Service
+public class AdminDashboardSnapshotService {
+
+    // The invoice block is spliced in from the current SchemaCapabilities, see invoiceCountersSql.
+    static final String DASHBOARD_COUNTERS_SQL_TEMPLATE = """
+            SELECT
+                (SELECT COUNT(1) FROM dbo.Customers) AS TotalCustomers,
+                m.ActiveCustomers,
+                m.ActiveMemberships,
+                m.ScheduledMemberships,
+                m.ExpiringSoonMemberships,
+                s.TotalCoaches,
+                s.TotalReceptionists,
+                s.TotalAdmins,
+                s.LockedStaffAccounts,
+                pr.PendingPtRequests,
+                pr.ActivePtArrangements,
+                (SELECT COUNT(1)
+                 FROM dbo.PTSessions
+                 WHERE SessionDate = d.Today
+                   AND Status = 'SCHEDULED') AS SessionsScheduledToday,
+                inv.AwaitingPickupOrders,
+                inv.PickedUpToday,
+                inv.InvoiceEmailFailures,
+                (SELECT COUNT(1)
+                 FROM dbo.Promotions
+                 WHERE IsActive = 1
+                   AND ValidFrom <= SYSDATETIME()
+                   AND ValidTo >= SYSDATETIME()) AS ActiveCoupons,
+                (SELECT COUNT(1)
+                 FROM dbo.PromotionPosts
+                 WHERE IsActive = 1
+                   AND StartAt <= SYSDATETIME()
+                   AND EndAt >= SYSDATETIME()) AS ActivePromotionPosts
+            FROM (SELECT CAST(? AS DATE) AS Today, CAST(? AS DATE) AS NextWeek) d
+            CROSS APPLY (
+                SELECT COUNT(DISTINCT CASE WHEN cm.Status = 'ACTIVE' THEN cm.CustomerID END) AS ActiveCustomers,
+                       COUNT(CASE WHEN cm.Status = 'ACTIVE' THEN 1 END) AS ActiveMemberships,
+                       COUNT(CASE WHEN cm.Status = 'SCHEDULED' THEN 1 END) AS ScheduledMemberships,
+                       COUNT(CASE WHEN cm.Status = 'ACTIVE'
+                                       AND cm.EndDate >= d.Today
+                                       AND cm.EndDate <= d.NextWeek THEN 1 END) AS ExpiringSoonMemberships
+                FROM dbo.CustomerMemberships cm
+            ) m
+            CROSS APPLY (
+                SELECT COUNT(CASE WHEN r.RoleName = 'Coach' THEN 1 END) AS TotalCoaches,
+                       COUNT(CASE WHEN r.RoleName = 'Receptionist' THEN 1 END) AS TotalReceptionists,
+                       COUNT(CASE WHEN r.RoleName = 'Admin' THEN 1 END) AS TotalAdmins,
+                       COUNT(CASE WHEN r.RoleName IN ('Admin', 'Coach', 'Receptionist')
+                                       AND u.IsLocked = 1 THEN 1 END) AS LockedStaffAccounts
+                FROM dbo.Users u
+                JOIN dbo.Roles r ON r.RoleID = u.RoleID
+            ) s
+            CROSS APPLY (
+                SELECT COUNT(CASE WHEN Status = 'PENDING' THEN 1 END) AS PendingPtRequests,
+                       COUNT(CASE WHEN Status = 'APPROVED' AND EndDate >= d.Today THEN 1 END) AS ActivePtArrangements
+                FROM dbo.PTRecurringRequests
+            ) pr
+            CROSS APPLY (
+            %s
+            ) inv
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaCapabilities schemaCapabilities;
+    private final AtomicLong generation = new AtomicLong();
+    private final Object rebuildLock = new Object();
+
+    @Value("${app.admin.dashboard-cache-seconds:15}")
+    private long cacheSeconds;
+
+    private volatile CountersStatement countersStatement;
+    private volatile Snapshot snapshot;
+
+    public AdminDashboardSnapshotService(JdbcTemplate jdbcTemplate, SchemaCapabilities schemaCapabilities) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaCapabilities = schemaCapabilities;
+    }
+
+    public Map<String, Object> current() {
+        Snapshot cached = snapshot;
+        if (isFresh(cached)) {
+            return cached.summary();
+        }
+        // One rebuild at a time: admins on auto-refresh would otherwise all miss together and stampede.
+        synchronized (rebuildLock) {
+            cached = snapshot;
+            if (isFresh(cached)) {
+                return cached.summary();
+            }
+            long builtForGeneration = generation.get();
+            Map<String, Object> summary = Collections.unmodifiableMap(buildSummary());
+            if (cacheSeconds > 0 && generation.get() == builtForGeneration) {
+                snapshot = new Snapshot(summary, builtForGeneration, System.nanoTime() + cacheSeconds * 1_000_000_000L);
+            }
+            return summary;
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private boolean isFresh(Snapshot cached) {
+        return cached != null
+                && cached.generation() == generation.get()
+                && System.nanoTime() - cached.expiresAtNanos() < 0;
+    }
+
+    private Map<String, Object> buildSummary() {
+        LocalDate today = LocalDate.now();
+        LocalDate nextWeek = today.plusDays(7);
+        SchemaCapabilities.Capabilities capabilities = schemaCapabilities.current();
+        DashboardCounters counters = jdbcTemplate.queryForObject(countersSql(capabilities),
+                (rs, rowNum) -> mapCounters(rs), today, nextWeek);
+
+        Map<String, Object> customerMetrics = Map.of(
+                "totalCustomers", counters.totalCustomers(),
+                "activeCustomers", counters.activeCustomers());
+
+        Map<String, Object> membershipMetrics = Map.of(
+                "activeMemberships", counters.activeMemberships(),
+                "scheduledMemberships", counters.scheduledMemberships(),
+                "expiringSoonMemberships", counters.expiringSoonMemberships());
+
+        Map<String, Object> staffMetrics = Map.of(
+                "totalCoaches", counters.totalCoaches(),
+                "totalReceptionists", counters.totalReceptionists(),
+                "totalAdmins", counters.totalAdmins(),
+                "lockedStaffAccounts", counters.lockedStaffAccounts());
+
+        Map<String, Object> ptMetrics = Map.of(
+                "pendingPtRequests", counters.pendingPtRequests(),
+                "activePtArrangements", counters.activePtArrangements(),
+                "sessionsScheduledToday", counters.sessionsScheduledToday());
+
+        Map<String, Object> commerceMetrics = new LinkedHashMap<>();
+        commerceMetrics.put("awaitingPickupOrders", counters.awaitingPickupOrders());
+        commerceMetrics.put("pickedUpToday", counters.pickedUpToday());
+        commerceMetrics.put("invoiceEmailFailures", counters.invoiceEmailFailures());
+        commerceMetrics.put("pickupTrackingAvailable", capabilities.pickupTracking());
+        commerceMetrics.put("invoiceEmailTrackingAvailable", capabilities.invoiceEmailTracking());
+
+        Map<String, Object> promotionMetrics = Map.of(
+                "activeCoupons", counters.activeCoupons(),
+                "activePromotionPosts", counters.activePromotionPosts());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("customerMetrics", customerMetrics);
+        response.put("membershipMetrics", membershipMetrics);
+        response.put("staffMetrics", staffMetrics);
+        response.put("ptMetrics", ptMetrics);
+        response.put("commerceMetrics", commerceMetrics);
+        response.put("promotionMetrics", promotionMetrics);
+        response.put("recentPayments", getRecentPayments());
+        response.put("awaitingPickupOrders", capabilities.pickupTracking() ? getAwaitingPickupOrders() : List.of());
+        response.put("expiringMemberships", getExpiringMemberships(today, nextWeek));
+        response.put("pendingPtRequests", getPendingPtRequests());
+        response.put("invoiceEmailFailures", capabilities.invoiceEmailTracking() ? getRecentInvoiceFailures() : List.of());
+        response.put("alerts", buildAlerts(customerMetrics, membershipMetrics, staffMetrics, ptMetrics, commerceMetrics,
+                promotionMetrics));
+        return response;
+    }
+
+    private String countersSql(SchemaCapabilities.Capabilities capabilities) {
+        CountersStatement statement = countersStatement;
+        // Re-rendered only when an admin schema refresh has replaced the capabilities.
+        if (statement == null || statement.capabilities() != capabilities) {
+            statement = new CountersStatement(capabilities, DASHBOARD_COUNTERS_SQL_TEMPLATE.formatted(
+                    invoiceCountersSql(capabilities.pickupTracking(), capabilities.invoiceEmailTracking())));
+            countersStatement = statement;
+        }
+        return statement.sql();
+    }
+
+    static String invoiceCountersSql(boolean pickupTracking, boolean emailTracking) {
+        if (!pickupTracking && !emailTracking) {
+            return "SELECT 0 AS AwaitingPickupOrders, 0 AS PickedUpToday, 0 AS InvoiceEmailFailures";
+        }
+        return """
+                SELECT %s AS AwaitingPickupOrders,
+                       %s AS PickedUpToday,
+                       %s AS InvoiceEmailFailures
+                FROM dbo.OrderInvoices""".formatted(
+                pickupTracking ? "COUNT(CASE WHEN PickedUpAt IS NULL THEN 1 END)" : "0",
+                pickupTracking ? "COUNT(CASE WHEN CAST(PickedUpAt AS DATE) = d.Today THEN 1 END)" : "0",
+                emailTracking ? "COUNT(CASE WHEN EmailSendError IS NOT NULL AND EmailSentAt IS NULL THEN 1 END)" : "0");
+    }
+
+    private DashboardCounters mapCounters(ResultSet rs) throws SQLException {
+        return new DashboardCounters(
+                rs.getInt("TotalCustomers"),
+                rs.getInt("ActiveCustomers"),
+                rs.getInt("ActiveMemberships"),
+                rs.getInt("ScheduledMemberships"),
+                rs.getInt("ExpiringSoonMemberships"),
+                rs.getInt("TotalCoaches"),
+                rs.getInt("TotalReceptionists"),
+                rs.getInt("TotalAdmins"),
+                rs.getInt("LockedStaffAccounts"),
+                rs.getInt("PendingPtRequests"),
+                rs.getInt("ActivePtArrangements"),
+                rs.getInt("SessionsScheduledToday"),
+                rs.getInt("AwaitingPickupOrders"),
+                rs.getInt("PickedUpToday"),
+                rs.getInt("InvoiceEmailFailures"),
+                rs.getInt("ActiveCoupons"),
+                rs.getInt("ActivePromotionPosts"));
+    }
+
+    private List<Map<String, Object>> getRecentPayments() {
+        return jdbcTemplate.query("""
+                SELECT TOP (5)
+                    p.PaymentID,
+                    p.Amount,
+                    COALESCE(p.PaidAt, p.CreatedAt) AS EffectivePaidAt,
+                    CASE WHEN p.OrderID IS NOT NULL THEN 'ORDER' ELSE 'MEMBERSHIP' END AS PaymentTarget,
+                    COALESCE(orderUser.FullName, membershipUser.FullName) AS CustomerName
+                FROM dbo.Payments p
+                LEFT JOIN dbo.Orders o ON o.OrderID = p.OrderID
+                LEFT JOIN dbo.Users orderUser ON orderUser.UserID = o.CustomerID
+                LEFT JOIN dbo.CustomerMemberships cm ON cm.CustomerMembershipID = p.CustomerMembershipID
+                LEFT JOIN dbo.Users membershipUser ON membershipUser.UserID = cm.CustomerID
+                WHERE p.Status = 'SUCCESS'
+                ORDER BY COALESCE(p.PaidAt, p.CreatedAt) DESC, p.PaymentID DESC
+                """, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("paymentId", rs.getInt("PaymentID"));
+            row.put("amount", rs.getBigDecimal("Amount"));
+            row.put("paidAt", rs.getTimestamp("EffectivePaidAt"));
+            row.put("paymentTarget", rs.getString("PaymentTarget"));
+            row.put("customerName", rs.getString("CustomerName"));
+            row.put("currency", "VND");
+            return row;
+        });
+    }
+
+    private List<Map<String, Object>> getAwaitingPickupOrders() {
+        return jdbcTemplate.query("""
+                SELECT TOP (5)
+                    InvoiceID,
+                    InvoiceCode,
+                    OrderID,
+                    RecipientName,
+                    TotalAmount,
+                    PaidAt
+                FROM dbo.OrderInvoices
+                WHERE PickedUpAt IS NULL
+                ORDER BY PaidAt DESC, InvoiceID DESC
+                """, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("invoiceId", rs.getInt("InvoiceID"));
+            row.put("invoiceCode", rs.getString("InvoiceCode"));
+            row.put("orderId", rs.getInt("OrderID"));
+            row.put("recipientName", rs.getString("RecipientName"));
+            row.put("totalAmount", rs.getBigDecimal("TotalAmount"));
+            row.put("paidAt", rs.getTimestamp("PaidAt"));
+            row.put("currency", "VND");
+            return row;
+        });
+    }
+
+    private List<Map<String, Object>> getExpiringMemberships(LocalDate today, LocalDate nextWeek) {
+        return jdbcTemplate.query("""
+                SELECT TOP (5)
+                    cm.CustomerMembershipID,
+                    u.FullName,
+                    mp.PlanName,
+                    cm.EndDate
+                FROM dbo.CustomerMemberships cm
+                JOIN dbo.Users u ON u.UserID = cm.CustomerID
+                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
+                WHERE cm.Status = 'ACTIVE'
+                  AND cm.EndDate >= ?
+                  AND cm.EndDate <= ?
+                ORDER BY cm.EndDate ASC, cm.CustomerMembershipID ASC
+                """, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("customerMembershipId", rs.getInt("CustomerMembershipID"));
+            row.put("customerName", rs.getString("FullName"));
+            row.put("planName", rs.getString("PlanName"));
+            row.put("endDate", rs.getDate("EndDate").toLocalDate().toString());
+            return row;
+        }, today, nextWeek);
+    }
+
+    private List<Map<String, Object>> getPendingPtRequests() {
+        return jdbcTemplate.query("""
+                SELECT TOP (5)
+                    request.PTRequestID,
+                    customer.FullName AS CustomerName,
+                    coach.FullName AS CoachName,
+                    request.StartDate,
+                    request.EndDate,
+                    request.CreatedAt
+                FROM dbo.PTRecurringRequests request
+                JOIN dbo.Users customer ON customer.UserID = request.CustomerID
+                LEFT JOIN dbo.Users coach ON coach.UserID = request.CoachID
+                WHERE request.Status = 'PENDING'
+                ORDER BY request.CreatedAt DESC, request.PTRequestID DESC
+                """, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("ptRequestId", rs.getInt("PTRequestID"));
+            row.put("customerName", rs.getString("CustomerName"));
+            row.put("coachName", rs.getString("CoachName"));
+            row.put("startDate", rs.getDate("StartDate") == null ? null : rs.getDate("StartDate").toLocalDate().toString());
+            row.put("endDate", rs.getDate("EndDate") == null ? null : rs.getDate("EndDate").toLocalDate().toString());
+            row.put("createdAt", rs.getTimestamp("CreatedAt"));
+            return row;
+        });
+    }
+
+    private List<Map<String, Object>> getRecentInvoiceFailures() {
+        return jdbcTemplate.query("""
+                SELECT TOP (5)
+                    InvoiceID,
+                    InvoiceCode,
+                    RecipientEmail,
+                    EmailSendError,
+                    PaidAt
+                FROM dbo.OrderInvoices
+                WHERE EmailSendError IS NOT NULL
+                ORDER BY PaidAt DESC, InvoiceID DESC
+                """, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("invoiceId", rs.getInt("InvoiceID"));
+            row.put("invoiceCode", rs.getString("InvoiceCode"));
+            row.put("recipientEmail", rs.getString("RecipientEmail"));
+            row.put("emailSendError", rs.getString("EmailSendError"));
+            row.put("paidAt", rs.getTimestamp("PaidAt"));
+            return row;
+        });
+    }
+
+    private List<Map<String, Object>> buildAlerts(
+            Map<String, Object> customerMetrics,
+            Map<String, Object> membershipMetrics,
+            Map<String, Object> staffMetrics,
+            Map<String, Object> ptMetrics,
+            Map<String, Object> commerceMetrics,
+            Map<String, Object> promotionMetrics) {
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        addAlert(alerts, "pickup-queue", "info",
+                asInt(commerceMetrics.get("awaitingPickupOrders")),
+                "Orders are waiting at the pickup desk.",
+                count -> count + " paid product orders are still awaiting pickup.");
+        addAlert(alerts, "invoice-email-failures", "warning",
+                asInt(commerceMetrics.get("invoiceEmailFailures")),
+                "Invoice email delivery failures need attention.",
+                count -> count + " product receipts failed email delivery.");
+        addAlert(alerts, "expiring-memberships", "warning",
+                asInt(membershipMetrics.get("expiringSoonMemberships")),
+                "Memberships are expiring soon.",
+                count -> count + " active memberships will expire in the next 7 days.");
+        addAlert(alerts, "pending-pt", "info",
+                asInt(ptMetrics.get("pendingPtRequests")),
+                "Pending PT requests are waiting for review.",
+                count -> count + " PT requests are still pending approval.");
+        addAlert(alerts, "locked-staff", "warning",
+                asInt(staffMetrics.get("lockedStaffAccounts")),
+                "Some staff accounts are locked.",
+                count -> count + " staff accounts are currently locked.");
+        addAlert(alerts, "inactive-coupons", "neutral",
+                asInt(promotionMetrics.get("activeCoupons")) == 0 ? 1 : 0,
+                "No active coupons are currently running.",
+                count -> "There are no active coupons available for customers right now.");
+        return alerts;
+    }
+
+    private void addAlert(
+            List<Map<String, Object>> alerts,
+            String key,
+            String severity,
+            int count,
+            String title,
+            Function<Integer, String> messageFactory) {
+        if (count <= 0) {
+            return;
+        }
+        Map<String, Object> alert = new LinkedHashMap<>();
+        alert.put("key", key);
+        alert.put("severity", severity);
+        alert.put("count", count);
+        alert.put("title", title);
+        alert.put("message", messageFactory.apply(count));
+        alerts.add(alert);
+    }
+
+    private int asInt(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return 0;
+    }
+
+    record DashboardCounters(
+            int totalCustomers,
+            int activeCustomers,
+            int activeMemberships,
+            int scheduledMemberships,
+            int expiringSoonMemberships,
+            int totalCoaches,
+            int totalReceptionists,
+            int totalAdmins,
+            int lockedStaffAccounts,
+            int pendingPtRequests,
+            int activePtArrangements,
+            int sessionsScheduledToday,
+            int awaitingPickupOrders,
+            int pickedUpToday,
+            int invoiceEmailFailures,
+            int activeCoupons,
+            int activePromotionPosts) {
+    }
+
+    private record CountersStatement(SchemaCapabilities.Capabilities capabilities, String sql) {
+    }
+
+    private record Snapshot(Map<String, Object> summary, long generation, long expiresAtNanos) {
+    }
+}
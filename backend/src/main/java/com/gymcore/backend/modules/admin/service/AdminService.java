@@ -1,12 +1,20 @@
 package com.gymcore.backend.modules.admin.service;
 
+import com.gymcore.backend.common.http.UpstreamGuard;
+import com.gymcore.backend.common.service.NotificationBroadcastService;
+import com.gymcore.backend.common.service.RatingAggregateService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.checkin.service.CheckinOccupancyService;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.Year;
 import java.time.YearMonth;
@@ -15,7 +23,6 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
@@ -24,6 +31,7 @@ import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -33,12 +41,66 @@ import org.springframework.web.server.ResponseStatusException;
 @Service
 public class AdminService {
 
+    // Revenue reads go to dbo.DailyRevenueRollup (one row per day, maintained by sp_ConfirmPaymentSuccess and
+    // reconciled nightly) instead of grouping dbo.Payments on COALESCE(PaidAt, CreatedAt).
+    static final String ROLLUP_REVENUE_SUM_SQL = """
+            SELECT COALESCE(SUM(TotalRevenue), 0)
+            FROM dbo.DailyRevenueRollup
+            WHERE RevenueDate >= ?
+              AND RevenueDate <= ?
+            """;
+    // Per-payment rows for the streamed export's Transactions sheet, read with a forward-only cursor.
+    static final String REVENUE_TRANSACTIONS_SQL = """
+            SELECT
+                p.PaymentID,
+                COALESCE(p.PaidAt, p.CreatedAt) AS PaidAt,
+                CASE WHEN p.OrderID IS NOT NULL THEN 'PRODUCT' ELSE 'MEMBERSHIP' END AS RevenueType,
+                COALESCE(p.OrderID, p.CustomerMembershipID) AS ReferenceID,
+                u.FullName AS CustomerName,
+                p.PaymentMethod,
+                p.Amount
+            FROM dbo.Payments p
+            LEFT JOIN dbo.Orders o ON o.OrderID = p.OrderID
+            LEFT JOIN dbo.CustomerMemberships cm ON cm.CustomerMembershipID = p.CustomerMembershipID
+            LEFT JOIN dbo.Users u ON u.UserID = COALESCE(o.CustomerID, cm.CustomerID)
+            WHERE p.Status = 'SUCCESS'
+              AND COALESCE(p.PaidAt, p.CreatedAt) >= ?
+              AND COALESCE(p.PaidAt, p.CreatedAt) < ?
+            ORDER BY COALESCE(p.PaidAt, p.CreatedAt) ASC, p.PaymentID ASC
+            """;
+    // Rows kept in memory per sheet by the streamed export; older rows are flushed to a temp file.
+    static final int EXPORT_ROW_WINDOW = 100;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final int RECENT_BROADCAST_LIMIT = 20;
+    static final String ROLLUP_REVENUE_SERIES_SQL = """
+            SELECT RevenueDate, ProductRevenue, MembershipRevenue, TotalRevenue
+            FROM dbo.DailyRevenueRollup
+            WHERE RevenueDate >= ?
+              AND RevenueDate <= ?
+            ORDER BY RevenueDate ASC
+            """;
+
     private final JdbcTemplate jdbcTemplate;
     private final CurrentUserService currentUserService;
-
-    public AdminService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService) {
+    private final AdminDashboardSnapshotService dashboardSnapshotService;
+    private final SchemaCapabilities schemaCapabilities;
+    private final NotificationBroadcastService notificationBroadcastService;
+    private final RatingAggregateService ratingAggregates;
+    private final CheckinOccupancyService occupancyService;
+    private final List<UpstreamGuard> upstreamGuards;
+
+    public AdminService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
+            AdminDashboardSnapshotService dashboardSnapshotService, SchemaCapabilities schemaCapabilities,
+            NotificationBroadcastService notificationBroadcastService, RatingAggregateService ratingAggregates,
+            CheckinOccupancyService occupancyService, List<UpstreamGuard> upstreamGuards) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.schemaCapabilities = schemaCapabilities;
+        this.notificationBroadcastService = notificationBroadcastService;
+        this.ratingAggregates = ratingAggregates;
+        this.occupancyService = occupancyService;
+        this.upstreamGuards = upstreamGuards;
     }
 
     public Map<String, Object> execute(String action, String authorizationHeader, Object payload) {
@@ -50,19 +112,62 @@ public class AdminService {
             case "get-product-revenue" -> getProductRevenue(safePayload);
             case "get-coach-feedback" -> getCoachFeedback();
             case "get-coach-students" -> getCoachStudents();
+            case "refresh-schema-capabilities" -> refreshSchemaCapabilities();
+            case "rebuild-rating-aggregates" -> rebuildRatingAggregates();
+            case "get-occupancy" -> occupancyService.occupancy();
+            case "get-checkin-heatmap" -> occupancyService.heatmap(
+                    safePayload.get("weeks") instanceof Number weeks ? weeks.intValue() : null);
+            case "get-notification-broadcasts" ->
+                    Map.of("broadcasts", notificationBroadcastService.recentBroadcasts(RECENT_BROADCAST_LIMIT));
+            case "get-upstream-health" ->
+                    Map.of("upstreams", upstreamGuards.stream().map(UpstreamGuard::snapshot).toList());
             default -> throw unsupportedAction(action);
         };
     }
 
+    /** The cached snapshot plus live occupancy, which comes from memory and would go stale in the snapshot. */
+    private Map<String, Object> getDashboardSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>(dashboardSnapshotService.current());
+        summary.put("occupancy", occupancyService.occupancy());
+        return summary;
+    }
+
+    private Map<String, Object> refreshSchemaCapabilities() {
+        Map<String, Object> capabilities = schemaCapabilities.refresh().toMap();
+        // The dashboard's invoice counters depend on these flags.
+        dashboardSnapshotService.invalidate();
+        return Map.of("capabilities", capabilities);
+    }
+
+    private Map<String, Object> rebuildRatingAggregates() {
+        if (!schemaCapabilities.ratingAggregates()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Rating stats tables are missing. Run docs/alter.txt to add ProductRatingStats and CoachRatingStats.");
+        }
+        return ratingAggregates.rebuild();
+    }
+
     public RevenueExport exportRevenueExcel(String authorizationHeader, Map<String, Object> filters) {
         currentUserService.requireAdmin(authorizationHeader);
         RevenueOverviewData overview = buildRevenueOverview(resolveRevenueRange(filters == null ? Map.of() : filters));
         return new RevenueExport(buildRevenueExportFileName(overview.range()), buildRevenueWorkbook(overview));
     }
 
+    /**
+     * Streaming variant of {@link #exportRevenueExcel}: also lists every SUCCESS payment in the range on a
+     * Transactions sheet. The admin check and the overview query run here; the workbook is written straight
+     * to the caller's output stream, keeping {@link #EXPORT_ROW_WINDOW} rows per sheet in memory.
+     */
+    public StreamingRevenueExport streamRevenueExcel(String authorizationHeader, Map<String, Object> filters) {
+        currentUserService.requireAdmin(authorizationHeader);
+        RevenueOverviewData overview = buildRevenueOverview(resolveRevenueRange(filters == null ? Map.of() : filters));
+        return new StreamingRevenueExport(buildRevenueExportFileName(overview.range()),
+                output -> writeStreamingRevenueWorkbook(overview, output));
+    }
+
     /**
      * Quick revenue report for PAID product orders.
-     * Uses Payments joined with Orders and Users.
+     * Lists orders from Payments joined with Orders and Users; the total comes from the daily revenue rollup.
      *
      * Input filters (optional, ISO dates):
      * - from: yyyy-MM-dd
@@ -119,6 +224,7 @@ public class AdminService {
                 },
                 (rs, rowNum) -> mapPaidOrder(rs));
 
+        // Summed from the listed orders so the header always matches the rows below it.
         BigDecimal totalRevenue = BigDecimal.ZERO;
         for (Map<String, Object> order : orders) {
             BigDecimal amount = (BigDecimal) order.getOrDefault("totalAmount", BigDecimal.ZERO);
@@ -136,140 +242,6 @@ public class AdminService {
         return response;
     }
 
-    private Map<String, Object> getDashboardSummary() {
-        LocalDate today = LocalDate.now();
-        LocalDate nextWeek = today.plusDays(7);
-        boolean invoiceTableAvailable = tableExists("OrderInvoices");
-        boolean pickupTrackingAvailable = invoiceTableAvailable && columnExists("OrderInvoices", "PickedUpAt");
-        boolean invoiceEmailTrackingAvailable = invoiceTableAvailable
-                && columnExists("OrderInvoices", "EmailSendError")
-                && columnExists("OrderInvoices", "EmailSentAt");
-
-        Map<String, Object> customerMetrics = Map.of(
-                "totalCustomers", queryInt("SELECT COUNT(1) FROM dbo.Customers"),
-                "activeCustomers", queryInt("""
-                        SELECT COUNT(DISTINCT cm.CustomerID)
-                        FROM dbo.CustomerMemberships cm
-                        WHERE cm.Status = 'ACTIVE'
-                        """));
-
-        Map<String, Object> membershipMetrics = Map.of(
-                "activeMemberships", queryInt("SELECT COUNT(1) FROM dbo.CustomerMemberships WHERE Status = 'ACTIVE'"),
-                "scheduledMemberships", queryInt("SELECT COUNT(1) FROM dbo.CustomerMemberships WHERE Status = 'SCHEDULED'"),
-                "expiringSoonMemberships", queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.CustomerMemberships
-                        WHERE Status = 'ACTIVE'
-                          AND EndDate >= ?
-                          AND EndDate <= ?
-                        """, today, nextWeek));
-
-        int totalCoaches = queryInt("""
-                SELECT COUNT(1)
-                FROM dbo.Users u
-                JOIN dbo.Roles r ON r.RoleID = u.RoleID
-                WHERE r.RoleName = 'Coach'
-                """);
-        int totalReceptionists = queryInt("""
-                SELECT COUNT(1)
-                FROM dbo.Users u
-                JOIN dbo.Roles r ON r.RoleID = u.RoleID
-                WHERE r.RoleName = 'Receptionist'
-                """);
-        int totalAdmins = queryInt("""
-                SELECT COUNT(1)
-                FROM dbo.Users u
-                JOIN dbo.Roles r ON r.RoleID = u.RoleID
-                WHERE r.RoleName = 'Admin'
-                """);
-        int lockedStaffAccounts = queryInt("""
-                SELECT COUNT(1)
-                FROM dbo.Users u
-                JOIN dbo.Roles r ON r.RoleID = u.RoleID
-                WHERE r.RoleName IN ('Admin', 'Coach', 'Receptionist')
-                  AND u.IsLocked = 1
-                """);
-
-        Map<String, Object> staffMetrics = Map.of(
-                "totalCoaches", totalCoaches,
-                "totalReceptionists", totalReceptionists,
-                "totalAdmins", totalAdmins,
-                "lockedStaffAccounts", lockedStaffAccounts);
-
-        Map<String, Object> ptMetrics = Map.of(
-                "pendingPtRequests", queryInt("SELECT COUNT(1) FROM dbo.PTRecurringRequests WHERE Status = 'PENDING'"),
-                "activePtArrangements", queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.PTRecurringRequests
-                        WHERE Status = 'APPROVED'
-                          AND EndDate >= ?
-                        """, today),
-                "sessionsScheduledToday", queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.PTSessions
-                        WHERE SessionDate = ?
-                          AND Status = 'SCHEDULED'
-                        """, today));
-
-        int awaitingPickupOrders = pickupTrackingAvailable
-                ? queryInt("SELECT COUNT(1) FROM dbo.OrderInvoices WHERE PickedUpAt IS NULL")
-                : 0;
-        int pickedUpToday = pickupTrackingAvailable
-                ? queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.OrderInvoices
-                        WHERE CAST(PickedUpAt AS DATE) = ?
-                        """, today)
-                : 0;
-        int invoiceEmailFailures = invoiceEmailTrackingAvailable
-                ? queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.OrderInvoices
-                        WHERE EmailSendError IS NOT NULL
-                          AND EmailSentAt IS NULL
-                        """)
-                : 0;
-
-        Map<String, Object> commerceMetrics = new LinkedHashMap<>();
-        commerceMetrics.put("awaitingPickupOrders", awaitingPickupOrders);
-        commerceMetrics.put("pickedUpToday", pickedUpToday);
-        commerceMetrics.put("invoiceEmailFailures", invoiceEmailFailures);
-        commerceMetrics.put("pickupTrackingAvailable", pickupTrackingAvailable);
-        commerceMetrics.put("invoiceEmailTrackingAvailable", invoiceEmailTrackingAvailable);
-
-        Map<String, Object> promotionMetrics = Map.of(
-                "activeCoupons", queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.Promotions
-                        WHERE IsActive = 1
-                          AND ValidFrom <= SYSDATETIME()
-                          AND ValidTo >= SYSDATETIME()
-                        """),
-                "activePromotionPosts", queryInt("""
-                        SELECT COUNT(1)
-                        FROM dbo.PromotionPosts
-                        WHERE IsActive = 1
-                          AND StartAt <= SYSDATETIME()
-                          AND EndAt >= SYSDATETIME()
-                        """));
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("customerMetrics", customerMetrics);
-        response.put("membershipMetrics", membershipMetrics);
-        response.put("staffMetrics", staffMetrics);
-        response.put("ptMetrics", ptMetrics);
-        response.put("commerceMetrics", commerceMetrics);
-        response.put("promotionMetrics", promotionMetrics);
-        response.put("recentPayments", getRecentPayments());
-        response.put("awaitingPickupOrders", pickupTrackingAvailable ? getAwaitingPickupOrders() : List.of());
-        response.put("expiringMemberships", getExpiringMemberships(today, nextWeek));
-        response.put("pendingPtRequests", getPendingPtRequests());
-        response.put("invoiceEmailFailures", invoiceEmailTrackingAvailable ? getRecentInvoiceFailures() : List.of());
-        response.put("alerts", buildAlerts(customerMetrics, membershipMetrics, staffMetrics, ptMetrics, commerceMetrics,
-                promotionMetrics));
-        return response;
-    }
-
     private Map<String, Object> getRevenueOverview(Map<String, Object> filters) {
         RevenueOverviewData overview = buildRevenueOverview(resolveRevenueRange(filters));
 
@@ -311,23 +283,11 @@ public class AdminService {
         LocalDate today = LocalDate.now();
         LocalDate monthStart = YearMonth.from(today).atDay(1);
 
-        BigDecimal todayRevenue = sumSuccessfulPayments(today, today);
-        BigDecimal last7DaysRevenue = sumSuccessfulPayments(today.minusDays(6), today);
-        BigDecimal monthToDateRevenue = sumSuccessfulPayments(monthStart, today);
+        BigDecimal todayRevenue = sumRollupRevenue(today, today);
+        BigDecimal last7DaysRevenue = sumRollupRevenue(today.minusDays(6), today);
+        BigDecimal monthToDateRevenue = sumRollupRevenue(monthStart, today);
 
-        List<Map<String, Object>> rawSeries = jdbcTemplate.query("""
-                SELECT
-                    CAST(COALESCE(PaidAt, CreatedAt) AS DATE) AS RevenueDate,
-                    SUM(CASE WHEN OrderID IS NOT NULL THEN Amount ELSE 0 END) AS ProductRevenue,
-                    SUM(CASE WHEN CustomerMembershipID IS NOT NULL THEN Amount ELSE 0 END) AS MembershipRevenue,
-                    SUM(Amount) AS TotalRevenue
-                FROM dbo.Payments
-                WHERE Status = 'SUCCESS'
-                  AND COALESCE(PaidAt, CreatedAt) >= ?
-                  AND COALESCE(PaidAt, CreatedAt) < DATEADD(DAY, 1, ?)
-                GROUP BY CAST(COALESCE(PaidAt, CreatedAt) AS DATE)
-                ORDER BY RevenueDate ASC
-                """, (rs, rowNum) -> {
+        List<Map<String, Object>> rawSeries = jdbcTemplate.query(ROLLUP_REVENUE_SERIES_SQL, (rs, rowNum) -> {
             Map<String, Object> row = new LinkedHashMap<>();
             row.put("date", rs.getDate("RevenueDate").toLocalDate().toString());
             row.put("productRevenue", rs.getBigDecimal("ProductRevenue"));
@@ -388,43 +348,11 @@ public class AdminService {
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle moneyStyle = createMoneyStyle(workbook);
 
-            Sheet summarySheet = workbook.createSheet("Summary");
-            int summaryRowIndex = 0;
-            summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "Revenue report", "GymCore");
-            summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "Applied filter", describeRevenueRange(overview.range()));
-            summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "From", overview.range().from().toString());
-            summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "To", overview.range().to().toString());
-            summaryRowIndex++;
-            summaryRowIndex = writeSummaryMoneyRow(summarySheet, summaryRowIndex, "Total revenue", overview.selectedRangeRevenue(), moneyStyle);
-            summaryRowIndex = writeSummaryMoneyRow(summarySheet, summaryRowIndex, "Membership revenue", overview.membershipRangeRevenue(), moneyStyle);
-            summaryRowIndex = writeSummaryMoneyRow(summarySheet, summaryRowIndex, "Product revenue", overview.productRangeRevenue(), moneyStyle);
-            summaryRowIndex = writeSummaryMoneyRow(
-                    summarySheet,
-                    summaryRowIndex,
-                    "Average per day",
-                    overview.series().isEmpty()
-                            ? BigDecimal.ZERO
-                            : overview.selectedRangeRevenue().divide(BigDecimal.valueOf(overview.series().size()), 2, RoundingMode.HALF_UP),
-                    moneyStyle);
+            Sheet summarySheet = writeSummarySheet(workbook, overview, moneyStyle);
             summarySheet.autoSizeColumn(0);
             summarySheet.autoSizeColumn(1);
 
-            Sheet dailySheet = workbook.createSheet("Daily Revenue");
-            Row header = dailySheet.createRow(0);
-            writeCell(header, 0, "Date", headerStyle);
-            writeCell(header, 1, "Membership revenue", headerStyle);
-            writeCell(header, 2, "Product revenue", headerStyle);
-            writeCell(header, 3, "Total revenue", headerStyle);
-
-            int rowIndex = 1;
-            for (RevenuePoint point : overview.series()) {
-                Row row = dailySheet.createRow(rowIndex++);
-                writeCell(row, 0, point.date().toString(), null);
-                writeMoneyCell(row, 1, point.membershipRevenue(), moneyStyle);
-                writeMoneyCell(row, 2, point.productRevenue(), moneyStyle);
-                writeMoneyCell(row, 3, point.totalRevenue(), moneyStyle);
-            }
-
+            Sheet dailySheet = writeDailySheet(workbook, overview, headerStyle, moneyStyle);
             for (int column = 0; column < 4; column++) {
                 dailySheet.autoSizeColumn(column);
             }
@@ -436,6 +364,104 @@ public class AdminService {
         }
     }
 
+    private void writeStreamingRevenueWorkbook(RevenueOverviewData overview, OutputStream output) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle moneyStyle = createMoneyStyle(workbook);
+
+            // Auto-sizing needs every row in memory, so streamed sheets use fixed widths (units of 1/256 char).
+            setColumnWidths(writeSummarySheet(workbook, overview, moneyStyle), 24, 28);
+            setColumnWidths(writeDailySheet(workbook, overview, headerStyle, moneyStyle), 14, 22, 22, 22);
+
+            Sheet transactionSheet = workbook.createSheet("Transactions");
+            Row transactionHeader = transactionSheet.createRow(0);
+            writeCell(transactionHeader, 0, "Payment ID", headerStyle);
+            writeCell(transactionHeader, 1, "Paid at", headerStyle);
+            writeCell(transactionHeader, 2, "Type", headerStyle);
+            writeCell(transactionHeader, 3, "Order / membership ID", headerStyle);
+            writeCell(transactionHeader, 4, "Customer", headerStyle);
+            writeCell(transactionHeader, 5, "Payment method", headerStyle);
+            writeCell(transactionHeader, 6, "Amount", headerStyle);
+            setColumnWidths(transactionSheet, 12, 20, 12, 22, 28, 16, 18);
+            int[] transactionRowIndex = {1};
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(REVENUE_TRANSACTIONS_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                ps.setObject(1, overview.range().from());
+                ps.setObject(2, overview.range().to().plusDays(1));
+                return ps;
+            }, rs -> {
+                Row row = transactionSheet.createRow(transactionRowIndex[0]++);
+                Timestamp paidAt = rs.getTimestamp("PaidAt");
+                row.createCell(0).setCellValue(rs.getInt("PaymentID"));
+                writeCell(row, 1, paidAt == null ? "" : paidAt.toLocalDateTime().toString(), null);
+                writeCell(row, 2, rs.getString("RevenueType"), null);
+                row.createCell(3).setCellValue(rs.getInt("ReferenceID"));
+                writeCell(row, 4, rs.getString("CustomerName"), null);
+                writeCell(row, 5, rs.getString("PaymentMethod"), null);
+                writeMoneyCell(row, 6, rs.getBigDecimal("Amount"), moneyStyle);
+            });
+
+            workbook.write(output);
+        } finally {
+            workbook.close();
+            workbook.dispose();
+        }
+    }
+
+    /** Summary sheet shared by the in-memory and streamed exports; callers size its columns. */
+    private Sheet writeSummarySheet(Workbook workbook, RevenueOverviewData overview, CellStyle moneyStyle) {
+        Sheet summarySheet = workbook.createSheet("Summary");
+        int summaryRowIndex = 0;
+        summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "Revenue report", "GymCore");
+        summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "Applied filter", describeRevenueRange(overview.range()));
+        summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "From", overview.range().from().toString());
+        summaryRowIndex = writeSummaryRow(summarySheet, summaryRowIndex, "To", overview.range().to().toString());
+        summaryRowIndex++;
+        summaryRowIndex = writeSummaryMoneyRow(summarySheet, summaryRowIndex, "Total revenue", overview.selectedRangeRevenue(), moneyStyle);
+        summaryRowIndex = writeSummaryMoneyRow(summarySheet, summaryRowIndex, "Membership revenue", overview.membershipRangeRevenue(), moneyStyle);
+        summaryRowIndex = writeSummaryMoneyRow(summarySheet, summaryRowIndex, "Product revenue", overview.productRangeRevenue(), moneyStyle);
+        writeSummaryMoneyRow(
+                summarySheet,
+                summaryRowIndex,
+                "Average per day",
+                overview.series().isEmpty()
+                        ? BigDecimal.ZERO
+                        : overview.selectedRangeRevenue().divide(BigDecimal.valueOf(overview.series().size()), 2, RoundingMode.HALF_UP),
+                moneyStyle);
+        return summarySheet;
+    }
+
+    /** Daily Revenue sheet shared by the in-memory and streamed exports; callers size its columns. */
+    private Sheet writeDailySheet(Workbook workbook, RevenueOverviewData overview, CellStyle headerStyle,
+            CellStyle moneyStyle) {
+        Sheet dailySheet = workbook.createSheet("Daily Revenue");
+        Row header = dailySheet.createRow(0);
+        writeCell(header, 0, "Date", headerStyle);
+        writeCell(header, 1, "Membership revenue", headerStyle);
+        writeCell(header, 2, "Product revenue", headerStyle);
+        writeCell(header, 3, "Total revenue", headerStyle);
+
+        int rowIndex = 1;
+        for (RevenuePoint point : overview.series()) {
+            Row row = dailySheet.createRow(rowIndex++);
+            writeCell(row, 0, point.date().toString(), null);
+            writeMoneyCell(row, 1, point.membershipRevenue(), moneyStyle);
+            writeMoneyCell(row, 2, point.productRevenue(), moneyStyle);
+            writeMoneyCell(row, 3, point.totalRevenue(), moneyStyle);
+        }
+        return dailySheet;
+    }
+
+    private void setColumnWidths(Sheet sheet, int... widthsInChars) {
+        for (int column = 0; column < widthsInChars.length; column++) {
+            sheet.setColumnWidth(column, widthsInChars[column] * 256);
+        }
+    }
+
     private CellStyle createHeaderStyle(Workbook workbook) {
         Font font = workbook.createFont();
         font.setBold(true);
@@ -514,14 +540,14 @@ public class AdminService {
         List<Map<String, Object>> items = jdbcTemplate.query(
                 """
                         SELECT c.CoachID, u.FullName,
-                               COALESCE(AVG(CAST(cf.Rating AS FLOAT)), 0) AS AverageRating,
-                               COUNT(cf.CoachFeedbackID) AS ReviewCount
+                               COALESCE(agg.AvgRating, 0) AS AverageRating,
+                               COALESCE(agg.ReviewCount, 0) AS ReviewCount
                         FROM dbo.Coaches c
                         JOIN dbo.Users u ON u.UserID = c.CoachID
-                        LEFT JOIN dbo.CoachFeedback cf ON cf.CoachID = c.CoachID
-                        GROUP BY c.CoachID, u.FullName
+                        LEFT JOIN (
+                        %s) agg ON agg.CoachID = c.CoachID
                         ORDER BY AverageRating DESC, ReviewCount DESC, u.FullName
-                        """,
+                        """.formatted(ratingAggregates.coachStatsSql()),
                 (rs, i) -> {
                     Map<String, Object> m = new LinkedHashMap<>();
                     m.put("coachId", rs.getInt("CoachID"));
@@ -566,192 +592,8 @@ public class AdminService {
         return order;
     }
 
-    private List<Map<String, Object>> getRecentPayments() {
-        return jdbcTemplate.query("""
-                SELECT TOP (5)
-                    p.PaymentID,
-                    p.Amount,
-                    COALESCE(p.PaidAt, p.CreatedAt) AS EffectivePaidAt,
-                    CASE WHEN p.OrderID IS NOT NULL THEN 'ORDER' ELSE 'MEMBERSHIP' END AS PaymentTarget,
-                    COALESCE(orderUser.FullName, membershipUser.FullName) AS CustomerName
-                FROM dbo.Payments p
-                LEFT JOIN dbo.Orders o ON o.OrderID = p.OrderID
-                LEFT JOIN dbo.Users orderUser ON orderUser.UserID = o.CustomerID
-                LEFT JOIN dbo.CustomerMemberships cm ON cm.CustomerMembershipID = p.CustomerMembershipID
-                LEFT JOIN dbo.Users membershipUser ON membershipUser.UserID = cm.CustomerID
-                WHERE p.Status = 'SUCCESS'
-                ORDER BY COALESCE(p.PaidAt, p.CreatedAt) DESC, p.PaymentID DESC
-                """, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("paymentId", rs.getInt("PaymentID"));
-            row.put("amount", rs.getBigDecimal("Amount"));
-            row.put("paidAt", rs.getTimestamp("EffectivePaidAt"));
-            row.put("paymentTarget", rs.getString("PaymentTarget"));
-            row.put("customerName", rs.getString("CustomerName"));
-            row.put("currency", "VND");
-            return row;
-        });
-    }
-
-    private List<Map<String, Object>> getAwaitingPickupOrders() {
-        return jdbcTemplate.query("""
-                SELECT TOP (5)
-                    InvoiceID,
-                    InvoiceCode,
-                    OrderID,
-                    RecipientName,
-                    TotalAmount,
-                    PaidAt
-                FROM dbo.OrderInvoices
-                WHERE PickedUpAt IS NULL
-                ORDER BY PaidAt DESC, InvoiceID DESC
-                """, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("invoiceId", rs.getInt("InvoiceID"));
-            row.put("invoiceCode", rs.getString("InvoiceCode"));
-            row.put("orderId", rs.getInt("OrderID"));
-            row.put("recipientName", rs.getString("RecipientName"));
-            row.put("totalAmount", rs.getBigDecimal("TotalAmount"));
-            row.put("paidAt", rs.getTimestamp("PaidAt"));
-            row.put("currency", "VND");
-            return row;
-        });
-    }
-
-    private List<Map<String, Object>> getExpiringMemberships(LocalDate today, LocalDate nextWeek) {
-        return jdbcTemplate.query("""
-                SELECT TOP (5)
-                    cm.CustomerMembershipID,
-                    u.FullName,
-                    mp.PlanName,
-                    cm.EndDate
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.Users u ON u.UserID = cm.CustomerID
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.Status = 'ACTIVE'
-                  AND cm.EndDate >= ?
-                  AND cm.EndDate <= ?
-                ORDER BY cm.EndDate ASC, cm.CustomerMembershipID ASC
-                """, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("customerMembershipId", rs.getInt("CustomerMembershipID"));
-            row.put("customerName", rs.getString("FullName"));
-            row.put("planName", rs.getString("PlanName"));
-            row.put("endDate", rs.getDate("EndDate").toLocalDate().toString());
-            return row;
-        }, today, nextWeek);
-    }
-
-    private List<Map<String, Object>> getPendingPtRequests() {
-        return jdbcTemplate.query("""
-                SELECT TOP (5)
-                    request.PTRequestID,
-                    customer.FullName AS CustomerName,
-                    coach.FullName AS CoachName,
-                    request.StartDate,
-                    request.EndDate,
-                    request.CreatedAt
-                FROM dbo.PTRecurringRequests request
-                JOIN dbo.Users customer ON customer.UserID = request.CustomerID
-                LEFT JOIN dbo.Users coach ON coach.UserID = request.CoachID
-                WHERE request.Status = 'PENDING'
-                ORDER BY request.CreatedAt DESC, request.PTRequestID DESC
-                """, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("ptRequestId", rs.getInt("PTRequestID"));
-            row.put("customerName", rs.getString("CustomerName"));
-            row.put("coachName", rs.getString("CoachName"));
-            row.put("startDate", rs.getDate("StartDate") == null ? null : rs.getDate("StartDate").toLocalDate().toString());
-            row.put("endDate", rs.getDate("EndDate") == null ? null : rs.getDate("EndDate").toLocalDate().toString());
-            row.put("createdAt", rs.getTimestamp("CreatedAt"));
-            return row;
-        });
-    }
-
-    private List<Map<String, Object>> getRecentInvoiceFailures() {
-        return jdbcTemplate.query("""
-                SELECT TOP (5)
-                    InvoiceID,
-                    InvoiceCode,
-                    RecipientEmail,
-                    EmailSendError,
-                    PaidAt
-                FROM dbo.OrderInvoices
-                WHERE EmailSendError IS NOT NULL
-                ORDER BY PaidAt DESC, InvoiceID DESC
-                """, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("invoiceId", rs.getInt("InvoiceID"));
-            row.put("invoiceCode", rs.getString("InvoiceCode"));
-            row.put("recipientEmail", rs.getString("RecipientEmail"));
-            row.put("emailSendError", rs.getString("EmailSendError"));
-            row.put("paidAt", rs.getTimestamp("PaidAt"));
-            return row;
-        });
-    }
-
-    private List<Map<String, Object>> buildAlerts(
-            Map<String, Object> customerMetrics,
-            Map<String, Object> membershipMetrics,
-            Map<String, Object> staffMetrics,
-            Map<String, Object> ptMetrics,
-            Map<String, Object> commerceMetrics,
-            Map<String, Object> promotionMetrics) {
-        List<Map<String, Object>> alerts = new ArrayList<>();
-        addAlert(alerts, "pickup-queue", "info",
-                asInt(commerceMetrics.get("awaitingPickupOrders")),
-                "Orders are waiting at the pickup desk.",
-                count -> count + " paid product orders are still awaiting pickup.");
-        addAlert(alerts, "invoice-email-failures", "warning",
-                asInt(commerceMetrics.get("invoiceEmailFailures")),
-                "Invoice email delivery failures need attention.",
-                count -> count + " product receipts failed email delivery.");
-        addAlert(alerts, "expiring-memberships", "warning",
-                asInt(membershipMetrics.get("expiringSoonMemberships")),
-                "Memberships are expiring soon.",
-                count -> count + " active memberships will expire in the next 7 days.");
-        addAlert(alerts, "pending-pt", "info",
-                asInt(ptMetrics.get("pendingPtRequests")),
-                "Pending PT requests are waiting for review.",
-                count -> count + " PT requests are still pending approval.");
-        addAlert(alerts, "locked-staff", "warning",
-                asInt(staffMetrics.get("lockedStaffAccounts")),
-                "Some staff accounts are locked.",
-                count -> count + " staff accounts are currently locked.");
-        addAlert(alerts, "inactive-coupons", "neutral",
-                asInt(promotionMetrics.get("activeCoupons")) == 0 ? 1 : 0,
-                "No active coupons are currently running.",
-                count -> "There are no active coupons available for customers right now.");
-        return alerts;
-    }
-
-    private void addAlert(
-            List<Map<String, Object>> alerts,
-            String key,
-            String severity,
-            int count,
-            String title,
-            Function<Integer, String> messageFactory) {
-        if (count <= 0) {
-            return;
-        }
-        Map<String, Object> alert = new LinkedHashMap<>();
-        alert.put("key", key);
-        alert.put("severity", severity);
-        alert.put("count", count);
-        alert.put("title", title);
-        alert.put("message", messageFactory.apply(count));
-        alerts.add(alert);
-    }
-
-    private BigDecimal sumSuccessfulPayments(LocalDate from, LocalDate to) {
-        return queryMoney("""
-                SELECT COALESCE(SUM(Amount), 0)
-                FROM dbo.Payments
-                WHERE Status = 'SUCCESS'
-                  AND COALESCE(PaidAt, CreatedAt) >= ?
-                  AND COALESCE(PaidAt, CreatedAt) < DATEADD(DAY, 1, ?)
-                """, from, to);
+    private BigDecimal sumRollupRevenue(LocalDate from, LocalDate to) {
+        return queryMoney(ROLLUP_REVENUE_SUM_SQL, from, to);
     }
 
     private RevenueRange resolveRevenueRange(Map<String, Object> filters) {
@@ -852,45 +694,20 @@ public class AdminService {
         return new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Unsupported admin action: " + action);
     }
 
-    private int queryInt(String sql, Object... params) {
-        Integer value = jdbcTemplate.queryForObject(sql, Integer.class, params);
-        return value == null ? 0 : value;
-    }
-
     private BigDecimal queryMoney(String sql, Object... params) {
         BigDecimal value = jdbcTemplate.queryForObject(sql, BigDecimal.class, params);
         return value == null ? BigDecimal.ZERO : value;
     }
 
-    private boolean tableExists(String tableName) {
-        Integer count = jdbcTemplate.queryForObject("""
-                SELECT COUNT(1)
-                FROM INFORMATION_SCHEMA.TABLES
-                WHERE TABLE_SCHEMA = 'dbo'
-                  AND TABLE_NAME = ?
-                """, Integer.class, tableName);
-        return count != null && count > 0;
-    }
-
-    private boolean columnExists(String tableName, String columnName) {
-        Integer count = jdbcTemplate.queryForObject("""
-                SELECT COUNT(1)
-                FROM INFORMATION_SCHEMA.COLUMNS
-                WHERE TABLE_SCHEMA = 'dbo'
-                  AND TABLE_NAME = ?
-                  AND COLUMN_NAME = ?
-                """, Integer.class, tableName, columnName);
-        return count != null && count > 0;
+    public record RevenueExport(String fileName, byte[] content) {
     }
 
-    private int asInt(Object value) {
-        if (value instanceof Number number) {
-            return number.intValue();
-        }
-        return 0;
+    public record StreamingRevenueExport(String fileName, RevenueWorkbookWriter writer) {
     }
 
-    public record RevenueExport(String fileName, byte[] content) {
+    @FunctionalInterface
+    public interface RevenueWorkbookWriter {
+        void writeTo(OutputStream output) throws IOException;
     }
 
     private record RevenueRange(LocalDate from, LocalDate to, String preset) {
@@ -0,0 +1,104 @@
+package com.gymcore.backend.modules.auth.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Short-lived cache of the user fields every protected call needs (role, name, email, lock and
+ * active flags), keyed by userId. Writes that change those fields call {@link #invalidate(int)};
+ * the TTL bounds staleness for anything else. A TTL of 0 disables caching.
+ */
+@Service
+public class AuthContextCache {
+
+    static final String PRINCIPAL_SQL = """
+            SELECT TOP (1) u.UserID, r.RoleName, u.FullName, u.Email, u.IsLocked, u.IsActive
+            FROM dbo.Users u
+            JOIN dbo.Roles r ON r.RoleID = u.RoleID
+            WHERE u.UserID = ?
+            """;
+    static final int MAX_ENTRIES = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${app.auth.context-cache-seconds:30}")
+    private long ttlSeconds;
+
+    public AuthContextCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Principal get(int userId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && now - entry.expiresAtNanos() < 0) {
+            return entry.principal();
+        }
+        Principal principal = load(userId);
+        if (ttlSeconds > 0) {
+            if (entries.size() >= MAX_ENTRIES) {
+                evictExpired(now);
+            }
+            entries.put(userId, new Entry(principal, now + ttlSeconds * 1_000_000_000L));
+        }
+        return principal;
+    }
+
+    public void invalidate(int userId) {
+        entries.remove(userId);
+    }
+
+    private Principal load(int userId) {
+        try {
+            return jdbcTemplate.queryForObject(PRINCIPAL_SQL, (rs, rowNum) -> {
+                String dbRoleName = rs.getString("RoleName");
+                return new Principal(
+                        rs.getInt("UserID"),
+                        dbRoleName,
+                        normalizeRoleName(dbRoleName),
+                        rs.getString("FullName"),
+                        rs.getString("Email"),
+                        rs.getBoolean("IsLocked"),
+                        rs.getBoolean("IsActive"));
+            }, userId);
+        } catch (EmptyResultDataAccessException exception) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found.");
+        }
+    }
+
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+    }
+
+    private String normalizeRoleName(String roleName) {
+        if (roleName == null) {
+            return "CUSTOMER";
+        }
+        return roleName.trim().replace(' ', '_').toUpperCase(Locale.ROOT);
+    }
+
+    public record Principal(
+            int userId,
+            String roleDbName,
+            String roleApiName,
+            String fullName,
+            String email,
+            boolean locked,
+            boolean active
+    ) {
+    }
+
+    private record Entry(Principal principal, long expiresAtNanos) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.gymcore.backend.modules.auth.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -40,7 +42,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
@@ -60,7 +61,8 @@ public class AuthService {
     private final JdbcTemplate jdbcTemplate;
     private final PasswordEncoder passwordEncoder;
     private final AuthMailService authMailService;
-    private final RestTemplate restTemplate;
+    private final GoogleIdTokenVerifier googleIdTokenVerifier;
+    private final AuthContextCache authContextCache;
     private final SecureRandom secureRandom = new SecureRandom();
 
     @Value("${app.auth.jwt.secret}")
@@ -91,6 +93,7 @@ public class AuthService {
     private long avatarMaxBytes;
 
     private SecretKey jwtSigningKey;
+    private JwtParser jwtParser;
 
     private final RowMapper<UserRecord> userRowMapper = (rs, rowNum) -> toUserRecord(rs);
     private final RowMapper<RefreshTokenRecord> refreshTokenRowMapper = (rs, rowNum) -> toRefreshTokenRecord(rs);
@@ -103,11 +106,13 @@ public class AuthService {
             JdbcTemplate jdbcTemplate,
             PasswordEncoder passwordEncoder,
             AuthMailService authMailService,
-            RestTemplate restTemplate) {
+            GoogleIdTokenVerifier googleIdTokenVerifier,
+            AuthContextCache authContextCache) {
         this.jdbcTemplate = jdbcTemplate;
         this.passwordEncoder = passwordEncoder;
         this.authMailService = authMailService;
-        this.restTemplate = restTemplate;
+        this.googleIdTokenVerifier = googleIdTokenVerifier;
+        this.authContextCache = authContextCache;
     }
 
     @PostConstruct
@@ -117,6 +122,7 @@ public class AuthService {
             keyMaterial = sha256(keyMaterial);
         }
         this.jwtSigningKey = Keys.hmacShaKeyFor(keyMaterial);
+        this.jwtParser = Jwts.parser().verifyWith(jwtSigningKey).build();
     }
 
     @Transactional
@@ -268,9 +274,22 @@ public class AuthService {
     }
 
     public AuthContext requireAuthContext(String authorizationHeader) {
-        UserRecord user = requireUserFromAccessToken(authorizationHeader);
-        ensureLoginAllowed(user, false);
-        return new AuthContext(user.userId, user.roleApiName, user.fullName, user.email);
+        AuthContextCache.Principal principal = authContextCache.get(parseUserIdFromAccessToken(authorizationHeader));
+        if (!principal.active()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Account is inactive.");
+        }
+        if (principal.locked()) {
+            throw new ResponseStatusException(HttpStatus.LOCKED, "Account is locked.");
+        }
+        return new AuthContext(principal.userId(), principal.roleApiName(), principal.fullName(), principal.email());
+    }
+
+    /**
+     * Drops the cached auth context of a user after a write to their name, email, role,
+     * lock or active state.
+     */
+    public void invalidateAuthContext(int userId) {
+        authContextCache.invalidate(userId);
     }
 
     @Transactional
@@ -288,6 +307,7 @@ public class AuthService {
                 SET FullName = ?, Phone = ?, UpdatedAt = SYSDATETIME()
                 WHERE UserID = ?
                 """, normalizedName, normalizedPhone, currentUser.userId);
+        authContextCache.invalidate(currentUser.userId);
 
         UserRecord updated = requireUserById(currentUser.userId);
         updateDemographics(updated, dateOfBirth, gender);
@@ -424,6 +444,7 @@ public class AuthService {
                         LockedAt = NULL, LockReason = NULL, UpdatedAt = SYSDATETIME()
                     WHERE UserID = ?
                     """, normalizedName, normalizedPhone, passwordEncoder.encode(password), userId);
+            authContextCache.invalidate(userId);
         }
 
         ensureCustomerProfile(userId);
@@ -608,11 +629,7 @@ public class AuthService {
     private int parseUserIdFromAccessToken(String authorizationHeader) {
         String token = extractBearerToken(authorizationHeader);
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(jwtSigningKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
             return Integer.parseInt(claims.getSubject());
         } catch (Exception exception) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Access token is invalid.");
@@ -706,14 +723,7 @@ public class AuthService {
         }
 
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> payload = restTemplate.getForObject(
-                    "https://oauth2.googleapis.com/tokeninfo?id_token={idToken}",
-                    Map.class,
-                    idToken);
-            if (payload == null) {
-                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Google token is invalid.");
-            }
+            Map<String, Object> payload = googleIdTokenVerifier.verify(idToken);
 
             String aud = asString(payload.get("aud"));
             String email = normalizeEmail(asString(payload.get("email")));
@@ -727,7 +737,7 @@ public class AuthService {
             }
 
             return new GoogleTokenInfo(sub, email, name, picture);
-        } catch (RestClientException exception) {
+        } catch (JwtException | RestClientException exception) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Google token is invalid.");
         }
     }
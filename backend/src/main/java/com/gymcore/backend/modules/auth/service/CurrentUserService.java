@@ -1,31 +1,31 @@
 package com.gymcore.backend.modules.auth.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.Locale;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
 public class CurrentUserService {
 
-    private final JdbcTemplate jdbcTemplate;
+    private final AuthContextCache authContextCache;
 
     @Value("${app.auth.jwt.secret}")
     private String jwtSecret;
 
     private SecretKey jwtSigningKey;
+    private JwtParser jwtParser;
 
-    public CurrentUserService(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    public CurrentUserService(AuthContextCache authContextCache) {
+        this.authContextCache = authContextCache;
     }
 
     @jakarta.annotation.PostConstruct
@@ -35,6 +35,7 @@ public class CurrentUserService {
             keyMaterial = sha256(keyMaterial);
         }
         this.jwtSigningKey = Keys.hmacShaKeyFor(keyMaterial);
+        this.jwtParser = Jwts.parser().verifyWith(jwtSigningKey).build();
     }
 
     public UserInfo requireCustomer(String authorizationHeader) {
@@ -81,11 +82,7 @@ public class CurrentUserService {
     private int parseUserIdFromAccessToken(String authorizationHeader) {
         String token = extractBearerToken(authorizationHeader);
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(jwtSigningKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
             if (claims.getExpiration() != null && claims.getExpiration().toInstant().isBefore(Instant.now())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Access token has expired.");
             }
@@ -98,21 +95,8 @@ public class CurrentUserService {
     }
 
     private UserInfo loadUserInfo(int userId) {
-        try {
-            return jdbcTemplate.queryForObject("""
-                    SELECT TOP (1) u.UserID, r.RoleName
-                    FROM dbo.Users u
-                    JOIN dbo.Roles r ON r.RoleID = u.RoleID
-                    WHERE u.UserID = ?
-                    """, (rs, rowNum) -> {
-                int id = rs.getInt("UserID");
-                String dbRoleName = rs.getString("RoleName");
-                String apiRole = normalizeRoleName(dbRoleName);
-                return new UserInfo(id, dbRoleName, apiRole);
-            }, userId);
-        } catch (org.springframework.dao.EmptyResultDataAccessException exception) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found.");
-        }
+        AuthContextCache.Principal principal = authContextCache.get(userId);
+        return new UserInfo(principal.userId(), principal.roleDbName(), principal.roleApiName());
     }
 
     private String extractBearerToken(String authorizationHeader) {
@@ -126,13 +110,6 @@ public class CurrentUserService {
         return normalized.substring(7).trim();
     }
 
-    private String normalizeRoleName(String roleName) {
-        if (roleName == null) {
-            return "CUSTOMER";
-        }
-        return roleName.trim().replace(' ', '_').toUpperCase(Locale.ROOT);
-    }
-
     private byte[] sha256(byte[] value) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
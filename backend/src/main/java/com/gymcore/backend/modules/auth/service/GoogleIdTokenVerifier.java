@@ -0,0 +1,185 @@
+package com.gymcore.backend.modules.auth.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Verifies Google ID tokens locally: the RS256 signature against Google's published JWKS, then the issuer and
+ * expiry. Keys are cached for the {@code max-age} Google sends; an unknown {@code kid} triggers an early refresh
+ * (rate limited) so key rotation does not wait for the cache to expire. If a refresh fails while keys are
+ * cached, the stale keys keep serving and the refresh is retried shortly.
+ *
+ * <p>The returned claims are shaped like the old tokeninfo payload ({@code aud} as a single string), so the
+ * audience and profile checks stay in {@link AuthService}.
+ */
+@Service
+public class GoogleIdTokenVerifier {
+
+    static final String JWKS_URL = "https://www.googleapis.com/oauth2/v3/certs";
+    static final Set<String> ISSUERS = Set.of("accounts.google.com", "https://accounts.google.com");
+    static final Duration DEFAULT_KEYS_TTL = Duration.ofHours(1);
+    static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+
+    private static final Logger log = LoggerFactory.getLogger(GoogleIdTokenVerifier.class);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final long CLOCK_SKEW_SECONDS = 60;
+
+    private final RestTemplate restTemplate;
+    private final String jwksUrl;
+    private final Clock clock;
+    private final JwtParser parser;
+    private final Object refreshLock = new Object();
+    private volatile SigningKeys signingKeys = SigningKeys.NONE;
+
+    @Autowired
+    public GoogleIdTokenVerifier(@Qualifier("googleRestTemplate") RestTemplate restTemplate) {
+        this(restTemplate, JWKS_URL, Clock.systemUTC());
+    }
+
+    GoogleIdTokenVerifier(RestTemplate restTemplate, String jwksUrl, Clock clock) {
+        this.restTemplate = restTemplate;
+        this.jwksUrl = jwksUrl;
+        this.clock = clock;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        if (!"RS256".equals(header.getAlgorithm())) {
+                            throw new UnsupportedJwtException("Google ID tokens must be signed with RS256.");
+                        }
+                        return signingKey(header.getKeyId());
+                    }
+                })
+                .clock(() -> Date.from(clock.instant()))
+                .clockSkewSeconds(CLOCK_SKEW_SECONDS)
+                .build();
+    }
+
+    /**
+     * @throws JwtException if the token is malformed, unsigned, badly signed, expired or not issued by Google
+     * @throws RestClientException if the JWKS cannot be fetched and no keys are cached yet
+     */
+    public Map<String, Object> verify(String idToken) {
+        Claims claims = parser.parseSignedClaims(idToken).getPayload();
+        if (!ISSUERS.contains(claims.getIssuer())) {
+            throw new JwtException("Google ID token has an unexpected issuer.");
+        }
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Google ID token has no expiry.");
+        }
+        Map<String, Object> payload = new LinkedHashMap<>(claims);
+        Set<String> audience = claims.getAudience();
+        payload.put("aud", audience == null ? null : String.join(" ", audience));
+        return payload;
+    }
+
+    private PublicKey signingKey(String keyId) {
+        SigningKeys current = signingKeys;
+        Instant now = clock.instant();
+        boolean unknownKey = keyId == null || !current.keys().containsKey(keyId);
+        if (!now.isBefore(current.expiresAt())
+                || (unknownKey && !now.isBefore(current.fetchedAt().plus(MIN_REFRESH_INTERVAL)))) {
+            current = refresh(current, now);
+        }
+        PublicKey key = keyId == null ? null : current.keys().get(keyId);
+        if (key == null) {
+            throw new JwtException("Google ID token was signed with an unknown key.");
+        }
+        return key;
+    }
+
+    private SigningKeys refresh(SigningKeys seen, Instant now) {
+        synchronized (refreshLock) {
+            if (signingKeys != seen) {
+                return signingKeys;
+            }
+            try {
+                signingKeys = fetch(now);
+            } catch (RestClientException exception) {
+                if (seen.keys().isEmpty()) {
+                    throw exception;
+                }
+                log.warn("Refreshing Google signing keys failed, keeping cached keys: {}", exception.getMessage());
+                signingKeys = new SigningKeys(seen.keys(), now, now.plus(MIN_REFRESH_INTERVAL));
+            }
+            return signingKeys;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private SigningKeys fetch(Instant now) {
+        ResponseEntity<Map> response = restTemplate.getForEntity(jwksUrl, Map.class);
+        Map<String, Object> body = response.getBody();
+        Object rawKeys = body == null ? null : body.get("keys");
+        if (!(rawKeys instanceof List<?> entries)) {
+            throw new RestClientException("Google JWKS response has no keys.");
+        }
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (Object entry : entries) {
+            if (entry instanceof Map<?, ?> jwk && "RSA".equals(jwk.get("kty")) && jwk.get("kid") instanceof String kid) {
+                keys.put(kid, rsaPublicKey(String.valueOf(jwk.get("n")), String.valueOf(jwk.get("e"))));
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new RestClientException("Google JWKS response has no RSA keys.");
+        }
+        return new SigningKeys(Map.copyOf(keys), now, now.plus(maxAge(response.getHeaders().getCacheControl())));
+    }
+
+    static Duration maxAge(String cacheControl) {
+        if (cacheControl != null) {
+            Matcher matcher = MAX_AGE.matcher(cacheControl);
+            if (matcher.find()) {
+                return Duration.ofSeconds(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return DEFAULT_KEYS_TTL;
+    }
+
+    private static PublicKey rsaPublicKey(String modulus, String exponent) {
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            RSAPublicKeySpec spec = new RSAPublicKeySpec(new BigInteger(1, decoder.decode(modulus)),
+                    new BigInteger(1, decoder.decode(exponent)));
+            return KeyFactory.getInstance("RSA").generatePublic(spec);
+        } catch (GeneralSecurityException | IllegalArgumentException exception) {
+            throw new RestClientException("Google JWKS contains an unreadable RSA key.", exception);
+        }
+    }
+
+    private record SigningKeys(Map<String, PublicKey> keys, Instant fetchedAt, Instant expiresAt) {
+
+        static final SigningKeys NONE = new SigningKeys(Map.of(), Instant.MIN, Instant.MIN);
+    }
+}
@@ -83,6 +83,16 @@ public class CheckinHealthController {
                 checkinHealthService.execute("reception-scan-checkin", request));
     }
 
+    @PostMapping("/reception/checkin/scan/batch")
+    public ApiResponse<Map<String, Object>> batchScanCheckin(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
+            @RequestBody Map<String, Object> payload) {
+        Map<String, Object> request = new java.util.LinkedHashMap<>(payload);
+        request.put("authorizationHeader", authorizationHeader);
+        return ApiResponse.ok("Batch check-in processed",
+                checkinHealthService.execute("reception-batch-checkin", request));
+    }
+
     @GetMapping("/reception/checkin/{customerId}/validity")
     public ApiResponse<Map<String, Object>> validateMembership(
             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
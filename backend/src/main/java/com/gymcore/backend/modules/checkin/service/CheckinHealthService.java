@@ -1,22 +1,35 @@
 package com.gymcore.backend.modules.checkin.service;
 
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.modules.auth.service.AuthService;
 import com.gymcore.backend.modules.coach.service.CoachBookingService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -24,17 +37,88 @@ public class CheckinHealthService {
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
 
+    /**
+     * Inserts a check-in and returns its ID and time in one round trip. The OUTPUT goes through a table variable
+     * because dbo.CheckIns has a trigger, which rules out a bare OUTPUT clause.
+     */
+    static final String INSERT_CHECKIN_SQL = """
+            SET NOCOUNT ON;
+            DECLARE @inserted TABLE (CheckInID INT, CheckInTime DATETIME2);
+            INSERT INTO dbo.CheckIns (CustomerID, CustomerMembershipID, CheckedByUserID)
+            OUTPUT INSERTED.CheckInID, INSERTED.CheckInTime INTO @inserted
+            VALUES (?, ?, ?);
+            SELECT CheckInID, CheckInTime FROM @inserted;
+            """;
+
+    /**
+     * Batch insert for buffered kiosk scans. The NOT EXISTS makes a replayed scan a no-op (row count 0); the
+     * lock hints keep two flushes of the same scan from both passing it before UX_CheckIns_ClientScanID does.
+     */
+    static final String INSERT_BATCH_CHECKIN_SQL = """
+            INSERT INTO dbo.CheckIns (CustomerID, CustomerMembershipID, CheckedByUserID, CheckInTime, ClientScanID)
+            SELECT ?, ?, ?, ?, ?
+            WHERE NOT EXISTS (
+                SELECT 1 FROM dbo.CheckIns WITH (UPDLOCK, HOLDLOCK) WHERE ClientScanID = ?
+            )
+            """;
+    /** SQL Server error number for RAISERROR with a message string. */
+    static final int USER_RAISED_ERROR_CODE = 50000;
+    static final String MEMBERSHIP_TRIGGER_MESSAGE = "Check-in blocked";
+    static final String RECORDED_SCANS_SQL_TEMPLATE = """
+            SELECT ClientScanID, CheckInID, CheckInTime, CustomerID
+            FROM dbo.CheckIns
+            WHERE ClientScanID IN (%s)
+            """;
+    static final String BATCH_CUSTOMERS_SQL_TEMPLATE = """
+            SELECT u.UserID, u.QrCodeToken
+            FROM dbo.Users u
+            JOIN dbo.Customers c ON c.CustomerID = u.UserID
+            WHERE %s
+            """;
+    /** ACTIVE or EXPIRED memberships that still covered the earliest scan; EXPIRED ones covered it when it happened. */
+    static final String BATCH_MEMBERSHIPS_SQL_TEMPLATE = """
+            SELECT cm.CustomerMembershipID, cm.CustomerID, cm.Status, cm.StartDate, cm.EndDate
+            FROM dbo.CustomerMemberships cm
+            WHERE cm.CustomerID IN (%s)
+              AND cm.Status IN ('ACTIVE', 'EXPIRED')
+              AND cm.EndDate >= ?
+            """;
+    static final int MAX_SCAN_ID_LENGTH = 64;
+    /** Kiosk clocks may run slightly ahead of the server. */
+    static final long MAX_CLOCK_SKEW_SECONDS = 120;
+
     private final JdbcTemplate jdbcTemplate;
     private final AuthService authService;
     private final CoachBookingService coachBookingService;
+    private final CheckinPassCache passCache;
+    private final CheckinOccupancyService occupancyService;
+    private final MembershipStateResolver membershipStates;
+    private final SchemaCapabilities schemaCapabilities;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.checkin.batch.max-scans:500}")
+    private int maxBatchScans;
+
+    @Value("${app.checkin.batch.max-age-hours:72}")
+    private long maxScanAgeHours;
 
     public CheckinHealthService(
             JdbcTemplate jdbcTemplate,
             AuthService authService,
-            CoachBookingService coachBookingService) {
+            CoachBookingService coachBookingService,
+            CheckinPassCache passCache,
+            CheckinOccupancyService occupancyService,
+            MembershipStateResolver membershipStates,
+            SchemaCapabilities schemaCapabilities,
+            TransactionTemplate transactionTemplate) {
         this.jdbcTemplate = jdbcTemplate;
         this.authService = authService;
         this.coachBookingService = coachBookingService;
+        this.passCache = passCache;
+        this.occupancyService = occupancyService;
+        this.membershipStates = membershipStates;
+        this.schemaCapabilities = schemaCapabilities;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public Map<String, Object> execute(String action, Object payload) {
@@ -47,6 +131,7 @@ public class CheckinHealthService {
             case "customer-get-progress-hub" -> customerGetProgressHub(asMap(payload));
             case "customer-create-health-record" -> customerCreateHealthRecord(asMap(payload));
             case "reception-scan-checkin" -> receptionScanCheckin(asMap(payload));
+            case "reception-batch-checkin" -> receptionBatchCheckin(asMap(payload));
             case "reception-validate-membership" -> receptionValidateMembership(asMap(payload));
             case "reception-get-checkin-history" -> receptionGetCheckinHistory(asMap(payload));
             default -> throw unsupportedAction(action);
@@ -63,7 +148,7 @@ public class CheckinHealthService {
             m.put("qrIssuedAt", timestampToIso(rs.getTimestamp("QrIssuedAt")));
             return m;
         }, customer.userId());
-        MembershipValidity validity = buildMembershipValidity(customer.userId());
+        MembershipValidity validity = buildMembershipValidity(membershipStates.resolve(customer.userId()));
         Map<String, Object> membershipStatus = new LinkedHashMap<>();
         membershipStatus.put("valid", validity.valid());
         membershipStatus.put("status", validity.status());
@@ -251,62 +336,87 @@ public class CheckinHealthService {
 
         Integer customerId = parseInteger(payload.get("customerId"));
         String qrCodeToken = asText(payload.get("qrCodeToken"));
-
-        CustomerLookup customer;
-        if (customerId != null) {
-            customer = requireCustomerById(customerId);
-        } else if (qrCodeToken != null) {
-            customer = requireCustomerByQrToken(qrCodeToken);
-        } else {
+        if (customerId == null && qrCodeToken == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide customerId or qrCodeToken.");
         }
 
-        MembershipValidity validity = buildMembershipValidity(customer.customerId());
+        // Fast path: a cached pass needs only the insert; the trigger re-checks the membership.
+        CheckinPassCache.Pass cached = customerId != null
+                ? passCache.findByCustomerId(customerId)
+                : passCache.findByQrToken(qrCodeToken);
+        if (cached != null) {
+            try {
+                return checkinResponse(insertCheckin(cached, receptionist), cached, receptionist);
+            } catch (DataAccessException exception) {
+                // The pass went stale (e.g. cancelled on another instance); validate in full for the real reason.
+                passCache.invalidateCustomer(cached.customerId());
+            }
+        }
+
+        long stamp = passCache.stamp();
+        CustomerLookup customer = customerId != null
+                ? requireCustomerById(customerId)
+                : requireCustomerByQrToken(qrCodeToken);
+
+        // A pass cache miss must give the precise reason, so skip the state cache.
+        MembershipValidity validity = buildMembershipValidity(membershipStates.resolveFresh(customer.customerId()));
         if (!validity.valid()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, validity.reason());
         }
 
+        CheckinPassCache.Pass pass = new CheckinPassCache.Pass(
+                customer.customerId(),
+                customer.fullName(),
+                customer.email(),
+                customer.phone(),
+                customer.qrCodeToken(),
+                validity.customerMembershipId(),
+                validity.planName(),
+                validity.planType(),
+                parseDate(validity.startDate()),
+                parseDate(validity.endDate()));
+        Map<String, Object> inserted;
         try {
-            jdbcTemplate.update("""
-                    INSERT INTO dbo.CheckIns (CustomerID, CustomerMembershipID, CheckedByUserID)
-                    VALUES (?, ?, ?)
-                    """, customer.customerId(), validity.customerMembershipId(), receptionist.userId());
+            inserted = insertCheckin(pass, receptionist);
         } catch (DataAccessException exception) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Check-in failed. Membership is not valid for check-in.");
         }
+        passCache.put(stamp, pass);
+        return checkinResponse(inserted, pass, receptionist);
+    }
 
-        Map<String, Object> latest = jdbcTemplate.queryForObject("""
-                SELECT TOP (1)
-                    ci.CheckInID,
-                    ci.CheckInTime
-                FROM dbo.CheckIns ci
-                WHERE ci.CustomerID = ? AND ci.CustomerMembershipID = ? AND ci.CheckedByUserID = ?
-                ORDER BY ci.CheckInID DESC
-                """, (rs, rowNum) -> {
+    private Map<String, Object> insertCheckin(CheckinPassCache.Pass pass, AuthService.AuthContext receptionist) {
+        Map<String, Object> inserted = jdbcTemplate.queryForObject(INSERT_CHECKIN_SQL, (rs, rowNum) -> {
             Map<String, Object> m = new LinkedHashMap<>();
             m.put("checkInId", rs.getInt("CheckInID"));
             m.put("checkInTime", timestampToIso(rs.getTimestamp("CheckInTime")));
             return m;
-        }, customer.customerId(),
-                validity.customerMembershipId(), receptionist.userId());
+        }, pass.customerId(), pass.customerMembershipId(), receptionist.userId());
+        occupancyService.recordCheckin(LocalDateTime.now());
+        return inserted;
+    }
 
+    private Map<String, Object> checkinResponse(
+            Map<String, Object> inserted,
+            CheckinPassCache.Pass pass,
+            AuthService.AuthContext receptionist) {
         Map<String, Object> customerMap = new LinkedHashMap<>();
-        customerMap.put("customerId", customer.customerId());
-        customerMap.put("fullName", customer.fullName());
-        customerMap.put("email", customer.email());
-        customerMap.put("phone", customer.phone());
+        customerMap.put("customerId", pass.customerId());
+        customerMap.put("fullName", pass.fullName());
+        customerMap.put("email", pass.email());
+        customerMap.put("phone", pass.phone());
 
         Map<String, Object> membershipMap = new LinkedHashMap<>();
-        membershipMap.put("customerMembershipId", validity.customerMembershipId());
-        membershipMap.put("planName", validity.planName());
-        membershipMap.put("planType", validity.planType());
+        membershipMap.put("customerMembershipId", pass.customerMembershipId());
+        membershipMap.put("planName", pass.planName());
+        membershipMap.put("planType", pass.planType());
         membershipMap.put("status", "ACTIVE");
-        membershipMap.put("startDate", validity.startDate());
-        membershipMap.put("endDate", validity.endDate());
+        membershipMap.put("startDate", dateToString(pass.startDate()));
+        membershipMap.put("endDate", dateToString(pass.endDate()));
 
         Map<String, Object> data = new LinkedHashMap<>();
-        data.putAll(latest);
+        data.putAll(inserted);
         data.put("customer", customerMap);
         data.put("membership", membershipMap);
         data.put("checkedBy", Map.of(
@@ -316,6 +426,347 @@ public class CheckinHealthService {
         return data;
     }
 
+    /**
+     * Records buffered kiosk scans in order. Each scan carries a client scan ID (its idempotency key) and the
+     * time it was scanned; it is validated against the memberships that covered that time, and all accepted
+     * scans go in as one JDBC batch. A scan that was already recorded comes back as a duplicate with its
+     * original check-in, so a kiosk can resend a whole buffer after a timeout.
+     */
+    private Map<String, Object> receptionBatchCheckin(Map<String, Object> payload) {
+        AuthService.AuthContext receptionist = requireReceptionist(payload);
+        if (!schemaCapabilities.checkinScanIds()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Check-in scan IDs are missing. Run docs/alter.txt to add CheckIns.ClientScanID.");
+        }
+        List<Map<String, Object>> rawScans = listOfMaps(payload.get("scans"));
+        if (rawScans.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide at least one scan.");
+        }
+        if (rawScans.size() > maxBatchScans) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A batch can hold at most " + maxBatchScans + " scans.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<BatchScan> scans = new ArrayList<>();
+        Map<String, Map<String, Object>> firstResultByScanId = new HashMap<>();
+        for (int index = 0; index < rawScans.size(); index++) {
+            Map<String, Object> raw = rawScans.get(index) == null ? Map.of() : rawScans.get(index);
+            String scanId = asText(raw.get("scanId"));
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", index);
+            result.put("scanId", scanId);
+            results.add(result);
+
+            String problem = null;
+            LocalDateTime scannedAt = parseScanTime(raw.get("scannedAt"));
+            Integer customerId = parseInteger(raw.get("customerId"));
+            String qrCodeToken = asText(raw.get("qrCodeToken"));
+            if (scanId == null || scanId.length() > MAX_SCAN_ID_LENGTH) {
+                problem = "scanId is required and must be at most " + MAX_SCAN_ID_LENGTH + " characters.";
+            } else if (customerId == null && qrCodeToken == null) {
+                problem = "Provide customerId or qrCodeToken.";
+            } else if (scannedAt == null) {
+                problem = "scannedAt must be an ISO-8601 date-time.";
+            } else if (scannedAt.isAfter(now.plusSeconds(MAX_CLOCK_SKEW_SECONDS))) {
+                problem = "scannedAt is in the future.";
+            } else if (scannedAt.isBefore(now.minusHours(maxScanAgeHours))) {
+                problem = "scannedAt is older than " + maxScanAgeHours + " hours.";
+            }
+            if (problem != null) {
+                reject(result, problem);
+                continue;
+            }
+            Map<String, Object> first = firstResultByScanId.putIfAbsent(scanId, result);
+            if (first != null) {
+                // Repeated inside the batch; resolved from the first occurrence once it is recorded.
+                result.put("duplicateOf", first.get("index"));
+                continue;
+            }
+            scans.add(new BatchScan(result, scanId, customerId, qrCodeToken, scannedAt));
+        }
+
+        if (!scans.isEmpty()) {
+            Set<String> recorded = loadRecordedScanIds(scans.stream().map(BatchScan::scanId).toList());
+            List<BatchScan> pending = new ArrayList<>();
+            for (BatchScan scan : scans) {
+                if (recorded.contains(scan.scanId())) {
+                    scan.result().put("duplicate", true);
+                } else {
+                    pending.add(scan);
+                }
+            }
+            List<BatchInsert> inserts = resolveBatchMemberships(pending);
+            insertBatch(inserts, receptionist.userId());
+            fillRecordedCheckins(scans);
+            for (BatchScan scan : pending) {
+                if ("RECORDED".equals(scan.result().get("status"))
+                        && Boolean.FALSE.equals(scan.result().get("duplicate"))) {
+                    occupancyService.recordCheckin(scan.scannedAt());
+                }
+            }
+        }
+
+        int recordedCount = 0;
+        for (Map<String, Object> result : results) {
+            Object duplicateOf = result.remove("duplicateOf");
+            if (duplicateOf != null) {
+                Map<String, Object> first = results.get((Integer) duplicateOf);
+                if ("RECORDED".equals(first.get("status"))) {
+                    result.put("status", "RECORDED");
+                    result.put("duplicate", true);
+                    result.put("checkInId", first.get("checkInId"));
+                    result.put("checkInTime", first.get("checkInTime"));
+                    result.put("customerId", first.get("customerId"));
+                } else {
+                    reject(result, String.valueOf(first.get("reason")));
+                }
+            }
+            if ("RECORDED".equals(result.get("status"))) {
+                recordedCount++;
+            }
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("recorded", recordedCount);
+        data.put("rejected", results.size() - recordedCount);
+        data.put("items", results);
+        return data;
+    }
+
+    private Set<String> loadRecordedScanIds(List<String> scanIds) {
+        Set<String> recorded = new LinkedHashSet<>();
+        jdbcTemplate.query(RECORDED_SCANS_SQL_TEMPLATE.formatted(placeholders(scanIds.size())),
+                rs -> {
+                    recorded.add(rs.getString("ClientScanID"));
+                }, scanIds.toArray());
+        return recorded;
+    }
+
+    /** Matches each scan to its customer and to the membership that covered the scan date; rejects the rest. */
+    private List<BatchInsert> resolveBatchMemberships(List<BatchScan> scans) {
+        if (scans.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> customerIds = new LinkedHashSet<>();
+        Set<String> qrTokens = new LinkedHashSet<>();
+        for (BatchScan scan : scans) {
+            if (scan.customerId() != null) {
+                customerIds.add(scan.customerId());
+            } else {
+                qrTokens.add(scan.qrCodeToken());
+            }
+        }
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (!customerIds.isEmpty()) {
+            conditions.add("u.UserID IN (" + placeholders(customerIds.size()) + ")");
+            args.addAll(customerIds);
+        }
+        if (!qrTokens.isEmpty()) {
+            conditions.add("u.QrCodeToken IN (" + placeholders(qrTokens.size()) + ")");
+            args.addAll(qrTokens);
+        }
+        Set<Integer> knownCustomers = new LinkedHashSet<>();
+        Map<String, Integer> customerByToken = new HashMap<>();
+        jdbcTemplate.query(BATCH_CUSTOMERS_SQL_TEMPLATE.formatted(String.join(" OR ", conditions)), rs -> {
+            knownCustomers.add(rs.getInt("UserID"));
+            String token = rs.getString("QrCodeToken");
+            if (token != null) {
+                customerByToken.put(token, rs.getInt("UserID"));
+            }
+        }, args.toArray());
+
+        Map<Integer, List<MembershipSnapshot>> membershipsByCustomer = new HashMap<>();
+        if (!knownCustomers.isEmpty()) {
+            LocalDate earliest = scans.stream().map(scan -> scan.scannedAt().toLocalDate())
+                    .min(LocalDate::compareTo).orElseThrow();
+            List<Object> membershipArgs = new ArrayList<>(knownCustomers);
+            membershipArgs.add(java.sql.Date.valueOf(earliest));
+            jdbcTemplate.query(BATCH_MEMBERSHIPS_SQL_TEMPLATE.formatted(placeholders(knownCustomers.size())), rs -> {
+                membershipsByCustomer.computeIfAbsent(rs.getInt("CustomerID"), ignored -> new ArrayList<>())
+                        .add(new MembershipSnapshot(
+                                rs.getInt("CustomerMembershipID"),
+                                rs.getString("Status"),
+                                toLocalDate(rs, "StartDate"),
+                                toLocalDate(rs, "EndDate"),
+                                null,
+                                null));
+            }, membershipArgs.toArray());
+        }
+
+        List<BatchInsert> inserts = new ArrayList<>();
+        for (BatchScan scan : scans) {
+            Integer customerId = scan.customerId() != null
+                    ? (knownCustomers.contains(scan.customerId()) ? scan.customerId() : null)
+                    : customerByToken.get(scan.qrCodeToken());
+            if (customerId == null) {
+                reject(scan.result(), scan.customerId() != null
+                        ? "Customer not found."
+                        : "QR code is invalid or customer was not found.");
+                continue;
+            }
+            scan.result().put("customerId", customerId);
+            MembershipSnapshot membership = membershipCovering(
+                    membershipsByCustomer.getOrDefault(customerId, List.of()), scan.scannedAt().toLocalDate());
+            if (membership == null) {
+                reject(scan.result(), "No membership was active on " + dateToString(scan.scannedAt().toLocalDate()) + ".");
+                continue;
+            }
+            inserts.add(new BatchInsert(scan, customerId, membership.customerMembershipId()));
+        }
+        return inserts;
+    }
+
+    /** Prefers the ACTIVE membership, then the one ending last, like the single-scan validation. */
+    private MembershipSnapshot membershipCovering(List<MembershipSnapshot> memberships, LocalDate date) {
+        MembershipSnapshot best = null;
+        for (MembershipSnapshot candidate : memberships) {
+            if (candidate.startDate() == null || candidate.endDate() == null
+                    || date.isBefore(candidate.startDate()) || date.isAfter(candidate.endDate())) {
+                continue;
+            }
+            if (best == null || rankCovering(candidate, best) > 0) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private int rankCovering(MembershipSnapshot left, MembershipSnapshot right) {
+        boolean leftActive = "ACTIVE".equals(left.status());
+        boolean rightActive = "ACTIVE".equals(right.status());
+        if (leftActive != rightActive) {
+            return leftActive ? 1 : -1;
+        }
+        int byEnd = left.endDate().compareTo(right.endDate());
+        return byEnd != 0 ? byEnd : Integer.compare(left.customerMembershipId(), right.customerMembershipId());
+    }
+
+    /**
+     * One batch in one transaction. If the membership trigger still rejects a row (a status changed since the
+     * read), the whole batch rolls back and the rows are retried one by one so only that scan is rejected. Any
+     * other database error fails the request with 503, so the kiosk keeps its buffer and resends it.
+     */
+    private void insertBatch(List<BatchInsert> inserts, int receptionistId) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = inserts.stream().map(insert -> batchRow(insert, receptionistId)).toList();
+        try {
+            int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_BATCH_CHECKIN_SQL,
+                    rows));
+            for (int i = 0; i < inserts.size(); i++) {
+                markInserted(inserts.get(i), counts == null || i >= counts.length ? 1 : counts[i]);
+            }
+            return;
+        } catch (DataAccessException exception) {
+            if (!isMembershipTriggerRejection(exception)) {
+                throw checkinsUnavailable(exception);
+            }
+        }
+        for (int i = 0; i < inserts.size(); i++) {
+            try {
+                markInserted(inserts.get(i), jdbcTemplate.update(INSERT_BATCH_CHECKIN_SQL, rows.get(i)));
+            } catch (DataAccessException exception) {
+                if (!isMembershipTriggerRejection(exception)) {
+                    throw checkinsUnavailable(exception);
+                }
+                reject(inserts.get(i).scan().result(), "Membership was not valid for check-in at scan time.");
+            }
+        }
+    }
+
+    /** 0 rows means a concurrent flush recorded the scan first, so it must not count towards occupancy again. */
+    private void markInserted(BatchInsert insert, int rowCount) {
+        insert.scan().result().put("duplicate", rowCount == 0);
+    }
+
+    /** The RAISERROR from TRG_CheckIns_ValidateMembershipActive, as opposed to deadlocks, timeouts or outages. */
+    static boolean isMembershipTriggerRejection(DataAccessException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                for (SQLException next = sqlException; next != null; next = next.getNextException()) {
+                    if (next.getErrorCode() == USER_RAISED_ERROR_CODE && next.getMessage() != null
+                            && next.getMessage().contains(MEMBERSHIP_TRIGGER_MESSAGE)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ResponseStatusException checkinsUnavailable(DataAccessException exception) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Check-ins could not be saved right now. Keep the scans and resend the batch.", exception);
+    }
+
+    private Object[] batchRow(BatchInsert insert, int receptionistId) {
+        return new Object[] {
+                insert.customerId(),
+                insert.customerMembershipId(),
+                receptionistId,
+                Timestamp.valueOf(insert.scan().scannedAt()),
+                insert.scan().scanId(),
+                insert.scan().scanId()
+        };
+    }
+
+    /** Reads back every recorded scan, new or replayed, so each result carries its check-in. */
+    private void fillRecordedCheckins(List<BatchScan> scans) {
+        Map<String, BatchScan> open = new LinkedHashMap<>();
+        for (BatchScan scan : scans) {
+            if (!"REJECTED".equals(scan.result().get("status"))) {
+                open.put(scan.scanId(), scan);
+            }
+        }
+        if (open.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(RECORDED_SCANS_SQL_TEMPLATE.formatted(placeholders(open.size())), rs -> {
+            BatchScan scan = open.remove(rs.getString("ClientScanID"));
+            if (scan != null) {
+                scan.result().put("status", "RECORDED");
+                scan.result().putIfAbsent("duplicate", false);
+                scan.result().put("checkInId", rs.getInt("CheckInID"));
+                scan.result().put("checkInTime", timestampToIso(rs.getTimestamp("CheckInTime")));
+                scan.result().put("customerId", rs.getInt("CustomerID"));
+            }
+        }, open.keySet().toArray());
+        for (BatchScan scan : open.values()) {
+            reject(scan.result(), "Check-in failed. Membership is not valid for check-in.");
+        }
+    }
+
+    private void reject(Map<String, Object> result, String reason) {
+        result.put("status", "REJECTED");
+        result.put("reason", reason);
+    }
+
+    /** Offset date-times are converted to server time; a local date-time is taken as server time already. */
+    private LocalDateTime parseScanTime(Object value) {
+        String text = asText(value);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException ignored) {
+            // Try without an offset.
+        }
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException exception) {
+            return null;
+        }
+    }
+
+    private String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     private Map<String, Object> receptionValidateMembership(Map<String, Object> payload) {
         requireReceptionist(payload);
         Integer customerId = parseInteger(payload.get("customerId"));
@@ -330,7 +781,7 @@ public class CheckinHealthService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide customerId or qrCodeToken.");
         }
 
-        MembershipValidity validity = buildMembershipValidity(customer.customerId());
+        MembershipValidity validity = buildMembershipValidity(membershipStates.resolve(customer.customerId()));
 
         Map<String, Object> customerMap = new LinkedHashMap<>();
         customerMap.put("customerId", customer.customerId());
@@ -390,146 +841,53 @@ public class CheckinHealthService {
         return context;
     }
 
-    private MembershipValidity buildMembershipValidity(int customerId) {
-        List<MembershipSnapshot> activeRows = jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate,
-                    mp.PlanName,
-                    mp.PlanType
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ? AND cm.Status = 'ACTIVE'
-                ORDER BY cm.EndDate DESC, cm.CustomerMembershipID DESC
-                """, membershipSnapshotRowMapper(), customerId);
-
-        if (!activeRows.isEmpty()) {
-            MembershipSnapshot active = activeRows.get(0);
-            return new MembershipValidity(
-                    true,
-                    null,
-                    active.customerMembershipId(),
-                    active.status(),
-                    active.planName(),
-                    active.planType(),
-                    dateToString(active.startDate()),
-                    dateToString(active.endDate()));
-        }
-
-        List<MembershipSnapshot> scheduledRows = jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate,
-                    mp.PlanName,
-                    mp.PlanType
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ? AND cm.Status = 'SCHEDULED'
-                ORDER BY cm.StartDate ASC, cm.CustomerMembershipID ASC
-                """, membershipSnapshotRowMapper(), customerId);
-        if (!scheduledRows.isEmpty()) {
-            MembershipSnapshot scheduled = scheduledRows.get(0);
-            String reason = scheduled.planName() + " is scheduled to start on "
-                    + dateToString(scheduled.startDate()) + ".";
-            return new MembershipValidity(
-                    false,
-                    reason,
-                    scheduled.customerMembershipId(),
-                    scheduled.status(),
-                    scheduled.planName(),
-                    scheduled.planType(),
-                    dateToString(scheduled.startDate()),
-                    dateToString(scheduled.endDate()));
-        }
-
-        List<MembershipSnapshot> expiredRows = jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate,
-                    mp.PlanName,
-                    mp.PlanType
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ? AND cm.Status = 'EXPIRED'
-                ORDER BY cm.EndDate DESC, cm.CustomerMembershipID DESC
-                """, membershipSnapshotRowMapper(), customerId);
-        if (!expiredRows.isEmpty()) {
-            MembershipSnapshot expired = expiredRows.get(0);
-            String reason = expired.planName() + " expired on " + dateToString(expired.endDate()) + ".";
-            return new MembershipValidity(
-                    false,
-                    reason,
-                    expired.customerMembershipId(),
-                    expired.status(),
-                    expired.planName(),
-                    expired.planType(),
-                    dateToString(expired.startDate()),
-                    dateToString(expired.endDate()));
-        }
-
-        List<MembershipSnapshot> cancelledRows = jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate,
-                    mp.PlanName,
-                    mp.PlanType
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ? AND cm.Status = 'CANCELLED'
-                ORDER BY cm.EndDate DESC, cm.CustomerMembershipID DESC
-                """, membershipSnapshotRowMapper(), customerId);
-        if (!cancelledRows.isEmpty()) {
-            MembershipSnapshot cancelled = cancelledRows.get(0);
-            String reason = cancelled.planName() + " was cancelled and is not valid for check-in.";
-            return new MembershipValidity(
-                    false,
-                    reason,
-                    cancelled.customerMembershipId(),
-                    cancelled.status(),
-                    cancelled.planName(),
-                    cancelled.planType(),
-                    dateToString(cancelled.startDate()),
-                    dateToString(cancelled.endDate()));
-        }
-
-        List<MembershipSnapshot> pendingRows = jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate,
-                    mp.PlanName,
-                    mp.PlanType
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ? AND cm.Status = 'PENDING'
-                ORDER BY cm.CustomerMembershipID DESC
-                """, membershipSnapshotRowMapper(), customerId);
-        if (!pendingRows.isEmpty()) {
-            MembershipSnapshot pending = pendingRows.get(0);
-            return new MembershipValidity(
-                    false,
-                    pending.planName() + " payment is pending and not active yet.",
-                    pending.customerMembershipId(),
-                    pending.status(),
-                    pending.planName(),
-                    pending.planType(),
-                    dateToString(pending.startDate()),
-                    dateToString(pending.endDate()));
+    /** First match wins: ACTIVE, next SCHEDULED, latest EXPIRED, latest CANCELLED, then a PENDING checkout. */
+    private MembershipValidity buildMembershipValidity(MembershipStateResolver.MembershipState state) {
+        MembershipStateResolver.Membership active = state.active();
+        if (active != null) {
+            return membershipValidity(true, null, active);
+        }
+
+        MembershipStateResolver.Membership scheduled = state.nextStarting("SCHEDULED");
+        if (scheduled != null) {
+            return membershipValidity(false, scheduled.planName() + " is scheduled to start on "
+                    + dateToString(scheduled.startDate()) + ".", scheduled);
+        }
+
+        MembershipStateResolver.Membership expired = state.latest("EXPIRED");
+        if (expired != null) {
+            return membershipValidity(false,
+                    expired.planName() + " expired on " + dateToString(expired.endDate()) + ".", expired);
+        }
+
+        MembershipStateResolver.Membership cancelled = state.latest("CANCELLED");
+        if (cancelled != null) {
+            return membershipValidity(false, cancelled.planName() + " was cancelled and is not valid for check-in.",
+                    cancelled);
+        }
+
+        MembershipStateResolver.Membership pending = state.newest("PENDING");
+        if (pending != null) {
+            return membershipValidity(false, pending.planName() + " payment is pending and not active yet.", pending);
         }
 
         return new MembershipValidity(false, "No active membership found for this customer.", null, null, null, null, null,
                 null);
     }
 
+    private MembershipValidity membershipValidity(boolean valid, String reason,
+            MembershipStateResolver.Membership membership) {
+        return new MembershipValidity(
+                valid,
+                reason,
+                membership.customerMembershipId(),
+                membership.status(),
+                membership.planName(),
+                membership.planType(),
+                dateToString(membership.startDate()),
+                dateToString(membership.endDate()));
+    }
+
     private CustomerLookup requireCustomerById(int customerId) {
         try {
             return jdbcTemplate.queryForObject("""
@@ -537,7 +895,8 @@ public class CheckinHealthService {
                         u.UserID,
                         u.FullName,
                         u.Email,
-                        u.Phone
+                        u.Phone,
+                        u.QrCodeToken
                     FROM dbo.Users u
                     JOIN dbo.Customers c ON c.CustomerID = u.UserID
                     WHERE u.UserID = ?
@@ -554,7 +913,8 @@ public class CheckinHealthService {
                         u.UserID,
                         u.FullName,
                         u.Email,
-                        u.Phone
+                        u.Phone,
+                        u.QrCodeToken
                     FROM dbo.Users u
                     JOIN dbo.Customers c ON c.CustomerID = u.UserID
                     WHERE u.QrCodeToken = ?
@@ -569,17 +929,8 @@ public class CheckinHealthService {
                 rs.getInt("UserID"),
                 rs.getString("FullName"),
                 rs.getString("Email"),
-                rs.getString("Phone"));
-    }
-
-    private RowMapper<MembershipSnapshot> membershipSnapshotRowMapper() {
-        return (rs, rowNum) -> new MembershipSnapshot(
-                rs.getInt("CustomerMembershipID"),
-                rs.getString("Status"),
-                toLocalDate(rs, "StartDate"),
-                toLocalDate(rs, "EndDate"),
-                rs.getString("PlanName"),
-                rs.getString("PlanType"));
+                rs.getString("Phone"),
+                rs.getString("QrCodeToken"));
     }
 
     private RowMapper<Map<String, Object>> checkinHistoryRowMapper() {
@@ -608,6 +959,10 @@ public class CheckinHealthService {
         return value == null ? null : value.format(DATE_FORMAT);
     }
 
+    private LocalDate parseDate(String value) {
+        return value == null ? null : LocalDate.parse(value, DATE_FORMAT);
+    }
+
     private String timestampToIso(Timestamp timestamp) {
         return timestamp == null ? null : timestamp.toInstant().toString();
     }
@@ -806,7 +1161,18 @@ public class CheckinHealthService {
         return null;
     }
 
-    private record CustomerLookup(int customerId, String fullName, String email, String phone) {
+    private record BatchScan(
+            Map<String, Object> result,
+            String scanId,
+            Integer customerId,
+            String qrCodeToken,
+            LocalDateTime scannedAt) {
+    }
+
+    private record BatchInsert(BatchScan scan, int customerId, int customerMembershipId) {
+    }
+
+    private record CustomerLookup(int customerId, String fullName, String email, String phone, String qrCodeToken) {
     }
 
     private record MembershipSnapshot(
@@ -0,0 +1,222 @@
+package com.gymcore.backend.modules.checkin.service;
+
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Gym occupancy without reading dbo.CheckIns per request. Live occupancy is a rolling count of check-ins within
+ * the configured dwell time, kept in per-minute slots that recorded check-ins update with a compare-and-set, so
+ * scans never wait on a lock. The counter is per instance: it is seeded from the last dwell window at startup and
+ * then fed by the check-ins this instance records.
+ *
+ * <p>The weekday/hour heatmap reads dbo.CheckInHourlyRollup, which TRG_CheckIns_HourlyRollup keeps current and
+ * the daily job reconciles (docs/alter.txt).
+ */
+@Service
+public class CheckinOccupancyService {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckinOccupancyService.class);
+
+    /** Check-ins per minute over the last dwell window; bounded by IX_CheckIns_CheckInTime. */
+    static final String RECENT_CHECKINS_BY_MINUTE_SQL = """
+            SELECT DATEADD(MINUTE, DATEDIFF(MINUTE, 0, CheckInTime), 0) AS CheckInMinute,
+                   COUNT(1) AS CheckInCount
+            FROM dbo.CheckIns
+            WHERE CheckInTime >= DATEADD(MINUTE, -?, SYSDATETIME())
+            GROUP BY DATEADD(MINUTE, DATEDIFF(MINUTE, 0, CheckInTime), 0)
+            """;
+    static final String HOURLY_ROLLUP_SQL = """
+            SELECT CheckInDate, HourOfDay, CheckInCount
+            FROM dbo.CheckInHourlyRollup
+            WHERE CheckInDate >= ?
+              AND CheckInDate < ?
+            """;
+    /** One slot per minute of a day; the dwell time is capped to this window. */
+    static final int SLOT_COUNT = 24 * 60;
+    static final int DEFAULT_HEATMAP_WEEKS = 8;
+    static final int MAX_HEATMAP_WEEKS = 52;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaCapabilities schemaCapabilities;
+    // Each slot packs the epoch minute it counts (high 32 bits) with the count (low 32 bits), so reusing a slot
+    // for a newer minute and counting into it is a single compare-and-set.
+    private final AtomicLongArray slots = new AtomicLongArray(SLOT_COUNT);
+
+    @Value("${app.checkin.occupancy.dwell-minutes:90}")
+    private int dwellMinutes;
+
+    @Value("${app.checkin.occupancy.capacity:0}")
+    private int capacity;
+
+    public CheckinOccupancyService(JdbcTemplate jdbcTemplate, SchemaCapabilities schemaCapabilities) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaCapabilities = schemaCapabilities;
+    }
+
+    @PostConstruct
+    void seedOnStartup() {
+        try {
+            log.info("Occupancy counter seeded with {} recent check-ins.", seed());
+        } catch (RuntimeException exception) {
+            // The counter starts empty and catches up once a dwell window of scans has passed.
+            log.warn("Failed to seed occupancy counter at startup: {}", exception.getMessage());
+        }
+    }
+
+    /** Loads the check-ins of the last dwell window into the counter; returns how many were added. */
+    public long seed() {
+        long[] seeded = new long[1];
+        jdbcTemplate.query(RECENT_CHECKINS_BY_MINUTE_SQL, rs -> {
+            int count = rs.getInt("CheckInCount");
+            add(epochMinute(rs.getTimestamp("CheckInMinute").toLocalDateTime()), count);
+            seeded[0] += count;
+        }, effectiveDwellMinutes());
+        return seeded[0];
+    }
+
+    /** Counts a check-in recorded for {@code checkInTime}; times outside the counted window are ignored. */
+    public void recordCheckin(LocalDateTime checkInTime) {
+        add(epochMinute(checkInTime), 1);
+    }
+
+    private void add(long minute, int count) {
+        long now = currentMinute();
+        if (minute > now || minute <= now - SLOT_COUNT) {
+            return;
+        }
+        int slot = (int) (minute % SLOT_COUNT);
+        while (true) {
+            long current = slots.get(slot);
+            long slotMinute = current >>> 32;
+            if (slotMinute > minute) {
+                // The slot already counts a later minute, so this one has left the window.
+                return;
+            }
+            long next = slotMinute == minute ? current + count : (minute << 32) | count;
+            if (slots.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /** Check-ins within the last {@code minutes} minutes, including the current one. */
+    long countSince(int minutes) {
+        long now = currentMinute();
+        long total = 0;
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            long value = slots.get(i);
+            long slotMinute = value >>> 32;
+            if (slotMinute <= now && slotMinute > now - minutes) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    public Map<String, Object> occupancy() {
+        int dwell = effectiveDwellMinutes();
+        long current = countSince(dwell);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("currentOccupancy", current);
+        data.put("checkinsLastHour", countSince(60));
+        data.put("dwellMinutes", dwell);
+        data.put("capacity", capacity > 0 ? capacity : null);
+        data.put("utilizationPercent", capacity > 0
+                ? BigDecimal.valueOf(current * 100).divide(BigDecimal.valueOf(capacity), 1, RoundingMode.HALF_UP)
+                : null);
+        data.put("asOf", LocalDateTime.now().toString());
+        return data;
+    }
+
+    /**
+     * Check-ins by weekday and hour over the last {@code weeks} full weeks, ending yesterday so that every
+     * weekday is counted the same number of times. Averages are per day.
+     */
+    public Map<String, Object> heatmap(Integer weeks) {
+        if (!schemaCapabilities.checkinHourlyRollup()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Check-in hourly rollup is missing. Run docs/alter.txt to add CheckInHourlyRollup.");
+        }
+        int resolvedWeeks = weeks == null ? DEFAULT_HEATMAP_WEEKS : weeks;
+        if (resolvedWeeks < 1 || resolvedWeeks > MAX_HEATMAP_WEEKS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "weeks must be between 1 and " + MAX_HEATMAP_WEEKS + ".");
+        }
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusWeeks(resolvedWeeks);
+
+        long[][] totals = new long[7][24];
+        jdbcTemplate.query(HOURLY_ROLLUP_SQL, rs -> {
+            DayOfWeek day = rs.getDate("CheckInDate").toLocalDate().getDayOfWeek();
+            totals[day.getValue() - 1][rs.getInt("HourOfDay")] += rs.getInt("CheckInCount");
+        }, Date.valueOf(from), Date.valueOf(to));
+
+        List<Map<String, Object>> days = new ArrayList<>();
+        Map<String, Object> peak = null;
+        BigDecimal peakAverage = BigDecimal.ZERO;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<Long> dayTotals = new ArrayList<>();
+            List<BigDecimal> dayAverages = new ArrayList<>();
+            for (int hour = 0; hour < 24; hour++) {
+                long total = totals[day.getValue() - 1][hour];
+                BigDecimal average = BigDecimal.valueOf(total)
+                        .divide(BigDecimal.valueOf(resolvedWeeks), 2, RoundingMode.HALF_UP);
+                dayTotals.add(total);
+                dayAverages.add(average);
+                if (average.compareTo(peakAverage) > 0) {
+                    peakAverage = average;
+                    peak = new LinkedHashMap<>();
+                    peak.put("dayOfWeek", day.name());
+                    peak.put("hour", hour);
+                    peak.put("averageCheckins", average);
+                }
+            }
+            Map<String, Object> dayMap = new LinkedHashMap<>();
+            dayMap.put("dayOfWeek", day.name());
+            dayMap.put("totals", dayTotals);
+            dayMap.put("averages", dayAverages);
+            days.add(dayMap);
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("weeks", resolvedWeeks);
+        data.put("from", from.toString());
+        data.put("to", to.minusDays(1).toString());
+        data.put("days", days);
+        data.put("peak", peak);
+        return data;
+    }
+
+    private int effectiveDwellMinutes() {
+        return Math.max(1, Math.min(dwellMinutes, SLOT_COUNT));
+    }
+
+    long currentMinute() {
+        return Instant.now().getEpochSecond() / 60;
+    }
+
+    private static long epochMinute(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+    }
+}
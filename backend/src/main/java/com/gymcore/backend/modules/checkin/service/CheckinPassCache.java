@@ -0,0 +1,177 @@
+package com.gymcore.backend.modules.checkin.service;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Front-desk cache of customers who can check in right now: customer contact fields, QR token and the ACTIVE
+ * membership the scan would record, keyed by customerId and by QR token. Warmed at startup with every ACTIVE
+ * membership, then filled by scans that pass the full validation. Only passing customers are cached, so a miss
+ * always takes the full path and yields the precise rejection reason.
+ *
+ * <p>Membership status writes call {@link #invalidateCustomer(int)}; the TTL bounds staleness for writes made on
+ * another instance, and {@code TRG_CheckIns_ValidateMembershipActive} still rejects any insert made from a stale
+ * pass. A TTL of 0 disables caching.
+ */
+@Service
+public class CheckinPassCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckinPassCache.class);
+
+    /** Same pick as the full validation: the ACTIVE membership with the latest end date, then the newest. */
+    static final String WARM_SQL = """
+            SELECT u.UserID, u.FullName, u.Email, u.Phone, u.QrCodeToken,
+                   m.CustomerMembershipID, m.StartDate, m.EndDate, m.PlanName, m.PlanType
+            FROM (
+                SELECT cm.CustomerID, cm.CustomerMembershipID, cm.StartDate, cm.EndDate, mp.PlanName, mp.PlanType,
+                       ROW_NUMBER() OVER (PARTITION BY cm.CustomerID
+                                          ORDER BY cm.EndDate DESC, cm.CustomerMembershipID DESC) AS RowNo
+                FROM dbo.CustomerMemberships cm
+                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
+                WHERE cm.Status = 'ACTIVE'
+                  AND cm.EndDate >= CAST(SYSDATETIME() AS DATE)
+            ) m
+            JOIN dbo.Users u ON u.UserID = m.CustomerID
+            JOIN dbo.Customers c ON c.CustomerID = u.UserID
+            WHERE m.RowNo = 1
+            """;
+    static final int MAX_ENTRIES = 50_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, Entry> byCustomer = new ConcurrentHashMap<>();
+    private final Map<String, Integer> customerByToken = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    @Value("${app.checkin.pass-cache-seconds:900}")
+    private long ttlSeconds;
+
+    public CheckinPassCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void warmOnStartup() {
+        try {
+            log.info("Check-in pass cache warmed with {} customers.", warm());
+        } catch (RuntimeException exception) {
+            // Scans fall back to the full validation and fill the cache as they go.
+            log.warn("Failed to warm check-in pass cache at startup: {}", exception.getMessage());
+        }
+    }
+
+    /** Loads a pass for every customer with an ACTIVE membership; returns how many were cached. */
+    public int warm() {
+        if (ttlSeconds <= 0) {
+            return 0;
+        }
+        long stamp = version.get();
+        Map<Integer, Pass> loaded = new HashMap<>();
+        jdbcTemplate.query(WARM_SQL, rs -> {
+            Date endDate = rs.getDate("EndDate");
+            Date startDate = rs.getDate("StartDate");
+            loaded.put(rs.getInt("UserID"), new Pass(
+                    rs.getInt("UserID"),
+                    rs.getString("FullName"),
+                    rs.getString("Email"),
+                    rs.getString("Phone"),
+                    rs.getString("QrCodeToken"),
+                    rs.getInt("CustomerMembershipID"),
+                    rs.getString("PlanName"),
+                    rs.getString("PlanType"),
+                    startDate == null ? null : startDate.toLocalDate(),
+                    endDate == null ? null : endDate.toLocalDate()));
+        });
+        int cached = 0;
+        for (Pass pass : loaded.values()) {
+            if (put(stamp, pass)) {
+                cached++;
+            }
+        }
+        return cached;
+    }
+
+    /** Pass for a customer that is still within its membership dates, or null to take the full path. */
+    public Pass findByCustomerId(int customerId) {
+        Entry entry = byCustomer.get(customerId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        if (now - entry.expiresAtNanos() >= 0 || !entry.pass().coversDate(today)) {
+            byCustomer.remove(customerId, entry);
+            return null;
+        }
+        return entry.pass();
+    }
+
+    public Pass findByQrToken(String qrCodeToken) {
+        Integer customerId = customerByToken.get(qrCodeToken);
+        return customerId == null ? null : findByCustomerId(customerId);
+    }
+
+    /** Read before loading a pass from the database and hand back to {@link #put(long, Pass)}. */
+    public long stamp() {
+        return version.get();
+    }
+
+    /**
+     * Caches a pass unless an invalidation happened since {@code stamp} was taken, which could mean the pass was
+     * read before a membership change.
+     */
+    public boolean put(long stamp, Pass pass) {
+        if (ttlSeconds <= 0 || version.get() != stamp) {
+            return false;
+        }
+        if (byCustomer.size() >= MAX_ENTRIES && !byCustomer.containsKey(pass.customerId())) {
+            return false;
+        }
+        byCustomer.put(pass.customerId(), new Entry(pass, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+        if (pass.qrCodeToken() != null) {
+            customerByToken.put(pass.qrCodeToken(), pass.customerId());
+        }
+        return true;
+    }
+
+    public void invalidateCustomer(int customerId) {
+        version.incrementAndGet();
+        // The QR token stays mapped; tokens never move between customers and a lookup without a pass is a miss.
+        byCustomer.remove(customerId);
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        byCustomer.clear();
+        customerByToken.clear();
+    }
+
+    public record Pass(
+            int customerId,
+            String fullName,
+            String email,
+            String phone,
+            String qrCodeToken,
+            int customerMembershipId,
+            String planName,
+            String planType,
+            LocalDate startDate,
+            LocalDate endDate) {
+
+        boolean coversDate(LocalDate date) {
+            return (startDate == null || !date.isBefore(startDate)) && (endDate == null || !date.isAfter(endDate));
+        }
+    }
+
+    private record Entry(Pass pass, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,320 @@
+package com.gymcore.backend.modules.coach.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory view of coach availability used by coach matching.
+ * Weekly availability is a bitset over (dayOfWeek x TimeSlotID); booked sessions and
+ * active unavailable blocks are kept per date so a match request never touches SQL once warm.
+ */
+@Service
+public class CoachAvailabilityIndexService {
+
+    static final String TIME_SLOT_IDS_SQL = """
+            SELECT TimeSlotID
+            FROM dbo.TimeSlots
+            ORDER BY TimeSlotID
+            """;
+    static final String WEEKLY_AVAILABILITY_SQL = """
+            SELECT c.CoachID, cwa.DayOfWeek, cwa.TimeSlotID
+            FROM dbo.Coaches c
+            LEFT JOIN dbo.CoachWeeklyAvailability cwa
+                ON cwa.CoachID = c.CoachID AND cwa.IsAvailable = 1
+            """;
+    static final String BOOKED_SESSIONS_SQL = """
+            SELECT CoachID, SessionDate, TimeSlotID
+            FROM dbo.PTSessions
+            WHERE SessionDate >= ? AND Status IN ('SCHEDULED','COMPLETED')
+            """;
+    static final String ACTIVE_BLOCKS_SQL = """
+            SELECT CoachID, StartDate, EndDate, TimeSlotID
+            FROM dbo.CoachUnavailableBlocks
+            WHERE IsActive = 1 AND EndDate >= ?
+            """;
+
+    private static final int DAYS_PER_WEEK = 7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, CoachSlots> coaches = new ConcurrentHashMap<>();
+    private volatile List<Integer> timeSlotIds;
+    private volatile boolean warm;
+
+    public CoachAvailabilityIndexService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns availability for every given coach over [fromDate, toDate], loading the whole
+     * index in one pass the first time it is needed.
+     */
+    public Map<Integer, CoachSlotView> viewCoaches(Collection<Integer> coachIds, LocalDate fromDate, LocalDate toDate) {
+        ensureWarm();
+        Map<Integer, CoachSlotView> views = new LinkedHashMap<>();
+        for (Integer coachId : coachIds) {
+            views.put(coachId, viewCoach(coachId, fromDate, toDate));
+        }
+        return views;
+    }
+
+    public CoachSlotView viewCoach(int coachId, LocalDate fromDate, LocalDate toDate) {
+        ensureWarm();
+        CoachSlots slots = coaches.get(coachId);
+        if (slots == null) {
+            slots = loadCoach(coachId);
+        }
+        return slots.view(fromDate, toDate, resolveTimeSlotIds());
+    }
+
+    public void replaceWeeklyAvailability(int coachId, Collection<int[]> dayAndSlotPairs) {
+        CoachSlots slots = coaches.get(coachId);
+        if (slots == null) {
+            return;
+        }
+        BitSet weekly = new BitSet();
+        for (int[] pair : dayAndSlotPairs) {
+            weekly.set(slotKey(pair[0], pair[1]));
+        }
+        slots.replaceWeekly(weekly);
+    }
+
+    public void markSessionBooked(int coachId, LocalDate sessionDate, int timeSlotId) {
+        CoachSlots slots = coaches.get(coachId);
+        if (slots != null) {
+            slots.book(sessionDate, timeSlotId);
+        }
+    }
+
+    public void releaseSession(int coachId, LocalDate sessionDate, int timeSlotId) {
+        CoachSlots slots = coaches.get(coachId);
+        if (slots != null) {
+            slots.release(sessionDate, timeSlotId);
+        }
+    }
+
+    public void addUnavailableBlock(int coachId, LocalDate startDate, LocalDate endDate, Integer timeSlotId) {
+        CoachSlots slots = coaches.get(coachId);
+        if (slots != null) {
+            slots.addBlock(new Block(startDate, endDate, timeSlotId));
+        }
+    }
+
+    /**
+     * Drops one coach so the next read reloads it from the database. Used where the write
+     * path does not know exactly which (date, slot) pairs changed.
+     */
+    public void invalidateCoach(int coachId) {
+        coaches.remove(coachId);
+    }
+
+    /**
+     * Nightly rebuild after the daily membership job has cancelled PT sessions in bulk.
+     * Also drops dates that are already in the past.
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public synchronized void rebuild() {
+        timeSlotIds = null;
+        coaches.clear();
+        loadAll();
+        warm = true;
+    }
+
+    private void ensureWarm() {
+        if (warm) {
+            return;
+        }
+        synchronized (this) {
+            if (!warm) {
+                loadAll();
+                warm = true;
+            }
+        }
+    }
+
+    private void loadAll() {
+        LocalDate today = LocalDate.now();
+        Map<Integer, CoachSlots> loaded = new HashMap<>();
+        jdbcTemplate.query(WEEKLY_AVAILABILITY_SQL, rs -> {
+            CoachSlots slots = loaded.computeIfAbsent(rs.getInt("CoachID"), ignored -> new CoachSlots());
+            int dayOfWeek = rs.getInt("DayOfWeek");
+            if (!rs.wasNull()) {
+                slots.weekly.set(slotKey(dayOfWeek, rs.getInt("TimeSlotID")));
+            }
+        });
+        jdbcTemplate.query(BOOKED_SESSIONS_SQL, rs -> {
+            CoachSlots slots = loaded.get(rs.getInt("CoachID"));
+            if (slots != null) {
+                slots.book(rs.getDate("SessionDate").toLocalDate(), rs.getInt("TimeSlotID"));
+            }
+        }, today);
+        jdbcTemplate.query(ACTIVE_BLOCKS_SQL, rs -> {
+            CoachSlots slots = loaded.get(rs.getInt("CoachID"));
+            if (slots != null) {
+                slots.addBlock(mapBlock(rs));
+            }
+        }, today);
+        coaches.putAll(loaded);
+    }
+
+    private CoachSlots loadCoach(int coachId) {
+        LocalDate today = LocalDate.now();
+        CoachSlots slots = new CoachSlots();
+        jdbcTemplate.query(WEEKLY_AVAILABILITY_SQL + " WHERE c.CoachID = ?", rs -> {
+            int dayOfWeek = rs.getInt("DayOfWeek");
+            if (!rs.wasNull()) {
+                slots.weekly.set(slotKey(dayOfWeek, rs.getInt("TimeSlotID")));
+            }
+        }, coachId);
+        jdbcTemplate.query(BOOKED_SESSIONS_SQL + " AND CoachID = ?", rs -> {
+            slots.book(rs.getDate("SessionDate").toLocalDate(), rs.getInt("TimeSlotID"));
+        }, today, coachId);
+        jdbcTemplate.query(ACTIVE_BLOCKS_SQL + " AND CoachID = ?", rs -> {
+            slots.addBlock(mapBlock(rs));
+        }, today, coachId);
+        CoachSlots existing = coaches.putIfAbsent(coachId, slots);
+        return existing != null ? existing : slots;
+    }
+
+    private Block mapBlock(ResultSet rs) throws SQLException {
+        int timeSlotId = rs.getInt("TimeSlotID");
+        Integer blockedSlot = rs.wasNull() ? null : timeSlotId;
+        return new Block(rs.getDate("StartDate").toLocalDate(), rs.getDate("EndDate").toLocalDate(), blockedSlot);
+    }
+
+    private List<Integer> resolveTimeSlotIds() {
+        List<Integer> ids = timeSlotIds;
+        if (ids == null) {
+            ids = List.copyOf(jdbcTemplate.query(TIME_SLOT_IDS_SQL, (rs, i) -> rs.getInt("TimeSlotID")));
+            timeSlotIds = ids;
+        }
+        return ids;
+    }
+
+    private static int slotKey(int dayOfWeek, int timeSlotId) {
+        return timeSlotId * (DAYS_PER_WEEK + 1) + dayOfWeek;
+    }
+
+    /**
+     * Per-coach mutable state. All access goes through the instance monitor; views handed out
+     * to callers are copies.
+     */
+    private static final class CoachSlots {
+
+        private final BitSet weekly = new BitSet();
+        private final NavigableMap<LocalDate, BitSet> bookedByDate = new TreeMap<>();
+        private final List<Block> blocks = new ArrayList<>();
+
+        synchronized void replaceWeekly(BitSet replacement) {
+            weekly.clear();
+            weekly.or(replacement);
+        }
+
+        synchronized void book(LocalDate date, int timeSlotId) {
+            bookedByDate.computeIfAbsent(date, ignored -> new BitSet()).set(timeSlotId);
+        }
+
+        synchronized void release(LocalDate date, int timeSlotId) {
+            BitSet booked = bookedByDate.get(date);
+            if (booked == null) {
+                return;
+            }
+            booked.clear(timeSlotId);
+            if (booked.isEmpty()) {
+                bookedByDate.remove(date);
+            }
+        }
+
+        synchronized void addBlock(Block block) {
+            blocks.add(block);
+        }
+
+        synchronized CoachSlotView view(LocalDate fromDate, LocalDate toDate, List<Integer> allTimeSlotIds) {
+            BitSet available = (BitSet) weekly.clone();
+            if (available.isEmpty()) {
+                // Same default as the schedule screens: no configured rows means every slot is open.
+                for (int day = 1; day <= DAYS_PER_WEEK; day++) {
+                    for (int timeSlotId : allTimeSlotIds) {
+                        available.set(slotKey(day, timeSlotId));
+                    }
+                }
+            }
+
+            BitSet taken = new BitSet();
+            for (Map.Entry<LocalDate, BitSet> entry : bookedByDate.subMap(fromDate, true, toDate, true).entrySet()) {
+                int dayOfWeek = entry.getKey().getDayOfWeek().getValue();
+                BitSet booked = entry.getValue();
+                for (int timeSlotId = booked.nextSetBit(0); timeSlotId >= 0; timeSlotId = booked.nextSetBit(timeSlotId + 1)) {
+                    taken.set(slotKey(dayOfWeek, timeSlotId));
+                }
+            }
+            for (Block block : blocks) {
+                LocalDate start = block.startDate().isAfter(fromDate) ? block.startDate() : fromDate;
+                LocalDate end = block.endDate().isBefore(toDate) ? block.endDate() : toDate;
+                // A block longer than a week already covers every weekday once.
+                for (int offset = 0; offset < DAYS_PER_WEEK && !start.plusDays(offset).isAfter(end); offset++) {
+                    int dayOfWeek = start.plusDays(offset).getDayOfWeek().getValue();
+                    if (block.timeSlotId() != null) {
+                        taken.set(slotKey(dayOfWeek, block.timeSlotId()));
+                    } else {
+                        for (int timeSlotId : allTimeSlotIds) {
+                            taken.set(slotKey(dayOfWeek, timeSlotId));
+                        }
+                    }
+                }
+            }
+            return new CoachSlotView(available, taken, allTimeSlotIds);
+        }
+    }
+
+    private record Block(LocalDate startDate, LocalDate endDate, Integer timeSlotId) {
+    }
+
+    /**
+     * Immutable snapshot of one coach over a date range. {@code booked} marks a weekly pair
+     * as taken when any date of that weekday in range has a session or an unavailable block.
+     */
+    public static final class CoachSlotView {
+
+        private final BitSet available;
+        private final BitSet booked;
+        private final List<Integer> allTimeSlotIds;
+
+        private CoachSlotView(BitSet available, BitSet booked, List<Integer> allTimeSlotIds) {
+            this.available = available;
+            this.booked = booked;
+            this.allTimeSlotIds = allTimeSlotIds;
+        }
+
+        public boolean isWeeklyAvailable(int dayOfWeek, int timeSlotId) {
+            return available.get(slotKey(dayOfWeek, timeSlotId));
+        }
+
+        public boolean isBooked(int dayOfWeek, int timeSlotId) {
+            return booked.get(slotKey(dayOfWeek, timeSlotId));
+        }
+
+        public List<Integer> availableTimeSlotIds(int dayOfWeek) {
+            List<Integer> ids = new ArrayList<>();
+            for (int timeSlotId : allTimeSlotIds) {
+                if (isWeeklyAvailable(dayOfWeek, timeSlotId)) {
+                    ids.add(timeSlotId);
+                }
+            }
+            return ids;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.gymcore.backend.modules.coach.service;
 
+import com.gymcore.backend.common.service.RatingAggregateService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.AuthService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -22,6 +27,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -30,23 +36,60 @@ public class CoachBookingService {
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
     private static final int SELF_SERVICE_RESCHEDULE_CUTOFF_HOURS = 12;
     private static final String RESCHEDULE_REQUEST_PREFIX = "RESCHEDULE_REQUEST|";
+
+    // Actions that change PT request or session counts shown on the admin dashboard.
+    private static final Set<String> DASHBOARD_PT_ACTIONS = Set.of(
+            "customer-create-booking-request",
+            "customer-create-instant-booking",
+            "customer-cancel-booking-request",
+            "customer-delete-session",
+            "coach-approve-pt-request",
+            "coach-deny-pt-request",
+            "customer-cancel-session",
+            "customer-reschedule-session",
+            "customer-reschedule-series",
+            "customer-respond-replacement-offer",
+            "coach-cancel-session",
+            "coach-delete-session",
+            "coach-complete-session",
+            "coach-approve-reschedule-request");
     private static final String RESCHEDULE_DENIED_PREFIX = "RESCHEDULE_DENIED|";
     private static final String COACH_MATCH_OPT_OUT_TOKEN = "[[PT_MATCH_DISABLED]]";
 
     private final JdbcTemplate jdbcTemplate;
     private final AuthService authService;
     private final UserNotificationService notificationService;
+    private final CoachAvailabilityIndexService availabilityIndex;
+    private final PtSessionMaterializerService sessionMaterializer;
+    private final GeminiCatalogSnapshotService catalogSnapshotService;
+    private final AdminDashboardSnapshotService dashboardSnapshotService;
+    private final SchemaCapabilities schemaCapabilities;
+    private final RatingAggregateService ratingAggregates;
+    private final TransactionTemplate transactionTemplate;
+    private final MembershipStateResolver membershipStates;
 
     public CoachBookingService(JdbcTemplate jdbcTemplate, AuthService authService,
-            UserNotificationService notificationService) {
+            UserNotificationService notificationService, CoachAvailabilityIndexService availabilityIndex,
+            PtSessionMaterializerService sessionMaterializer, GeminiCatalogSnapshotService catalogSnapshotService,
+            AdminDashboardSnapshotService dashboardSnapshotService, SchemaCapabilities schemaCapabilities,
+            RatingAggregateService ratingAggregates, TransactionTemplate transactionTemplate,
+            MembershipStateResolver membershipStates) {
         this.jdbcTemplate = jdbcTemplate;
         this.authService = authService;
         this.notificationService = notificationService;
+        this.availabilityIndex = availabilityIndex;
+        this.sessionMaterializer = sessionMaterializer;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.schemaCapabilities = schemaCapabilities;
+        this.ratingAggregates = ratingAggregates;
+        this.transactionTemplate = transactionTemplate;
+        this.membershipStates = membershipStates;
     }
 
     public Map<String, Object> execute(String action, Object payload) {
         Map<String, Object> request = asMap(payload);
-        return switch (action) {
+        Map<String, Object> result = switch (action) {
             case "get-time-slots" -> getTimeSlots();
             case "customer-get-coaches" -> customerGetCoaches(request);
             case "customer-get-coach-detail" -> customerGetCoachDetail(request);
@@ -97,6 +140,10 @@ public class CoachBookingService {
             case "admin-get-coach-students" -> adminGetCoachStudents(request);
             default -> throw unsupportedAction(action);
         };
+        if (DASHBOARD_PT_ACTIONS.contains(action)) {
+            dashboardSnapshotService.invalidate();
+        }
+        return result;
     }
 
     public Map<String, Object> previewCustomerCoachMatches(Map<String, Object> payload) {
@@ -211,12 +258,10 @@ public class CoachBookingService {
                 FROM dbo.Coaches ch
                 JOIN dbo.Users u ON u.UserID = ch.CoachID
                 LEFT JOIN (
-                    SELECT CoachID, AVG(CAST(Rating AS FLOAT)) AS AvgRating, COUNT(*) AS ReviewCount
-                    FROM dbo.CoachFeedback GROUP BY CoachID
-                ) agg ON agg.CoachID = ch.CoachID
+                %s) agg ON agg.CoachID = ch.CoachID
                 WHERE u.IsActive = 1
                 ORDER BY AvgRating DESC, u.FullName
-                """, coachListRowMapper()).stream()
+                """.formatted(ratingAggregates.coachStatsSql()), coachListRowMapper()).stream()
                 .filter(item -> Boolean.TRUE.equals(item.get("acceptingCustomers")))
                 .toList();
         return Map.of("items", items);
@@ -237,15 +282,18 @@ public class CoachBookingService {
                     c.ExperienceYears,
                     c.Bio,
                     COALESCE(agg.AvgRating, 0) AS AvgRating,
-                    COALESCE(agg.ReviewCount, 0) AS ReviewCount
+                    COALESCE(agg.ReviewCount, 0) AS ReviewCount,
+                    agg.Rating1Count, agg.Rating2Count, agg.Rating3Count, agg.Rating4Count, agg.Rating5Count
                 FROM dbo.Coaches c
                 JOIN dbo.Users u ON u.UserID = c.CoachID
                 LEFT JOIN (
-                    SELECT CoachID, AVG(CAST(Rating AS FLOAT)) AS AvgRating, COUNT(*) AS ReviewCount
-                    FROM dbo.CoachFeedback GROUP BY CoachID
-                ) agg ON agg.CoachID = c.CoachID
+                %s) agg ON agg.CoachID = c.CoachID
                 WHERE c.CoachID = ?
-                """, coachDetailRowMapper(), coachId).stream().findFirst()
+                """.formatted(ratingAggregates.coachStatsSql()), (rs, i) -> {
+            Map<String, Object> m = coachDetailRowMapper().mapRow(rs, i);
+            m.put("ratingHistogram", RatingAggregateService.histogram(rs));
+            return m;
+        }, coachId).stream().findFirst()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Coach not found."));
 
         List<Map<String, Object>> availability = loadWeeklyAvailability(coachId);
@@ -334,12 +382,19 @@ public class CoachBookingService {
         List<RequestedSlot> requestedSlots = normalizeRequestedSlots(slots);
         List<Map<String, Object>> coaches = asList(customerGetCoaches(payload).get("items"));
 
+        List<Integer> coachIds = new ArrayList<>();
+        for (Map<String, Object> coach : coaches) {
+            coachIds.add(requireInteger(coach, "coachId"));
+        }
+        Map<Integer, CoachAvailabilityIndexService.CoachSlotView> coachViews =
+                availabilityIndex.viewCoaches(coachIds, startDate, endDate);
+
         List<Map<String, Object>> fullMatches = new ArrayList<>();
         List<Map<String, Object>> partialMatches = new ArrayList<>();
 
         for (Map<String, Object> coach : coaches) {
             int coachId = requireInteger(coach, "coachId");
-            MatchSummary summary = evaluateCoachMatch(coachId, startDate, endDate, requestedSlots);
+            MatchSummary summary = evaluateCoachMatch(coachViews.get(coachId), requestedSlots);
             boolean fullMatch = summary.exactMatchedSlots() == requestedSlots.size();
             boolean partialMatch = !fullMatch
                     && (summary.matchedSlots() > 0 || summary.bookedConflictSlots() > 0);
@@ -438,7 +493,8 @@ public class CoachBookingService {
 
         List<RequestedSlot> requestedSlots = normalizeRequestedSlots(slots);
         List<Map<String, Object>> normalizedSlots = toRequestedSlotMaps(requestedSlots);
-        MatchSummary summary = evaluateCoachMatch(coachId, startDate, endDate, requestedSlots);
+        MatchSummary summary = evaluateCoachMatch(availabilityIndex.viewCoach(coachId, startDate, endDate),
+                requestedSlots);
         if (summary.exactMatchedSlots() != requestedSlots.size()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Selected coach does not have all requested recurring slots available for instant booking.");
@@ -566,19 +622,7 @@ public class CoachBookingService {
 
     private int generatePTSessions(int ptRequestId, int customerId, int coachId, LocalDate startDate, LocalDate endDate,
             List<Map<String, Object>> slots) {
-        int count = 0;
-        for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
-            int dayOfWeek = d.getDayOfWeek().getValue();
-            for (Map<String, Object> slot : slots) {
-                if (parseInteger(slot.get("dayOfWeek")) == dayOfWeek) {
-                    int timeSlotId = parseInteger(slot.get("timeSlotId"));
-                    if (createScheduledSessionIfMissing(ptRequestId, customerId, coachId, d, dayOfWeek, timeSlotId)) {
-                        count++;
-                    }
-                }
-            }
-        }
-        return count;
+        return regenerateFuturePtSessions(ptRequestId, customerId, coachId, startDate, endDate, slots, List.of());
     }
 
     private Map<String, Object> customerGetCurrentPhase(Map<String, Object> payload) {
@@ -1119,7 +1163,7 @@ public class CoachBookingService {
         }, customer.userId());
 
         List<Map<String, Object>> deniedRequests;
-        if (hasPtRequestDenyReasonColumn()) {
+        if (schemaCapabilities.ptRequestDenyReason()) {
             deniedRequests = jdbcTemplate.query("""
                     SELECT r.PTRequestID, r.CoachID, r.StartDate, r.EndDate, r.Status, r.CreatedAt, r.UpdatedAt, r.DenyReason,
                            u.FullName AS CoachName, u.Phone AS CoachPhone
@@ -1189,6 +1233,7 @@ public class CoachBookingService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Session not found, already cancelled, or cannot be cancelled (past or not yours).");
         }
+        availabilityIndex.invalidateCoach(session.coachId());
         String resolvedReason = reason != null ? reason : "Cancelled by customer";
         notifyCustomerCancelledSession(session, resolvedReason);
         return Map.of("sessionId", sessionId, "status", "CANCELLED");
@@ -1267,6 +1312,8 @@ public class CoachBookingService {
                 SET SessionDate = ?, TimeSlotID = ?, DayOfWeek = ?, CancelReason = NULL, UpdatedAt = SYSDATETIME()
                 WHERE PTSessionID = ? AND CustomerID = ?
                 """, newDate, newTimeSlotId, newDate.getDayOfWeek().getValue(), sessionId, customer.userId());
+        availabilityIndex.releaseSession(coachId, currentDate, (Integer) session.get("timeSlotId"));
+        availabilityIndex.markSessionBooked(coachId, newDate, newTimeSlotId);
         notifyDirectReschedule(sessionId, customer.userId(), coachId, requestedSlotSummary(currentDate,
                 (Integer) session.get("timeSlotId")), requestedSlotSummary(newDate, newTimeSlotId), reason);
         return Map.of(
@@ -1343,6 +1390,7 @@ public class CoachBookingService {
 
         int created = regenerateFuturePtSessions(ptRequestId, customer.userId(), coachId, cutoverDate, phaseEndDate,
                 normalizedSlots, preservedFutureSessions);
+        availabilityIndex.invalidateCoach(coachId);
 
         notificationService.notifyUser(
                 coachId,
@@ -1392,6 +1440,8 @@ public class CoachBookingService {
                     SET CoachID = ?, UpdatedAt = SYSDATETIME()
                     WHERE PTSessionID = ? AND CustomerID = ?
                     """, replacementCoachId, sessionId, customer.userId());
+            availabilityIndex.releaseSession((Integer) offer.get("originalCoachId"), sessionDate, timeSlotId);
+            availabilityIndex.markSessionBooked(replacementCoachId, sessionDate, timeSlotId);
         }
 
         jdbcTemplate.update("""
@@ -1428,13 +1478,17 @@ public class CoachBookingService {
 
         int coachId = coachIds.get(0);
         try {
-            jdbcTemplate.update("""
-                    INSERT INTO dbo.CoachFeedback (PTSessionID, CustomerID, CoachID, Rating, Comment)
-                    VALUES (?, ?, ?, ?, ?)
-                    """, sessionId, customer.userId(), coachId, rating, comment);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("""
+                        INSERT INTO dbo.CoachFeedback (PTSessionID, CustomerID, CoachID, Rating, Comment)
+                        VALUES (?, ?, ?, ?, ?)
+                        """, sessionId, customer.userId(), coachId, rating, comment);
+                ratingAggregates.applyCoachRating(coachId, rating, null);
+            });
         } catch (DataAccessException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Feedback already submitted for this session.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.COACHES);
         return Map.of("ptSessionId", sessionId, "rating", rating, "message", "Feedback submitted.");
     }
 
@@ -1572,6 +1626,8 @@ public class CoachBookingService {
                 SET SessionDate = ?, TimeSlotID = ?, DayOfWeek = ?, CancelReason = NULL, UpdatedAt = SYSDATETIME()
                 WHERE PTSessionID = ? AND CoachID = ?
                 """, requestedDate, requestedTimeSlotId, requestedDate.getDayOfWeek().getValue(), sessionId, coach.userId());
+        availabilityIndex.releaseSession(coach.userId(), (LocalDate) row.get("sessionDate"), (Integer) row.get("timeSlotId"));
+        availabilityIndex.markSessionBooked(coach.userId(), requestedDate, requestedTimeSlotId);
 
         notifyCustomerAboutRescheduleDecision(sessionId, "APPROVED",
                 "Your coach approved the reschedule request. New slot: " + requestedSlotSummary(requestedDate, requestedTimeSlotId));
@@ -1669,7 +1725,7 @@ public class CoachBookingService {
                 actualStartDate,
                 endDate);
 
-        if (hasPtRequestDenyReasonColumn()) {
+        if (schemaCapabilities.ptRequestDenyReason()) {
             jdbcTemplate.update(
                     "UPDATE dbo.PTRecurringRequests SET StartDate = ?, Status = 'APPROVED', DenyReason = NULL, UpdatedAt = SYSDATETIME() WHERE PTRequestID = ?",
                     actualStartDate, requestId);
@@ -1701,7 +1757,7 @@ public class CoachBookingService {
         if (reason == null || reason.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Deny reason is required.");
         }
-        if (!hasPtRequestDenyReasonColumn()) {
+        if (!schemaCapabilities.ptRequestDenyReason()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Deny reason column is missing. Run docs/alter.txt to add PTRecurringRequests.DenyReason.");
         }
@@ -1737,6 +1793,7 @@ public class CoachBookingService {
                 || Boolean.TRUE.equals(payload.get("acceptingCustomerRequests"));
         jdbcTemplate.update("DELETE FROM dbo.CoachWeeklyAvailability WHERE CoachID = ?", coachId);
         int insertedCount = 0;
+        List<int[]> availablePairs = new ArrayList<>();
         for (Map<String, Object> slot : slots) {
             int dayOfWeek = requireInteger(slot, "dayOfWeek");
             int timeSlotId = requireInteger(slot, "timeSlotId");
@@ -1747,8 +1804,10 @@ public class CoachBookingService {
                     INSERT INTO dbo.CoachWeeklyAvailability (CoachID, DayOfWeek, TimeSlotID)
                     VALUES (?, ?, ?)
                     """, coachId, dayOfWeek, timeSlotId);
+            availablePairs.add(new int[] { dayOfWeek, timeSlotId });
             insertedCount++;
         }
+        availabilityIndex.replaceWeeklyAvailability(coachId, availablePairs);
         String existingBio = jdbcTemplate.queryForObject(
                 "SELECT Bio FROM dbo.Coaches WHERE CoachID = ?",
                 String.class,
@@ -1874,6 +1933,7 @@ public class CoachBookingService {
             return statement;
         }, keyHolder);
         int unavailableBlockId = keyHolder.getKey() != null ? keyHolder.getKey().intValue() : 0;
+        availabilityIndex.addUnavailableBlock(coach.userId(), startDate, endDate, timeSlotId);
         int impactedCount = countImpactedSessionsForBlock(coach.userId(), startDate, endDate, timeSlotId);
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("unavailableBlockId", unavailableBlockId);
@@ -2109,6 +2169,7 @@ public class CoachBookingService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Session not found, already cancelled, or cannot be cancelled.");
         }
+        availabilityIndex.invalidateCoach(coach.userId());
 
         String resolvedReason = reason != null ? reason : "Cancelled by coach";
         notifyCoachCancelledSession(session, resolvedReason);
@@ -2342,9 +2403,9 @@ public class CoachBookingService {
                                (SELECT COUNT(DISTINCT s.CustomerID) FROM dbo.PTSessions s WHERE s.CoachID = c.CoachID AND s.Status IN ('SCHEDULED','COMPLETED')) AS StudentCount
                         FROM dbo.Coaches c
                         JOIN dbo.Users u ON u.UserID = c.CoachID
-                        LEFT JOIN (SELECT CoachID, AVG(CAST(Rating AS FLOAT)) AS AvgRating, COUNT(*) AS ReviewCount FROM dbo.CoachFeedback GROUP BY CoachID) agg ON agg.CoachID = c.CoachID
+                        LEFT JOIN (%s) agg ON agg.CoachID = c.CoachID
                         ORDER BY u.FullName
-                        """,
+                        """.formatted(ratingAggregates.coachStatsSql()),
                 adminCoachListRowMapper());
         Map<String, Object> result = new LinkedHashMap<>();
         result.put("items", items);
@@ -2360,9 +2421,9 @@ public class CoachBookingService {
                                COALESCE(agg.AvgRating, 0) AS AvgRating, COALESCE(agg.ReviewCount, 0) AS ReviewCount
                         FROM dbo.Coaches c
                         JOIN dbo.Users u ON u.UserID = c.CoachID
-                        LEFT JOIN (SELECT CoachID, AVG(CAST(Rating AS FLOAT)) AS AvgRating, COUNT(*) AS ReviewCount FROM dbo.CoachFeedback GROUP BY CoachID) agg ON agg.CoachID = c.CoachID
+                        LEFT JOIN (%s) agg ON agg.CoachID = c.CoachID
                         WHERE c.CoachID = ?
-                        """,
+                        """.formatted(ratingAggregates.coachStatsSql()),
                         coachDetailRowMapper(), coachId)
                 .stream().findFirst()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Coach not found."));
@@ -2416,9 +2477,11 @@ public class CoachBookingService {
             }
         }
 
-        if (fullName != null)
+        if (fullName != null) {
             jdbcTemplate.update("UPDATE dbo.Users SET FullName = ?, UpdatedAt = SYSDATETIME() WHERE UserID = ?",
                     fullName, coachId);
+            authService.invalidateAuthContext(coachId);
+        }
         if (phone != null)
             jdbcTemplate.update("UPDATE dbo.Users SET Phone = ?, UpdatedAt = SYSDATETIME() WHERE UserID = ?", phone,
                     coachId);
@@ -2449,6 +2512,7 @@ public class CoachBookingService {
         if (updatedRows == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Coach not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.COACHES);
         Map<String, Object> result = new LinkedHashMap<>();
         result.put("coachId", coachId);
         result.put("message", "Profile updated.");
@@ -2550,34 +2614,8 @@ public class CoachBookingService {
         return normalizedSlots;
     }
 
-    private MatchSummary evaluateCoachMatch(int coachId, LocalDate startDate, LocalDate endDate,
+    private MatchSummary evaluateCoachMatch(CoachAvailabilityIndexService.CoachSlotView coachSlots,
             List<RequestedSlot> requestedSlots) {
-        List<Map<String, Object>> weeklyAvailability = loadWeeklyAvailability(coachId);
-        Set<String> availablePairs = new HashSet<>();
-        Map<Integer, List<Integer>> availableSlotsByDay = new HashMap<>();
-        for (Map<String, Object> item : weeklyAvailability) {
-            int dayOfWeek = requireInteger(item, "dayOfWeek");
-            int timeSlotId = requireInteger(item, "timeSlotId");
-            availablePairs.add(dayOfWeek + "-" + timeSlotId);
-            availableSlotsByDay.computeIfAbsent(dayOfWeek, ignored -> new ArrayList<>()).add(timeSlotId);
-        }
-        for (List<Integer> daySlots : availableSlotsByDay.values()) {
-            daySlots.sort(Integer::compareTo);
-        }
-
-        List<Map<String, Object>> booked = jdbcTemplate.query(
-                """
-                        SELECT DayOfWeek, TimeSlotID
-                        FROM dbo.PTSessions
-                        WHERE CoachID = ? AND SessionDate >= ? AND SessionDate <= ? AND Status IN ('SCHEDULED','COMPLETED')
-                        """,
-                (rs, i) -> Map.of("dayOfWeek", rs.getInt("DayOfWeek"), "timeSlotId", rs.getInt("TimeSlotID")),
-                coachId, startDate, endDate);
-        Set<String> bookedPairs = new HashSet<>();
-        for (Map<String, Object> item : booked) {
-            bookedPairs.add(requireInteger(item, "dayOfWeek") + "-" + requireInteger(item, "timeSlotId"));
-        }
-
         int exactMatched = 0;
         int matched = 0;
         int bookedConflicts = 0;
@@ -2585,9 +2623,8 @@ public class CoachBookingService {
         List<Map<String, Object>> alternativeSlots = new ArrayList<>();
         List<Map<String, Object>> resolvedSlots = new ArrayList<>();
         for (RequestedSlot slot : requestedSlots) {
-            String key = slot.dayOfWeek() + "-" + slot.timeSlotId();
-            boolean exactWeeklyAvailable = availablePairs.contains(key);
-            boolean exactBooked = bookedPairs.contains(key);
+            boolean exactWeeklyAvailable = coachSlots.isWeeklyAvailable(slot.dayOfWeek(), slot.timeSlotId());
+            boolean exactBooked = coachSlots.isBooked(slot.dayOfWeek(), slot.timeSlotId());
             if (exactWeeklyAvailable && !exactBooked) {
                 exactMatched++;
                 matched++;
@@ -2599,9 +2636,8 @@ public class CoachBookingService {
                 continue;
             }
 
-            List<Integer> sameDayAvailable = availableSlotsByDay.getOrDefault(slot.dayOfWeek(), List.of());
-            List<Integer> freeTimeSlotIds = sameDayAvailable.stream()
-                    .filter(candidate -> !bookedPairs.contains(slot.dayOfWeek() + "-" + candidate))
+            List<Integer> freeTimeSlotIds = coachSlots.availableTimeSlotIds(slot.dayOfWeek()).stream()
+                    .filter(candidate -> !coachSlots.isBooked(slot.dayOfWeek(), candidate))
                     .toList();
             if (!freeTimeSlotIds.isEmpty()) {
                 int fallbackTimeSlotId = freeTimeSlotIds.getFirst();
@@ -2665,28 +2701,12 @@ public class CoachBookingService {
     }
 
     private MembershipForPt findActiveMembershipForPt(int customerId, LocalDate startDate) {
-        return jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.EndDate,
-                    mp.AllowsCoachBooking
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ?
-                  AND cm.Status = 'ACTIVE'
-                  AND cm.StartDate <= ?
-                  AND cm.EndDate >= ?
-                  AND UPPER(mp.PlanType) IN ('GYM_PLUS_COACH', 'GYM_COACH')
-                  AND mp.AllowsCoachBooking = 1
-                ORDER BY cm.EndDate ASC, cm.CustomerMembershipID ASC
-                """,
-                (rs, i) -> new MembershipForPt(
-                        rs.getInt("CustomerMembershipID"),
-                        rs.getBoolean("AllowsCoachBooking"),
-                        rs.getDate("EndDate").toLocalDate()),
-                customerId, startDate, startDate).stream()
-                .findFirst()
-                .orElse(new MembershipForPt(null, false, null));
+        MembershipStateResolver.Membership membership =
+                membershipStates.resolveFresh(customerId).coachBookingCoverage(startDate);
+        return membership == null
+                ? new MembershipForPt(null, false, null)
+                : new MembershipForPt(membership.customerMembershipId(), membership.allowsCoachBooking(),
+                        membership.endDate());
     }
 
     private MembershipForPt requireValidMembershipForPt(int customerId, int customerMembershipId,
@@ -2851,13 +2871,6 @@ public class CoachBookingService {
         return count != null && count > 0;
     }
 
-    private boolean hasPtRequestDenyReasonColumn() {
-        Integer exists = jdbcTemplate.queryForObject(
-                "SELECT CASE WHEN COL_LENGTH('dbo.PTRecurringRequests', 'DenyReason') IS NULL THEN 0 ELSE 1 END",
-                Integer.class);
-        return exists != null && exists == 1;
-    }
-
     private boolean hasCoachConflict(int coachId, LocalDate date, int timeSlotId, int excludedSessionId) {
         Integer count = jdbcTemplate.queryForObject(
                 """
@@ -2871,29 +2884,6 @@ public class CoachBookingService {
         return count != null && count > 0;
     }
 
-    private boolean createScheduledSessionIfMissing(int ptRequestId, int customerId, int coachId, LocalDate date,
-            int dayOfWeek, int timeSlotId) {
-        Integer count = jdbcTemplate.queryForObject("""
-                SELECT COUNT(*)
-                FROM dbo.PTSessions
-                WHERE PTRequestID = ? AND SessionDate = ? AND TimeSlotID = ?
-                """, Integer.class, ptRequestId, date, timeSlotId);
-        if (count != null && count > 0) {
-            return false;
-        }
-        try {
-            jdbcTemplate.update(
-                    """
-                            INSERT INTO dbo.PTSessions (PTRequestID, CustomerID, CoachID, SessionDate, DayOfWeek, TimeSlotID, Status)
-                            VALUES (?, ?, ?, ?, ?, ?, 'SCHEDULED')
-                            """,
-                    ptRequestId, customerId, coachId, date, dayOfWeek, timeSlotId);
-            return true;
-        } catch (DataAccessException ignored) {
-            return false;
-        }
-    }
-
     private int regenerateFuturePtSessions(int ptRequestId, int customerId, int coachId, LocalDate startDate,
             LocalDate endDate, List<Map<String, Object>> slots, List<Map<String, Object>> preservedFutureSessions) {
         Set<String> blockedKeys = new HashSet<>();
@@ -2904,7 +2894,7 @@ public class CoachBookingService {
                 blockedKeys.add(sessionDate + "|" + timeSlotId);
             }
         }
-        int created = 0;
+        List<PtSessionMaterializerService.PlannedSession> planned = new ArrayList<>();
         for (LocalDate current = startDate; !current.isAfter(endDate); current = current.plusDays(1)) {
             int dayOfWeek = current.getDayOfWeek().getValue();
             for (Map<String, Object> slot : slots) {
@@ -2916,12 +2906,10 @@ public class CoachBookingService {
                 if (blockedKeys.contains(current + "|" + timeSlotId)) {
                     continue;
                 }
-                if (createScheduledSessionIfMissing(ptRequestId, customerId, coachId, current, dayOfWeek, timeSlotId)) {
-                    created++;
-                }
+                planned.add(new PtSessionMaterializerService.PlannedSession(current, timeSlotId));
             }
         }
-        return created;
+        return sessionMaterializer.materialize(ptRequestId, customerId, coachId, planned).created();
     }
 
     private void enforceSessionCutoff(LocalDate sessionDate, int timeSlotId) {
@@ -0,0 +1,87 @@
+package com.gymcore.backend.modules.coach.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes a planned PT schedule in set-based statements instead of one SELECT + INSERT per session.
+ * Rows that already exist for the request, or that would collide with another active session of the
+ * coach (UX_PTSessions_Coach_Date_Slot), are skipped by the MERGE itself.
+ */
+@Service
+public class PtSessionMaterializerService {
+
+    // SQL Server accepts at most 2100 parameters per statement; each row uses 3.
+    static final int MAX_ROWS_PER_STATEMENT = 500;
+    static final String MERGE_SESSIONS_SQL_TEMPLATE = """
+            MERGE dbo.PTSessions WITH (HOLDLOCK) AS target
+            USING (VALUES %s) AS source (SessionDate, DayOfWeek, TimeSlotID)
+            ON target.SessionDate = source.SessionDate
+               AND target.TimeSlotID = source.TimeSlotID
+               AND (
+                    target.PTRequestID = ?
+                    OR (target.CoachID = ? AND target.Status IN ('SCHEDULED','COMPLETED'))
+               )
+            WHEN NOT MATCHED BY TARGET THEN
+                INSERT (PTRequestID, CustomerID, CoachID, SessionDate, DayOfWeek, TimeSlotID, Status)
+                VALUES (?, ?, ?, source.SessionDate, source.DayOfWeek, source.TimeSlotID, 'SCHEDULED')
+            OUTPUT inserted.SessionDate, inserted.TimeSlotID;
+            """;
+    private static final String SOURCE_ROW = "(CAST(? AS DATE), ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CoachAvailabilityIndexService availabilityIndex;
+
+    public PtSessionMaterializerService(JdbcTemplate jdbcTemplate, CoachAvailabilityIndexService availabilityIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    public MaterializeResult materialize(int ptRequestId, int customerId, int coachId, List<PlannedSession> plannedSessions) {
+        List<PlannedSession> rows = new ArrayList<>(new LinkedHashSet<>(plannedSessions));
+        int created = 0;
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<PlannedSession> chunk = rows.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, rows.size()));
+            List<PlannedSession> inserted = mergeChunk(ptRequestId, customerId, coachId, chunk);
+            for (PlannedSession session : inserted) {
+                availabilityIndex.markSessionBooked(coachId, session.sessionDate(), session.timeSlotId());
+            }
+            created += inserted.size();
+        }
+        return new MaterializeResult(created, plannedSessions.size() - created);
+    }
+
+    private List<PlannedSession> mergeChunk(int ptRequestId, int customerId, int coachId, List<PlannedSession> chunk) {
+        List<String> sourceRows = new ArrayList<>(chunk.size());
+        List<Object> args = new ArrayList<>(chunk.size() * 3 + 5);
+        for (PlannedSession session : chunk) {
+            sourceRows.add(SOURCE_ROW);
+            args.add(session.sessionDate());
+            args.add(session.dayOfWeek());
+            args.add(session.timeSlotId());
+        }
+        args.add(ptRequestId);
+        args.add(coachId);
+        args.add(ptRequestId);
+        args.add(customerId);
+        args.add(coachId);
+        String sql = MERGE_SESSIONS_SQL_TEMPLATE.formatted(String.join(", ", sourceRows));
+        return jdbcTemplate.query(sql, (rs, i) -> new PlannedSession(
+                rs.getDate("SessionDate").toLocalDate(),
+                rs.getInt("TimeSlotID")), args.toArray());
+    }
+
+    public record PlannedSession(LocalDate sessionDate, int timeSlotId) {
+
+        public int dayOfWeek() {
+            return sessionDate.getDayOfWeek().getValue();
+        }
+    }
+
+    public record MaterializeResult(int created, int skipped) {
+    }
+}
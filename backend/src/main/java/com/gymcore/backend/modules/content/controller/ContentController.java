@@ -3,8 +3,12 @@ package com.gymcore.backend.modules.content.controller;
 import com.gymcore.backend.common.api.ApiResponse;
 import com.gymcore.backend.modules.content.service.ContentService;
 import com.gymcore.backend.modules.content.service.GeminiChatService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,11 +17,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/v1")
 public class ContentController {
 
+    private static final long CHAT_STREAM_TIMEOUT_MS = 120_000L;
+
     private final ContentService contentService;
     private final GeminiChatService geminiChatService;
 
@@ -133,18 +141,62 @@ public class ContentController {
     public ApiResponse<Map<String, Object>> chat(
             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
             @RequestBody Map<String, Object> payload) {
+        ChatTurn turn = resolveChatTurn(authorizationHeader, payload, "chat");
+        String reply = geminiChatService.chat(turn.messages(), turn.context());
+        return ApiResponse.ok("AI chat response generated", java.util.Map.of(
+                "reply", reply,
+                "contextMeta", turn.contextMeta()));
+    }
+
+    /**
+     * Streams the assistant reply as server-sent events: {@code token} events carry text chunks, then a single
+     * {@code done} event carries the full reply and contextMeta, or an {@code error} event carries the status and
+     * message the blocking endpoint would have returned.
+     */
+    @PostMapping(value = "/ai/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChat(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
+            @RequestBody Map<String, Object> payload) {
+        ChatTurn turn = resolveChatTurn(authorizationHeader, payload, "chat-stream");
+        SseEmitter emitter = new SseEmitter(CHAT_STREAM_TIMEOUT_MS);
+        geminiChatService.streamChat(turn.messages(), turn.context(),
+                        chunk -> sendEvent(emitter, "token", Map.of("text", chunk)))
+                .whenComplete((reply, failure) -> {
+                    try {
+                        if (failure == null) {
+                            sendEvent(emitter, "done", Map.of("reply", reply, "contextMeta", turn.contextMeta()));
+                            emitter.complete();
+                            return;
+                        }
+                        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause()
+                                : failure;
+                        if (cause instanceof ResponseStatusException statusException) {
+                            sendEvent(emitter, "error", Map.of(
+                                    "status", statusException.getStatusCode().value(),
+                                    "message", String.valueOf(statusException.getReason())));
+                            emitter.complete();
+                            return;
+                        }
+                        emitter.completeWithError(cause);
+                    } catch (UncheckedIOException clientGone) {
+                        emitter.completeWithError(clientGone.getCause());
+                    }
+                });
+        return emitter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChatTurn resolveChatTurn(String authorizationHeader, Map<String, Object> payload, String responseType) {
         Object rawMessages = payload == null ? null : payload.get("messages");
         Object rawContext = payload == null ? null : payload.get("context");
-        @SuppressWarnings("unchecked")
         java.util.List<java.util.Map<String, Object>> messages = rawMessages instanceof java.util.List<?> list
                 ? (java.util.List<java.util.Map<String, Object>>) list
                 : java.util.List.of();
-        @SuppressWarnings("unchecked")
         java.util.Map<String, Object> context = rawContext instanceof java.util.Map<?, ?> map
                 ? (java.util.Map<String, Object>) map
                 : new java.util.LinkedHashMap<>();
         Map<String, Object> request = withAuthorization(authorizationHeader, payload);
-        @SuppressWarnings("unchecked")
         Map<String, Object> aiContextEnvelope = (Map<String, Object>) contentService.execute("resolve-ai-context", request);
         context = new java.util.LinkedHashMap<>(context);
         context.put("conversationMessages", messages);
@@ -152,12 +204,18 @@ public class ContentController {
         Map<String, Object> responseContextMeta = new java.util.LinkedHashMap<>(
                 (Map<String, Object>) aiContextEnvelope.getOrDefault("contextMeta", Map.of()));
         responseContextMeta.put("entryPoint", "ai-chat");
-        responseContextMeta.put("responseType", "chat");
+        responseContextMeta.put("responseType", responseType);
         context.put("contextMeta", responseContextMeta);
-        String reply = geminiChatService.chat(messages, context);
-        return ApiResponse.ok("AI chat response generated", java.util.Map.of(
-                "reply", reply,
-                "contextMeta", responseContextMeta));
+        return new ChatTurn(messages, context, responseContextMeta);
+    }
+
+    private static void sendEvent(SseEmitter emitter, String name, Map<String, Object> data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException exception) {
+            // The browser went away; failing here also aborts the upstream Gemini read.
+            throw new UncheckedIOException(exception);
+        }
     }
 
     private Map<String, Object> withAuthorization(String authorizationHeader, Map<String, Object> payload) {
@@ -165,4 +223,10 @@ public class ContentController {
         request.put("authorizationHeader", authorizationHeader);
         return request;
     }
+
+    private record ChatTurn(
+            java.util.List<java.util.Map<String, Object>> messages,
+            Map<String, Object> context,
+            Map<String, Object> contextMeta) {
+    }
 }
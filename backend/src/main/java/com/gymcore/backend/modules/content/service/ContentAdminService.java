@@ -24,10 +24,13 @@ public class ContentAdminService {
 
     private final JdbcTemplate jdbcTemplate;
     private final CurrentUserService currentUserService;
+    private final GeminiCatalogSnapshotService catalogSnapshotService;
 
-    public ContentAdminService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService) {
+    public ContentAdminService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
+            GeminiCatalogSnapshotService catalogSnapshotService) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
 
     public Map<String, Object> getWorkouts(String authorizationHeader) {
@@ -96,6 +99,7 @@ public class ContentAdminService {
         }
         int workoutId = key.intValue();
         upsertWorkoutCategoryMap(workoutId, categoryIds);
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.WORKOUTS);
 
         return getWorkoutDetailInternal(workoutId);
     }
@@ -132,6 +136,7 @@ public class ContentAdminService {
         }
 
         upsertWorkoutCategoryMap(workoutId, categoryIds);
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.WORKOUTS);
         return getWorkoutDetailInternal(workoutId);
     }
 
@@ -141,6 +146,7 @@ public class ContentAdminService {
         if (updated == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Workout not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.WORKOUTS);
         return Map.of("workoutId", workoutId, "active", false);
     }
 
@@ -150,6 +156,7 @@ public class ContentAdminService {
         if (updated == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Workout not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.WORKOUTS);
         return Map.of("workoutId", workoutId, "active", true);
     }
 
@@ -229,6 +236,7 @@ public class ContentAdminService {
         }
         int foodId = key.intValue();
         upsertFoodCategoryMap(foodId, categoryIds);
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.FOODS);
 
         return getFoodDetailInternal(foodId);
     }
@@ -269,6 +277,7 @@ public class ContentAdminService {
         }
 
         upsertFoodCategoryMap(foodId, categoryIds);
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.FOODS);
         return getFoodDetailInternal(foodId);
     }
 
@@ -278,6 +287,7 @@ public class ContentAdminService {
         if (updated == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Food not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.FOODS);
         return Map.of("foodId", foodId, "active", false);
     }
 
@@ -287,6 +297,7 @@ public class ContentAdminService {
         if (updated == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Food not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.FOODS);
         return Map.of("foodId", foodId, "active", true);
     }
 
@@ -0,0 +1,258 @@
+package com.gymcore.backend.modules.content.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * Catalog fragments embedded in the Gemini system instruction. Each section is rendered once and kept
+ * until an admin write to its source tables calls {@link #invalidate(Section...)}, so a chat turn only
+ * concatenates cached text. A section that fails to load is served as "unavailable" and retried next turn.
+ */
+@Service
+public class GeminiCatalogSnapshotService {
+
+    public enum Section {
+        WORKOUTS,
+        FOODS,
+        COACHES,
+        PRODUCTS
+    }
+
+    static final String WORKOUT_CATALOG_SQL = """
+            SELECT TOP (80) w.WorkoutName,
+                   w.Difficulty,
+                   LEFT(COALESCE(w.Description, ''), 160) AS ShortDesc
+            FROM dbo.Workouts w
+            WHERE w.IsActive = 1
+            ORDER BY w.CreatedAt DESC, w.WorkoutName
+            """;
+    static final String FOOD_CATALOG_SQL = """
+            SELECT TOP (80) f.FoodName,
+                   f.Calories,
+                   f.Protein,
+                   f.Carbs,
+                   f.Fat
+            FROM dbo.Foods f
+            WHERE f.IsActive = 1
+            ORDER BY f.CreatedAt DESC, f.FoodName
+            """;
+    static final String COACH_CATALOG_SQL = """
+            SELECT TOP (40)
+                   u.FullName,
+                   c.ExperienceYears,
+                   COALESCE(agg.AvgRating, 0) AS AvgRating
+            FROM dbo.Coaches c
+            JOIN dbo.Users u ON u.UserID = c.CoachID
+            LEFT JOIN (
+                SELECT CoachID, AVG(CAST(Rating AS FLOAT)) AS AvgRating
+                FROM dbo.CoachFeedback
+                GROUP BY CoachID
+            ) agg ON agg.CoachID = c.CoachID
+            WHERE u.IsActive = 1
+            ORDER BY u.FullName
+            """;
+    static final String PRODUCT_CATALOG_SQL = """
+            SELECT TOP (60)
+                   p.ProductName,
+                   p.Price,
+                   p.ShortDescription
+            FROM dbo.Products p
+            WHERE p.IsActive = 1
+            ORDER BY p.ProductName
+            """;
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiCatalogSnapshotService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Section, Fragment> fragments = new ConcurrentHashMap<>();
+    private final Map<Section, AtomicLong> generations = new EnumMap<>(Section.class);
+    private final AtomicLong version = new AtomicLong();
+
+    public GeminiCatalogSnapshotService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        for (Section section : Section.values()) {
+            generations.put(section, new AtomicLong());
+        }
+    }
+
+    public CatalogSnapshot current() {
+        return new CatalogSnapshot(
+                version.get(),
+                fragment(Section.WORKOUTS, this::renderWorkouts, "- Workout catalog is temporarily unavailable."),
+                fragment(Section.FOODS, this::renderFoods, "- Food catalog is temporarily unavailable."),
+                fragment(Section.COACHES, this::renderCoaches, "- Coach catalog unavailable."),
+                fragment(Section.PRODUCTS, this::renderProducts, "- Product catalog unavailable."));
+    }
+
+    public void invalidate(Section... sections) {
+        for (Section section : sections) {
+            // Bump first: a render that started before this call stores an outdated generation and is ignored.
+            generations.get(section).incrementAndGet();
+            fragments.remove(section);
+        }
+        version.incrementAndGet();
+    }
+
+    private String fragment(Section section, Supplier<String> renderer, String unavailableText) {
+        long generation = generations.get(section).get();
+        Fragment cached = fragments.get(section);
+        if (cached != null && cached.generation() == generation) {
+            return cached.text();
+        }
+        try {
+            String text = renderer.get();
+            fragments.put(section, new Fragment(generation, text));
+            return text;
+        } catch (RuntimeException exception) {
+            log.warn("Failed to build {} catalog context: {}", section, exception.getMessage());
+            return unavailableText;
+        }
+    }
+
+    private String renderWorkouts() {
+        List<Map<String, Object>> workouts = jdbcTemplate.query(WORKOUT_CATALOG_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", rs.getString("WorkoutName"));
+            row.put("difficulty", rs.getObject("Difficulty"));
+            row.put("shortDesc", rs.getString("ShortDesc"));
+            return row;
+        });
+        if (workouts.isEmpty()) {
+            return "- No active workouts in database.";
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map<String, Object> workout : workouts) {
+            String name = String.valueOf(workout.getOrDefault("name", "")).trim();
+            if (!StringUtils.hasText(name)) {
+                continue;
+            }
+            builder.append("- ").append(name)
+                    .append(" | Difficulty: ").append(formatNumber(workout.get("difficulty")));
+            String desc = normalizeText(workout.get("shortDesc"));
+            if (desc != null) {
+                builder.append(" | ").append(desc);
+            }
+            builder.append('\n');
+        }
+        String text = builder.toString().trim();
+        return text.isEmpty() ? "- No active workouts in database." : text;
+    }
+
+    private String renderFoods() {
+        List<Map<String, Object>> foods = jdbcTemplate.query(FOOD_CATALOG_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", rs.getString("FoodName"));
+            row.put("calories", rs.getObject("Calories"));
+            row.put("protein", rs.getObject("Protein"));
+            row.put("carbs", rs.getObject("Carbs"));
+            row.put("fat", rs.getObject("Fat"));
+            return row;
+        });
+        if (foods.isEmpty()) {
+            return "- No active foods in database.";
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map<String, Object> food : foods) {
+            String name = String.valueOf(food.getOrDefault("name", "")).trim();
+            if (!StringUtils.hasText(name)) {
+                continue;
+            }
+            builder.append("- ").append(name)
+                    .append(" | Cal: ").append(formatNumber(food.get("calories")))
+                    .append(" | P: ").append(formatNumber(food.get("protein")))
+                    .append(" | C: ").append(formatNumber(food.get("carbs")))
+                    .append(" | F: ").append(formatNumber(food.get("fat")))
+                    .append('\n');
+        }
+        String text = builder.toString().trim();
+        return text.isEmpty() ? "- No active foods in database." : text;
+    }
+
+    private String renderCoaches() {
+        List<Map<String, Object>> coaches = jdbcTemplate.query(COACH_CATALOG_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", rs.getString("FullName"));
+            row.put("experienceYears", rs.getObject("ExperienceYears"));
+            row.put("rating", rs.getObject("AvgRating"));
+            return row;
+        });
+        if (coaches.isEmpty()) {
+            return "- No active coaches in database.";
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map<String, Object> coach : coaches) {
+            String name = String.valueOf(coach.get("name")).trim();
+            if (!StringUtils.hasText(name)) {
+                continue;
+            }
+            builder.append("- ").append(name)
+                    .append(" | Exp: ").append(formatNumber(coach.get("experienceYears")))
+                    .append(" years | Rating: ").append(formatNumber(coach.get("rating")))
+                    .append("\n");
+        }
+        return builder.toString().trim();
+    }
+
+    private String renderProducts() {
+        List<Map<String, Object>> products = jdbcTemplate.query(PRODUCT_CATALOG_SQL, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", rs.getString("ProductName"));
+            row.put("price", rs.getObject("Price"));
+            row.put("desc", rs.getString("ShortDescription"));
+            return row;
+        });
+        if (products.isEmpty()) {
+            return "- No active products in database.";
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Map<String, Object> product : products) {
+            String name = String.valueOf(product.get("name")).trim();
+            if (!StringUtils.hasText(name)) {
+                continue;
+            }
+            builder.append("- ").append(name)
+                    .append(" | Price: ").append(formatNumber(product.get("price")));
+            if (product.get("desc") != null) {
+                builder.append(" | ").append(product.get("desc"));
+            }
+            builder.append("\n");
+        }
+        return builder.toString().trim();
+    }
+
+    private static String formatNumber(Object value) {
+        if (value == null) {
+            return "-";
+        }
+        String text = String.valueOf(value).trim();
+        return text.isEmpty() ? "-" : text;
+    }
+
+    private static String normalizeText(Object rawValue) {
+        if (rawValue == null) {
+            return null;
+        }
+        String text = String.valueOf(rawValue).trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    public record CatalogSnapshot(long version, String workouts, String foods, String coaches, String products) {
+    }
+
+    private record Fragment(long generation, String text) {
+    }
+}
@@ -1,6 +1,10 @@
 package com.gymcore.backend.modules.content.service;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -9,36 +13,52 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.json.JsonParser;
+import org.springframework.boot.json.JsonParserFactory;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class GeminiChatService {
 
     private final RestTemplate restTemplate;
-    private final JdbcTemplate jdbcTemplate;
+    private final GeminiCatalogSnapshotService catalogSnapshotService;
     private static final Logger log = LoggerFactory.getLogger(GeminiChatService.class);
     private static final Pattern RETRY_DELAY_SECONDS_PATTERN = Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+)s\"");
     private static final Pattern RETRY_HINT_SECONDS_PATTERN = Pattern.compile("Please\\s+retry\\s+in\\s+([0-9]+(?:\\.[0-9]+)?)s", Pattern.CASE_INSENSITIVE);
+    private static final String DEFAULT_BASE_URL = "https://generativelanguage.googleapis.com";
+    private static final JsonParser JSON_PARSER = JsonParserFactory.getJsonParser();
+
+    // Streaming replies spend almost all their time waiting on Gemini, so each one gets a virtual thread
+    // instead of pinning a servlet worker for the whole answer.
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     @Value("${app.ai.gemini.api-key:}")
     private String apiKey;
@@ -46,9 +66,13 @@ public class GeminiChatService {
     @Value("${app.ai.gemini.model:gemini-2.5-flash}")
     private String model;
 
-    public GeminiChatService(RestTemplate restTemplate, JdbcTemplate jdbcTemplate) {
+    @Value("${app.ai.gemini.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+
+    public GeminiChatService(@Qualifier("geminiRestTemplate") RestTemplate restTemplate,
+            GeminiCatalogSnapshotService catalogSnapshotService) {
         this.restTemplate = restTemplate;
-        this.jdbcTemplate = jdbcTemplate;
+        this.catalogSnapshotService = catalogSnapshotService;
     }
 
     @PostConstruct
@@ -59,7 +83,36 @@ public class GeminiChatService {
                 StringUtils.hasText(apiKey), model);
     }
 
+    @PreDestroy
+    void shutdownStreams() {
+        streamExecutor.shutdownNow();
+    }
+
     public String chat(List<Map<String, Object>> messages, Map<String, Object> context) {
+        String preferredModel = requireConfiguredModel();
+        Map<String, Object> body = buildRequestBody(messages, context);
+        return withModelFallback(preferredModel, resolvedModel -> callGenerateContent(resolvedModel, body));
+    }
+
+    /**
+     * Same prompt and error mapping as {@link #chat}, but reads {@code streamGenerateContent} as server-sent
+     * events and hands each text chunk to {@code onChunk} as it arrives. Configuration and message validation
+     * fail fast on the caller's thread; the upstream call runs on a virtual thread and the future completes
+     * with the full reply (or the {@link ResponseStatusException} {@link #chat} would have thrown).
+     */
+    public CompletableFuture<String> streamChat(
+            List<Map<String, Object>> messages,
+            Map<String, Object> context,
+            Consumer<String> onChunk) {
+        String preferredModel = requireConfiguredModel();
+        Map<String, Object> body = buildRequestBody(messages, context);
+        return CompletableFuture.supplyAsync(
+                () -> withModelFallback(preferredModel,
+                        resolvedModel -> callStreamGenerateContent(resolvedModel, body, onChunk)),
+                streamExecutor);
+    }
+
+    private String requireConfiguredModel() {
         if (!StringUtils.hasText(apiKey)) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "AI chat is not configured on the server.");
@@ -69,10 +122,12 @@ public class GeminiChatService {
         // Helpful debug: show effective model and whether env overrides exist (do NOT log apiKey).
         log.info("Gemini effective model='{}' (APP_AI_GEMINI_MODEL='{}')",
                 preferredModel, String.valueOf(System.getenv("APP_AI_GEMINI_MODEL")));
-        Map<String, Object> body = buildRequestBody(messages, context);
+        return preferredModel;
+    }
 
+    private String withModelFallback(String preferredModel, Function<String, String> call) {
         try {
-            return callGenerateContent(preferredModel, body);
+            return call.apply(preferredModel);
         } catch (HttpClientErrorException.BadRequest badRequest) {
             // Some models (e.g. "deep-research-*") do not support generateContent.
             // If configured model is incompatible, fall back to a supported model.
@@ -80,7 +135,7 @@ public class GeminiChatService {
             if (StringUtils.hasText(errorBody) && errorBody.toLowerCase().contains("interactions api")) {
                 Optional<String> fallback = discoverFallbackModel();
                 if (fallback.isPresent() && !fallback.get().equalsIgnoreCase(preferredModel)) {
-                    return callGenerateContent(fallback.get(), body);
+                    return call.apply(fallback.get());
                 }
                 throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
                         "Configured AI model is incompatible with generateContent. Update APP_AI_GEMINI_MODEL to a supported model (e.g. gemini-2.5-flash).");
@@ -89,7 +144,7 @@ public class GeminiChatService {
         } catch (HttpClientErrorException.NotFound notFound) {
             Optional<String> fallback = discoverFallbackModel();
             if (fallback.isPresent() && !fallback.get().equalsIgnoreCase(preferredModel)) {
-                return callGenerateContent(fallback.get(), body);
+                return call.apply(fallback.get());
             }
             throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
                     "AI model is unavailable. Update APP_AI_GEMINI_MODEL to a supported model.");
@@ -99,9 +154,14 @@ public class GeminiChatService {
                     ? "AI quota exceeded. Please retry in %ds.".formatted(retrySeconds)
                     : "AI quota exceeded. Please retry shortly.";
             throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, message);
-        } catch (HttpClientErrorException exception) {
+        } catch (HttpClientErrorException | HttpServerErrorException exception) {
             throw new ResponseStatusException(HttpStatus.BAD_GATEWAY,
                     "AI provider request failed.");
+        } catch (ResourceAccessException unavailable) {
+            // Timeout, refused connection, or the Gemini circuit breaker is open.
+            log.warn("Gemini call failed fast: {}", unavailable.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "AI provider is temporarily unavailable. Please retry shortly.");
         }
     }
 
@@ -191,15 +251,12 @@ public class GeminiChatService {
     private Map<String, Object> buildRequestBody(List<Map<String, Object>> messages, Map<String, Object> context) {
         Map<String, Object> body = new LinkedHashMap<>();
 
-        String workoutCatalog = buildWorkoutCatalogContext();
-        String foodCatalog = buildFoodCatalogContext();
-        String coachCatalog = buildCoachCatalogContext();
-        String productCatalog = buildProductCatalogContext();
+        GeminiCatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
 
         body.put("systemInstruction", Map.of(
                 "parts", List.of(Map.of("text",
-                        buildSystemInstruction(context, workoutCatalog, foodCatalog, coachCatalog,
-                                productCatalog)))));
+                        buildSystemInstruction(context, catalog.workouts(), catalog.foods(), catalog.coaches(),
+                                catalog.products())))));
 
         body.put("contents", mapMessages(messages));
         body.put("generationConfig", Map.of(
@@ -213,7 +270,7 @@ public class GeminiChatService {
     private String callGenerateContent(String resolvedModel, Map<String, Object> body) {
         log.info("Calling Gemini generateContent with model='{}'", resolvedModel);
         String url = UriComponentsBuilder
-                .fromUriString("https://generativelanguage.googleapis.com/v1beta/models/{model}:generateContent")
+                .fromUriString(apiBaseUrl() + "/v1beta/models/{model}:generateContent")
                 .queryParam("key", apiKey.trim())
                 .buildAndExpand(resolvedModel)
                 .toUriString();
@@ -229,11 +286,87 @@ public class GeminiChatService {
         return extractTextResponse(response.getBody());
     }
 
+    private String callStreamGenerateContent(String resolvedModel, Map<String, Object> body, Consumer<String> onChunk) {
+        log.info("Calling Gemini streamGenerateContent with model='{}'", resolvedModel);
+        String url = UriComponentsBuilder
+                .fromUriString(apiBaseUrl() + "/v1beta/models/{model}:streamGenerateContent")
+                .queryParam("alt", "sse")
+                .queryParam("key", apiKey.trim())
+                .buildAndExpand(resolvedModel)
+                .toUriString();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
+
+        return restTemplate.execute(url, HttpMethod.POST, restTemplate.httpEntityCallback(request),
+                response -> readEventStream(response.getBody(), onChunk));
+    }
+
+    /**
+     * Each {@code data:} line of the stream is a complete GenerateContentResponse carrying the next slice of
+     * text. Chunks are forwarded untrimmed because token boundaries can fall inside whitespace.
+     */
+    private String readEventStream(InputStream stream, Consumer<String> onChunk) throws IOException {
+        StringBuilder reply = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring("data:".length()).trim();
+                if (data.isEmpty() || "[DONE]".equals(data)) {
+                    continue;
+                }
+                String chunk = extractChunkText(data);
+                if (!chunk.isEmpty()) {
+                    reply.append(chunk);
+                    onChunk.accept(chunk);
+                }
+            }
+        }
+        String text = reply.toString().trim();
+        if (text.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "AI provider returned empty text.");
+        }
+        return text;
+    }
+
+    private String extractChunkText(String data) {
+        Map<String, Object> parsed;
+        try {
+            parsed = JSON_PARSER.parseMap(data);
+        } catch (RuntimeException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "AI provider response could not be parsed.");
+        }
+        // The last event of a reply usually carries only finishReason/usageMetadata and no parts.
+        if (!(parsed.get("candidates") instanceof List<?> candidates) || candidates.isEmpty()
+                || !(candidates.get(0) instanceof Map<?, ?> candidate)
+                || !(candidate.get("content") instanceof Map<?, ?> content)
+                || !(content.get("parts") instanceof List<?> parts)) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Object partObj : parts) {
+            if (partObj instanceof Map<?, ?> part && part.get("text") != null) {
+                text.append(part.get("text"));
+            }
+        }
+        return text.toString();
+    }
+
+    private String apiBaseUrl() {
+        String resolved = StringUtils.hasText(baseUrl) ? baseUrl.trim() : DEFAULT_BASE_URL;
+        return resolved.endsWith("/") ? resolved.substring(0, resolved.length() - 1) : resolved;
+    }
+
     @SuppressWarnings("rawtypes")
     private Optional<String> discoverFallbackModel() {
         try {
             String listUrl = UriComponentsBuilder
-                    .fromUriString("https://generativelanguage.googleapis.com/v1/models")
+                    .fromUriString(apiBaseUrl() + "/v1/models")
                     .queryParam("key", apiKey.trim())
                     .toUriString();
 
@@ -656,198 +789,6 @@ public class GeminiChatService {
         return text.isEmpty() ? null : text;
     }
 
-    private String buildWorkoutCatalogContext() {
-        try {
-            List<Map<String, Object>> workouts = jdbcTemplate.query("""
-                    SELECT TOP (80) w.WorkoutName,
-                           w.Difficulty,
-                           LEFT(COALESCE(w.Description, ''), 160) AS ShortDesc
-                    FROM dbo.Workouts w
-                    WHERE w.IsActive = 1
-                    ORDER BY w.CreatedAt DESC, w.WorkoutName
-                    """, (rs, rowNum) -> {
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("name", rs.getString("WorkoutName"));
-                row.put("difficulty", rs.getObject("Difficulty"));
-                row.put("shortDesc", rs.getString("ShortDesc"));
-                return row;
-            });
-
-            if (workouts.isEmpty()) {
-                return "- No active workouts in database.";
-            }
-
-            StringBuilder builder = new StringBuilder();
-            for (Map<String, Object> workout : workouts) {
-                String name = String.valueOf(workout.getOrDefault("name", "")).trim();
-                if (!StringUtils.hasText(name)) {
-                    continue;
-                }
-                builder.append("- ").append(name)
-                        .append(" | Difficulty: ").append(formatNumber(workout.get("difficulty")));
-                String desc = normalizeText(workout.get("shortDesc"));
-                if (desc != null) {
-                    builder.append(" | ").append(desc);
-                }
-                builder.append('\n');
-            }
-            String text = builder.toString().trim();
-            return text.isEmpty() ? "- No active workouts in database." : text;
-        } catch (RuntimeException exception) {
-            log.warn("Failed to build workout catalog context: {}", exception.getMessage());
-            return "- Workout catalog is temporarily unavailable.";
-        }
-    }
-
-    private String buildFoodCatalogContext() {
-        try {
-            List<Map<String, Object>> foods = jdbcTemplate.query("""
-                    SELECT TOP (80) f.FoodName,
-                           f.Calories,
-                           f.Protein,
-                           f.Carbs,
-                           f.Fat
-                    FROM dbo.Foods f
-                    WHERE f.IsActive = 1
-                    ORDER BY f.CreatedAt DESC, f.FoodName
-                    """, (rs, rowNum) -> {
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("name", rs.getString("FoodName"));
-                row.put("calories", rs.getObject("Calories"));
-                row.put("protein", rs.getObject("Protein"));
-                row.put("carbs", rs.getObject("Carbs"));
-                row.put("fat", rs.getObject("Fat"));
-                return row;
-            });
-            if (foods.isEmpty()) {
-                return "- No active foods in database.";
-            }
-
-            StringBuilder builder = new StringBuilder();
-            for (Map<String, Object> food : foods) {
-                String name = String.valueOf(food.getOrDefault("name", "")).trim();
-                if (!StringUtils.hasText(name)) {
-                    continue;
-                }
-                builder.append("- ").append(name)
-                        .append(" | Cal: ").append(formatNumber(food.get("calories")))
-                        .append(" | P: ").append(formatNumber(food.get("protein")))
-                        .append(" | C: ").append(formatNumber(food.get("carbs")))
-                        .append(" | F: ").append(formatNumber(food.get("fat")))
-                        .append('\n');
-            }
-            String text = builder.toString().trim();
-            return text.isEmpty() ? "- No active foods in database." : text;
-        } catch (RuntimeException exception) {
-            log.warn("Failed to build food catalog context: {}", exception.getMessage());
-            return "- Food catalog is temporarily unavailable.";
-        }
-    }
-
-    private String buildCoachCatalogContext() {
-        try {
-            List<Map<String, Object>> coaches = jdbcTemplate.query("""
-                SELECT TOP (40)
-                       u.FullName,
-                       c.ExperienceYears,
-                       COALESCE(agg.AvgRating, 0) AS AvgRating
-                FROM dbo.Coaches c
-                JOIN dbo.Users u ON u.UserID = c.CoachID
-                LEFT JOIN (
-                    SELECT CoachID, AVG(CAST(Rating AS FLOAT)) AS AvgRating
-                    FROM dbo.CoachFeedback
-                    GROUP BY CoachID
-                ) agg ON agg.CoachID = c.CoachID
-                WHERE u.IsActive = 1
-                ORDER BY u.FullName
-                """, (rs, rowNum) -> {
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("name", rs.getString("FullName"));
-                row.put("experienceYears", rs.getObject("ExperienceYears"));
-                row.put("rating", rs.getObject("AvgRating"));
-                return row;
-            });
-
-            if (coaches.isEmpty()) {
-                return "- No active coaches in database.";
-            }
-
-            StringBuilder builder = new StringBuilder();
-            for (Map<String, Object> coach : coaches) {
-                String name = String.valueOf(coach.get("name")).trim();
-                if (!StringUtils.hasText(name)) {
-                    continue;
-                }
-
-                builder.append("- ").append(name)
-                        .append(" | Exp: ").append(formatNumber(coach.get("experienceYears")))
-                        .append(" years | Rating: ").append(formatNumber(coach.get("rating")))
-                        .append("\n");
-            }
-
-            return builder.toString().trim();
-
-        } catch (RuntimeException e) {
-            log.warn("Failed to load coach catalog: {}", e.getMessage());
-            return "- Coach catalog unavailable.";
-        }
-    }
-
-    private String buildProductCatalogContext() {
-        try {
-            List<Map<String, Object>> products = jdbcTemplate.query("""
-                SELECT TOP (60)
-                       p.ProductName,
-                       p.Price,
-                       p.ShortDescription
-                FROM dbo.Products p
-                WHERE p.IsActive = 1
-                ORDER BY p.ProductName
-                """, (rs, rowNum) -> {
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("name", rs.getString("ProductName"));
-                row.put("price", rs.getObject("Price"));
-                row.put("desc", rs.getString("ShortDescription"));
-                return row;
-            });
-
-            if (products.isEmpty()) {
-                return "- No active products in database.";
-            }
-
-            StringBuilder builder = new StringBuilder();
-            for (Map<String, Object> product : products) {
-                String name = String.valueOf(product.get("name")).trim();
-                if (!StringUtils.hasText(name)) {
-                    continue;
-                }
-
-                builder.append("- ").append(name)
-                        .append(" | Price: ").append(formatNumber(product.get("price")));
-
-                if (product.get("desc") != null) {
-                    builder.append(" | ").append(product.get("desc"));
-                }
-
-                builder.append("\n");
-            }
-
-            return builder.toString().trim();
-
-        } catch (RuntimeException e) {
-            log.warn("Failed to load product catalog: {}", e.getMessage());
-            return "- Product catalog unavailable.";
-        }
-    }
-
-    private static String formatNumber(Object value) {
-        if (value == null) {
-            return "-";
-        }
-        String text = String.valueOf(value).trim();
-        return text.isEmpty() ? "-" : text;
-    }
-
     private List<Map<String, Object>> mapMessages(List<Map<String, Object>> messages) {
         if (messages == null || messages.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Messages are required.");
@@ -1,8 +1,11 @@
 package com.gymcore.backend.modules.membership.service;
 
+import com.gymcore.backend.common.scheduling.PendingCheckoutSweeper;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService.UserInfo;
+import com.gymcore.backend.modules.checkin.service.CheckinPassCache;
 import com.gymcore.backend.modules.coach.service.CoachBookingService;
 import com.gymcore.backend.modules.product.service.OrderInvoiceService;
 import com.gymcore.backend.modules.product.service.PayOsService;
@@ -39,16 +42,24 @@ public class MembershipService {
     private final UserNotificationService notificationService;
     private final OrderInvoiceService orderInvoiceService;
     private final CoachBookingService coachBookingService;
+    private final AdminDashboardSnapshotService dashboardSnapshotService;
+    private final CheckinPassCache checkinPassCache;
+    private final MembershipStateResolver membershipStates;
 
     public MembershipService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
             PayOsService payOsService, UserNotificationService notificationService,
-            OrderInvoiceService orderInvoiceService, CoachBookingService coachBookingService) {
+            OrderInvoiceService orderInvoiceService, CoachBookingService coachBookingService,
+            AdminDashboardSnapshotService dashboardSnapshotService, CheckinPassCache checkinPassCache,
+            MembershipStateResolver membershipStates) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
         this.payOsService = payOsService;
         this.notificationService = notificationService;
         this.orderInvoiceService = orderInvoiceService;
         this.coachBookingService = coachBookingService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.checkinPassCache = checkinPassCache;
+        this.membershipStates = membershipStates;
     }
 
     public Map<String, Object> execute(String action, String authorizationHeader, Object payload) {
@@ -128,7 +139,6 @@ public class MembershipService {
 
     private Map<String, Object> customerGetCurrentMembership(String authorizationHeader) {
         UserInfo user = currentUserService.requireCustomer(authorizationHeader);
-        expireStalePendingCheckouts(user.userId());
         List<Map<String, Object>> expiredMembershipHistory = findExpiredMembershipHistory(user.userId());
 
         String sql = """
@@ -296,9 +306,10 @@ public class MembershipService {
         int planId = requirePositiveInt(firstNonNull(payload.get("planId"), payload.get("membershipPlanId")),
                 "Membership plan ID is required.");
         MembershipPlan plan = requireActivePlan(planId);
-        MembershipSnapshot activeMembership = findTopMembership(user.userId(), "ACTIVE");
-        MembershipSnapshot scheduledMembership = findTopMembership(user.userId(), "SCHEDULED");
-        MembershipSnapshot expiredMembership = findTopMembership(user.userId(), "EXPIRED");
+        MembershipStateResolver.MembershipState state = membershipStates.resolveFresh(user.userId());
+        MembershipSnapshot activeMembership = findTopMembership(state, "ACTIVE");
+        MembershipSnapshot scheduledMembership = findTopMembership(state, "SCHEDULED");
+        MembershipSnapshot expiredMembership = findTopMembership(state, "EXPIRED");
         String returnUrl = asNullableString(payload.get("returnUrl"));
         String cancelUrl = asNullableString(payload.get("cancelUrl"));
         String promoCode = asNullableString(payload.get("promoCode"));
@@ -449,6 +460,8 @@ public class MembershipService {
                     "Failed to complete zero-amount membership checkout.",
                     exception);
         }
+        membershipStates.invalidateAll();
+        dashboardSnapshotService.invalidate();
 
         Map<String, Object> response = buildCheckoutResponse(
                 paymentId,
@@ -476,7 +489,6 @@ public class MembershipService {
 
     private Map<String, Object> customerGetMembershipHistory(String authorizationHeader) {
         UserInfo user = currentUserService.requireCustomer(authorizationHeader);
-        expireStalePendingCheckouts(user.userId());
 
         String sql = """
                 SELECT
@@ -564,8 +576,9 @@ public class MembershipService {
                 payload.get("customerMembershipId"),
                 payload.get("membershipId")));
 
-        MembershipSnapshot activeMembership = findTopMembership(user.userId(), "ACTIVE");
-        MembershipSnapshot scheduledMembership = findTopMembership(user.userId(), "SCHEDULED");
+        MembershipStateResolver.MembershipState state = membershipStates.resolveFresh(user.userId());
+        MembershipSnapshot activeMembership = findTopMembership(state, "ACTIVE");
+        MembershipSnapshot scheduledMembership = findTopMembership(state, "SCHEDULED");
 
         if (activeMembership == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -616,6 +629,9 @@ public class MembershipService {
                   AND Status = 'SCHEDULED'
                 """, java.sql.Date.valueOf(today), java.sql.Date.valueOf(newEndDate),
                 scheduledMembership.customerMembershipId(), user.userId());
+        checkinPassCache.invalidateCustomer(user.userId());
+        membershipStates.invalidateCustomer(user.userId());
+        dashboardSnapshotService.invalidate();
 
         return customerGetCurrentMembership(authorizationHeader);
     }
@@ -758,6 +774,8 @@ public class MembershipService {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Failed to confirm payment from return URL.", exception);
         }
+        membershipStates.invalidateAll();
+        dashboardSnapshotService.invalidate();
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("handled", true);
@@ -822,6 +840,9 @@ public class MembershipService {
         } catch (Exception exception) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to confirm payment.", exception);
         }
+        // The confirmed payment may have activated, queued or replaced memberships of its customer.
+        membershipStates.invalidateAll();
+        dashboardSnapshotService.invalidate();
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("handled", true);
@@ -851,7 +872,6 @@ public class MembershipService {
         if (candidate == null) {
             return;
         }
-
         Integer activeCount = jdbcTemplate.queryForObject("""
                 SELECT COUNT(1)
                 FROM dbo.CustomerMemberships
@@ -860,6 +880,8 @@ public class MembershipService {
                   AND CustomerMembershipID <> ?
                 """, Integer.class, candidate.customerId(), candidate.customerMembershipId());
         if (activeCount == null || activeCount == 0) {
+            // sp_ConfirmPaymentSuccess already replaced the customer's ACTIVE membership.
+            invalidateMembershipCaches(candidate.customerId());
             return;
         }
 
@@ -880,6 +902,13 @@ public class MembershipService {
                 WHERE CustomerMembershipID = ?
                   AND Status IN ('SCHEDULED', 'PENDING')
                 """, candidate.customerMembershipId());
+        // Not before the writes: a scan in between would cache a check-in pass for the replaced membership.
+        invalidateMembershipCaches(candidate.customerId());
+    }
+
+    private void invalidateMembershipCaches(int customerId) {
+        checkinPassCache.invalidateCustomer(customerId);
+        membershipStates.invalidateCustomer(customerId);
     }
 
     private void applyScheduledUpgradeReplacementIfNeeded(int paymentId) {
@@ -1402,7 +1431,8 @@ public class MembershipService {
 
         PendingCheckout pending = rows.get(0);
         if (isPendingCheckoutExpired(pending.paymentCreatedAt())) {
-            cancelPendingCheckout(pending.customerMembershipId(), pending.paymentId(), "EXPIRED");
+            // Too old to hand out again, but its link may still be paid; expireStalePendingCheckouts or the
+            // sweeper cancels it once that can no longer happen.
             return Map.of();
         }
 
@@ -1516,6 +1546,10 @@ public class MembershipService {
                 """, paymentId, customerMembershipId, claimId);
     }
 
+    /**
+     * Uses the sweeper's cutoff rather than the reuse window: a checkout too old to reuse may still have a live
+     * PayOS link, and cancelling it here would let its payment confirm against a cancelled checkout.
+     */
     private void expireStalePendingCheckouts(int customerId) {
         String sql = """
                 SELECT
@@ -1530,7 +1564,7 @@ public class MembershipService {
                 """;
         List<PendingCheckoutRef> staleRows = jdbcTemplate.query(sql, (rs, rowNum) -> new PendingCheckoutRef(
                 rs.getInt("PaymentID"),
-                rs.getInt("CustomerMembershipID")), customerId, CHECKOUT_REUSE_WINDOW_MINUTES);
+                rs.getInt("CustomerMembershipID")), customerId, PendingCheckoutSweeper.SWEEP_AFTER_MINUTES);
         for (PendingCheckoutRef stale : staleRows) {
             cancelPendingCheckout(stale.customerMembershipId(), stale.paymentId(), "EXPIRED");
         }
@@ -1559,6 +1593,7 @@ public class MembershipService {
                     UpdatedAt = SYSDATETIME()
                 WHERE CustomerMembershipID = ? AND Status = 'PENDING'
                 """, customerMembershipId);
+        membershipStates.invalidateAll();
     }
 
     private void normalizePendingDayPassDates(int customerMembershipId) {
@@ -1601,26 +1636,14 @@ public class MembershipService {
         return rows.get(0);
     }
 
-    private MembershipSnapshot findTopMembership(int customerId, String status) {
-        String sql = """
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.MembershipPlanID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate
-                FROM dbo.CustomerMemberships cm
-                WHERE cm.CustomerID = ?
-                  AND cm.Status = ?
-                ORDER BY cm.EndDate DESC, cm.CustomerMembershipID DESC
-                """;
-        List<MembershipSnapshot> rows = jdbcTemplate.query(sql, (rs, rowNum) -> new MembershipSnapshot(
-                rs.getInt("CustomerMembershipID"),
-                rs.getInt("MembershipPlanID"),
-                rs.getString("Status"),
-                toLocalDate(rs, "StartDate"),
-                toLocalDate(rs, "EndDate")), customerId, status);
-        return rows.isEmpty() ? null : rows.get(0);
+    private MembershipSnapshot findTopMembership(MembershipStateResolver.MembershipState state, String status) {
+        MembershipStateResolver.Membership membership = state.latest(status);
+        return membership == null ? null : new MembershipSnapshot(
+                membership.customerMembershipId(),
+                membership.membershipPlanId(),
+                membership.status(),
+                membership.startDate(),
+                membership.endDate());
     }
 
     private LocalDate resolveStartDate(
@@ -1738,6 +1761,7 @@ public class MembershipService {
             statement.setDate(4, java.sql.Date.valueOf(safeEndDate));
             return statement;
         }, keyHolder);
+        membershipStates.invalidateCustomer(customerId);
         Number key = keyHolder.getKey();
         if (key == null) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create membership checkout.");
@@ -1785,6 +1809,7 @@ public class MembershipService {
                     UpdatedAt = SYSDATETIME()
                 WHERE CustomerMembershipID = ? AND Status = 'PENDING'
                 """, customerMembershipId);
+        membershipStates.invalidateAll();
     }
 
     private CheckoutContact loadCheckoutContact(int customerId) {
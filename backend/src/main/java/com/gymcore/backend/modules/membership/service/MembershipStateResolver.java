@@ -0,0 +1,214 @@
+package com.gymcore.backend.modules.membership.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Which of a customer's memberships counts right now: ACTIVE, the next SCHEDULED, the latest EXPIRED, a PENDING
+ * checkout, or the ACTIVE plan that covers PT booking. All of the customer's rows come back in one query and each
+ * state is picked in memory, instead of one {@code TOP (1)} query per status.
+ *
+ * <p>Loaded states are memoized for the current HTTP request. Read-only screens use {@link #resolve(int)}, which
+ * may also answer from a short TTL cache ({@code app.membership.state-cache-seconds}, 0 disables it); callers
+ * that write based on the answer use {@link #resolveFresh(int)}. Membership writes call
+ * {@link #invalidateCustomer(int)} or {@link #invalidateAll()}.
+ */
+@Service
+public class MembershipStateResolver {
+
+    static final String CUSTOMER_MEMBERSHIPS_SQL = """
+            SELECT
+                cm.CustomerMembershipID,
+                cm.MembershipPlanID,
+                cm.Status,
+                cm.StartDate,
+                cm.EndDate,
+                mp.PlanName,
+                mp.PlanType,
+                mp.AllowsCoachBooking
+            FROM dbo.CustomerMemberships cm
+            JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
+            WHERE cm.CustomerID = ?
+            """;
+    static final int MAX_ENTRIES = 10_000;
+    private static final String MEMO_ATTRIBUTE = MembershipStateResolver.class.getName() + ".memo";
+    private static final Set<String> COACH_PLAN_TYPES = Set.of("GYM_PLUS_COACH", "GYM_COACH");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    @Value("${app.membership.state-cache-seconds:0}")
+    private long cacheSeconds;
+
+    public MembershipStateResolver(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** State for read-only screens; may be up to the cache TTL old. */
+    public MembershipState resolve(int customerId) {
+        Map<Integer, MembershipState> memo = requestMemo();
+        MembershipState memoized = memo == null ? null : memo.get(customerId);
+        if (memoized != null) {
+            return memoized;
+        }
+        Entry entry = cache.get(customerId);
+        if (entry != null) {
+            if (System.nanoTime() - entry.expiresAtNanos() < 0) {
+                return entry.state();
+            }
+            cache.remove(customerId, entry);
+        }
+        return load(customerId, memo);
+    }
+
+    /** State read from the database in this request, for callers that write based on it. */
+    public MembershipState resolveFresh(int customerId) {
+        Map<Integer, MembershipState> memo = requestMemo();
+        MembershipState memoized = memo == null ? null : memo.get(customerId);
+        return memoized != null ? memoized : load(customerId, memo);
+    }
+
+    public void invalidateCustomer(int customerId) {
+        version.incrementAndGet();
+        cache.remove(customerId);
+        Map<Integer, MembershipState> memo = requestMemo();
+        if (memo != null) {
+            memo.remove(customerId);
+        }
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.clear();
+        Map<Integer, MembershipState> memo = requestMemo();
+        if (memo != null) {
+            memo.clear();
+        }
+    }
+
+    private MembershipState load(int customerId, Map<Integer, MembershipState> memo) {
+        long stamp = version.get();
+        List<Membership> memberships = jdbcTemplate.query(CUSTOMER_MEMBERSHIPS_SQL, (rs, rowNum) -> new Membership(
+                rs.getInt("CustomerMembershipID"),
+                rs.getInt("MembershipPlanID"),
+                rs.getString("Status"),
+                toLocalDate(rs.getDate("StartDate")),
+                toLocalDate(rs.getDate("EndDate")),
+                rs.getString("PlanName"),
+                rs.getString("PlanType"),
+                rs.getBoolean("AllowsCoachBooking")), customerId);
+        MembershipState state = new MembershipState(customerId, memberships);
+        if (memo != null) {
+            memo.put(customerId, state);
+        }
+        // A write since the read started may not be in these rows.
+        if (cacheSeconds > 0 && version.get() == stamp
+                && (cache.size() < MAX_ENTRIES || cache.containsKey(customerId))) {
+            cache.put(customerId, new Entry(state, System.nanoTime() + cacheSeconds * 1_000_000_000L));
+        }
+        return state;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, MembershipState> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object memo = attributes.getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<Integer, MembershipState>();
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Integer, MembershipState>) memo;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+
+    public record Membership(
+            int customerMembershipId,
+            int membershipPlanId,
+            String status,
+            LocalDate startDate,
+            LocalDate endDate,
+            String planName,
+            String planType,
+            boolean allowsCoachBooking) {
+
+        boolean hasStatus(String expected) {
+            return expected.equalsIgnoreCase(status);
+        }
+    }
+
+    public record MembershipState(int customerId, List<Membership> memberships) {
+
+        private static final Comparator<Membership> BY_END_DATE = Comparator.comparing(Membership::endDate,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        private static final Comparator<Membership> BY_START_DATE = Comparator.comparing(Membership::startDate,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        private static final Comparator<Membership> BY_ID = Comparator.comparingInt(Membership::customerMembershipId);
+
+        public MembershipState {
+            memberships = List.copyOf(memberships);
+        }
+
+        public Membership active() {
+            return latest("ACTIVE");
+        }
+
+        /** Latest end date, then newest: the pick for ACTIVE, EXPIRED and CANCELLED. */
+        public Membership latest(String status) {
+            return memberships.stream()
+                    .filter(membership -> membership.hasStatus(status))
+                    .max(BY_END_DATE.thenComparing(BY_ID))
+                    .orElse(null);
+        }
+
+        /** Earliest start date, then oldest: the SCHEDULED membership that begins next. */
+        public Membership nextStarting(String status) {
+            return memberships.stream()
+                    .filter(membership -> membership.hasStatus(status))
+                    .min(BY_START_DATE.thenComparing(BY_ID))
+                    .orElse(null);
+        }
+
+        /** Newest row: the pick for PENDING checkouts. */
+        public Membership newest(String status) {
+            return memberships.stream()
+                    .filter(membership -> membership.hasStatus(status))
+                    .max(BY_ID)
+                    .orElse(null);
+        }
+
+        /** ACTIVE coach plan covering {@code date}; the one ending first when several do. */
+        public Membership coachBookingCoverage(LocalDate date) {
+            return memberships.stream()
+                    .filter(membership -> membership.hasStatus("ACTIVE")
+                            && membership.allowsCoachBooking()
+                            && membership.planType() != null
+                            && COACH_PLAN_TYPES.contains(membership.planType().toUpperCase())
+                            && membership.startDate() != null && !membership.startDate().isAfter(date)
+                            && membership.endDate() != null && !membership.endDate().isBefore(date))
+                    .min(BY_END_DATE.thenComparing(BY_ID))
+                    .orElse(null);
+        }
+    }
+
+    private record Entry(MembershipState state, long expiresAtNanos) {
+    }
+}
@@ -1,10 +1,14 @@
 package com.gymcore.backend.modules.product.controller;
 
 import com.gymcore.backend.common.api.ApiResponse;
+import com.gymcore.backend.modules.product.service.ProductCatalogSnapshotService;
 import com.gymcore.backend.modules.product.service.ProductSalesService;
 import java.util.Map;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -30,10 +34,19 @@ public class ProductSalesController {
         }
 
         @GetMapping("/products")
-        public ApiResponse<Map<String, Object>> getProducts(
-                        @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
-                return ApiResponse.ok("Product list retrieved",
-                                productSalesService.execute("customer-get-products", authorization, null));
+        public ResponseEntity<ApiResponse<Map<String, Object>>> getProducts(
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+                ProductCatalogSnapshotService.Catalog catalog = productSalesService.customerGetProductCatalog();
+                if (catalog.matches(ifNoneMatch)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                        .eTag(catalog.etag())
+                                        .cacheControl(CacheControl.noCache())
+                                        .build();
+                }
+                return ResponseEntity.ok()
+                                .eTag(catalog.etag())
+                                .cacheControl(CacheControl.noCache())
+                                .body(ApiResponse.ok("Product list retrieved", catalog.body()));
         }
 
         @GetMapping("/products/{productId}")
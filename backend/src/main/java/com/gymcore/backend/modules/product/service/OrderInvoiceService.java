@@ -1,5 +1,9 @@
 package com.gymcore.backend.modules.product.service;
 
+import com.gymcore.backend.common.service.EmailOutboxHandler;
+import com.gymcore.backend.common.service.EmailOutboxService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
@@ -20,7 +24,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
-public class OrderInvoiceService {
+public class OrderInvoiceService implements EmailOutboxHandler {
+
+    static final String INVOICE_EMAIL_MESSAGE_TYPE = "PRODUCT_INVOICE";
 
     private static final Logger log = LoggerFactory.getLogger(OrderInvoiceService.class);
     private static final DateTimeFormatter INVOICE_CODE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
@@ -32,22 +38,29 @@ public class OrderInvoiceService {
     private final JdbcTemplate jdbcTemplate;
     private final CurrentUserService currentUserService;
     private final OrderInvoiceMailService orderInvoiceMailService;
+    private final EmailOutboxService emailOutboxService;
+    private final AdminDashboardSnapshotService dashboardSnapshotService;
+    private final SchemaCapabilities schemaCapabilities;
 
     public OrderInvoiceService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
-            OrderInvoiceMailService orderInvoiceMailService) {
+            OrderInvoiceMailService orderInvoiceMailService, EmailOutboxService emailOutboxService,
+            AdminDashboardSnapshotService dashboardSnapshotService, SchemaCapabilities schemaCapabilities) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
         this.orderInvoiceMailService = orderInvoiceMailService;
+        this.emailOutboxService = emailOutboxService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.schemaCapabilities = schemaCapabilities;
     }
 
     public Map<String, Object> adminGetInvoices(String authorizationHeader) {
         currentUserService.requireAdminOrReceptionist(authorizationHeader);
-        if (!tableExists("OrderInvoices")) {
+        if (!schemaCapabilities.invoiceTables()) {
             return Map.of("invoices", List.of(), "pickupTrackingAvailable", false);
         }
 
-        boolean pickupTrackingAvailable = hasPickupTracking();
-        boolean invoiceItemsAvailable = tableExists("OrderInvoiceItems");
+        boolean pickupTrackingAvailable = schemaCapabilities.pickupTracking();
+        boolean invoiceItemsAvailable = schemaCapabilities.invoiceItemsTable();
         List<Map<String, Object>> invoices = invoiceItemsAvailable
                 ? jdbcTemplate.query(buildInvoiceListSql(pickupTrackingAvailable), this::mapInvoiceListRow)
                 : jdbcTemplate.query(buildInvoiceListWithoutItemsSql(pickupTrackingAvailable), this::mapInvoiceListRow);
@@ -56,11 +69,11 @@ public class OrderInvoiceService {
 
     public Map<String, Object> adminGetInvoiceDetail(String authorizationHeader, int invoiceId) {
         currentUserService.requireAdminOrReceptionist(authorizationHeader);
-        if (!tableExists("OrderInvoices")) {
+        if (!schemaCapabilities.invoiceTables()) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, INVOICE_SCHEMA_UNAVAILABLE_MESSAGE);
         }
 
-        boolean pickupTrackingAvailable = hasPickupTracking();
+        boolean pickupTrackingAvailable = schemaCapabilities.pickupTracking();
         List<Map<String, Object>> invoices = jdbcTemplate.query(
                 buildInvoiceDetailSql(pickupTrackingAvailable),
                 this::mapInvoiceDetailRow,
@@ -69,7 +82,7 @@ public class OrderInvoiceService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invoice not found.");
         }
 
-        List<Map<String, Object>> items = tableExists("OrderInvoiceItems")
+        List<Map<String, Object>> items = schemaCapabilities.invoiceItemsTable()
                 ? jdbcTemplate.query("""
                         SELECT InvoiceItemID,
                                ProductID,
@@ -92,7 +105,7 @@ public class OrderInvoiceService {
 
     public Map<String, Object> adminConfirmInvoicePickup(String authorizationHeader, int invoiceId) {
         CurrentUserService.UserInfo actor = currentUserService.requireAdminOrReceptionist(authorizationHeader);
-        if (!hasPickupTracking()) {
+        if (!schemaCapabilities.pickupTracking()) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, PICKUP_TRACKING_UNAVAILABLE_MESSAGE);
         }
 
@@ -129,6 +142,7 @@ public class OrderInvoiceService {
                         UpdatedAt = SYSDATETIME()
                     WHERE InvoiceID = ?
                     """, actor.userId(), invoiceId);
+            dashboardSnapshotService.invalidate();
         }
 
         return adminGetInvoiceDetail(authorizationHeader, invoiceId);
@@ -136,7 +150,7 @@ public class OrderInvoiceService {
 
     public Map<String, Object> adminResendInvoiceEmail(String authorizationHeader, int invoiceId) {
         currentUserService.requireAdminOrReceptionist(authorizationHeader);
-        if (!tableExists("OrderInvoices")) {
+        if (!schemaCapabilities.invoiceTables()) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, INVOICE_SCHEMA_UNAVAILABLE_MESSAGE);
         }
 
@@ -170,22 +184,56 @@ public class OrderInvoiceService {
 
         boolean emailSent = envelope.emailSentAt() != null;
         String emailError = envelope.emailError();
+        boolean emailQueued = false;
         if (!emailSent) {
-            InvoiceEmailResult emailResult = attemptInvoiceEmail(invoiceId, envelope.mailModel());
-            emailSent = emailResult.sent();
-            emailError = emailResult.errorMessage();
+            // SMTP runs on the outbox dispatcher so the PayOS webhook is acknowledged right away.
+            if (hasRecipient(envelope.mailModel())) {
+                emailOutboxService.enqueue(INVOICE_EMAIL_MESSAGE_TYPE, invoiceId);
+                emailQueued = true;
+            } else {
+                emailError = attemptInvoiceEmail(invoiceId, envelope.mailModel()).errorMessage();
+            }
         }
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("invoiceCreated", true);
         response.put("invoiceCode", envelope.mailModel().invoiceCode());
         response.put("invoiceEmailSent", emailSent);
+        response.put("invoiceEmailQueued", emailQueued);
         if (emailError != null && !emailError.isBlank()) {
             response.put("invoiceError", emailError);
         }
         return response;
     }
 
+    @Override
+    public String messageType() {
+        return INVOICE_EMAIL_MESSAGE_TYPE;
+    }
+
+    /**
+     * Outbox delivery of a queued invoice email. Failures are recorded on the invoice and rethrown
+     * so the dispatcher retries; a missing recipient is final and not retried.
+     */
+    @Override
+    public void deliver(int invoiceId) throws Exception {
+        InvoiceEnvelope envelope = loadInvoiceEnvelope(invoiceId);
+        if (envelope == null || envelope.emailSentAt() != null) {
+            return;
+        }
+        if (!hasRecipient(envelope.mailModel())) {
+            attemptInvoiceEmail(invoiceId, envelope.mailModel());
+            return;
+        }
+        try {
+            orderInvoiceMailService.sendProductInvoice(envelope.mailModel());
+        } catch (Exception exception) {
+            updateInvoiceEmailStatus(invoiceId, null, exception.getMessage());
+            throw exception;
+        }
+        updateInvoiceEmailStatus(invoiceId, Timestamp.valueOf(LocalDateTime.now()), null);
+    }
+
     private Integer findInvoiceIdByPaymentId(int paymentId) {
         try {
             return jdbcTemplate.queryForObject("""
@@ -377,8 +425,12 @@ public class OrderInvoiceService {
         return envelopes.isEmpty() ? null : envelopes.get(0);
     }
 
+    private boolean hasRecipient(OrderInvoiceMailService.InvoiceMailModel model) {
+        return model.recipientEmail() != null && !model.recipientEmail().isBlank();
+    }
+
     private InvoiceEmailResult attemptInvoiceEmail(int invoiceId, OrderInvoiceMailService.InvoiceMailModel model) {
-        if (model.recipientEmail() == null || model.recipientEmail().isBlank()) {
+        if (!hasRecipient(model)) {
             String error = "Recipient email is missing.";
             updateInvoiceEmailStatus(invoiceId, null, error);
             return new InvoiceEmailResult(false, error);
@@ -649,31 +701,6 @@ public class OrderInvoiceService {
         return item;
     }
 
-    private boolean hasPickupTracking() {
-        return columnExists("OrderInvoices", "PickedUpAt") && columnExists("OrderInvoices", "PickedUpByUserID");
-    }
-
-    private boolean tableExists(String tableName) {
-        Integer count = jdbcTemplate.queryForObject("""
-                SELECT COUNT(1)
-                FROM INFORMATION_SCHEMA.TABLES
-                WHERE TABLE_SCHEMA = 'dbo'
-                  AND TABLE_NAME = ?
-                """, Integer.class, tableName);
-        return count != null && count > 0;
-    }
-
-    private boolean columnExists(String tableName, String columnName) {
-        Integer count = jdbcTemplate.queryForObject("""
-                SELECT COUNT(1)
-                FROM INFORMATION_SCHEMA.COLUMNS
-                WHERE TABLE_SCHEMA = 'dbo'
-                  AND TABLE_NAME = ?
-                  AND COLUMN_NAME = ?
-                """, Integer.class, tableName, columnName);
-        return count != null && count > 0;
-    }
-
     private record InvoiceSource(
             int orderId,
             int paymentId,
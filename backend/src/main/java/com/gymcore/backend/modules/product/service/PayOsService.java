@@ -4,6 +4,8 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -12,6 +14,7 @@ import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -28,6 +31,13 @@ import org.slf4j.LoggerFactory;
 public class PayOsService {
 
     private static final Logger log = LoggerFactory.getLogger(PayOsService.class);
+
+    /**
+     * Payment links stop accepting payments this long after creation (PayOS {@code expiredAt}). It outlives the
+     * checkout reuse window so a reused link can still be paid; PendingCheckoutSweeper waits past it before
+     * cancelling a checkout.
+     */
+    public static final int PAYMENT_LINK_LIFETIME_MINUTES = 15;
     private static final long ORDER_CODE_OFFSET = 3_000_000_000L;
     private static final long ORDER_CODE_MULTIPLIER = 1_000_000L;
     private static final int ORDER_CODE_SUFFIX_MIN = 100_000;
@@ -53,7 +63,7 @@ public class PayOsService {
     @Value("${app.payos.cancel-url:http://localhost:5173/customer/shop?status=CANCELLED}")
     private String cancelUrl;
 
-    public PayOsService(RestTemplate restTemplate) {
+    public PayOsService(@Qualifier("payOsRestTemplate") RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
     }
 
@@ -115,6 +125,7 @@ public class PayOsService {
         body.put("items", items);
         body.put("returnUrl", effectiveReturnUrl);
         body.put("cancelUrl", effectiveCancelUrl);
+        body.put("expiredAt", Instant.now().plus(PAYMENT_LINK_LIFETIME_MINUTES, ChronoUnit.MINUTES).getEpochSecond());
 
         // Sign the data (PayOS v2 requires signing a specific subset of fields)
         // Signature =
@@ -0,0 +1,189 @@
+package com.gymcore.backend.modules.product.service;
+
+import com.gymcore.backend.common.service.RatingAggregateService;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Immutable snapshot of the storefront catalog (active products with rating stats, thumbnail and categories,
+ * plus the active category list). Product, image and review writes call {@link #invalidate()}; the snapshot also
+ * expires after {@code app.product.catalog-cache-seconds}, which bounds staleness for writes made on another
+ * instance. The ETag is a hash of the snapshot content, so every instance hands out the same tag for the same
+ * catalog and clients can revalidate against any of them.
+ */
+@Service
+public class ProductCatalogSnapshotService {
+
+    /** The slot is {@link RatingAggregateService#productStatsSql()}. */
+    static final String CATALOG_PRODUCTS_SQL_TEMPLATE = """
+            SELECT p.ProductID,
+                   p.ProductName,
+                   p.ShortDescription,
+                   p.Description,
+                   p.Price,
+                   COALESCE(NULLIF(p.ThumbnailUrl, ''), NULLIF(p.ImageUrl, ''), primaryImage.ImageUrl) AS ThumbnailUrl,
+                   COALESCE(stats.AverageRating, 0) AS AverageRating,
+                   COALESCE(stats.ReviewCount, 0) AS ReviewCount,
+                   p.IsActive
+            FROM dbo.Products p
+            LEFT JOIN (
+            %s) stats ON stats.ProductID = p.ProductID
+            LEFT JOIN dbo.ProductImages primaryImage
+                ON primaryImage.ProductID = p.ProductID AND primaryImage.IsPrimary = 1
+            WHERE p.IsActive = 1
+            ORDER BY p.ProductName
+            """;
+    static final String CATALOG_PRODUCT_CATEGORIES_SQL = """
+            SELECT pcm.ProductID, c.ProductCategoryID, c.CategoryName
+            FROM dbo.ProductCategoryMap pcm
+            JOIN dbo.ProductCategories c ON c.ProductCategoryID = pcm.ProductCategoryID
+            JOIN dbo.Products p ON p.ProductID = pcm.ProductID
+            WHERE p.IsActive = 1
+            ORDER BY c.SortOrder, c.CategoryName
+            """;
+    static final String ACTIVE_CATEGORIES_SQL = """
+            SELECT ProductCategoryID, CategoryName, Description, SortOrder
+            FROM dbo.ProductCategories
+            WHERE IsActive = 1
+            ORDER BY SortOrder, CategoryName
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RatingAggregateService ratingAggregates;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @Value("${app.product.catalog-cache-seconds:300}")
+    private long ttlSeconds;
+
+    public ProductCatalogSnapshotService(JdbcTemplate jdbcTemplate, RatingAggregateService ratingAggregates) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ratingAggregates = ratingAggregates;
+    }
+
+    public Catalog current() {
+        long now = System.nanoTime();
+        Snapshot cached = snapshot;
+        if (isFresh(cached, now)) {
+            return cached.catalog();
+        }
+        synchronized (this) {
+            cached = snapshot;
+            if (isFresh(cached, now)) {
+                return cached.catalog();
+            }
+            long loadedVersion = version.get();
+            Catalog loaded = load();
+            if (version.get() == loadedVersion) {
+                snapshot = new Snapshot(loaded, loadedVersion, now + Math.max(0, ttlSeconds) * 1_000_000_000L);
+            }
+            return loaded;
+        }
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private boolean isFresh(Snapshot cached, long now) {
+        return cached != null && cached.version() == version.get() && now - cached.expiresAtNanos() < 0;
+    }
+
+    private Catalog load() {
+        Map<Integer, List<Map<String, Object>>> categoriesByProduct = new LinkedHashMap<>();
+        jdbcTemplate.query(CATALOG_PRODUCT_CATEGORIES_SQL, rs -> {
+            Map<String, Object> category = new LinkedHashMap<>();
+            category.put("productCategoryId", rs.getInt("ProductCategoryID"));
+            category.put("name", rs.getString("CategoryName"));
+            categoriesByProduct.computeIfAbsent(rs.getInt("ProductID"), ignored -> new ArrayList<>())
+                    .add(Collections.unmodifiableMap(category));
+        });
+
+        List<Map<String, Object>> products = new ArrayList<>();
+        jdbcTemplate.query(CATALOG_PRODUCTS_SQL_TEMPLATE.formatted(ratingAggregates.productStatsSql()), rs -> {
+            Map<String, Object> product = mapCatalogProduct(rs);
+            product.put("categories", List.copyOf(categoriesByProduct.getOrDefault(rs.getInt("ProductID"), List.of())));
+            products.add(Collections.unmodifiableMap(product));
+        });
+
+        List<Map<String, Object>> categories = jdbcTemplate.query(ACTIVE_CATEGORIES_SQL,
+                (rs, rowNum) -> Collections.unmodifiableMap(mapCategory(rs)));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("categories", List.copyOf(categories));
+        body.put("products", List.copyOf(products));
+        return new Catalog(Collections.unmodifiableMap(body), etag(body));
+    }
+
+    /** Strong ETag over the rendered content; maps are insertion-ordered, so equal catalogs render identically. */
+    static String etag(Map<String, Object> body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(body).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available.", exception);
+        }
+    }
+
+    private static Map<String, Object> mapCatalogProduct(ResultSet rs) throws SQLException {
+        Map<String, Object> product = new LinkedHashMap<>();
+        product.put("productId", rs.getInt("ProductID"));
+        product.put("name", rs.getString("ProductName"));
+        product.put("shortDescription", rs.getString("ShortDescription"));
+        product.put("description", rs.getString("Description"));
+        product.put("price", rs.getBigDecimal("Price"));
+        product.put("thumbnailUrl", rs.getString("ThumbnailUrl"));
+        product.put("imageUrl", rs.getString("ThumbnailUrl"));
+        product.put("averageRating", rs.getDouble("AverageRating"));
+        product.put("reviewCount", rs.getInt("ReviewCount"));
+        product.put("active", rs.getBoolean("IsActive"));
+        return product;
+    }
+
+    private static Map<String, Object> mapCategory(ResultSet rs) throws SQLException {
+        Map<String, Object> category = new LinkedHashMap<>();
+        category.put("productCategoryId", rs.getInt("ProductCategoryID"));
+        category.put("name", rs.getString("CategoryName"));
+        category.put("description", rs.getString("Description"));
+        category.put("sortOrder", rs.getInt("SortOrder"));
+        return category;
+    }
+
+    public record Catalog(Map<String, Object> body, String etag) {
+
+        /** Weak comparison, as If-None-Match requires; {@code *} matches any catalog. */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Snapshot(Catalog catalog, long version, long expiresAtNanos) {
+    }
+}
@@ -1,8 +1,11 @@
 package com.gymcore.backend.modules.product.service;
 
+import com.gymcore.backend.common.service.RatingAggregateService;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService.UserInfo;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.file.Files;
@@ -28,6 +31,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -45,15 +49,27 @@ public class ProductSalesService {
     private final PayOsService payOsService;
     private final UserNotificationService notificationService;
     private final OrderInvoiceService orderInvoiceService;
+    private final GeminiCatalogSnapshotService catalogSnapshotService;
+    private final AdminDashboardSnapshotService dashboardSnapshotService;
+    private final ProductCatalogSnapshotService productCatalog;
+    private final RatingAggregateService ratingAggregates;
+    private final TransactionTemplate transactionTemplate;
 
     public ProductSalesService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
             PayOsService payOsService, UserNotificationService notificationService,
-            OrderInvoiceService orderInvoiceService) {
+            OrderInvoiceService orderInvoiceService, GeminiCatalogSnapshotService catalogSnapshotService,
+            AdminDashboardSnapshotService dashboardSnapshotService, ProductCatalogSnapshotService productCatalog,
+            RatingAggregateService ratingAggregates, TransactionTemplate transactionTemplate) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
         this.payOsService = payOsService;
         this.notificationService = notificationService;
         this.orderInvoiceService = orderInvoiceService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.dashboardSnapshotService = dashboardSnapshotService;
+        this.productCatalog = productCatalog;
+        this.ratingAggregates = ratingAggregates;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public Map<String, Object> execute(String action, String authorizationHeader, Map<String, Object> payload) {
@@ -93,39 +109,13 @@ public class ProductSalesService {
         };
     }
 
-    private Map<String, Object> customerGetProducts() {
-        List<Map<String, Object>> products = jdbcTemplate.query("""
-                SELECT p.ProductID,
-                       p.ProductName,
-                       p.ShortDescription,
-                       p.Description,
-                       p.Price,
-                       COALESCE(NULLIF(p.ThumbnailUrl, ''), NULLIF(p.ImageUrl, ''), primaryImage.ImageUrl) AS ThumbnailUrl,
-                       COALESCE(stats.AverageRating, 0) AS AverageRating,
-                       COALESCE(stats.ReviewCount, 0) AS ReviewCount,
-                       p.IsActive
-                FROM dbo.Products p
-                LEFT JOIN (
-                    SELECT ProductID, AVG(CAST(Rating AS FLOAT)) AS AverageRating, COUNT(*) AS ReviewCount
-                    FROM dbo.ProductReviews
-                    GROUP BY ProductID
-                ) stats ON stats.ProductID = p.ProductID
-                LEFT JOIN dbo.ProductImages primaryImage
-                    ON primaryImage.ProductID = p.ProductID AND primaryImage.IsPrimary = 1
-                WHERE p.IsActive = 1
-                ORDER BY p.ProductName
-                """, (rs, rowNum) -> mapCatalogProduct(rs));
-
-        Map<Integer, List<Map<String, Object>>> categoryMap = loadCategoryMapByProductIds(extractProductIds(products));
-        for (Map<String, Object> product : products) {
-            int productId = ((Number) product.get("productId")).intValue();
-            product.put("categories", categoryMap.getOrDefault(productId, List.of()));
-        }
+    /** Storefront catalog with its ETag, for conditional GETs; served from memory between catalog writes. */
+    public ProductCatalogSnapshotService.Catalog customerGetProductCatalog() {
+        return productCatalog.current();
+    }
 
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("categories", loadActiveCategoryCatalog());
-        response.put("products", products);
-        return response;
+    private Map<String, Object> customerGetProducts() {
+        return productCatalog.current().body();
     }
 
     private Map<String, Object> customerGetProductDetail(String authorizationHeader, Map<String, Object> payload) {
@@ -142,17 +132,19 @@ public class ProductSalesService {
                        COALESCE(NULLIF(p.ImageUrl, ''), COALESCE(NULLIF(p.ThumbnailUrl, ''), primaryImage.ImageUrl)) AS ImageUrl,
                        COALESCE(stats.AverageRating, 0) AS AverageRating,
                        COALESCE(stats.ReviewCount, 0) AS ReviewCount,
+                       stats.Rating1Count, stats.Rating2Count, stats.Rating3Count, stats.Rating4Count, stats.Rating5Count,
                        p.IsActive
                 FROM dbo.Products p
                 LEFT JOIN (
-                    SELECT ProductID, AVG(CAST(Rating AS FLOAT)) AS AverageRating, COUNT(*) AS ReviewCount
-                    FROM dbo.ProductReviews
-                    GROUP BY ProductID
-                ) stats ON stats.ProductID = p.ProductID
+                %s) stats ON stats.ProductID = p.ProductID
                 LEFT JOIN dbo.ProductImages primaryImage
                     ON primaryImage.ProductID = p.ProductID AND primaryImage.IsPrimary = 1
                 WHERE p.ProductID = ? AND p.IsActive = 1
-                """, (rs, rowNum) -> mapProductDetail(rs), productId);
+                """.formatted(ratingAggregates.productStatsSql()), (rs, rowNum) -> {
+            Map<String, Object> product = mapProductDetail(rs);
+            product.put("ratingHistogram", RatingAggregateService.histogram(rs));
+            return product;
+        }, productId);
         if (products.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found.");
         }
@@ -205,10 +197,13 @@ public class ProductSalesService {
         }
 
         try {
-            jdbcTemplate.update("""
-                    INSERT INTO dbo.ProductReviews (ProductID, CustomerID, Rating, Comment)
-                    VALUES (?, ?, ?, ?)
-                    """, productId, user.userId(), rating, comment);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("""
+                        INSERT INTO dbo.ProductReviews (ProductID, CustomerID, Rating, Comment)
+                        VALUES (?, ?, ?, ?)
+                        """, productId, user.userId(), rating, comment);
+                ratingAggregates.applyProductRating(productId, rating, null);
+            });
         } catch (DataAccessException exception) {
             String message = exception.getMostSpecificCause() != null
                     ? exception.getMostSpecificCause().getMessage()
@@ -218,6 +213,7 @@ public class ProductSalesService {
                             ? "Review blocked: customer must have picked up this product before reviewing."
                             : "Unable to create review. You may have already reviewed this product.");
         }
+        productCatalog.invalidate();
 
         return Map.of("created", true);
     }
@@ -235,17 +231,22 @@ public class ProductSalesService {
                     "Review blocked: customer must have picked up this product before reviewing.");
         }
 
-        int updated = jdbcTemplate.update("""
-                UPDATE dbo.ProductReviews
-                SET Rating = ?,
-                    Comment = ?,
-                    ReviewDate = SYSDATETIME()
-                WHERE ProductID = ?
-                  AND CustomerID = ?
-                """, rating, comment, productId, user.userId());
-        if (updated == 0) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found.");
-        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Integer previousRating = lockReviewRating(productId, user.userId());
+            int updated = previousRating == null ? 0 : jdbcTemplate.update("""
+                    UPDATE dbo.ProductReviews
+                    SET Rating = ?,
+                        Comment = ?,
+                        ReviewDate = SYSDATETIME()
+                    WHERE ProductID = ?
+                      AND CustomerID = ?
+                    """, rating, comment, productId, user.userId());
+            if (updated == 0) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found.");
+            }
+            ratingAggregates.applyProductRating(productId, rating, previousRating);
+        });
+        productCatalog.invalidate();
 
         return Map.of("updated", true);
     }
@@ -254,18 +255,34 @@ public class ProductSalesService {
         UserInfo user = currentUserService.requireCustomer(authorizationHeader);
         int productId = requirePositiveInt(payload.get("productId"), "Product ID is required.");
 
-        int deleted = jdbcTemplate.update("""
-                DELETE FROM dbo.ProductReviews
-                WHERE ProductID = ?
-                  AND CustomerID = ?
-                """, productId, user.userId());
-        if (deleted == 0) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found.");
-        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Integer previousRating = lockReviewRating(productId, user.userId());
+            int deleted = previousRating == null ? 0 : jdbcTemplate.update("""
+                    DELETE FROM dbo.ProductReviews
+                    WHERE ProductID = ?
+                      AND CustomerID = ?
+                    """, productId, user.userId());
+            if (deleted == 0) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found.");
+            }
+            ratingAggregates.applyProductRating(productId, null, previousRating);
+        });
+        productCatalog.invalidate();
 
         return Map.of("deleted", true);
     }
 
+    /** The review's current rating, locked until the surrounding transaction ends; null when there is none. */
+    private Integer lockReviewRating(int productId, int customerId) {
+        List<Integer> ratings = jdbcTemplate.query("""
+                SELECT Rating
+                FROM dbo.ProductReviews WITH (UPDLOCK, HOLDLOCK)
+                WHERE ProductID = ?
+                  AND CustomerID = ?
+                """, (rs, rowNum) -> rs.getInt("Rating"), productId, customerId);
+        return ratings.isEmpty() ? null : ratings.get(0);
+    }
+
     private Map<String, Object> customerGetCart(String authorizationHeader) {
         UserInfo user = currentUserService.requireCustomer(authorizationHeader);
         int cartId = ensureCartForCustomer(user.userId());
@@ -591,6 +608,7 @@ public class ProductSalesService {
         response.put("paymentId", paymentId);
         response.put("status", "SUCCESS");
         response.putAll(orderInvoiceService.handleSuccessfulProductPayment(paymentId));
+        dashboardSnapshotService.invalidate();
         return response;
     }
 
@@ -661,6 +679,7 @@ public class ProductSalesService {
         response.put("paymentId", paymentId);
         response.put("status", normalizedSuccessStatus(status));
         response.putAll(orderInvoiceService.handleSuccessfulProductPayment(paymentId));
+        dashboardSnapshotService.invalidate();
         return response;
     }
     private Map<String, Object> adminGetProducts(String authorizationHeader) {
@@ -746,6 +765,8 @@ public class ProductSalesService {
 
         replaceProductCategories(productId, normalized.categoryIds());
         replaceProductImages(productId, normalized.images());
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.PRODUCTS);
+        productCatalog.invalidate();
         return Map.of("created", true, "productId", productId);
     }
 
@@ -788,6 +809,8 @@ public class ProductSalesService {
 
         replaceProductCategories(productId, normalized.categoryIds());
         replaceProductImages(productId, normalized.images());
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.PRODUCTS);
+        productCatalog.invalidate();
         return Map.of("updated", true, "productId", productId);
     }
 
@@ -805,6 +828,8 @@ public class ProductSalesService {
         if (updated == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.PRODUCTS);
+        productCatalog.invalidate();
 
         return Map.of("archived", true, "productId", productId);
     }
@@ -823,6 +848,8 @@ public class ProductSalesService {
         if (updated == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found.");
         }
+        catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.PRODUCTS);
+        productCatalog.invalidate();
 
         return Map.of("restored", true, "productId", productId);
     }
@@ -917,21 +944,6 @@ public class ProductSalesService {
         return Map.of("reviews", reviews);
     }
 
-    private Map<String, Object> mapCatalogProduct(ResultSet rs) throws SQLException {
-        Map<String, Object> product = new LinkedHashMap<>();
-        product.put("productId", rs.getInt("ProductID"));
-        product.put("name", rs.getString("ProductName"));
-        product.put("shortDescription", rs.getString("ShortDescription"));
-        product.put("description", rs.getString("Description"));
-        product.put("price", rs.getBigDecimal("Price"));
-        product.put("thumbnailUrl", rs.getString("ThumbnailUrl"));
-        product.put("imageUrl", rs.getString("ThumbnailUrl"));
-        product.put("averageRating", rs.getDouble("AverageRating"));
-        product.put("reviewCount", rs.getInt("ReviewCount"));
-        product.put("active", rs.getBoolean("IsActive"));
-        return product;
-    }
-
     private Map<String, Object> mapProductDetail(ResultSet rs) throws SQLException {
         Map<String, Object> product = new LinkedHashMap<>();
         product.put("productId", rs.getInt("ProductID"));
@@ -1012,15 +1024,6 @@ public class ProductSalesService {
         return result;
     }
 
-    private List<Map<String, Object>> loadActiveCategoryCatalog() {
-        return jdbcTemplate.query("""
-                SELECT ProductCategoryID, CategoryName, Description, SortOrder
-                FROM dbo.ProductCategories
-                WHERE IsActive = 1
-                ORDER BY SortOrder, CategoryName
-                """, (rs, rowNum) -> mapCategory(rs));
-    }
-
     private List<Map<String, Object>> loadAllCategoryCatalog() {
         return jdbcTemplate.query("""
                 SELECT ProductCategoryID, CategoryName, Description, SortOrder, IsActive
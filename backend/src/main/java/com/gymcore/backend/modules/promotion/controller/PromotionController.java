@@ -1,7 +1,9 @@
 package com.gymcore.backend.modules.promotion.controller;
 
 import com.gymcore.backend.common.api.ApiResponse;
+import com.gymcore.backend.common.service.NotificationPushService;
 import com.gymcore.backend.modules.promotion.service.PromotionService;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -22,15 +24,19 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/v1")
 public class PromotionController {
 
         private final PromotionService promotionService;
+        private final NotificationPushService notificationPushService;
 
-        public PromotionController(PromotionService promotionService) {
+        public PromotionController(PromotionService promotionService,
+                        NotificationPushService notificationPushService) {
                 this.promotionService = promotionService;
+                this.notificationPushService = notificationPushService;
         }
 
         @GetMapping("/promotions/posts")
@@ -81,6 +87,32 @@ public class PromotionController {
                                                 Map.of("unreadOnly", unreadOnly, "view", view)));
         }
 
+        @GetMapping("/notifications/feed")
+        public ApiResponse<Map<String, Object>> getNotificationFeed(
+                        @RequestHeader(org.springframework.http.HttpHeaders.AUTHORIZATION) String authorization,
+                        @RequestParam(required = false, defaultValue = "false") boolean unreadOnly,
+                        @RequestParam(required = false, defaultValue = "all") String view,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(required = false) Integer pageSize) {
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("unreadOnly", unreadOnly);
+                payload.put("view", view);
+                payload.put("cursor", cursor);
+                payload.put("pageSize", pageSize);
+                return ApiResponse.ok("Notification feed retrieved",
+                                promotionService.execute("customer-get-notification-feed", authorization, payload));
+        }
+
+        /**
+         * Server-sent events for the bell: an initial {@code unread-count}, then a {@code notification} event per
+         * new row and a fresh {@code unread-count} whenever the user's notifications change.
+         */
+        @GetMapping(value = "/notifications/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        public SseEmitter streamNotifications(
+                        @RequestHeader(org.springframework.http.HttpHeaders.AUTHORIZATION) String authorization) {
+                return notificationPushService.subscribe(authorization);
+        }
+
         @PatchMapping("/notifications/{notificationId}/read")
         public ApiResponse<Map<String, Object>> markAsRead(
                         @RequestHeader(org.springframework.http.HttpHeaders.AUTHORIZATION) String authorization,
@@ -131,6 +163,17 @@ public class PromotionController {
                                                 Map.of("promotionId", promotionId, "body", payload)));
         }
 
+        @PutMapping("/admin/promotions/coupons/{promotionId}/claim-cap")
+        public ApiResponse<Map<String, Object>> setCouponClaimCap(
+                        @RequestHeader(org.springframework.http.HttpHeaders.AUTHORIZATION) String authorization,
+                        @PathVariable Integer promotionId,
+                        @RequestBody Map<String, Object> payload) {
+                Map<String, Object> request = new LinkedHashMap<>(payload);
+                request.put("promotionId", promotionId);
+                return ApiResponse.ok("Coupon claim cap updated",
+                                promotionService.execute("admin-set-coupon-claim-cap", authorization, request));
+        }
+
         @DeleteMapping("/admin/promotions/coupons/{promotionId}")
         public ApiResponse<Map<String, Object>> deleteCoupon(
                         @RequestHeader(org.springframework.http.HttpHeaders.AUTHORIZATION) String authorization,
@@ -0,0 +1,203 @@
+package com.gymcore.backend.modules.promotion.service;
+
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory read model of the promotions and promotion posts that are live today, so wallet reads and claims
+ * do not re-run the date-window joins. Admin writes call {@link #invalidate()}; the snapshot is also rebuilt when
+ * the date changes and after {@code app.promotion.catalog-cache-seconds}, which bounds staleness for writes made
+ * on another instance. Windows compare whole days, like the {@code CAST(... AS DATE)} predicates they replace.
+ */
+@Service
+public class PromotionCatalogCache {
+
+    /** The slot is the claim-cap column, or a NULL stand-in before docs/alter.txt section 4f is applied. */
+    static final String LIVE_PROMOTIONS_SQL_TEMPLATE = """
+            SELECT PromotionID, PromoCode, Description, DiscountPercent, DiscountAmount, ApplyTarget,
+                   BonusDurationMonths, ValidFrom, ValidTo, %s
+            FROM dbo.Promotions
+            WHERE IsActive = 1
+              AND ValidFrom < ?
+              AND ValidTo >= ?
+            """;
+    static final String LIVE_POSTS_SQL = """
+            SELECT PromotionPostID, PromotionID, Title, BannerUrl, StartAt, EndAt
+            FROM dbo.PromotionPosts
+            WHERE IsActive = 1
+              AND StartAt < ?
+              AND EndAt >= ?
+            ORDER BY CreatedAt DESC, PromotionPostID DESC
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchemaCapabilities schemaCapabilities;
+    private final Clock clock;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @Value("${app.promotion.catalog-cache-seconds:60}")
+    private long ttlSeconds;
+
+    @Autowired
+    public PromotionCatalogCache(JdbcTemplate jdbcTemplate, SchemaCapabilities schemaCapabilities) {
+        this(jdbcTemplate, schemaCapabilities, Clock.systemDefaultZone());
+    }
+
+    PromotionCatalogCache(JdbcTemplate jdbcTemplate, SchemaCapabilities schemaCapabilities, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schemaCapabilities = schemaCapabilities;
+        this.clock = clock;
+    }
+
+    /** Live offers (a post and its promotion, both within their windows), newest post first. */
+    public List<LiveOffer> offers() {
+        return current().offers();
+    }
+
+    public Optional<LiveOffer> findOffer(int promotionId, int promotionPostId) {
+        LiveOffer offer = current().offersByPostId().get(promotionPostId);
+        return offer != null && offer.promotion().promotionId() == promotionId ? Optional.of(offer) : Optional.empty();
+    }
+
+    public Optional<LivePromotion> findPromotionByCode(String promoCode) {
+        if (promoCode == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current().promotionsByCode().get(codeKey(promoCode)));
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        LocalDate today = LocalDate.now(clock);
+        long now = System.nanoTime();
+        Snapshot cached = snapshot;
+        if (isFresh(cached, today, now)) {
+            return cached;
+        }
+        synchronized (this) {
+            cached = snapshot;
+            if (isFresh(cached, today, now)) {
+                return cached;
+            }
+            long loadedVersion = version.get();
+            Snapshot loaded = load(today, loadedVersion, now);
+            if (version.get() == loadedVersion) {
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    private boolean isFresh(Snapshot cached, LocalDate today, long now) {
+        return cached != null
+                && cached.version() == version.get()
+                && cached.day().equals(today)
+                && now - cached.expiresAtNanos() < 0;
+    }
+
+    private Snapshot load(LocalDate today, long loadedVersion, long now) {
+        Timestamp dayStart = Timestamp.valueOf(today.atStartOfDay());
+        Timestamp nextDayStart = Timestamp.valueOf(today.plusDays(1).atStartOfDay());
+
+        Map<Integer, LivePromotion> promotionsById = new HashMap<>();
+        Map<String, LivePromotion> promotionsByCode = new HashMap<>();
+        jdbcTemplate.query(livePromotionsSql(schemaCapabilities.promotionClaimCap()), rs -> {
+            LivePromotion promotion = mapPromotion(rs);
+            promotionsById.put(promotion.promotionId(), promotion);
+            promotionsByCode.put(codeKey(promotion.promoCode()), promotion);
+        }, nextDayStart, dayStart);
+
+        List<LiveOffer> offers = new ArrayList<>();
+        Map<Integer, LiveOffer> offersByPostId = new HashMap<>();
+        jdbcTemplate.query(LIVE_POSTS_SQL, rs -> {
+            LivePromotion promotion = promotionsById.get(rs.getInt("PromotionID"));
+            if (promotion == null) {
+                return;
+            }
+            LiveOffer offer = new LiveOffer(promotion, rs.getInt("PromotionPostID"), rs.getString("Title"),
+                    rs.getString("BannerUrl"), rs.getTimestamp("StartAt"), rs.getTimestamp("EndAt"));
+            offers.add(offer);
+            offersByPostId.put(offer.promotionPostId(), offer);
+        }, nextDayStart, dayStart);
+
+        return new Snapshot(today, loadedVersion, now + Math.max(0, ttlSeconds) * 1_000_000_000L,
+                List.copyOf(offers), Map.copyOf(offersByPostId), Map.copyOf(promotionsByCode));
+    }
+
+    static String livePromotionsSql(boolean claimCapAvailable) {
+        return LIVE_PROMOTIONS_SQL_TEMPLATE.formatted(claimCapAvailable ? "MaxClaims" : "CAST(NULL AS INT) AS MaxClaims");
+    }
+
+    private static LivePromotion mapPromotion(ResultSet rs) throws SQLException {
+        return new LivePromotion(
+                rs.getInt("PromotionID"),
+                rs.getString("PromoCode"),
+                rs.getString("Description"),
+                rs.getBigDecimal("DiscountPercent"),
+                rs.getBigDecimal("DiscountAmount"),
+                rs.getString("ApplyTarget"),
+                rs.getInt("BonusDurationMonths"),
+                rs.getTimestamp("ValidFrom"),
+                rs.getTimestamp("ValidTo"),
+                rs.getObject("MaxClaims", Integer.class));
+    }
+
+    private static String codeKey(String promoCode) {
+        return promoCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public record LivePromotion(
+            int promotionId,
+            String promoCode,
+            String description,
+            BigDecimal discountPercent,
+            BigDecimal discountAmount,
+            String applyTarget,
+            int bonusDurationMonths,
+            Timestamp validFrom,
+            Timestamp validTo,
+            Integer maxClaims
+    ) {
+    }
+
+    public record LiveOffer(
+            LivePromotion promotion,
+            int promotionPostId,
+            String title,
+            String bannerUrl,
+            Timestamp startAt,
+            Timestamp endAt
+    ) {
+    }
+
+    private record Snapshot(
+            LocalDate day,
+            long version,
+            long expiresAtNanos,
+            List<LiveOffer> offers,
+            Map<Integer, LiveOffer> offersByPostId,
+            Map<String, LivePromotion> promotionsByCode
+    ) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.gymcore.backend.modules.promotion.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Admission control in front of coupon claims, for the burst that follows an important promotion broadcast.
+ * Each promotion gets a token bucket split into stripes, so thousands of concurrent claimers rarely contend on
+ * one lock. A promotion with a claim cap also gets an atomic counter of claims taken; once it reaches the cap,
+ * claims are rejected before touching the database.
+ *
+ * <p>The counter is only a pre-filter: it is seeded from {@code UserPromotionClaims} and reconciled with it on a
+ * schedule, so between reconciles it does not see claims taken through other instances. The cap itself is
+ * enforced by the claim statement ({@code PromotionService.CLAIM_CAPPED_PROMOTION_SQL}).
+ */
+@Service
+public class PromotionClaimAdmission {
+
+    static final String CLAIM_COUNT_SQL = "SELECT COUNT(*) FROM dbo.UserPromotionClaims WHERE PromotionID = ?";
+    static final long IDLE_GATE_NANOS = TimeUnit.MINUTES.toNanos(15);
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionClaimAdmission.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LongSupplier nanoClock;
+    private final Map<Integer, ClaimGate> gates = new ConcurrentHashMap<>();
+
+    @Value("${app.promotion.claims.rate-per-second:200}")
+    private double ratePerSecond;
+
+    @Value("${app.promotion.claims.burst:400}")
+    private int burst;
+
+    @Value("${app.promotion.claims.stripes:8}")
+    private int stripeCount;
+
+    @Autowired
+    public PromotionClaimAdmission(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, System::nanoTime);
+    }
+
+    PromotionClaimAdmission(JdbcTemplate jdbcTemplate, LongSupplier nanoClock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return a reservation the caller must {@link Reservation#complete(boolean) complete} once the claim insert
+     *         has run
+     * @throws ResponseStatusException 409 once a capped promotion is fully claimed, 429 when the promotion's
+     *         claim rate is exceeded
+     */
+    public Reservation admit(PromotionCatalogCache.LivePromotion promotion) {
+        ClaimGate gate = gates.computeIfAbsent(promotion.promotionId(), ClaimGate::new);
+        Integer cap = promotion.maxClaims();
+        if (cap != null) {
+            gate.seedIfNeeded();
+            if (gate.taken.get() >= cap) {
+                gate.rejectedFull.increment();
+                throw fullyClaimed();
+            }
+        }
+        if (!gate.tryAcquireToken()) {
+            gate.rejectedRate.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many customers are claiming this coupon right now. Please try again in a moment.");
+        }
+        if (cap == null) {
+            return Reservation.NONE;
+        }
+        if (!gate.tryReserve(cap)) {
+            gate.rejectedFull.increment();
+            throw fullyClaimed();
+        }
+        return new Reservation(gate);
+    }
+
+    /** Re-counts claims for capped promotions and drops gates nobody has used for a while. */
+    @Scheduled(fixedDelayString = "${app.promotion.claims.reconcile-ms:30000}",
+            initialDelayString = "${app.promotion.claims.reconcile-ms:30000}")
+    public void reconcile() {
+        long now = nanoClock.getAsLong();
+        for (ClaimGate gate : gates.values()) {
+            if (now - gate.lastUsedNanos > IDLE_GATE_NANOS && gate.inFlight.get() == 0) {
+                gates.remove(gate.promotionId, gate);
+                continue;
+            }
+            if (!gate.seeded) {
+                continue;
+            }
+            try {
+                gate.taken.set(countClaims(gate.promotionId) + gate.inFlight.get());
+            } catch (RuntimeException exception) {
+                log.warn("Failed to reconcile claim count for promotion {}: {}", gate.promotionId,
+                        exception.getMessage());
+            }
+        }
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (ClaimGate gate : gates.values()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("promotionId", gate.promotionId);
+            row.put("claimsTaken", gate.seeded ? gate.taken.get() : null);
+            row.put("inFlight", gate.inFlight.get());
+            row.put("rejectedRateLimited", gate.rejectedRate.sum());
+            row.put("rejectedFullyClaimed", gate.rejectedFull.sum());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private int countClaims(int promotionId) {
+        Integer count = jdbcTemplate.queryForObject(CLAIM_COUNT_SQL, Integer.class, promotionId);
+        return count == null ? 0 : count;
+    }
+
+    private static ResponseStatusException fullyClaimed() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "This promotion has been fully claimed.");
+    }
+
+    public static final class Reservation {
+
+        static final Reservation NONE = new Reservation(null);
+
+        private final ClaimGate gate;
+        private boolean completed;
+
+        private Reservation(ClaimGate gate) {
+            this.gate = gate;
+        }
+
+        /** @param claimed whether the claim row was inserted; otherwise the reserved slot is handed back */
+        public void complete(boolean claimed) {
+            if (gate == null || completed) {
+                return;
+            }
+            completed = true;
+            if (!claimed) {
+                gate.taken.decrementAndGet();
+            }
+            gate.inFlight.decrementAndGet();
+        }
+    }
+
+    private final class ClaimGate {
+
+        private final int promotionId;
+        private final TokenStripe[] stripes;
+        private final AtomicInteger taken = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder rejectedRate = new LongAdder();
+        private final LongAdder rejectedFull = new LongAdder();
+        private volatile boolean seeded;
+        private volatile long lastUsedNanos;
+
+        private ClaimGate(int promotionId) {
+            this.promotionId = promotionId;
+            int count = Math.max(1, stripeCount);
+            double stripeRatePerNano = Math.max(0, ratePerSecond) / count / TimeUnit.SECONDS.toNanos(1);
+            double stripeCapacity = Math.max(1.0, (double) Math.max(1, burst) / count);
+            long now = nanoClock.getAsLong();
+            this.stripes = new TokenStripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new TokenStripe(stripeCapacity, stripeRatePerNano, now);
+            }
+            this.lastUsedNanos = now;
+        }
+
+        private void seedIfNeeded() {
+            if (seeded) {
+                return;
+            }
+            synchronized (this) {
+                if (!seeded) {
+                    taken.set(countClaims(promotionId) + inFlight.get());
+                    seeded = true;
+                }
+            }
+        }
+
+        /** Tries a random stripe and its neighbour, so an unlucky pick does not reject while others have tokens. */
+        private boolean tryAcquireToken() {
+            long now = nanoClock.getAsLong();
+            lastUsedNanos = now;
+            if (ratePerSecond <= 0) {
+                return true;
+            }
+            int first = ThreadLocalRandom.current().nextInt(stripes.length);
+            return stripes[first].tryTake(now)
+                    || (stripes.length > 1 && stripes[(first + 1) % stripes.length].tryTake(now));
+        }
+
+        private boolean tryReserve(int cap) {
+            inFlight.incrementAndGet();
+            while (true) {
+                int current = taken.get();
+                if (current >= cap) {
+                    inFlight.decrementAndGet();
+                    return false;
+                }
+                if (taken.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static final class TokenStripe {
+
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenStripe(double capacity, double refillPerNano, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        private synchronized boolean tryTake(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+                refilledAt = now;
+            }
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
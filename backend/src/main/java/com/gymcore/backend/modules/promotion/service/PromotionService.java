@@ -1,5 +1,6 @@
 package com.gymcore.backend.modules.promotion.service;
 
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.common.service.UserNotificationService;
 import com.gymcore.backend.modules.admin.service.ReportService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
@@ -9,7 +10,9 @@ import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +25,73 @@ public class PromotionService {
     private static final java.math.BigDecimal MAX_DISCOUNT_PERCENT = new java.math.BigDecimal("100.00");
     private static final java.math.BigDecimal MAX_DISCOUNT_AMOUNT = new java.math.BigDecimal("9999999999.99");
 
+    /**
+     * Claims a coupon in one round trip. Claimability is checked against {@link PromotionCatalogCache}; the
+     * MERGE makes the insert idempotent, so 0 affected rows means the coupon was already in the wallet.
+     */
+    static final String CLAIM_PROMOTION_SQL = """
+            MERGE dbo.UserPromotionClaims WITH (HOLDLOCK) AS target
+            USING (SELECT CAST(? AS INT) AS UserID, CAST(? AS INT) AS PromotionID, CAST(? AS INT) AS SourcePostID) AS source
+               ON target.UserID = source.UserID AND target.PromotionID = source.PromotionID
+            WHEN NOT MATCHED THEN
+                INSERT (UserID, PromotionID, SourcePostID)
+                VALUES (source.UserID, source.PromotionID, source.SourcePostID);
+            """;
+    /**
+     * {@link #CLAIM_PROMOTION_SQL} once the schema has Promotions.MaxClaims. The cap is read from the locked
+     * promotion row, never from the cached catalog, so a cap set elsewhere applies at once. The UPDLOCK serializes
+     * claims across instances, so the count always sees every committed claim and the cap cannot be overshot;
+     * 0 affected rows means already in the wallet or fully claimed.
+     */
+    static final String CLAIM_CAPPED_PROMOTION_SQL = """
+            MERGE dbo.UserPromotionClaims WITH (HOLDLOCK) AS target
+            USING (
+                SELECT v.UserID, v.PromotionID, v.SourcePostID
+                FROM (SELECT CAST(? AS INT) AS UserID, CAST(? AS INT) AS PromotionID, CAST(? AS INT) AS SourcePostID) AS v
+                JOIN dbo.Promotions p WITH (UPDLOCK, HOLDLOCK) ON p.PromotionID = v.PromotionID
+                WHERE p.MaxClaims IS NULL
+                   OR (SELECT COUNT(*) FROM dbo.UserPromotionClaims c WHERE c.PromotionID = v.PromotionID) < p.MaxClaims
+            ) AS source
+               ON target.UserID = source.UserID AND target.PromotionID = source.PromotionID
+            WHEN NOT MATCHED THEN
+                INSERT (UserID, PromotionID, SourcePostID)
+                VALUES (source.UserID, source.PromotionID, source.SourcePostID);
+            """;
+    static final String HAS_CLAIM_SQL =
+            "SELECT COUNT(*) FROM dbo.UserPromotionClaims WHERE UserID = ? AND PromotionID = ?";
+    static final String WALLET_CLAIMS_SQL = """
+            SELECT
+                c.ClaimID,
+                c.UserID,
+                c.PromotionID,
+                c.SourcePostID,
+                c.ClaimedAt,
+                c.UsedAt,
+                c.UsedPaymentID,
+                c.UsedOnOrderID,
+                c.UsedOnMembershipID,
+                p.PromoCode,
+                p.Description,
+                p.DiscountPercent,
+                p.DiscountAmount,
+                p.ApplyTarget,
+                p.BonusDurationMonths,
+                p.ValidFrom,
+                p.ValidTo,
+                p.IsActive,
+                CASE
+                    WHEN c.UsedAt IS NOT NULL THEN 'USED'
+                    WHEN p.IsActive = 1
+                         AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(p.ValidFrom AS DATE) AND CAST(p.ValidTo AS DATE)
+                         THEN 'ACTIVE'
+                    ELSE 'EXPIRED'
+                END AS WalletState
+            FROM dbo.UserPromotionClaims c
+            JOIN dbo.Promotions p ON p.PromotionID = c.PromotionID
+            WHERE c.UserID = ?
+            ORDER BY c.ClaimedAt DESC, c.ClaimID DESC
+            """;
+
     @Value("${app.promotion.image-dir:uploads/promotions}")
     private String promotionImageDir;
 
@@ -32,13 +102,21 @@ public class PromotionService {
     private final CurrentUserService currentUserService;
     private final ReportService reportService;
     private final UserNotificationService notificationService;
+    private final PromotionCatalogCache catalogCache;
+    private final PromotionClaimAdmission claimAdmission;
+    private final SchemaCapabilities schemaCapabilities;
 
     public PromotionService(JdbcTemplate jdbcTemplate, CurrentUserService currentUserService,
-            ReportService reportService, UserNotificationService notificationService) {
+            ReportService reportService, UserNotificationService notificationService,
+            PromotionCatalogCache catalogCache, PromotionClaimAdmission claimAdmission,
+            SchemaCapabilities schemaCapabilities) {
         this.jdbcTemplate = jdbcTemplate;
         this.currentUserService = currentUserService;
         this.reportService = reportService;
         this.notificationService = notificationService;
+        this.catalogCache = catalogCache;
+        this.claimAdmission = claimAdmission;
+        this.schemaCapabilities = schemaCapabilities;
     }
 
     public Map<String, Object> execute(String action, String auth, Map<String, Object> payload) {
@@ -47,6 +125,7 @@ public class PromotionService {
             case "admin-create-coupon" -> adminCreateCoupon(auth, payload);
             case "admin-update-coupon" -> adminUpdateCoupon(auth, payload);
             case "admin-delete-coupon" -> adminDeleteCoupon(auth, payload);
+            case "admin-set-coupon-claim-cap" -> adminSetCouponClaimCap(auth, payload);
             case "admin-get-posts" -> adminGetPosts(auth);
             case "admin-create-promotion-post" -> adminCreatePost(auth, payload);
             case "admin-update-promotion-post" -> adminUpdatePost(auth, payload);
@@ -58,6 +137,7 @@ public class PromotionService {
             case "customer-get-my-claims" -> customerGetMyClaims(auth);
             case "customer-apply-coupon" -> customerApplyCoupon(auth, payload);
             case "customer-get-notifications" -> customerGetNotifications(auth, payload);
+            case "customer-get-notification-feed" -> customerGetNotificationFeed(auth, payload);
             case "customer-mark-notification-read" -> customerMarkRead(auth, payload);
             case "customer-mark-notification-unread" -> customerMarkUnread(auth, payload);
             case "customer-mark-all-notifications-read" -> customerMarkAllRead(auth);
@@ -84,7 +164,9 @@ public class PromotionService {
     private Map<String, Object> adminGetCoupons(String auth) {
         currentUserService.requireAdmin(auth);
         String sql = "SELECT * FROM dbo.Promotions ORDER BY PromotionID DESC";
-        return Map.of("coupons", jdbcTemplate.queryForList(sql));
+        return Map.of("coupons", jdbcTemplate.queryForList(sql),
+                "claimCapAvailable", schemaCapabilities.promotionClaimCap(),
+                "claimAdmission", claimAdmission.snapshot());
     }
 
     private Map<String, Object> adminCreateCoupon(String auth, Map<String, Object> payload) {
@@ -113,6 +195,7 @@ public class PromotionService {
                 validFrom,
                 validTo,
                 requireBit(payload.getOrDefault("isActive", 1)));
+        catalogCache.invalidate();
         return Map.of("success", true);
     }
 
@@ -147,6 +230,7 @@ public class PromotionService {
                 validTo,
                 requireBit(body.getOrDefault("isActive", 1)),
                 promotionId);
+        catalogCache.invalidate();
         return Map.of("success", true);
     }
 
@@ -154,9 +238,31 @@ public class PromotionService {
         currentUserService.requireAdmin(auth);
         int promotionId = requireInt(payload.get("promotionId"), "Promotion ID is required.");
         jdbcTemplate.update("UPDATE dbo.Promotions SET IsActive = 0 WHERE PromotionID = ?", promotionId);
+        catalogCache.invalidate();
         return Map.of("success", true);
     }
 
+    private Map<String, Object> adminSetCouponClaimCap(String auth, Map<String, Object> payload) {
+        currentUserService.requireAdmin(auth);
+        int promotionId = requireInt(payload.get("promotionId"), "Promotion ID is required.");
+        if (!schemaCapabilities.promotionClaimCap()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Claim cap column is missing. Run docs/alter.txt to add Promotions.MaxClaims.");
+        }
+        Integer maxClaims = optionalPositiveInt(payload.get("maxClaims"), "Max claims must be a positive whole number.");
+        int updated = jdbcTemplate.update("UPDATE dbo.Promotions SET MaxClaims = ? WHERE PromotionID = ?",
+                maxClaims, promotionId);
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Promotion not found.");
+        }
+        catalogCache.invalidate();
+        Map<String, Object> response = new java.util.LinkedHashMap<>();
+        response.put("success", true);
+        response.put("promotionId", promotionId);
+        response.put("maxClaims", maxClaims);
+        return response;
+    }
+
     private Map<String, Object> adminGetPosts(String auth) {
         currentUserService.requireAdmin(auth);
         String sql = """
@@ -259,6 +365,7 @@ public class PromotionService {
                 admin.userId());
         Integer postId = jdbcTemplate.queryForObject("SELECT TOP (1) PromotionPostID FROM dbo.PromotionPosts ORDER BY PromotionPostID DESC",
                 Integer.class);
+        catalogCache.invalidate();
         publishPromotionPostIfNeeded(postId, payload.get("title"), isActive, isImportant);
         return Map.of("success", true);
     }
@@ -291,6 +398,7 @@ public class PromotionService {
                 isImportant,
                 promotionId,
                 postId);
+        catalogCache.invalidate();
         if (!isPromotionPostBroadcastEligible(existingPostState)) {
             publishPromotionPostIfNeeded(postId, body.get("title"), isActive, isImportant);
         }
@@ -301,6 +409,7 @@ public class PromotionService {
         currentUserService.requireAdmin(auth);
         int postId = requireInt(payload.get("postId"), "Post ID is required.");
         jdbcTemplate.update("UPDATE dbo.PromotionPosts SET IsActive = 0 WHERE PromotionPostID = ?", postId);
+        catalogCache.invalidate();
         return Map.of("success", true);
     }
 
@@ -351,27 +460,11 @@ public class PromotionService {
         int promotionId = requireInt(payload.get("promotionId"), "Promotion ID is required.");
         int sourcePostId = requireInt(payload.get("sourcePostId"), "Source post ID is required.");
 
-        Integer claimable = jdbcTemplate.queryForObject("""
-                SELECT COUNT(1)
-                FROM dbo.Promotions r
-                JOIN dbo.PromotionPosts p ON p.PromotionID = r.PromotionID
-                WHERE r.PromotionID = ?
-                  AND p.PromotionPostID = ?
-                  AND r.IsActive = 1
-                  AND p.IsActive = 1
-                  AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(r.ValidFrom AS DATE) AND CAST(r.ValidTo AS DATE)
-                  AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(p.StartAt AS DATE) AND CAST(p.EndAt AS DATE)
-                """, Integer.class, promotionId, sourcePostId);
-        if (claimable == null || claimable == 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "This coupon is not available to claim.");
-        }
-
-        // Idempotency check
-        Integer existing = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM dbo.UserPromotionClaims WHERE UserID = ? AND PromotionID = ?",
-                Integer.class, user.userId(), promotionId);
+        PromotionCatalogCache.LiveOffer offer = catalogCache.findOffer(promotionId, sourcePostId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "This coupon is not available to claim."));
 
-        if (existing != null && existing > 0) {
+        if (!claimPromotion(user.userId(), offer.promotion(), sourcePostId, "This coupon is not available to claim.")) {
             Map<String, Object> response = new java.util.LinkedHashMap<>();
             response.put("success", true);
             response.put("message", "You have already claimed this coupon!");
@@ -379,11 +472,6 @@ public class PromotionService {
             return response;
         }
 
-        jdbcTemplate.update("""
-                INSERT INTO dbo.UserPromotionClaims (UserID, PromotionID, SourcePostID)
-                VALUES (?, ?, ?)
-                """, user.userId(), promotionId, sourcePostId);
-
         notificationService.notifyUser(
                 user.userId(),
                 "COUPON_CLAIMED",
@@ -409,24 +497,11 @@ public class PromotionService {
         CurrentUserService.UserInfo user = currentUserService.requireCustomer(auth);
         String promoCode = requireText(payload.get("promoCode"), "Promo code is required.");
 
-        List<Map<String, Object>> promotions = jdbcTemplate.queryForList("""
-                SELECT TOP (1) PromotionID, PromoCode
-                FROM dbo.Promotions
-                WHERE PromoCode = ?
-                  AND IsActive = 1
-                  AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(ValidFrom AS DATE) AND CAST(ValidTo AS DATE)
-                ORDER BY PromotionID DESC
-                """, promoCode);
-        if (promotions.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Coupon code is invalid or expired.");
-        }
-
-        Map<String, Object> promotion = promotions.get(0);
-        int promotionId = requireInt(promotion.get("PromotionID"), "Promotion ID is required.");
-        Integer existing = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM dbo.UserPromotionClaims WHERE UserID = ? AND PromotionID = ?",
-                Integer.class, user.userId(), promotionId);
-        if (existing != null && existing > 0) {
+        PromotionCatalogCache.LivePromotion promotion = catalogCache.findPromotionByCode(promoCode)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Coupon code is invalid or expired."));
+        int promotionId = promotion.promotionId();
+        if (!claimPromotion(user.userId(), promotion, null, "Coupon code is invalid or expired.")) {
             Map<String, Object> response = new java.util.LinkedHashMap<>();
             response.put("success", true);
             response.put("message", "This coupon is already in your wallet.");
@@ -434,10 +509,6 @@ public class PromotionService {
             return response;
         }
 
-        jdbcTemplate.update("""
-                INSERT INTO dbo.UserPromotionClaims (UserID, PromotionID, SourcePostID)
-                VALUES (?, ?, NULL)
-                """, user.userId(), promotionId);
         notificationService.notifyUser(
                 user.userId(),
                 "COUPON_CODE_CLAIMED",
@@ -520,66 +591,56 @@ public class PromotionService {
         return response;
     }
 
+    /**
+     * @return false when the coupon was already in the wallet
+     * @throws ResponseStatusException 409 when the promotion is fully claimed
+     */
+    private boolean claimPromotion(int userId, PromotionCatalogCache.LivePromotion promotion, Integer sourcePostId,
+            String unavailableMessage) {
+        PromotionClaimAdmission.Reservation reservation = claimAdmission.admit(promotion);
+        boolean claimed = false;
+        try {
+            if (!schemaCapabilities.promotionClaimCap()) {
+                claimed = jdbcTemplate.update(CLAIM_PROMOTION_SQL, userId, promotion.promotionId(), sourcePostId) > 0;
+                return claimed;
+            }
+            claimed = jdbcTemplate.update(CLAIM_CAPPED_PROMOTION_SQL, userId, promotion.promotionId(),
+                    sourcePostId) > 0;
+            if (!claimed && !hasClaim(userId, promotion.promotionId())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "This promotion has been fully claimed.");
+            }
+            return claimed;
+        } catch (DataIntegrityViolationException | UncategorizedSQLException exception) {
+            // The claim trigger rejected it: the cached catalog is behind a change made elsewhere.
+            catalogCache.invalidate();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, unavailableMessage);
+        } finally {
+            reservation.complete(claimed);
+        }
+    }
+
+    private boolean hasClaim(int userId, int promotionId) {
+        Integer count = jdbcTemplate.queryForObject(HAS_CLAIM_SQL, Integer.class, userId, promotionId);
+        return count != null && count > 0;
+    }
+
     private Map<String, Object> buildCouponWalletResponse(int userId) {
-        List<Map<String, Object>> activeClaims = loadActiveClaims(userId);
-        List<Map<String, Object>> walletClaims = jdbcTemplate.query("""
-                SELECT
-                    c.ClaimID,
-                    c.PromotionID,
-                    c.SourcePostID,
-                    c.ClaimedAt,
-                    c.UsedAt,
-                    c.UsedPaymentID,
-                    p.PromoCode,
-                    p.Description,
-                    p.DiscountPercent,
-                    p.DiscountAmount,
-                    p.ApplyTarget,
-                    p.BonusDurationMonths,
-                    p.ValidFrom,
-                    p.ValidTo,
-                    p.IsActive,
-                    CASE
-                        WHEN c.UsedAt IS NOT NULL THEN 'USED'
-                        WHEN p.IsActive = 1
-                             AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(p.ValidFrom AS DATE) AND CAST(p.ValidTo AS DATE)
-                             THEN 'ACTIVE'
-                        ELSE 'EXPIRED'
-                    END AS WalletState
-                FROM dbo.UserPromotionClaims c
-                JOIN dbo.Promotions p ON p.PromotionID = c.PromotionID
-                WHERE c.UserID = ?
-                ORDER BY c.ClaimedAt DESC, c.ClaimID DESC
-                """, (rs, rowNum) -> mapWalletClaim(rs), userId);
+        List<Map<String, Object>> walletClaims = new java.util.ArrayList<>();
+        List<Map<String, Object>> activeClaims = new java.util.ArrayList<>();
+        java.util.Set<Integer> claimedPromotionIds = new java.util.HashSet<>();
+        jdbcTemplate.query(WALLET_CLAIMS_SQL, rs -> {
+            Map<String, Object> claim = mapWalletClaim(rs);
+            walletClaims.add(claim);
+            claimedPromotionIds.add(rs.getInt("PromotionID"));
+            if ("ACTIVE".equals(claim.get("walletState"))) {
+                activeClaims.add(mapActiveClaim(rs));
+            }
+        }, userId);
 
-        List<Map<String, Object>> claimableOffers = jdbcTemplate.query("""
-                SELECT
-                    p.PromotionID,
-                    p.PromoCode,
-                    p.Description,
-                    p.DiscountPercent,
-                    p.DiscountAmount,
-                    p.ApplyTarget,
-                    p.BonusDurationMonths,
-                    p.ValidFrom,
-                    p.ValidTo,
-                    post.PromotionPostID,
-                    post.Title,
-                    post.BannerUrl,
-                    post.StartAt,
-                    post.EndAt
-                FROM dbo.PromotionPosts post
-                JOIN dbo.Promotions p ON p.PromotionID = post.PromotionID
-                LEFT JOIN dbo.UserPromotionClaims c
-                    ON c.PromotionID = p.PromotionID
-                   AND c.UserID = ?
-                WHERE post.IsActive = 1
-                  AND p.IsActive = 1
-                  AND c.ClaimID IS NULL
-                  AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(post.StartAt AS DATE) AND CAST(post.EndAt AS DATE)
-                  AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(p.ValidFrom AS DATE) AND CAST(p.ValidTo AS DATE)
-                ORDER BY post.CreatedAt DESC, post.PromotionPostID DESC
-                """, (rs, rowNum) -> mapClaimableOffer(rs), userId);
+        List<Map<String, Object>> claimableOffers = catalogCache.offers().stream()
+                .filter(offer -> !claimedPromotionIds.contains(offer.promotion().promotionId()))
+                .map(this::mapClaimableOffer)
+                .toList();
 
         List<Map<String, Object>> usedClaims = walletClaims.stream()
                 .filter(claim -> "USED".equals(claim.get("walletState")))
@@ -604,15 +665,25 @@ public class PromotionService {
         return response;
     }
 
-    private List<Map<String, Object>> loadActiveClaims(int userId) {
-        return jdbcTemplate.queryForList("""
-                SELECT c.*, p.PromoCode, p.Description, p.DiscountPercent, p.DiscountAmount, p.ApplyTarget, p.BonusDurationMonths
-                FROM dbo.UserPromotionClaims c
-                JOIN dbo.Promotions p ON p.PromotionID = c.PromotionID
-                WHERE c.UserID = ? AND c.UsedAt IS NULL
-                AND p.IsActive = 1
-                AND CAST(SYSDATETIME() AS DATE) BETWEEN CAST(p.ValidFrom AS DATE) AND CAST(p.ValidTo AS DATE)
-                """, userId);
+    /** Checkout pages read the unused, still-valid claims with their database column names. */
+    private Map<String, Object> mapActiveClaim(java.sql.ResultSet rs) throws java.sql.SQLException {
+        Map<String, Object> claim = new java.util.LinkedHashMap<>();
+        claim.put("ClaimID", rs.getInt("ClaimID"));
+        claim.put("UserID", rs.getInt("UserID"));
+        claim.put("PromotionID", rs.getInt("PromotionID"));
+        claim.put("SourcePostID", rs.getObject("SourcePostID"));
+        claim.put("ClaimedAt", rs.getTimestamp("ClaimedAt"));
+        claim.put("UsedAt", rs.getTimestamp("UsedAt"));
+        claim.put("UsedPaymentID", rs.getObject("UsedPaymentID"));
+        claim.put("UsedOnOrderID", rs.getObject("UsedOnOrderID"));
+        claim.put("UsedOnMembershipID", rs.getObject("UsedOnMembershipID"));
+        claim.put("PromoCode", rs.getString("PromoCode"));
+        claim.put("Description", rs.getString("Description"));
+        claim.put("DiscountPercent", rs.getBigDecimal("DiscountPercent"));
+        claim.put("DiscountAmount", rs.getBigDecimal("DiscountAmount"));
+        claim.put("ApplyTarget", rs.getString("ApplyTarget"));
+        claim.put("BonusDurationMonths", rs.getInt("BonusDurationMonths"));
+        return claim;
     }
 
     private Map<String, Object> mapWalletClaim(java.sql.ResultSet rs) throws java.sql.SQLException {
@@ -637,22 +708,23 @@ public class PromotionService {
         return claim;
     }
 
-    private Map<String, Object> mapClaimableOffer(java.sql.ResultSet rs) throws java.sql.SQLException {
+    private Map<String, Object> mapClaimableOffer(PromotionCatalogCache.LiveOffer liveOffer) {
+        PromotionCatalogCache.LivePromotion promotion = liveOffer.promotion();
         Map<String, Object> offer = new java.util.LinkedHashMap<>();
-        offer.put("promotionId", rs.getInt("PromotionID"));
-        offer.put("promotionPostId", rs.getInt("PromotionPostID"));
-        offer.put("promoCode", rs.getString("PromoCode"));
-        offer.put("description", rs.getString("Description"));
-        offer.put("discountPercent", rs.getBigDecimal("DiscountPercent"));
-        offer.put("discountAmount", rs.getBigDecimal("DiscountAmount"));
-        offer.put("applyTarget", rs.getString("ApplyTarget"));
-        offer.put("bonusDurationMonths", rs.getInt("BonusDurationMonths"));
-        offer.put("validFrom", rs.getObject("ValidFrom"));
-        offer.put("validTo", rs.getObject("ValidTo"));
-        offer.put("title", rs.getString("Title"));
-        offer.put("bannerUrl", rs.getString("BannerUrl"));
-        offer.put("startAt", rs.getObject("StartAt"));
-        offer.put("endAt", rs.getObject("EndAt"));
+        offer.put("promotionId", promotion.promotionId());
+        offer.put("promotionPostId", liveOffer.promotionPostId());
+        offer.put("promoCode", promotion.promoCode());
+        offer.put("description", promotion.description());
+        offer.put("discountPercent", promotion.discountPercent());
+        offer.put("discountAmount", promotion.discountAmount());
+        offer.put("applyTarget", promotion.applyTarget());
+        offer.put("bonusDurationMonths", promotion.bonusDurationMonths());
+        offer.put("validFrom", promotion.validFrom());
+        offer.put("validTo", promotion.validTo());
+        offer.put("title", liveOffer.title());
+        offer.put("bannerUrl", liveOffer.bannerUrl());
+        offer.put("startAt", liveOffer.startAt());
+        offer.put("endAt", liveOffer.endAt());
         offer.put("walletState", "CLAIMABLE");
         return offer;
     }
@@ -663,6 +735,17 @@ public class PromotionService {
         return notificationService.getCurrentUserNotifications(auth, unreadOnly, view);
     }
 
+    private Map<String, Object> customerGetNotificationFeed(String auth, Map<String, Object> payload) {
+        Map<String, Object> safePayload = payload == null ? Map.of() : payload;
+        boolean unreadOnly = Boolean.TRUE.equals(safePayload.get("unreadOnly"));
+        String view = String.valueOf(safePayload.getOrDefault("view", "all"));
+        Object cursor = safePayload.get("cursor");
+        Object pageSize = safePayload.get("pageSize");
+        return notificationService.getCurrentUserNotificationFeed(auth, unreadOnly, view,
+                cursor == null ? null : String.valueOf(cursor),
+                pageSize == null ? null : requireInt(pageSize, "Page size must be a number."));
+    }
+
     private Map<String, Object> customerMarkRead(String auth, Map<String, Object> payload) {
         int notificationId = requireInt(payload.get("notificationId"), "Notification ID is required.");
         return notificationService.markNotificationReadState(auth, notificationId, true);
@@ -754,6 +837,21 @@ public class PromotionService {
         return decimal;
     }
 
+    private Integer optionalPositiveInt(Object value, String message) {
+        if (value == null || String.valueOf(value).isBlank()) {
+            return null;
+        }
+        try {
+            int parsed = new java.math.BigDecimal(String.valueOf(value).trim()).intValueExact();
+            if (parsed <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+            }
+            return parsed;
+        } catch (NumberFormatException | ArithmeticException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+    }
+
     private int requireNonNegativeInt(Object value) {
         if (value == null || String.valueOf(value).isBlank()) {
             return 0;
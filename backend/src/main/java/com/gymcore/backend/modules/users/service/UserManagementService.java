@@ -2,6 +2,8 @@ package com.gymcore.backend.modules.users.service;
 
 import com.gymcore.backend.modules.auth.service.AuthService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -34,16 +36,22 @@ public class UserManagementService {
     private final AuthService authService;
     private final CurrentUserService currentUserService;
     private final PasswordEncoder passwordEncoder;
+    private final GeminiCatalogSnapshotService catalogSnapshotService;
+    private final MembershipStateResolver membershipStates;
 
     public UserManagementService(
             JdbcTemplate jdbcTemplate,
             AuthService authService,
             CurrentUserService currentUserService,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            GeminiCatalogSnapshotService catalogSnapshotService,
+            MembershipStateResolver membershipStates) {
         this.jdbcTemplate = jdbcTemplate;
         this.authService = authService;
         this.currentUserService = currentUserService;
         this.passwordEncoder = passwordEncoder;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.membershipStates = membershipStates;
     }
 
     public Map<String, Object> execute(String action, Object payload) {
@@ -132,7 +140,8 @@ public class UserManagementService {
                 """, customerLookupRowMapper(), customerId).stream().findFirst()
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found."));
 
-        MembershipValidity validity = buildMembershipValidity(customer.customerId());
+        MembershipStateResolver.MembershipState state = membershipStates.resolve(customer.customerId());
+        MembershipValidity validity = buildMembershipValidity(state);
 
         Map<String, Object> customerMap = new LinkedHashMap<>();
         customerMap.put("customerId", customer.customerId());
@@ -140,9 +149,9 @@ public class UserManagementService {
         customerMap.put("email", customer.email());
         customerMap.put("phone", customer.phone());
 
-        MembershipSnapshot active = findTopMembership(customer.customerId(), "ACTIVE");
-        MembershipSnapshot scheduled = findTopMembership(customer.customerId(), "SCHEDULED");
-        MembershipSnapshot expired = findTopMembership(customer.customerId(), "EXPIRED");
+        MembershipSnapshot active = snapshot(state.active());
+        MembershipSnapshot scheduled = snapshot(state.latest("SCHEDULED"));
+        MembershipSnapshot expired = snapshot(state.latest("EXPIRED"));
 
         Map<String, Object> data = new LinkedHashMap<>();
         data.put("customer", customerMap);
@@ -290,6 +299,7 @@ public class UserManagementService {
 
         if ("COACH".equals(role)) {
             upsertCoachProfile(userId, payload);
+            catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.COACHES);
         }
 
         Map<String, Object> response = new LinkedHashMap<>();
@@ -341,9 +351,11 @@ public class UserManagementService {
                     UpdatedAt = SYSDATETIME()
                 WHERE UserID = ?
                 """, fullName, phone, active, userId);
+        authService.invalidateAuthContext(userId);
 
         if ("COACH".equals(current.role())) {
             upsertCoachProfile(userId, body);
+            catalogSnapshotService.invalidate(GeminiCatalogSnapshotService.Section.COACHES);
         }
 
         return Map.of("user", requireManagedUserItem(userId));
@@ -371,6 +383,7 @@ public class UserManagementService {
                     UpdatedAt = SYSDATETIME()
                 WHERE UserID = ?
                 """, reason, userId);
+        authService.invalidateAuthContext(userId);
 
         return Map.of("user", requireManagedUserItem(userId));
     }
@@ -388,6 +401,7 @@ public class UserManagementService {
                     UpdatedAt = SYSDATETIME()
                 WHERE UserID = ?
                 """, userId);
+        authService.invalidateAuthContext(userId);
 
         return Map.of("user", requireManagedUserItem(userId));
     }
@@ -406,24 +420,24 @@ public class UserManagementService {
         return currentUserService.requireAdmin(authorizationHeader);
     }
 
-    private MembershipValidity buildMembershipValidity(int customerId) {
-        MembershipSnapshot active = findTopMembership(customerId, "ACTIVE");
+    private MembershipValidity buildMembershipValidity(MembershipStateResolver.MembershipState state) {
+        MembershipSnapshot active = snapshot(state.active());
         if (active != null) {
             return new MembershipValidity(true, null, active.customerMembershipId(), active.status(), active.planName(), active.planType(), dateToString(active.startDate()), dateToString(active.endDate()), null);
         }
 
-        MembershipSnapshot scheduled = findTopMembership(customerId, "SCHEDULED");
+        MembershipSnapshot scheduled = snapshot(state.latest("SCHEDULED"));
         if (scheduled != null) {
             int days = Math.max(0, (int) java.time.temporal.ChronoUnit.DAYS.between(LocalDate.now(), scheduled.startDate()));
             return new MembershipValidity(false, scheduled.planName() + " is scheduled to start on " + dateToString(scheduled.startDate()) + ".", scheduled.customerMembershipId(), scheduled.status(), scheduled.planName(), scheduled.planType(), dateToString(scheduled.startDate()), dateToString(scheduled.endDate()), days);
         }
 
-        MembershipSnapshot expired = findTopMembership(customerId, "EXPIRED");
+        MembershipSnapshot expired = snapshot(state.latest("EXPIRED"));
         if (expired != null) {
             return new MembershipValidity(false, expired.planName() + " expired on " + dateToString(expired.endDate()) + ".", expired.customerMembershipId(), expired.status(), expired.planName(), expired.planType(), dateToString(expired.startDate()), dateToString(expired.endDate()), null);
         }
 
-        MembershipSnapshot pending = findTopMembership(customerId, "PENDING");
+        MembershipSnapshot pending = snapshot(state.latest("PENDING"));
         if (pending != null) {
             return new MembershipValidity(false, pending.planName() + " payment is pending and not active yet.", pending.customerMembershipId(), pending.status(), pending.planName(), pending.planType(), dateToString(pending.startDate()), dateToString(pending.endDate()), null);
         }
@@ -431,21 +445,10 @@ public class UserManagementService {
         return new MembershipValidity(false, "No active membership found for this customer.", null, null, null, null, null, null, null);
     }
 
-    private MembershipSnapshot findTopMembership(int customerId, String status) {
-        List<MembershipSnapshot> rows = jdbcTemplate.query("""
-                SELECT TOP (1)
-                    cm.CustomerMembershipID,
-                    cm.Status,
-                    cm.StartDate,
-                    cm.EndDate,
-                    mp.PlanName,
-                    mp.PlanType
-                FROM dbo.CustomerMemberships cm
-                JOIN dbo.MembershipPlans mp ON mp.MembershipPlanID = cm.MembershipPlanID
-                WHERE cm.CustomerID = ? AND cm.Status = ?
-                ORDER BY cm.EndDate DESC, cm.CustomerMembershipID DESC
-                """, membershipSnapshotRowMapper(), customerId, status);
-        return rows.isEmpty() ? null : rows.get(0);
+    private MembershipSnapshot snapshot(MembershipStateResolver.Membership membership) {
+        return membership == null ? null : new MembershipSnapshot(membership.customerMembershipId(),
+                membership.status(), membership.startDate(), membership.endDate(), membership.planName(),
+                membership.planType());
     }
 
     private List<Map<String, Object>> findMembershipHistory(int customerId, String status, int limit) {
@@ -0,0 +1,120 @@
+package com.gymcore.backend.common.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+class UpstreamGuardTest {
+
+    private MutableClock clock;
+    private UpstreamGuard guard;
+    private HttpRequest request;
+    private ClientHttpRequestExecution execution;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-03-13T10:00:00Z"));
+        guard = new UpstreamGuard("payos", 2, 3, Duration.ofSeconds(30), clock);
+        request = Mockito.mock(HttpRequest.class);
+        execution = Mockito.mock(ClientHttpRequestExecution.class);
+    }
+
+    @Test
+    void intercept_shouldOpenCircuitAfterConsecutiveFailuresAndFailFast() throws Exception {
+        when(execution.execute(any(), any())).thenThrow(new SocketTimeoutException("read timed out"));
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(SocketTimeoutException.class, () -> guard.intercept(request, new byte[0], execution));
+        }
+        assertThrows(UpstreamGuard.UpstreamUnavailableException.class,
+                () -> guard.intercept(request, new byte[0], execution));
+
+        verify(execution, times(3)).execute(any(), any());
+        Map<String, Object> snapshot = guard.snapshot();
+        assertEquals("OPEN", snapshot.get("state"));
+        assertEquals(3L, snapshot.get("failures"));
+        assertEquals(1L, snapshot.get("rejected"));
+    }
+
+    @Test
+    void intercept_shouldCloseCircuitWhenHalfOpenTrialSucceeds() throws Exception {
+        ClientHttpResponse ok = response(HttpStatus.OK);
+        when(execution.execute(any(), any()))
+                .thenThrow(new SocketTimeoutException("1"), new SocketTimeoutException("2"),
+                        new SocketTimeoutException("3"))
+                .thenReturn(ok);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(IOException.class, () -> guard.intercept(request, new byte[0], execution));
+        }
+
+        clock.advance(Duration.ofSeconds(31));
+
+        assertSame(ok, guard.intercept(request, new byte[0], execution));
+        assertEquals("CLOSED", guard.snapshot().get("state"));
+    }
+
+    @Test
+    void intercept_shouldCountServerErrorsAsFailures() throws Exception {
+        ClientHttpResponse unavailable = response(HttpStatus.SERVICE_UNAVAILABLE);
+        when(execution.execute(any(), any())).thenReturn(unavailable);
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            guard.intercept(request, new byte[0], execution);
+        }
+
+        assertEquals("OPEN", guard.snapshot().get("state"));
+    }
+
+    private static ClientHttpResponse response(HttpStatus status) throws IOException {
+        ClientHttpResponse response = Mockito.mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        return response;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -3,27 +3,45 @@ package com.gymcore.backend.common.scheduling;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.NotificationsChangedEvent;
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 class DailyJobServiceTest {
 
     private JdbcTemplate jdbcTemplate;
+    private AdminDashboardSnapshotService dashboardSnapshotService;
+    private ApplicationEventPublisher eventPublisher;
+    private SchemaCapabilities schemaCapabilities;
+    private MembershipStateResolver membershipStates;
     private DailyJobService dailyJobService;
 
     @BeforeEach
     void setUp() {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
-        dailyJobService = new DailyJobService(jdbcTemplate);
+        dashboardSnapshotService = Mockito.mock(AdminDashboardSnapshotService.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        membershipStates = Mockito.mock(MembershipStateResolver.class);
+        dailyJobService = new DailyJobService(jdbcTemplate, dashboardSnapshotService, eventPublisher,
+                schemaCapabilities, membershipStates);
     }
 
     @Test
     void runMembershipJobs_shouldExecuteMembershipDisciplineStepsInOrder() {
+        when(schemaCapabilities.checkinHourlyRollup()).thenReturn(true);
+
         dailyJobService.runMembershipJobs();
 
         InOrder order = inOrder(jdbcTemplate);
@@ -33,6 +51,11 @@ class DailyJobServiceTest {
         order.verify(jdbcTemplate).execute(DailyJobService.CANCEL_PT_SESSIONS_FOR_EXPIRED_MEMBERSHIPS_SQL);
         order.verify(jdbcTemplate).execute(DailyJobService.PT_CANCELLATION_NOTIFICATION_SQL);
         order.verify(jdbcTemplate).execute(DailyJobService.PICKUP_WAITING_REMINDER_SQL);
+        order.verify(jdbcTemplate).execute(DailyJobService.RECONCILE_DAILY_REVENUE_ROLLUP_SQL);
+        order.verify(jdbcTemplate).execute(DailyJobService.RECONCILE_CHECKIN_HOURLY_ROLLUP_SQL);
+        verify(membershipStates).invalidateAll();
+        verify(dashboardSnapshotService).invalidate();
+        verify(eventPublisher).publishEvent(NotificationsChangedEvent.allUsers());
     }
 
     @Test
@@ -55,4 +78,23 @@ class DailyJobServiceTest {
         assertTrue(sql.contains("n.NotificationType = 'ORDER_PICKUP_REMINDER'"));
         assertTrue(sql.contains("n.ExtraKey = CONCAT('WAITING_DAY_', p.DaysWaiting)"));
     }
+
+    @Test
+    void reconcileDailyRevenueRollupSql_shouldRewriteOnlyRecentClosedDays() {
+        String sql = DailyJobService.RECONCILE_DAILY_REVENUE_ROLLUP_SQL;
+
+        assertTrue(sql.contains("MERGE dbo.DailyRevenueRollup"));
+        assertTrue(sql.contains("COALESCE(p.PaidAt, p.CreatedAt) < @today"));
+        assertTrue(sql.contains("WHEN NOT MATCHED BY SOURCE AND r.RevenueDate >= @from AND r.RevenueDate < @today"));
+    }
+
+    @Test
+    void runMembershipJobs_shouldSkipCheckinRollupUntilTableExists() {
+        when(schemaCapabilities.checkinHourlyRollup()).thenReturn(false);
+
+        dailyJobService.runMembershipJobs();
+
+        verify(jdbcTemplate).execute(DailyJobService.RECONCILE_DAILY_REVENUE_ROLLUP_SQL);
+        verify(jdbcTemplate, never()).execute(DailyJobService.RECONCILE_CHECKIN_HOURLY_ROLLUP_SQL);
+    }
 }
@@ -0,0 +1,105 @@
+package com.gymcore.backend.common.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.common.service.EmailOutboxHandler;
+import com.gymcore.backend.common.service.EmailOutboxService;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class EmailOutboxDispatcherTest {
+
+    private EmailOutboxService emailOutboxService;
+    private EmailOutboxHandler invoiceHandler;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        emailOutboxService = Mockito.mock(EmailOutboxService.class);
+        invoiceHandler = Mockito.mock(EmailOutboxHandler.class);
+        when(invoiceHandler.messageType()).thenReturn("PRODUCT_INVOICE");
+        dispatcher = new EmailOutboxDispatcher(emailOutboxService, List.of(invoiceHandler));
+        setField(dispatcher, "batchSize", 2);
+        setField(dispatcher, "concurrency", 2);
+        dispatcher.startSenders();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stopSenders();
+    }
+
+    @Test
+    void drain_shouldMarkSentAndFailedPerMessage() throws Exception {
+        EmailOutboxService.OutboxMessage ok = new EmailOutboxService.OutboxMessage(1L, "PRODUCT_INVOICE", 22, 1);
+        EmailOutboxService.OutboxMessage broken = new EmailOutboxService.OutboxMessage(2L, "PRODUCT_INVOICE", 23, 1);
+        when(emailOutboxService.claimBatch(2)).thenReturn(List.of(ok, broken), List.of());
+        doThrow(new RuntimeException("SMTP down")).when(invoiceHandler).deliver(23);
+
+        dispatcher.drain();
+
+        verify(invoiceHandler).deliver(22);
+        verify(emailOutboxService).markSent(ok);
+        verify(emailOutboxService).markFailed(broken, "SMTP down");
+        verify(emailOutboxService, never()).markSent(broken);
+        verify(emailOutboxService, times(2)).claimBatch(2);
+    }
+
+    @Test
+    void drain_shouldStopAfterPartialBatch() {
+        when(emailOutboxService.claimBatch(2)).thenReturn(List.of());
+
+        dispatcher.drain();
+
+        verify(emailOutboxService, times(1)).claimBatch(2);
+    }
+
+    @Test
+    void drain_shouldFailMessagesWithoutHandler() {
+        EmailOutboxService.OutboxMessage unknown = new EmailOutboxService.OutboxMessage(3L, "UNKNOWN", 1, 1);
+        when(emailOutboxService.claimBatch(2)).thenReturn(List.of(unknown));
+
+        dispatcher.drain();
+
+        verify(emailOutboxService).markFailed(eq(unknown), anyString());
+    }
+
+    @Test
+    void dispatchPending_shouldHandDrainToWorkerAndSkipWhileDraining() throws Exception {
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(emailOutboxService.claimBatch(2)).thenAnswer(invocation -> {
+            claimed.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        dispatcher.dispatchPending();
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+        // The scheduler thread is back while the first drain is still claiming.
+        dispatcher.dispatchPending();
+        release.countDown();
+
+        verify(emailOutboxService, after(200).times(1)).claimBatch(2);
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
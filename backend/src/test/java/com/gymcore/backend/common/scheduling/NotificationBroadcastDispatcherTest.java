@@ -0,0 +1,78 @@
+package com.gymcore.backend.common.scheduling;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.common.service.NotificationBroadcastService;
+import java.lang.reflect.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class NotificationBroadcastDispatcherTest {
+
+    private NotificationBroadcastService broadcastService;
+    private NotificationBroadcastDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broadcastService = Mockito.mock(NotificationBroadcastService.class);
+        dispatcher = new NotificationBroadcastDispatcher(broadcastService);
+        setField(dispatcher, "chunkSize", 2);
+    }
+
+    @Test
+    void drain_shouldDeliverChunksUntilExhaustedThenComplete() {
+        NotificationBroadcastService.Broadcast broadcast = broadcast(0);
+        when(broadcastService.claimNext()).thenReturn(broadcast, (NotificationBroadcastService.Broadcast) null);
+        when(broadcastService.deliverNextChunk(broadcast, 0, 2)).thenReturn(4);
+        when(broadcastService.deliverNextChunk(broadcast, 4, 2)).thenReturn(9);
+        when(broadcastService.deliverNextChunk(broadcast, 9, 2))
+                .thenReturn(NotificationBroadcastService.NO_MORE_RECIPIENTS);
+
+        dispatcher.drain();
+
+        verify(broadcastService).markCompleted(broadcast);
+        verify(broadcastService, never()).markFailed(any(), any());
+    }
+
+    @Test
+    void drain_shouldResumeReclaimedBroadcastFromSavedCursor() {
+        NotificationBroadcastService.Broadcast reclaimed = broadcast(350);
+        when(broadcastService.claimNext()).thenReturn(reclaimed, (NotificationBroadcastService.Broadcast) null);
+        when(broadcastService.deliverNextChunk(reclaimed, 350, 2))
+                .thenReturn(NotificationBroadcastService.NO_MORE_RECIPIENTS);
+
+        dispatcher.drain();
+
+        verify(broadcastService, never()).deliverNextChunk(reclaimed, 0, 2);
+        verify(broadcastService).markCompleted(reclaimed);
+    }
+
+    @Test
+    void drain_shouldRecordFailureAndMoveOnToNextBroadcast() {
+        NotificationBroadcastService.Broadcast broken = broadcast(0);
+        when(broadcastService.claimNext()).thenReturn(broken, (NotificationBroadcastService.Broadcast) null);
+        when(broadcastService.deliverNextChunk(any(), anyInt(), anyInt()))
+                .thenThrow(new RuntimeException("deadlock victim"));
+
+        dispatcher.drain();
+
+        verify(broadcastService).markFailed(broken, "deadlock victim");
+        verify(broadcastService, never()).markCompleted(broken);
+    }
+
+    private static NotificationBroadcastService.Broadcast broadcast(int lastUserId) {
+        return new NotificationBroadcastService.Broadcast(4L, "PROMOTION_POST", "Deal", "Body",
+                "/customer/promotions", 5, null, lastUserId, 1);
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,139 @@
+package com.gymcore.backend.common.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
+import com.gymcore.backend.modules.product.service.PayOsService;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class PendingCheckoutSweeperTest {
+
+    private static final Timestamp T1 = Timestamp.valueOf("2026-03-01 08:00:00");
+    private static final Timestamp T2 = Timestamp.valueOf("2026-03-01 08:05:00");
+
+    private JdbcTemplate jdbcTemplate;
+    private MembershipStateResolver membershipStates;
+    private PendingCheckoutSweeper sweeper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        membershipStates = Mockito.mock(MembershipStateResolver.class);
+        sweeper = new PendingCheckoutSweeper(jdbcTemplate,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), membershipStates);
+        setField(sweeper, "batchSize", 2);
+    }
+
+    @Test
+    void expireBatches_shouldAdvanceKeysetCursorUntilPartialBatch() throws Exception {
+        when(jdbcTemplate.query(eq(PendingCheckoutSweeper.EXPIRE_MEMBERSHIP_CHECKOUTS_SQL), any(RowMapper.class),
+                eq(PendingCheckoutSweeper.SWEEP_START), eq(0), eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES),
+                eq(2)))
+                .thenAnswer(rows(row(10, T1, 5, true), row(11, T1, 6, false)));
+        when(jdbcTemplate.query(eq(PendingCheckoutSweeper.EXPIRE_MEMBERSHIP_CHECKOUTS_SQL), any(RowMapper.class),
+                eq(T1), eq(11), eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES), eq(2)))
+                .thenAnswer(rows(row(12, T2, 7, true)));
+        Set<Integer> customerIds = new HashSet<>();
+
+        int expired = sweeper.expireBatches(PendingCheckoutSweeper.EXPIRE_MEMBERSHIP_CHECKOUTS_SQL, customerIds);
+
+        assertEquals(2, expired);
+        assertEquals(Set.of(5, 7), customerIds);
+        verify(jdbcTemplate, times(2)).query(eq(PendingCheckoutSweeper.EXPIRE_MEMBERSHIP_CHECKOUTS_SQL),
+                any(RowMapper.class), any(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void sweep_shouldExpireOrdersAndInvalidateOnlyExpiredMembershipCustomers() throws Exception {
+        when(jdbcTemplate.query(eq(PendingCheckoutSweeper.EXPIRE_MEMBERSHIP_CHECKOUTS_SQL), any(RowMapper.class),
+                any(), anyInt(), anyInt(), anyInt()))
+                .thenAnswer(rows(row(20, T1, 8, true)));
+        when(jdbcTemplate.query(eq(PendingCheckoutSweeper.EXPIRE_ORDER_CHECKOUTS_SQL), any(RowMapper.class),
+                any(), anyInt(), anyInt(), anyInt()))
+                .thenAnswer(rows(row(30, T1, 9, true)));
+
+        sweeper.sweep();
+
+        verify(membershipStates).invalidateCustomer(8);
+        verify(membershipStates, never()).invalidateCustomer(9);
+        verify(jdbcTemplate).query(eq(PendingCheckoutSweeper.EXPIRE_ORDER_CHECKOUTS_SQL), any(RowMapper.class),
+                eq(PendingCheckoutSweeper.SWEEP_START), eq(0), eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES),
+                eq(2));
+    }
+
+    @Test
+    void sweep_shouldWaitOutPaymentLinkSoLateWebhooksStillFindCheckoutPending() {
+        // A customer can pay right up to the link's expiredAt; its webhook must still find the payment PENDING.
+        assertTrue(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES
+                >= PayOsService.PAYMENT_LINK_LIFETIME_MINUTES + PendingCheckoutSweeper.LATE_WEBHOOK_GRACE_MINUTES);
+        when(jdbcTemplate.query(any(String.class), any(RowMapper.class), any(), anyInt(), anyInt(), anyInt()))
+                .thenAnswer(rows());
+
+        sweeper.sweep();
+
+        verify(jdbcTemplate, never()).query(any(String.class), any(RowMapper.class), any(), anyInt(),
+                eq(PayOsService.PAYMENT_LINK_LIFETIME_MINUTES), anyInt());
+        verify(jdbcTemplate, times(2)).query(any(String.class), any(RowMapper.class), any(), anyInt(),
+                eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES), anyInt());
+        verify(membershipStates, never()).invalidateCustomer(anyInt());
+    }
+
+    @Test
+    void sweepSql_shouldSkipLockedRowsAndWalkTheStatusTimeIndex() {
+        for (String sql : List.of(PendingCheckoutSweeper.EXPIRE_MEMBERSHIP_CHECKOUTS_SQL,
+                PendingCheckoutSweeper.EXPIRE_ORDER_CHECKOUTS_SQL)) {
+            assertTrue(sql.contains("FROM dbo.Payments p WITH (UPDLOCK, READPAST)"));
+            assertTrue(sql.contains("ORDER BY p.CreatedAt, p.PaymentID"));
+            assertTrue(sql.contains("OUTPUT INSERTED.PaymentID INTO @expired"));
+        }
+    }
+
+    private static Answer<List<Object>> rows(ResultSet... resultSets) {
+        return invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+            for (int i = 0; i < resultSets.length; i++) {
+                mapped.add(mapper.mapRow(resultSets[i], i));
+            }
+            return mapped;
+        };
+    }
+
+    private static ResultSet row(int paymentId, Timestamp createdAt, int customerId, boolean expired)
+            throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getInt("PaymentID")).thenReturn(paymentId);
+        when(rs.getTimestamp("CreatedAt")).thenReturn(createdAt);
+        when(rs.getInt("CustomerID")).thenReturn(customerId);
+        when(rs.getBoolean("Expired")).thenReturn(expired);
+        return rs;
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
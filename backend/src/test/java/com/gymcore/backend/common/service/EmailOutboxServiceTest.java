@@ -0,0 +1,88 @@
+package com.gymcore.backend.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class EmailOutboxServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private EmailOutboxService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        service = new EmailOutboxService(jdbcTemplate);
+        setField(service, "maxAttempts", 3);
+        setField(service, "baseBackoffSeconds", 30L);
+        setField(service, "maxBackoffSeconds", 3600L);
+    }
+
+    @Test
+    void enqueue_shouldSkipWhenSameReferenceIsAlreadyWaiting() {
+        when(jdbcTemplate.update(EmailOutboxService.ENQUEUE_SQL, "PRODUCT_INVOICE", 22, "PRODUCT_INVOICE", 22))
+                .thenReturn(0);
+
+        assertFalse(service.enqueue("PRODUCT_INVOICE", 22));
+    }
+
+    @Test
+    void enqueue_shouldInsertPendingRow() {
+        when(jdbcTemplate.update(EmailOutboxService.ENQUEUE_SQL, "PRODUCT_INVOICE", 22, "PRODUCT_INVOICE", 22))
+                .thenReturn(1);
+
+        assertTrue(service.enqueue("PRODUCT_INVOICE", 22));
+    }
+
+    @Test
+    void enqueue_shouldTreatDuplicateKeyFromConcurrentEnqueueAsAlreadyQueued() {
+        when(jdbcTemplate.update(EmailOutboxService.ENQUEUE_SQL, "PRODUCT_INVOICE", 22, "PRODUCT_INVOICE", 22))
+                .thenThrow(new DuplicateKeyException("UX_EmailOutbox_OneQueued"));
+
+        assertFalse(service.enqueue("PRODUCT_INVOICE", 22));
+        assertTrue(EmailOutboxService.ENQUEUE_SQL.contains("WITH (UPDLOCK, HOLDLOCK)"));
+    }
+
+    @Test
+    void claimBatchSql_shouldSkipRowsLockedByAnotherDispatcher() {
+        String sql = EmailOutboxService.CLAIM_BATCH_SQL;
+
+        assertTrue(sql.contains("READPAST"));
+        assertTrue(sql.contains("Attempts = Attempts + 1"));
+        assertTrue(sql.contains("OUTPUT inserted.EmailOutboxID"));
+    }
+
+    @Test
+    void backoffSeconds_shouldDoubleUntilCap() {
+        assertEquals(30, service.backoffSeconds(1));
+        assertEquals(60, service.backoffSeconds(2));
+        assertEquals(120, service.backoffSeconds(3));
+        assertEquals(3600, service.backoffSeconds(12));
+        assertEquals(3600, service.backoffSeconds(200));
+    }
+
+    @Test
+    void markFailed_shouldRescheduleUntilMaxAttemptsThenGiveUp() {
+        service.markFailed(new EmailOutboxService.OutboxMessage(7L, "PRODUCT_INVOICE", 22, 2), "SMTP down");
+        service.markFailed(new EmailOutboxService.OutboxMessage(7L, "PRODUCT_INVOICE", 22, 3), "SMTP down");
+
+        verify(jdbcTemplate).update(eq(EmailOutboxService.MARK_RETRY_SQL), eq(60L), eq("SMTP down"), eq(7L));
+        verify(jdbcTemplate).update(eq(EmailOutboxService.MARK_FAILED_SQL), eq("SMTP down"), eq(7L));
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,114 @@
+package com.gymcore.backend.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+class NotificationBroadcastServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private NotificationBroadcastService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        service = new NotificationBroadcastService(jdbcTemplate, eventPublisher);
+        setField(service, "maxAttempts", 3);
+    }
+
+    @Test
+    void enqueue_shouldSkipWhenSameBroadcastIsStillInFlight() {
+        when(jdbcTemplate.update(eq(NotificationBroadcastService.ENQUEUE_SQL), any(Object[].class))).thenReturn(0);
+
+        boolean queued = service.enqueue("PROMOTION_POST", "Deal", "Body", "/customer/promotions", 5, null);
+
+        assertFalse(queued);
+        assertTrue(NotificationBroadcastService.ENQUEUE_SQL.contains("Status IN ('PENDING', 'RUNNING')"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimNext_shouldReturnNullWhenQueueIsEmpty() {
+        when(jdbcTemplate.query(eq(NotificationBroadcastService.CLAIM_NEXT_SQL), any(RowMapper.class),
+                any(Object[].class))).thenReturn(List.of());
+
+        assertNull(service.claimNext());
+    }
+
+    @Test
+    void deliverNextChunk_shouldInsertKeyRangeAndAdvanceCursor() {
+        NotificationBroadcastService.Broadcast broadcast = broadcast(1);
+        when(jdbcTemplate.queryForObject(NotificationBroadcastService.NEXT_CHUNK_END_SQL, Integer.class, 500, 120))
+                .thenReturn(740);
+        when(jdbcTemplate.update(eq(NotificationBroadcastService.DELIVER_CHUNK_SQL), any(Object[].class)))
+                .thenReturn(498);
+        when(jdbcTemplate.update(NotificationBroadcastService.ADVANCE_CURSOR_SQL, 740, 498, 9L, 120)).thenReturn(1);
+
+        int cursor = service.deliverNextChunk(broadcast, 120, 500);
+
+        assertEquals(740, cursor);
+        verify(jdbcTemplate).update(NotificationBroadcastService.DELIVER_CHUNK_SQL,
+                "PROMOTION_POST", "Deal", "Body", "/customer/promotions", 5, null,
+                120, 740,
+                "PROMOTION_POST", 5, 5, null, null);
+        verify(eventPublisher).publishEvent(NotificationsChangedEvent.forUserRange(121, 740));
+    }
+
+    @Test
+    void deliverNextChunk_shouldSignalEndWhenNoCustomersRemain() {
+        when(jdbcTemplate.queryForObject(NotificationBroadcastService.NEXT_CHUNK_END_SQL, Integer.class, 500, 740))
+                .thenReturn(null);
+
+        int cursor = service.deliverNextChunk(broadcast(1), 740, 500);
+
+        assertEquals(NotificationBroadcastService.NO_MORE_RECIPIENTS, cursor);
+        verify(jdbcTemplate, never()).update(eq(NotificationBroadcastService.DELIVER_CHUNK_SQL), any(Object[].class));
+    }
+
+    @Test
+    void deliverNextChunk_shouldRejectCursorMovedByAnotherWorker() {
+        when(jdbcTemplate.queryForObject(NotificationBroadcastService.NEXT_CHUNK_END_SQL, Integer.class, 500, 0))
+                .thenReturn(500);
+        when(jdbcTemplate.update(NotificationBroadcastService.ADVANCE_CURSOR_SQL, 500, 0, 9L, 0)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> service.deliverNextChunk(broadcast(1), 0, 500));
+    }
+
+    @Test
+    void markFailed_shouldRequeueUntilAttemptsAreExhausted() {
+        service.markFailed(broadcast(1), "deadlock victim");
+        service.markFailed(broadcast(3), "deadlock victim");
+
+        verify(jdbcTemplate).update(NotificationBroadcastService.MARK_RETRY_SQL, "deadlock victim", 9L);
+        verify(jdbcTemplate).update(NotificationBroadcastService.MARK_FAILED_SQL, "deadlock victim", 9L);
+    }
+
+    private static NotificationBroadcastService.Broadcast broadcast(int attempts) {
+        return new NotificationBroadcastService.Broadcast(9L, "PROMOTION_POST", "Deal", "Body",
+                "/customer/promotions", 5, null, 0, attempts);
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
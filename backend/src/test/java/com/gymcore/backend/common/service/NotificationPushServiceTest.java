@@ -0,0 +1,87 @@
+package com.gymcore.backend.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class NotificationPushServiceTest {
+
+    private CurrentUserService currentUserService;
+    private UserNotificationService notificationService;
+    private NotificationPushService pushService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        currentUserService = Mockito.mock(CurrentUserService.class);
+        notificationService = Mockito.mock(UserNotificationService.class);
+        pushService = new NotificationPushService(currentUserService, notificationService);
+        setField(pushService, "streamTimeoutMs", 60_000L);
+        when(currentUserService.requireUser("Bearer seven"))
+                .thenReturn(new CurrentUserService.UserInfo(7, "Customer Seven", "CUSTOMER"));
+        when(currentUserService.requireUser("Bearer nine"))
+                .thenReturn(new CurrentUserService.UserInfo(9, "Customer Nine", "CUSTOMER"));
+        when(notificationService.latestNotificationId(7)).thenReturn(40);
+        when(notificationService.latestNotificationId(9)).thenReturn(90);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pushService.closeStreams();
+    }
+
+    @Test
+    void subscribe_shouldStartFromLatestRowAndSendUnreadCount() {
+        assertNotNull(pushService.subscribe("Bearer seven"));
+        pushService.subscribe("Bearer seven");
+
+        assertEquals(2, pushService.openStreamCount());
+        verify(notificationService, Mockito.times(2)).countUnread(7);
+    }
+
+    @Test
+    void onNotificationsChanged_shouldOnlyPushUsersInsideTheEventRange() {
+        pushService.subscribe("Bearer seven");
+        pushService.subscribe("Bearer nine");
+
+        pushService.onNotificationsChanged(NotificationsChangedEvent.forUserRange(1, 8));
+
+        verify(notificationService, timeout(2000)).findNotificationsAfter(7, 40, NotificationPushService.MAX_DELTA_ROWS);
+        verify(notificationService, never()).findNotificationsAfter(eq(9), anyInt(), anyInt());
+    }
+
+    @Test
+    void pushDelta_shouldAdvanceWatermarkPastDeliveredRows() {
+        pushService.subscribe("Bearer seven");
+        when(notificationService.findNotificationsAfter(7, 40, NotificationPushService.MAX_DELTA_ROWS))
+                .thenReturn(List.of(
+                        Map.of("notificationId", 41, "type", "PT_REQUEST_DENIED"),
+                        Map.of("notificationId", 43, "type", "ORDER_PAYMENT_SUCCESS")));
+        when(notificationService.findNotificationsAfter(7, 43, NotificationPushService.MAX_DELTA_ROWS))
+                .thenReturn(List.of());
+
+        pushService.pushDelta(7);
+        pushService.pushDelta(7);
+
+        verify(notificationService).findNotificationsAfter(7, 43, NotificationPushService.MAX_DELTA_ROWS);
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,86 @@
+package com.gymcore.backend.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class RatingAggregateServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SchemaCapabilities schemaCapabilities;
+    private RatingAggregateService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        service = new RatingAggregateService(jdbcTemplate, schemaCapabilities);
+    }
+
+    @Test
+    void statsSql_shouldGroupReviewTablesUntilStatsTablesExist() {
+        when(schemaCapabilities.ratingAggregates()).thenReturn(false);
+        assertEquals(RatingAggregateService.LEGACY_PRODUCT_STATS_SQL, service.productStatsSql());
+        assertEquals(RatingAggregateService.LEGACY_COACH_STATS_SQL, service.coachStatsSql());
+
+        when(schemaCapabilities.ratingAggregates()).thenReturn(true);
+        assertEquals(RatingAggregateService.PRODUCT_STATS_SQL, service.productStatsSql());
+        assertEquals(RatingAggregateService.COACH_STATS_SQL, service.coachStatsSql());
+    }
+
+    @Test
+    void applyRating_shouldMergeDeltaIntoStatsRow() {
+        when(schemaCapabilities.ratingAggregates()).thenReturn(true);
+
+        service.applyProductRating(9, 4, 2);
+        service.applyCoachRating(20, null, 5);
+
+        verify(jdbcTemplate).update(RatingAggregateService.APPLY_PRODUCT_DELTA_SQL, 9, 4, 2);
+        verify(jdbcTemplate).update(RatingAggregateService.APPLY_COACH_DELTA_SQL, 20, null, 5);
+    }
+
+    @Test
+    void applyRating_shouldSkipUnchangedRatingAndMissingTables() {
+        when(schemaCapabilities.ratingAggregates()).thenReturn(true);
+        service.applyProductRating(9, 3, 3);
+
+        when(schemaCapabilities.ratingAggregates()).thenReturn(false);
+        service.applyProductRating(9, 4, null);
+        service.applyCoachRating(20, 5, null);
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void rebuild_shouldRecomputeBothTables() {
+        when(jdbcTemplate.update(RatingAggregateService.REBUILD_PRODUCT_STATS_SQL)).thenReturn(12);
+        when(jdbcTemplate.update(RatingAggregateService.REBUILD_COACH_STATS_SQL)).thenReturn(4);
+
+        Map<String, Object> result = service.rebuild();
+
+        assertEquals(12, result.get("productRowsChanged"));
+        assertEquals(4, result.get("coachRowsChanged"));
+    }
+
+    @Test
+    void histogram_shouldKeyCountsByStar() throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getInt("Rating1Count")).thenReturn(1);
+        when(rs.getInt("Rating2Count")).thenReturn(0);
+        when(rs.getInt("Rating3Count")).thenReturn(2);
+        when(rs.getInt("Rating4Count")).thenReturn(5);
+        when(rs.getInt("Rating5Count")).thenReturn(9);
+
+        assertEquals(Map.of("1", 1, "2", 0, "3", 2, "4", 5, "5", 9), RatingAggregateService.histogram(rs));
+    }
+}
@@ -0,0 +1,104 @@
+package com.gymcore.backend.common.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class SchemaCapabilitiesTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SchemaCapabilities schemaCapabilities;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        schemaCapabilities = new SchemaCapabilities(jdbcTemplate);
+    }
+
+    @Test
+    void loadOnStartup_shouldResolveAllFlagsFromOneMetadataQuery() throws Exception {
+        mockColumns(
+                "OrderInvoices.InvoiceID",
+                "OrderInvoices.PickedUpAt",
+                "OrderInvoices.PickedUpByUserID",
+                "OrderInvoices.EmailSentAt",
+                "OrderInvoiceItems.InvoiceItemID",
+                "PTRecurringRequests.RequestID",
+                "Promotions.MaxClaims",
+                "ProductRatingStats.ProductID",
+                "CheckIns.ClientScanID",
+                "CheckInHourlyRollup.CheckInDate");
+
+        schemaCapabilities.loadOnStartup();
+
+        assertTrue(schemaCapabilities.invoiceTables());
+        assertTrue(schemaCapabilities.invoiceItemsTable());
+        assertTrue(schemaCapabilities.pickupTracking());
+        assertFalse(schemaCapabilities.invoiceEmailTracking());
+        assertFalse(schemaCapabilities.ptRequestDenyReason());
+        assertTrue(schemaCapabilities.promotionClaimCap());
+        assertFalse(schemaCapabilities.ratingAggregates());
+        assertTrue(schemaCapabilities.checkinScanIds());
+        assertTrue(schemaCapabilities.checkinHourlyRollup());
+        verify(jdbcTemplate, times(1))
+                .query(eq(SchemaCapabilities.CAPABILITY_COLUMNS_SQL), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void refresh_shouldPickUpColumnsAddedAfterStartup() throws Exception {
+        mockColumns("PTRecurringRequests.RequestID");
+        schemaCapabilities.loadOnStartup();
+        assertFalse(schemaCapabilities.ptRequestDenyReason());
+
+        mockColumns("PTRecurringRequests.RequestID", "PTRecurringRequests.DenyReason");
+        SchemaCapabilities.Capabilities refreshed = schemaCapabilities.refresh();
+
+        assertTrue(refreshed.ptRequestDenyReason());
+        assertSame(refreshed, schemaCapabilities.current());
+    }
+
+    @Test
+    void current_shouldLoadLazilyWhenStartupProbeFailed() throws Exception {
+        doThrow(new DataAccessResourceFailureException("database unavailable"))
+                .when(jdbcTemplate).query(eq(SchemaCapabilities.CAPABILITY_COLUMNS_SQL), any(RowCallbackHandler.class));
+        schemaCapabilities.loadOnStartup();
+
+        mockColumns("OrderInvoices.InvoiceID", "OrderInvoices.EmailSendError", "OrderInvoices.EmailSentAt");
+
+        assertTrue(schemaCapabilities.invoiceEmailTracking());
+        assertFalse(schemaCapabilities.pickupTracking());
+        schemaCapabilities.invoiceTables();
+        verify(jdbcTemplate, times(2))
+                .query(eq(SchemaCapabilities.CAPABILITY_COLUMNS_SQL), any(RowCallbackHandler.class));
+    }
+
+    private void mockColumns(String... qualifiedColumns) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String qualifiedColumn : List.of(qualifiedColumns)) {
+                String[] parts = qualifiedColumn.split("\\.");
+                ResultSet rs = Mockito.mock(ResultSet.class);
+                when(rs.getString("TABLE_NAME")).thenReturn(parts[0]);
+                when(rs.getString("COLUMN_NAME")).thenReturn(parts[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(SchemaCapabilities.CAPABILITY_COLUMNS_SQL), any(RowCallbackHandler.class));
+    }
+}
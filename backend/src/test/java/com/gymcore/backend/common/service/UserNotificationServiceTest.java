@@ -1,10 +1,16 @@
 package com.gymcore.backend.common.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
@@ -17,20 +23,45 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.web.server.ResponseStatusException;
 
 class UserNotificationServiceTest {
 
     private JdbcTemplate jdbcTemplate;
     private CurrentUserService currentUserService;
+    private NotificationBroadcastService broadcastService;
+    private ApplicationEventPublisher eventPublisher;
     private UserNotificationService service;
 
     @BeforeEach
     void setUp() {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         currentUserService = Mockito.mock(CurrentUserService.class);
-        service = new UserNotificationService(jdbcTemplate, currentUserService);
+        broadcastService = Mockito.mock(NotificationBroadcastService.class);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        service = new UserNotificationService(jdbcTemplate, currentUserService, broadcastService, eventPublisher);
+    }
+
+    @Test
+    void notifyUser_shouldPublishChangeOnlyWhenRowWasInserted() {
+        when(jdbcTemplate.update(contains("INSERT INTO dbo.Notifications"), any(Object[].class))).thenReturn(1, 0);
+
+        service.notifyUser(7, "PT_REQUEST_DENIED", "Denied", "Denied.", "/customer/coach-booking", 3, null);
+        service.notifyUser(7, "PT_REQUEST_DENIED", "Denied", "Denied.", "/customer/coach-booking", 3, null);
+
+        verify(eventPublisher, times(1)).publishEvent(NotificationsChangedEvent.forUser(7));
+    }
+
+    @Test
+    void notifyAllCustomers_shouldQueueBroadcastInsteadOfWritingEveryRecipient() {
+        service.notifyAllCustomers("PROMOTION_POST", "Summer deal", "20% off", "/customer/promotions", 5, null);
+
+        verify(broadcastService).enqueue("PROMOTION_POST", "Summer deal", "20% off", "/customer/promotions", 5, null);
+        verifyNoInteractions(jdbcTemplate);
     }
 
     @Test
@@ -97,6 +128,100 @@ class UserNotificationServiceTest {
                 .anyMatch(item -> Integer.valueOf(53).equals(item.get("notificationId"))));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCurrentUserNotificationFeed_shouldSeekPastCursorAndReturnNextCursor() throws Exception {
+        when(currentUserService.requireUser("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(7, "Customer", "CUSTOMER"));
+        stubFeedCounts(40, 6, 2);
+        stubFeedPage(List.of(
+                notificationRow(61, "ORDER_PAYMENT_SUCCESS", false, "/customer/orders", "Order paid", "Paid."),
+                notificationRow(60, "PT_REQUEST_DENIED", false, "/customer/coach-booking", "Denied", "Denied."),
+                notificationRow(59, "PROMOTION_POST_PUBLISHED", true, "/customer/promotions", "Deal", "Deal.")));
+
+        Map<String, Object> firstPage = service.getCurrentUserNotificationFeed("Bearer customer", false, "all", null, 2);
+
+        assertEquals(2, list(firstPage, "notifications").size());
+        Map<String, Object> page = map(firstPage, "page");
+        assertTrue((Boolean) page.get("hasMore"));
+        assertEquals(6, firstPage.get("unreadCount"));
+        assertEquals(38, map(firstPage, "counts").get("history"));
+        verify(jdbcTemplate).query(
+                eq(UserNotificationService.FEED_PAGE_SQL_TEMPLATE.formatted("", "")),
+                any(RowMapper.class),
+                eq(3), eq(7), eq(0));
+
+        service.getCurrentUserNotificationFeed("Bearer customer", false, "all", (String) page.get("nextCursor"), 2);
+
+        verify(jdbcTemplate).query(
+                contains("AND (CreatedAt < ? OR (CreatedAt = ? AND NotificationID < ?))"),
+                any(RowMapper.class),
+                eq(3), eq(7), eq(0),
+                eq(Timestamp.valueOf("2026-03-13 10:00:00")),
+                eq(Timestamp.valueOf("2026-03-13 10:00:00")),
+                eq(60));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getCurrentUserNotificationFeed_shouldFilterActionableViewInSqlAndCapPageSize() throws Exception {
+        when(currentUserService.requireUser("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(7, "Customer", "CUSTOMER"));
+        stubFeedCounts(1, 1, 1);
+        stubFeedPage(List.of(
+                notificationRow(70, "MEMBERSHIP_EXPIRES_COUNTDOWN", false, "/customer/current-membership",
+                        "Membership expires soon", "3 days left.")));
+
+        Map<String, Object> response = service.getCurrentUserNotificationFeed("Bearer customer", true, "actionable",
+                null, 500);
+
+        assertFalse((Boolean) map(response, "page").get("hasMore"));
+        assertNull(map(response, "page").get("nextCursor"));
+        assertEquals(UserNotificationService.MAX_FEED_PAGE_SIZE, map(response, "page").get("pageSize"));
+        verify(jdbcTemplate).query(
+                contains("AND IsRead = 0 AND " + UserNotificationService.ACTIONABLE_TYPE_SQL),
+                any(RowMapper.class),
+                eq(UserNotificationService.MAX_FEED_PAGE_SIZE + 1), eq(7), eq(1));
+    }
+
+    @Test
+    void getCurrentUserNotificationFeed_shouldRejectMalformedCursor() {
+        when(currentUserService.requireUser("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(7, "Customer", "CUSTOMER"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.getCurrentUserNotificationFeed("Bearer customer", false, "all", "not-a-cursor", 20));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubFeedPage(List<Map<String, Object>> rows) {
+        when(jdbcTemplate.query(contains("SELECT TOP (?) NotificationID"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    int limit = invocation.getArgument(2);
+                    java.util.ArrayList<Object> mapped = new java.util.ArrayList<>();
+                    for (int index = 0; index < rows.size() && index < limit; index++) {
+                        mapped.add(mapper.mapRow(resultSet(rows.get(index)), index));
+                    }
+                    return mapped;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubFeedCounts(int total, int unread, int unreadActionable) {
+        when(jdbcTemplate.queryForObject(eq(UserNotificationService.FEED_COUNTS_SQL), any(RowMapper.class), eq(7),
+                any()))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    return mapper.mapRow(resultSet(Map.of(
+                            "Total", total,
+                            "Unread", unread,
+                            "UnreadActionable", unreadActionable)), 0);
+                });
+    }
+
     private void stubNotificationQuery(boolean unreadOnly, List<Map<String, Object>> rows) throws Exception {
         when(jdbcTemplate.query(
                 contains("FROM dbo.Notifications"),
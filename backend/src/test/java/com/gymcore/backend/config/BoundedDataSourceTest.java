@@ -0,0 +1,71 @@
+package com.gymcore.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class BoundedDataSourceTest {
+
+    private DataSource target;
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        target = Mockito.mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+        dataSource = new BoundedDataSource(target, 2, 50);
+    }
+
+    @Test
+    void getConnection_shouldFailFastOnceAllPermitsAreHeld() throws Exception {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.availablePermits());
+    }
+
+    @Test
+    void close_shouldReturnPermitExactlyOnce() throws Exception {
+        Connection connection = dataSource.getConnection();
+
+        connection.close();
+        connection.close();
+
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void getConnection_shouldReturnPermitWhenPoolThrows() throws Exception {
+        when(target.getConnection()).thenThrow(new SQLException("pool closed"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        assertEquals(2, dataSource.availablePermits());
+    }
+
+    @Test
+    void proxy_shouldDelegateOtherConnectionCalls() throws Exception {
+        Connection raw = Mockito.mock(Connection.class);
+        when(target.getConnection()).thenReturn(raw);
+
+        dataSource.getConnection().setAutoCommit(false);
+
+        verify(raw).setAutoCommit(false);
+    }
+
+    @Test
+    void concurrencyLimit_shouldPreferExplicitSetting() {
+        assertEquals(4, VirtualThreadJdbcConfig.concurrencyLimit(target, 4));
+        assertEquals(10, VirtualThreadJdbcConfig.concurrencyLimit(target, 0));
+    }
+}
@@ -0,0 +1,151 @@
+package com.gymcore.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Throughput harness for the virtual-thread mode. Each simulated request makes one slow upstream HTTP call
+ * (Gemini/PayOS stand-in) and then one short JDBC section through {@link BoundedDataSource}. The same load runs
+ * on a 200-thread platform pool (Tomcat's default) and on virtual threads.
+ *
+ * <p>Run with {@code ./mvnw test -Dtest=VirtualThreadLoadHarnessTest -Dgymcore.loadtest=true}; tune with
+ * {@code -Dgymcore.loadtest.requests}, {@code .upstream-ms}, {@code .jdbc-ms} and {@code .permits}.
+ */
+@EnabledIfSystemProperty(named = "gymcore.loadtest", matches = "true")
+class VirtualThreadLoadHarnessTest {
+
+    private static final int PLATFORM_WORKERS = 200;
+
+    private final int requests = Integer.getInteger("gymcore.loadtest.requests", 2000);
+    private final int upstreamMs = Integer.getInteger("gymcore.loadtest.upstream-ms", 300);
+    private final int jdbcMs = Integer.getInteger("gymcore.loadtest.jdbc-ms", 5);
+    private final int permits = Integer.getInteger("gymcore.loadtest.permits", 10);
+
+    private HttpServer upstream;
+    private RestTemplate restTemplate;
+    private String upstreamUrl;
+
+    @BeforeEach
+    void startUpstream() throws Exception {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        upstream.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        upstream.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(upstreamMs);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        upstream.start();
+        upstreamUrl = "http://127.0.0.1:" + upstream.getAddress().getPort() + "/slow";
+        restTemplate = new RestTemplate();
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void virtualThreadsShouldOutrunPlatformPoolWithoutExceedingJdbcPermits() throws Exception {
+        RunResult platform = run("platform(" + PLATFORM_WORKERS + ")", Executors.newFixedThreadPool(PLATFORM_WORKERS));
+        RunResult virtual = run("virtual", Executors.newVirtualThreadPerTaskExecutor());
+
+        assertEquals(requests, platform.completed());
+        assertEquals(requests, virtual.completed());
+        assertTrue(virtual.peakConnections() <= permits, "JDBC permits were exceeded: " + virtual.peakConnections());
+        assertTrue(virtual.requestsPerSecond() > platform.requestsPerSecond(),
+                "virtual " + virtual.requestsPerSecond() + " req/s vs platform " + platform.requestsPerSecond());
+    }
+
+    private RunResult run(String label, ExecutorService executor) throws Exception {
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        BoundedDataSource dataSource = new BoundedDataSource(slowDataSource(open, peak), permits, 30_000);
+        List<Future<?>> futures = new ArrayList<>(requests);
+        long started = System.nanoTime();
+        try (executor) {
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    restTemplate.getForObject(upstreamUrl, String.class);
+                    try (Connection connection = dataSource.getConnection()) {
+                        connection.isValid(1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        RunResult result = new RunResult(futures.size(), elapsed, peak.get());
+        System.out.printf("%-14s %5d requests in %6d ms = %8.1f req/s, peak JDBC connections %d/%d%n",
+                label, result.completed(), elapsed.toMillis(), result.requestsPerSecond(), result.peakConnections(),
+                permits);
+        return result;
+    }
+
+    private DataSource slowDataSource(AtomicInteger open, AtomicInteger peak) {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() {
+                peak.accumulateAndGet(open.incrementAndGet(), Math::max);
+                AtomicBoolean closed = new AtomicBoolean(false);
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                            case "isValid" -> {
+                                // Stands in for a short indexed query.
+                                Thread.sleep(jdbcMs);
+                                yield true;
+                            }
+                            case "close" -> {
+                                if (closed.compareAndSet(false, true)) {
+                                    open.decrementAndGet();
+                                }
+                                yield null;
+                            }
+                            default -> throw new UnsupportedOperationException(method.getName());
+                        });
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) {
+                return getConnection();
+            }
+        };
+    }
+
+    private record RunResult(int completed, Duration elapsed, int peakConnections) {
+
+        double requestsPerSecond() {
+            return completed * 1000.0 / Math.max(1, elapsed.toMillis());
+        }
+    }
+}
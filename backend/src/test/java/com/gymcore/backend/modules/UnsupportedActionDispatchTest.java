@@ -5,19 +5,32 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.mock;
 
+import com.gymcore.backend.common.service.NotificationBroadcastService;
+import com.gymcore.backend.common.service.RatingAggregateService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.admin.service.AdminService;
 import com.gymcore.backend.modules.auth.service.AuthService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import com.gymcore.backend.modules.checkin.service.CheckinHealthService;
+import com.gymcore.backend.modules.checkin.service.CheckinOccupancyService;
+import com.gymcore.backend.modules.checkin.service.CheckinPassCache;
+import com.gymcore.backend.modules.coach.service.CoachAvailabilityIndexService;
 import com.gymcore.backend.modules.coach.service.CoachBookingService;
+import com.gymcore.backend.modules.coach.service.PtSessionMaterializerService;
 import com.gymcore.backend.modules.content.service.ContentService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import com.gymcore.backend.modules.users.service.UserManagementService;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class UnsupportedActionDispatchTest {
@@ -28,11 +41,13 @@ class UnsupportedActionDispatchTest {
     private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
     private final UserNotificationService notificationService = mock(UserNotificationService.class);
     private final CoachBookingService delegatedCoachBookingService = mock(CoachBookingService.class);
+    private final GeminiCatalogSnapshotService catalogSnapshotService = mock(GeminiCatalogSnapshotService.class);
 
     @Test
     void userManagementService_shouldRejectUnsupportedAction() {
         UserManagementService service =
-                new UserManagementService(jdbcTemplate, authService, currentUserService, passwordEncoder);
+                new UserManagementService(jdbcTemplate, authService, currentUserService, passwordEncoder,
+                        catalogSnapshotService, mock(MembershipStateResolver.class));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> service.execute("unknown-action", Map.of()));
@@ -44,7 +59,10 @@ class UnsupportedActionDispatchTest {
     @Test
     void checkinHealthService_shouldRejectUnsupportedAction() {
         CheckinHealthService service =
-                new CheckinHealthService(jdbcTemplate, authService, delegatedCoachBookingService);
+                new CheckinHealthService(jdbcTemplate, authService, delegatedCoachBookingService,
+                        mock(CheckinPassCache.class), mock(CheckinOccupancyService.class),
+                        mock(MembershipStateResolver.class), mock(SchemaCapabilities.class),
+                        new TransactionTemplate(mock(PlatformTransactionManager.class)));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> service.execute("unknown-action", Map.of()));
@@ -66,7 +84,12 @@ class UnsupportedActionDispatchTest {
 
     @Test
     void coachBookingService_shouldRejectUnsupportedAction() {
-        CoachBookingService service = new CoachBookingService(jdbcTemplate, authService, notificationService);
+        CoachAvailabilityIndexService availabilityIndex = new CoachAvailabilityIndexService(jdbcTemplate);
+        CoachBookingService service = new CoachBookingService(jdbcTemplate, authService, notificationService,
+                availabilityIndex, new PtSessionMaterializerService(jdbcTemplate, availabilityIndex), catalogSnapshotService,
+                mock(AdminDashboardSnapshotService.class), mock(SchemaCapabilities.class),
+                mock(RatingAggregateService.class), new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(MembershipStateResolver.class));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> service.execute("unknown-action", Map.of()));
@@ -77,7 +100,10 @@ class UnsupportedActionDispatchTest {
 
     @Test
     void adminService_shouldRejectUnsupportedAction() {
-        AdminService service = new AdminService(jdbcTemplate, currentUserService);
+        AdminService service = new AdminService(jdbcTemplate, currentUserService,
+                mock(AdminDashboardSnapshotService.class), mock(SchemaCapabilities.class),
+                mock(NotificationBroadcastService.class), mock(RatingAggregateService.class),
+                mock(CheckinOccupancyService.class), List.of());
         when(currentUserService.requireAdmin("Bearer admin"))
                 .thenReturn(new CurrentUserService.UserInfo(1, "Admin", "ADMIN"));
 
@@ -7,6 +7,7 @@ import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.common.api.ApiResponse;
 import com.gymcore.backend.modules.admin.service.AdminService;
+import java.io.ByteArrayOutputStream;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,7 @@ import org.mockito.Mockito;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 class AdminControllerTest {
 
@@ -93,4 +95,20 @@ class AdminControllerTest {
                 "preset", "month-detail",
                 "month", "2026-03"));
     }
+
+    @Test
+    void streamRevenueExcel_shouldStreamWorkbookAsAttachment() throws Exception {
+        when(adminService.streamRevenueExcel(eq("Bearer admin"), eq(Map.of("preset", "year", "year", "2025"))))
+                .thenReturn(new AdminService.StreamingRevenueExport("GymCore_Revenue_2025.xlsx",
+                        output -> output.write(new byte[] {7, 8})));
+
+        ResponseEntity<StreamingResponseBody> response = controller.streamRevenueExcel(
+                "Bearer admin", "year", null, null, null, "2025");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+
+        assertEquals("attachment; filename=\"GymCore_Revenue_2025.xlsx\"",
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(2, output.size());
+    }
 }
@@ -0,0 +1,111 @@
+package com.gymcore.backend.modules.admin.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+class AdminDashboardSnapshotServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SchemaCapabilities schemaCapabilities;
+    private AdminDashboardSnapshotService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        service = new AdminDashboardSnapshotService(jdbcTemplate, schemaCapabilities);
+        setField(service, "cacheSeconds", 60L);
+        when(schemaCapabilities.current()).thenReturn(capabilities(true, true));
+        when(jdbcTemplate.queryForObject(contains("AS TotalCustomers"), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(new AdminDashboardSnapshotService.DashboardCounters(
+                        12, 8, 9, 2, 3, 4, 2, 1, 1, 2, 5, 4, 3, 1, 0, 2, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void current_shouldServeCachedSummaryUntilInvalidated() {
+        Map<String, Object> first = service.current();
+        Map<String, Object> second = service.current();
+
+        assertSame(first, second);
+        verify(jdbcTemplate, times(1))
+                .queryForObject(contains("AS TotalCustomers"), any(RowMapper.class), any(Object[].class));
+
+        service.invalidate();
+        service.current();
+
+        verify(jdbcTemplate, times(2))
+                .queryForObject(contains("AS TotalCustomers"), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void current_shouldFollowRefreshedSchemaCapabilitiesWithoutProbingMetadata() throws Exception {
+        setField(service, "cacheSeconds", 0L);
+
+        service.current();
+        when(schemaCapabilities.current()).thenReturn(capabilities(false, false));
+        Map<String, Object> summary = service.current();
+
+        verify(jdbcTemplate).queryForObject(contains("WHEN PickedUpAt IS NULL"), any(RowMapper.class),
+                any(Object[].class));
+        verify(jdbcTemplate, never()).queryForObject(contains("INFORMATION_SCHEMA"), eq(Integer.class),
+                any(Object[].class));
+        Map<String, Object> commerceMetrics = (Map<String, Object>) summary.get("commerceMetrics");
+        assertEquals(Boolean.FALSE, commerceMetrics.get("pickupTrackingAvailable"));
+    }
+
+    @Test
+    void invoiceCountersSql_shouldOnlyReferenceAvailableColumns() {
+        String none = AdminDashboardSnapshotService.invoiceCountersSql(false, false);
+        String pickupOnly = AdminDashboardSnapshotService.invoiceCountersSql(true, false);
+
+        assertFalse(none.contains("dbo.OrderInvoices"));
+        assertTrue(pickupOnly.contains("PickedUpAt IS NULL"));
+        assertFalse(pickupOnly.contains("EmailSendError"));
+    }
+
+    @Test
+    void dashboardCountersSql_shouldReadAllCountersInOneStatement() {
+        String sql = AdminDashboardSnapshotService.DASHBOARD_COUNTERS_SQL_TEMPLATE
+                .formatted(AdminDashboardSnapshotService.invoiceCountersSql(true, true));
+
+        assertTrue(sql.contains("AS TotalCustomers"));
+        assertTrue(sql.contains("AS LockedStaffAccounts"));
+        assertTrue(sql.contains("AS SessionsScheduledToday"));
+        assertTrue(sql.contains("AS InvoiceEmailFailures"));
+        assertTrue(sql.contains("AS ActivePromotionPosts"));
+        assertFalse(sql.contains("INFORMATION_SCHEMA"));
+    }
+
+    private static SchemaCapabilities.Capabilities capabilities(boolean pickupTracking, boolean emailTracking) {
+        return new SchemaCapabilities.Capabilities(true, true, pickupTracking, emailTracking, true, true,
+                true, true, true, LocalDateTime.now());
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
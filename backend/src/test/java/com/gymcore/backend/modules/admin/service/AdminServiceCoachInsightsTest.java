@@ -1,13 +1,22 @@
 package com.gymcore.backend.modules.admin.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.NotificationBroadcastService;
+import com.gymcore.backend.common.service.RatingAggregateService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.checkin.service.CheckinOccupancyService;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +24,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -22,13 +32,21 @@ class AdminServiceCoachInsightsTest {
 
     private JdbcTemplate jdbcTemplate;
     private CurrentUserService currentUserService;
+    private SchemaCapabilities schemaCapabilities;
+    private RatingAggregateService ratingAggregates;
     private AdminService adminService;
 
     @BeforeEach
     void setUp() {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         currentUserService = Mockito.mock(CurrentUserService.class);
-        adminService = new AdminService(jdbcTemplate, currentUserService);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        ratingAggregates = Mockito.mock(RatingAggregateService.class);
+        when(ratingAggregates.coachStatsSql()).thenReturn("SELECT CoachID, AvgRating, ReviewCount FROM dbo.CoachRatingStats");
+        adminService = new AdminService(jdbcTemplate, currentUserService,
+                new AdminDashboardSnapshotService(jdbcTemplate, schemaCapabilities), schemaCapabilities,
+                Mockito.mock(NotificationBroadcastService.class), ratingAggregates,
+                Mockito.mock(CheckinOccupancyService.class), List.of());
         when(currentUserService.requireAdmin("Bearer admin"))
                 .thenReturn(new CurrentUserService.UserInfo(1, "Admin", "ADMIN"));
     }
@@ -49,6 +67,28 @@ class AdminServiceCoachInsightsTest {
         assertEquals(1, items.getFirst().get("coachId"));
     }
 
+    @Test
+    void rebuildRatingAggregates_shouldRejectWhenStatsTablesAreMissing() {
+        when(schemaCapabilities.ratingAggregates()).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminService.execute("rebuild-rating-aggregates", "Bearer admin", null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        Mockito.verify(ratingAggregates, Mockito.never()).rebuild();
+    }
+
+    @Test
+    void rebuildRatingAggregates_shouldReturnChangedRowCounts() {
+        when(schemaCapabilities.ratingAggregates()).thenReturn(true);
+        when(ratingAggregates.rebuild()).thenReturn(Map.of("productRowsChanged", 3, "coachRowsChanged", 2));
+
+        Map<String, Object> result = adminService.execute("rebuild-rating-aggregates", "Bearer admin", null);
+
+        assertEquals(3, result.get("productRowsChanged"));
+        assertEquals(2, result.get("coachRowsChanged"));
+    }
+
     @Test
     void getCoachStudents_shouldReturnEmptyWhenNoSessions() {
         when(jdbcTemplate.query(contains("StudentCount"), any(RowMapper.class)))
@@ -62,6 +102,24 @@ class AdminServiceCoachInsightsTest {
         assertTrue(items.isEmpty());
     }
 
+    @Test
+    void getProductRevenue_shouldSumTotalFromListedOrders() {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenReturn(List.of(
+                        Map.of("orderId", 1, "totalAmount", new BigDecimal("1500.00")),
+                        Map.of("orderId", 2, "totalAmount", new BigDecimal("2700.00"))));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) adminService.execute(
+                "get-product-revenue", "Bearer admin", Map.of("from", "2026-03-01"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> summary = (Map<String, Object>) result.get("summary");
+        assertEquals(new BigDecimal("4200.00"), summary.get("totalRevenue"));
+        assertEquals(2, summary.get("count"));
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(BigDecimal.class), any(Object[].class));
+    }
+
     @Test
     void getProductRevenue_shouldRejectInvalidDateFormat() {
         ResponseStatusException exception = org.junit.jupiter.api.Assertions.assertThrows(
@@ -3,11 +3,21 @@ package com.gymcore.backend.modules.admin.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.NotificationBroadcastService;
+import com.gymcore.backend.common.service.RatingAggregateService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.checkin.service.CheckinOccupancyService;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.time.Year;
 import java.time.YearMonth;
 import java.util.List;
@@ -18,6 +28,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -29,7 +41,12 @@ class AdminServiceDashboardTest {
     @BeforeEach
     void setUp() {
         currentUserService = Mockito.mock(CurrentUserService.class);
-        adminService = new AdminService(new FakeDashboardJdbcTemplate(), currentUserService);
+        FakeDashboardJdbcTemplate jdbcTemplate = new FakeDashboardJdbcTemplate();
+        SchemaCapabilities schemaCapabilities = schemaCapabilities(true, true);
+        adminService = new AdminService(jdbcTemplate, currentUserService,
+                new AdminDashboardSnapshotService(jdbcTemplate, schemaCapabilities), schemaCapabilities,
+                Mockito.mock(NotificationBroadcastService.class), Mockito.mock(RatingAggregateService.class),
+                Mockito.mock(CheckinOccupancyService.class), List.of());
         when(currentUserService.requireAdmin("Bearer admin"))
                 .thenReturn(new CurrentUserService.UserInfo(1, "Admin", "ADMIN"));
     }
@@ -49,7 +66,9 @@ class AdminServiceDashboardTest {
         List<Map<String, Object>> recentPayments = (List<Map<String, Object>>) result.get("recentPayments");
 
         assertEquals(12, customerMetrics.get("totalCustomers"));
+        assertEquals(8, customerMetrics.get("activeCustomers"));
         assertEquals(3, commerceMetrics.get("awaitingPickupOrders"));
+        assertEquals(1, commerceMetrics.get("invoiceEmailFailures"));
         assertEquals(1, recentPayments.size());
         assertFalse(alerts.isEmpty());
         assertTrue(alerts.stream().anyMatch(alert -> "pickup-queue".equals(alert.get("key"))));
@@ -118,7 +137,12 @@ class AdminServiceDashboardTest {
 
     @Test
     void getDashboardSummary_shouldGracefullyDisablePickupMetricsWhenPickupColumnsAreMissing() {
-        AdminService fallbackService = new AdminService(new MissingPickupDashboardJdbcTemplate(), currentUserService);
+        FakeDashboardJdbcTemplate jdbcTemplate = new FakeDashboardJdbcTemplate();
+        SchemaCapabilities schemaCapabilities = schemaCapabilities(false, false);
+        AdminService fallbackService = new AdminService(jdbcTemplate, currentUserService,
+                new AdminDashboardSnapshotService(jdbcTemplate, schemaCapabilities), schemaCapabilities,
+                Mockito.mock(NotificationBroadcastService.class), Mockito.mock(RatingAggregateService.class),
+                Mockito.mock(CheckinOccupancyService.class), List.of());
 
         @SuppressWarnings("unchecked")
         Map<String, Object> result = (Map<String, Object>) fallbackService.execute("get-dashboard-summary", "Bearer admin", null);
@@ -127,6 +151,7 @@ class AdminServiceDashboardTest {
 
         assertEquals(0, commerceMetrics.get("awaitingPickupOrders"));
         assertEquals(0, commerceMetrics.get("pickedUpToday"));
+        assertEquals(0, commerceMetrics.get("invoiceEmailFailures"));
         assertEquals(Boolean.FALSE, commerceMetrics.get("pickupTrackingAvailable"));
         assertEquals(List.of(), result.get("awaitingPickupOrders"));
     }
@@ -146,10 +171,77 @@ class AdminServiceDashboardTest {
         }
     }
 
+    @Test
+    void streamRevenueExcel_shouldWriteTransactionSheetFromCursor() throws Exception {
+        AdminService.StreamingRevenueExport export = adminService.streamRevenueExcel(
+                "Bearer admin", Map.of("preset", "month-detail", "month", "2026-03"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        export.writer().writeTo(output);
+
+        assertEquals("GymCore_Revenue_2026-03.xlsx", export.fileName());
+        byte[] inMemory = adminService.exportRevenueExcel(
+                "Bearer admin", Map.of("preset", "month-detail", "month", "2026-03")).content();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()));
+                XSSFWorkbook expected = new XSSFWorkbook(new ByteArrayInputStream(inMemory))) {
+            // Both exports write Summary and Daily Revenue through the same helpers.
+            assertEquals(expected.getSheetAt(0).getLastRowNum(), workbook.getSheetAt(0).getLastRowNum());
+            assertEquals("Average per day", workbook.getSheetAt(0)
+                    .getRow(workbook.getSheetAt(0).getLastRowNum()).getCell(0).getStringCellValue());
+            assertEquals("Daily Revenue", workbook.getSheetAt(1).getSheetName());
+            assertEquals(31, workbook.getSheetAt(1).getLastRowNum());
+            assertEquals("Transactions", workbook.getSheetAt(2).getSheetName());
+            assertEquals(2, workbook.getSheetAt(2).getLastRowNum());
+            assertEquals("MEMBERSHIP", workbook.getSheetAt(2).getRow(2).getCell(2).getStringCellValue());
+            assertEquals(2500D, workbook.getSheetAt(2).getRow(2).getCell(6).getNumericCellValue());
+        }
+    }
+
+    private static SchemaCapabilities schemaCapabilities(boolean pickupTracking, boolean invoiceEmailTracking) {
+        SchemaCapabilities schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        when(schemaCapabilities.current()).thenReturn(new SchemaCapabilities.Capabilities(
+                true, true, pickupTracking, invoiceEmailTracking, true, true, true, true, true,
+                LocalDateTime.now()));
+        return schemaCapabilities;
+    }
+
     private static class FakeDashboardJdbcTemplate extends JdbcTemplate {
 
         private int moneyQueryIndex = 0;
 
+        @Override
+        public <T> T queryForObject(String sql, RowMapper<T> rowMapper, Object... args) {
+            if (!sql.contains("AS TotalCustomers")) {
+                return null;
+            }
+            Map<String, Integer> counters = Map.ofEntries(
+                    Map.entry("TotalCustomers", 12),
+                    Map.entry("ActiveCustomers", 8),
+                    Map.entry("ActiveMemberships", 9),
+                    Map.entry("ScheduledMemberships", 2),
+                    Map.entry("ExpiringSoonMemberships", 3),
+                    Map.entry("TotalCoaches", 4),
+                    Map.entry("TotalReceptionists", 2),
+                    Map.entry("TotalAdmins", 1),
+                    Map.entry("LockedStaffAccounts", 1),
+                    Map.entry("PendingPtRequests", 2),
+                    Map.entry("ActivePtArrangements", 5),
+                    Map.entry("SessionsScheduledToday", 4),
+                    // Invoice counters follow the SQL that was spliced in for the detected schema.
+                    Map.entry("AwaitingPickupOrders", sql.contains("WHEN PickedUpAt IS NULL") ? 3 : 0),
+                    Map.entry("PickedUpToday", sql.contains("CAST(PickedUpAt AS DATE) = d.Today") ? 1 : 0),
+                    Map.entry("InvoiceEmailFailures", sql.contains("WHEN EmailSendError IS NOT NULL") ? 1 : 0),
+                    Map.entry("ActiveCoupons", 2),
+                    Map.entry("ActivePromotionPosts", 1));
+            try {
+                ResultSet rs = Mockito.mock(ResultSet.class);
+                when(rs.getInt(anyString())).thenAnswer(invocation -> counters.get(invocation.<String>getArgument(0)));
+                return rowMapper.mapRow(rs, 0);
+            } catch (SQLException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
         @Override
         public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
             return resolveScalar(sql, requiredType);
@@ -170,13 +262,34 @@ class AdminServiceDashboardTest {
             return resolveList(sql);
         }
 
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            try {
+                rch.processRow(transactionRow(101, "PRODUCT", 55, new BigDecimal("1500.00")));
+                rch.processRow(transactionRow(102, "MEMBERSHIP", 20, new BigDecimal("2500.00")));
+            } catch (SQLException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+
+        private static ResultSet transactionRow(int paymentId, String type, int referenceId, BigDecimal amount)
+                throws SQLException {
+            ResultSet rs = Mockito.mock(ResultSet.class);
+            when(rs.getInt("PaymentID")).thenReturn(paymentId);
+            when(rs.getTimestamp("PaidAt")).thenReturn(Timestamp.valueOf("2026-03-07 08:30:00"));
+            when(rs.getString("RevenueType")).thenReturn(type);
+            when(rs.getInt("ReferenceID")).thenReturn(referenceId);
+            when(rs.getString("CustomerName")).thenReturn("Customer Minh");
+            when(rs.getString("PaymentMethod")).thenReturn("PAYOS");
+            when(rs.getBigDecimal("Amount")).thenReturn(amount);
+            return rs;
+        }
+
         @SuppressWarnings("unchecked")
         private <T> T resolveScalar(String sql, Class<T> requiredType) {
             if (Integer.class.equals(requiredType)) {
                 Integer value;
-                if (sql.contains("INFORMATION_SCHEMA.TABLES")) value = 1;
-                else if (sql.contains("INFORMATION_SCHEMA.COLUMNS")) value = 1;
-                else if (sql.contains("dbo.Customers")) value = 12;
+                if (sql.contains("dbo.Customers")) value = 12;
                 else if (sql.contains("COUNT(DISTINCT cm.CustomerID)")) value = 8;
                 else if (sql.contains("CustomerMemberships") && sql.contains("Status = 'ACTIVE'") && !sql.contains("EndDate >= ?")) value = 9;
                 else if (sql.contains("CustomerMemberships") && sql.contains("Status = 'SCHEDULED'")) value = 2;
@@ -250,7 +363,7 @@ class AdminServiceDashboardTest {
                         "emailSendError", "SMTP failed",
                         "paidAt", "2026-03-07T08:40:00"));
             }
-            if (sql.contains("GROUP BY CAST(COALESCE(PaidAt, CreatedAt) AS DATE)")) {
+            if (sql.contains("FROM dbo.DailyRevenueRollup")) {
                 return (List<T>) List.of(
                         Map.of("date", "2026-03-05", "productRevenue", new BigDecimal("1000.00"), "membershipRevenue", new BigDecimal("2000.00"), "totalRevenue", new BigDecimal("3000.00")),
                         Map.of("date", "2026-03-07", "productRevenue", new BigDecimal("1500.00"), "membershipRevenue", new BigDecimal("2500.00"), "totalRevenue", new BigDecimal("4000.00")));
@@ -258,23 +371,4 @@ class AdminServiceDashboardTest {
             return List.of();
         }
     }
-
-    private static final class MissingPickupDashboardJdbcTemplate extends FakeDashboardJdbcTemplate {
-
-        @Override
-        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
-            if (Integer.class.equals(requiredType) && sql.contains("INFORMATION_SCHEMA.COLUMNS")) {
-                return requiredType.cast(0);
-            }
-            return super.queryForObject(sql, requiredType, args);
-        }
-
-        @Override
-        public <T> T queryForObject(String sql, Class<T> requiredType) {
-            if (Integer.class.equals(requiredType) && sql.contains("INFORMATION_SCHEMA.COLUMNS")) {
-                return requiredType.cast(0);
-            }
-            return super.queryForObject(sql, requiredType);
-        }
-    }
 }
@@ -0,0 +1,91 @@
+package com.gymcore.backend.modules.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.web.server.ResponseStatusException;
+
+class AuthContextCacheTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AuthContextCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        cache = new AuthContextCache(jdbcTemplate);
+        setField(cache, "ttlSeconds", 30L);
+    }
+
+    @Test
+    void get_shouldServeRepeatedLookupsFromCache() {
+        stubPrincipal(5, false);
+
+        AuthContextCache.Principal first = cache.get(5);
+        AuthContextCache.Principal second = cache.get(5);
+
+        assertEquals("RECEPTIONIST", first.roleApiName());
+        assertEquals(first, second);
+        verify(jdbcTemplate, times(1)).queryForObject(eq(AuthContextCache.PRINCIPAL_SQL), any(RowMapper.class), eq(5));
+    }
+
+    @Test
+    void invalidate_shouldReloadLockStateOnNextLookup() {
+        stubPrincipal(5, false);
+        cache.get(5);
+
+        stubPrincipal(5, true);
+        cache.invalidate(5);
+
+        assertTrue(cache.get(5).locked());
+        verify(jdbcTemplate, times(2)).queryForObject(eq(AuthContextCache.PRINCIPAL_SQL), any(RowMapper.class), eq(5));
+    }
+
+    @Test
+    void get_shouldNotCacheWhenTtlIsZero() throws Exception {
+        setField(cache, "ttlSeconds", 0L);
+        stubPrincipal(5, false);
+
+        cache.get(5);
+        cache.get(5);
+
+        verify(jdbcTemplate, times(2)).queryForObject(eq(AuthContextCache.PRINCIPAL_SQL), any(RowMapper.class), eq(5));
+    }
+
+    @Test
+    void get_shouldRejectUnknownUser() {
+        when(jdbcTemplate.queryForObject(eq(AuthContextCache.PRINCIPAL_SQL), any(RowMapper.class), eq(404)))
+                .thenThrow(new EmptyResultDataAccessException(1));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> cache.get(404));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
+        assertEquals("User not found.", exception.getReason());
+    }
+
+    private void stubPrincipal(int userId, boolean locked) {
+        when(jdbcTemplate.queryForObject(eq(AuthContextCache.PRINCIPAL_SQL), any(RowMapper.class), eq(userId)))
+                .thenReturn(new AuthContextCache.Principal(userId, "Receptionist", "RECEPTIONIST",
+                        "Reception Lan", "reception@gymcore.local", locked, true));
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
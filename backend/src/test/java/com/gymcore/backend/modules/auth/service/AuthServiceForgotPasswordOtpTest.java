@@ -27,7 +27,6 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class AuthServiceForgotPasswordOtpTest {
@@ -38,7 +37,7 @@ class AuthServiceForgotPasswordOtpTest {
     private JdbcTemplate jdbcTemplate;
     private PasswordEncoder passwordEncoder;
     private AuthMailService authMailService;
-    private RestTemplate restTemplate;
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     private AuthService authService;
 
     @BeforeEach
@@ -46,9 +45,10 @@ class AuthServiceForgotPasswordOtpTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authMailService = Mockito.mock(AuthMailService.class);
-        restTemplate = Mockito.mock(RestTemplate.class);
+        googleIdTokenVerifier = Mockito.mock(GoogleIdTokenVerifier.class);
 
-        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, restTemplate);
+        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, googleIdTokenVerifier,
+                new AuthContextCache(jdbcTemplate));
         setField(authService, "jwtSecret", "this-is-a-test-jwt-secret-at-least-32-chars!!");
         setField(authService, "accessTokenMinutes", 15L);
         setField(authService, "refreshTokenDays", 14L);
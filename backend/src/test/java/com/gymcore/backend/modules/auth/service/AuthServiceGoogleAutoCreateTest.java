@@ -24,14 +24,13 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.web.client.RestTemplate;
 
 class AuthServiceGoogleAutoCreateTest {
 
     private JdbcTemplate jdbcTemplate;
     private PasswordEncoder passwordEncoder;
     private AuthMailService authMailService;
-    private RestTemplate restTemplate;
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     private AuthService authService;
 
     @BeforeEach
@@ -39,9 +38,10 @@ class AuthServiceGoogleAutoCreateTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authMailService = Mockito.mock(AuthMailService.class);
-        restTemplate = Mockito.mock(RestTemplate.class);
+        googleIdTokenVerifier = Mockito.mock(GoogleIdTokenVerifier.class);
 
-        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, restTemplate);
+        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, googleIdTokenVerifier,
+                new AuthContextCache(jdbcTemplate));
         setField(authService, "jwtSecret", "this-is-a-test-jwt-secret-at-least-32-chars!!");
         setField(authService, "accessTokenMinutes", 15L);
         setField(authService, "refreshTokenDays", 14L);
@@ -55,7 +55,7 @@ class AuthServiceGoogleAutoCreateTest {
 
     @Test
     void loginWithGoogle_unknownEmail_shouldAutoCreateCustomer() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "client",
                         "email", "newuser@gmail.com",
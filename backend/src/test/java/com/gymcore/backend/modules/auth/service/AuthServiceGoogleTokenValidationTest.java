@@ -2,11 +2,10 @@ package com.gymcore.backend.modules.auth.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.when;
 
+import io.jsonwebtoken.ExpiredJwtException;
 import java.lang.reflect.Field;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +15,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class AuthServiceGoogleTokenValidationTest {
@@ -24,7 +22,7 @@ class AuthServiceGoogleTokenValidationTest {
     private JdbcTemplate jdbcTemplate;
     private PasswordEncoder passwordEncoder;
     private AuthMailService authMailService;
-    private RestTemplate restTemplate;
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     private AuthService authService;
 
     @BeforeEach
@@ -32,9 +30,10 @@ class AuthServiceGoogleTokenValidationTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authMailService = Mockito.mock(AuthMailService.class);
-        restTemplate = Mockito.mock(RestTemplate.class);
+        googleIdTokenVerifier = Mockito.mock(GoogleIdTokenVerifier.class);
 
-        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, restTemplate);
+        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, googleIdTokenVerifier,
+                new AuthContextCache(jdbcTemplate));
         setField(authService, "jwtSecret", "this-is-a-test-jwt-secret-at-least-32-chars!!");
         setField(authService, "accessTokenMinutes", 15L);
         setField(authService, "refreshTokenDays", 14L);
@@ -46,8 +45,8 @@ class AuthServiceGoogleTokenValidationTest {
     }
 
     @Test
-    void googleLogin_shouldRejectTokeninfoNetworkError() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+    void googleLogin_shouldRejectWhenSigningKeysAreUnavailable() {
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenThrow(new RestClientException("boom"));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
@@ -56,9 +55,20 @@ class AuthServiceGoogleTokenValidationTest {
         assertEquals(HttpStatus.UNAUTHORIZED.value(), ex.getStatusCode().value());
     }
 
+    @Test
+    void googleLogin_shouldRejectTokenFailingLocalVerification() {
+        when(googleIdTokenVerifier.verify(anyString()))
+                .thenThrow(new ExpiredJwtException(null, null, "expired"));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                authService.loginWithGoogle("idtoken", new org.springframework.mock.web.MockHttpServletRequest(),
+                        new org.springframework.mock.web.MockHttpServletResponse()));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), ex.getStatusCode().value());
+    }
+
     @Test
     void googleLogin_shouldRejectAudienceMismatch() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "wrong-client",
                         "email", "a@gymcore.local",
@@ -74,7 +84,7 @@ class AuthServiceGoogleTokenValidationTest {
 
     @Test
     void googleLogin_shouldRejectWhenEmailNotVerified() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "expected-client-id",
                         "email", "a@gymcore.local",
@@ -90,7 +100,7 @@ class AuthServiceGoogleTokenValidationTest {
 
     @Test
     void googleLogin_shouldRejectMissingEmailOrSub() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "expected-client-id",
                         "email_verified", "true"
@@ -32,7 +32,6 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class AuthServiceLoginTest {
@@ -40,7 +39,7 @@ class AuthServiceLoginTest {
     private JdbcTemplate jdbcTemplate;
     private PasswordEncoder passwordEncoder;
     private AuthMailService authMailService;
-    private RestTemplate restTemplate;
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     private AuthService authService;
 
     @BeforeEach
@@ -48,9 +47,10 @@ class AuthServiceLoginTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authMailService = Mockito.mock(AuthMailService.class);
-        restTemplate = Mockito.mock(RestTemplate.class);
+        googleIdTokenVerifier = Mockito.mock(GoogleIdTokenVerifier.class);
 
-        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, restTemplate);
+        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, googleIdTokenVerifier,
+                new AuthContextCache(jdbcTemplate));
         setField(authService, "jwtSecret", "this-is-a-test-jwt-secret-at-least-32-chars!!");
         setField(authService, "accessTokenMinutes", 15L);
         setField(authService, "refreshTokenDays", 14L);
@@ -343,7 +343,7 @@ class AuthServiceLoginTest {
     @Test
     void loginWithGoogle_existingAdminAccount_shouldReject() {
         setQuietField(authService, "googleClientId", "client");
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "client",
                         "email", "admin@gymcore.local",
@@ -372,7 +372,7 @@ class AuthServiceLoginTest {
     @Test
     void loginWithGoogle_existingCoachAccount_shouldSucceedAndSetCookie() {
         setQuietField(authService, "googleClientId", "client");
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "client",
                         "email", "coach@gymcore.local",
@@ -18,7 +18,6 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -27,7 +26,7 @@ class AuthServicePhoneEdgeCasesTest {
     private JdbcTemplate jdbcTemplate;
     private PasswordEncoder passwordEncoder;
     private AuthMailService authMailService;
-    private RestTemplate restTemplate;
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     private AuthService authService;
 
     @BeforeEach
@@ -35,9 +34,10 @@ class AuthServicePhoneEdgeCasesTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authMailService = Mockito.mock(AuthMailService.class);
-        restTemplate = Mockito.mock(RestTemplate.class);
+        googleIdTokenVerifier = Mockito.mock(GoogleIdTokenVerifier.class);
 
-        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, restTemplate);
+        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, googleIdTokenVerifier,
+                new AuthContextCache(jdbcTemplate));
         setField(authService, "jwtSecret", "this-is-a-test-jwt-secret-at-least-32-chars!!");
         setField(authService, "accessTokenMinutes", 15L);
         setField(authService, "refreshTokenDays", 14L);
@@ -30,7 +30,6 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class AuthServiceProfileAvatarTest {
@@ -38,7 +37,7 @@ class AuthServiceProfileAvatarTest {
     private JdbcTemplate jdbcTemplate;
     private PasswordEncoder passwordEncoder;
     private AuthMailService authMailService;
-    private RestTemplate restTemplate;
+    private GoogleIdTokenVerifier googleIdTokenVerifier;
     private AuthService authService;
 
     @TempDir
@@ -49,9 +48,10 @@ class AuthServiceProfileAvatarTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authMailService = Mockito.mock(AuthMailService.class);
-        restTemplate = Mockito.mock(RestTemplate.class);
+        googleIdTokenVerifier = Mockito.mock(GoogleIdTokenVerifier.class);
 
-        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, restTemplate);
+        authService = new AuthService(jdbcTemplate, passwordEncoder, authMailService, googleIdTokenVerifier,
+                new AuthContextCache(jdbcTemplate));
         setField(authService, "jwtSecret", "this-is-a-test-jwt-secret-at-least-32-chars!!");
         setField(authService, "accessTokenMinutes", 15L);
         setField(authService, "refreshTokenDays", 14L);
@@ -237,7 +237,7 @@ class AuthServiceProfileAvatarTest {
 
     @Test
     void loginWithGoogle_shouldApplyGoogleAvatarWhenNotCustom() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "client",
                         "email", "coach@gymcore.local",
@@ -288,7 +288,7 @@ class AuthServiceProfileAvatarTest {
 
     @Test
     void loginWithGoogle_shouldNotOverwriteCustomAvatar() {
-        when(restTemplate.getForObject(contains("tokeninfo"), any(), anyString()))
+        when(googleIdTokenVerifier.verify(anyString()))
                 .thenReturn(Map.of(
                         "aud", "client",
                         "email", "coach@gymcore.local",
@@ -0,0 +1,182 @@
+package com.gymcore.backend.modules.auth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+class GoogleIdTokenVerifierTest {
+
+    private static final String JWKS_URL = "https://jwks.test/certs";
+    private static final String KEY_ID = "test-key-1";
+
+    private static KeyPair googleKeys;
+    private static KeyPair otherKeys;
+
+    private MutableClock clock;
+    private MockRestServiceServer server;
+    private GoogleIdTokenVerifier verifier;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        googleKeys = generator.generateKeyPair();
+        otherKeys = generator.generateKeyPair();
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-03-13T10:00:00Z"));
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        verifier = new GoogleIdTokenVerifier(restTemplate, JWKS_URL, clock);
+    }
+
+    @Test
+    void verify_shouldAcceptTokenSignedWithPublishedKeyAndReuseCachedKeys() {
+        expectJwks("public, max-age=3600");
+
+        Map<String, Object> first = verifier.verify(token(googleKeys.getPrivate(), "https://accounts.google.com",
+                clock.instant().plusSeconds(600)));
+        Map<String, Object> second = verifier.verify(token(googleKeys.getPrivate(), "accounts.google.com",
+                clock.instant().plusSeconds(600)));
+
+        server.verify();
+        assertEquals("client-id", first.get("aud"));
+        assertEquals("google-sub-1", first.get("sub"));
+        assertEquals("member@gmail.com", first.get("email"));
+        assertEquals(true, first.get("email_verified"));
+        assertEquals("google-sub-1", second.get("sub"));
+    }
+
+    @Test
+    void verify_shouldRefetchKeysOnceMaxAgeHasPassed() {
+        expectJwks("public, max-age=60");
+        expectJwks("public, max-age=60");
+
+        verifier.verify(token(googleKeys.getPrivate(), "accounts.google.com", clock.instant().plusSeconds(600)));
+        clock.advance(Duration.ofSeconds(61));
+        verifier.verify(token(googleKeys.getPrivate(), "accounts.google.com", clock.instant().plusSeconds(600)));
+
+        server.verify();
+    }
+
+    @Test
+    void verify_shouldRejectTokenSignedWithAnotherKey() {
+        expectJwks("public, max-age=3600");
+
+        assertThrows(JwtException.class, () -> verifier.verify(token(otherKeys.getPrivate(), "accounts.google.com",
+                clock.instant().plusSeconds(600))));
+    }
+
+    @Test
+    void verify_shouldRejectForeignIssuer() {
+        expectJwks("public, max-age=3600");
+
+        assertThrows(JwtException.class, () -> verifier.verify(token(googleKeys.getPrivate(), "https://evil.example",
+                clock.instant().plusSeconds(600))));
+    }
+
+    @Test
+    void verify_shouldRejectExpiredToken() {
+        expectJwks("public, max-age=3600");
+
+        assertThrows(JwtException.class, () -> verifier.verify(token(googleKeys.getPrivate(), "accounts.google.com",
+                clock.instant().minusSeconds(300))));
+    }
+
+    @Test
+    void maxAge_shouldFallBackWhenHeaderHasNoMaxAge() {
+        assertEquals(Duration.ofSeconds(21600), GoogleIdTokenVerifier.maxAge("public, max-age=21600, must-revalidate"));
+        assertEquals(GoogleIdTokenVerifier.DEFAULT_KEYS_TTL, GoogleIdTokenVerifier.maxAge("no-transform"));
+        assertEquals(GoogleIdTokenVerifier.DEFAULT_KEYS_TTL, GoogleIdTokenVerifier.maxAge(null));
+    }
+
+    private void expectJwks(String cacheControl) {
+        server.expect(once(), requestTo(JWKS_URL))
+                .andRespond(withSuccess(jwks((RSAPublicKey) googleKeys.getPublic()), MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CACHE_CONTROL, cacheControl));
+    }
+
+    private String token(PrivateKey signingKey, String issuer, Instant expiresAt) {
+        return Jwts.builder()
+                .header().keyId(KEY_ID).and()
+                .issuer(issuer)
+                .audience().add("client-id").and()
+                .subject("google-sub-1")
+                .claim("email", "member@gmail.com")
+                .claim("email_verified", true)
+                .issuedAt(Date.from(expiresAt.minusSeconds(3600)))
+                .expiration(Date.from(expiresAt))
+                .signWith(signingKey, Jwts.SIG.RS256)
+                .compact();
+    }
+
+    private static String jwks(RSAPublicKey publicKey) {
+        return """
+                {"keys":[{"kty":"RSA","alg":"RS256","use":"sig","kid":"%s","n":"%s","e":"%s"}]}
+                """.formatted(KEY_ID, base64Url(publicKey.getModulus()), base64Url(publicKey.getPublicExponent()));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -6,29 +6,48 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.modules.auth.service.AuthService;
 import com.gymcore.backend.modules.coach.service.CoachBookingService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
+import java.lang.reflect.Field;
 import java.sql.Date;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class CheckinHealthServiceTest {
@@ -36,14 +55,29 @@ class CheckinHealthServiceTest {
     private JdbcTemplate jdbcTemplate;
     private AuthService authService;
     private CoachBookingService coachBookingService;
+    private CheckinPassCache passCache;
+    private CheckinOccupancyService occupancyService;
+    private MembershipStateResolver membershipStates;
+    private SchemaCapabilities schemaCapabilities;
     private CheckinHealthService service;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         authService = Mockito.mock(AuthService.class);
         coachBookingService = Mockito.mock(CoachBookingService.class);
-        service = new CheckinHealthService(jdbcTemplate, authService, coachBookingService);
+        passCache = Mockito.mock(CheckinPassCache.class);
+        occupancyService = Mockito.mock(CheckinOccupancyService.class);
+        membershipStates = Mockito.mock(MembershipStateResolver.class);
+        when(membershipStates.resolve(anyInt())).thenAnswer(invocation -> membershipState(invocation.getArgument(0)));
+        when(membershipStates.resolveFresh(anyInt()))
+                .thenAnswer(invocation -> membershipState(invocation.getArgument(0)));
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        service = new CheckinHealthService(jdbcTemplate, authService, coachBookingService, passCache, occupancyService,
+                membershipStates, schemaCapabilities,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+        setField(service, "maxBatchScans", 500);
+        setField(service, "maxScanAgeHours", 72L);
     }
 
     @Test
@@ -59,35 +93,16 @@ class CheckinHealthServiceTest {
                             "UserID", 5,
                             "FullName", "Customer Minh",
                             "Email", "customer@gymcore.local",
-                            "Phone", "0900000004"
+                            "Phone", "0900000004",
+                            "QrCodeToken", "qr-5"
                     )), 0);
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = 'ACTIVE'"), any(RowMapper.class), eq(5)))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 11,
-                            "Status", "ACTIVE",
-                            "StartDate", LocalDate.of(2026, 2, 1),
-                            "EndDate", LocalDate.of(2026, 8, 1),
-                            "PlanName", "Gym + Coach - 6 Months",
-                            "PlanType", "GYM_PLUS_COACH"
-                    )), 0));
-                });
-
-        when(jdbcTemplate.update(contains("INSERT INTO dbo.CheckIns"), eq(5), eq(11), eq(2))).thenReturn(1);
+        when(membershipStates.resolveFresh(5)).thenReturn(membershipState(5,
+                membership(11, "ACTIVE", LocalDate.of(2026, 2, 1), LocalDate.of(2026, 8, 1),
+                        "Gym + Coach - 6 Months", "GYM_PLUS_COACH")));
 
-        when(jdbcTemplate.queryForObject(contains("FROM dbo.CheckIns ci"), any(RowMapper.class), eq(5), eq(11), eq(2)))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Map<String, Object>> mapper = invocation.getArgument(1);
-                    return mapper.mapRow(resultSet(Map.of(
-                            "CheckInID", 100,
-                            "CheckInTime", Timestamp.from(Instant.parse("2026-02-17T10:00:00Z"))
-                    )), 0);
-                });
+        stubInsertCheckin(5, 11, 2, 100);
 
         @SuppressWarnings("unchecked")
         Map<String, Object> data = service.execute("reception-scan-checkin", Map.of(
@@ -102,14 +117,44 @@ class CheckinHealthServiceTest {
         Map<String, Object> customer = (Map<String, Object>) data.get("customer");
         assertEquals(5, customer.get("customerId"));
         assertEquals("Customer Minh", customer.get("fullName"));
-        verify(jdbcTemplate).update(contains("INSERT INTO dbo.CheckIns"), eq(5), eq(11), eq(2));
+        verify(jdbcTemplate).queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                eq(5), eq(11), eq(2));
+        verify(passCache).put(anyLong(), eq(new CheckinPassCache.Pass(5, "Customer Minh", "customer@gymcore.local",
+                "0900000004", "qr-5", 11, "Gym + Coach - 6 Months", "GYM_PLUS_COACH",
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 8, 1))));
     }
 
     @Test
-    void receptionScanCheckin_shouldReturnBadRequestWhenMembershipScheduled() throws Exception {
+    void receptionScanCheckin_shouldOnlyInsertWhenQrTokenHasCachedPass() throws Exception {
         when(authService.requireAuthContext("Bearer ok"))
                 .thenReturn(new AuthService.AuthContext(2, "RECEPTIONIST", "Receptionist GymCore", "reception@gymcore.local"));
+        when(passCache.findByQrToken("qr-5")).thenReturn(cachedPass());
+        stubInsertCheckin(5, 11, 2, 101);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = service.execute("reception-scan-checkin", Map.of(
+                "authorizationHeader", "Bearer ok",
+                "qrCodeToken", "qr-5"
+        ));
 
+        assertEquals(101, data.get("checkInId"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> membership = (Map<String, Object>) data.get("membership");
+        assertEquals(11, membership.get("customerMembershipId"));
+        assertEquals("2026-08-01", membership.get("endDate"));
+        verify(jdbcTemplate, never()).queryForObject(contains("WHERE u.QrCodeToken = ?"), any(RowMapper.class), any());
+        verify(membershipStates, never()).resolveFresh(anyInt());
+        verify(occupancyService).recordCheckin(any(LocalDateTime.class));
+    }
+
+    @Test
+    void receptionScanCheckin_shouldFallBackToFullValidationWhenCachedPassIsStale() throws Exception {
+        when(authService.requireAuthContext("Bearer ok"))
+                .thenReturn(new AuthService.AuthContext(2, "RECEPTIONIST", "Receptionist GymCore", "reception@gymcore.local"));
+        when(passCache.findByCustomerId(5)).thenReturn(cachedPass());
+        when(jdbcTemplate.queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                eq(5), eq(11), eq(2)))
+                .thenThrow(new DataIntegrityViolationException("Check-in blocked"));
         when(jdbcTemplate.queryForObject(contains("WHERE u.UserID = ?"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
                     @SuppressWarnings("unchecked")
@@ -118,26 +163,47 @@ class CheckinHealthServiceTest {
                             "UserID", 5,
                             "FullName", "Customer Minh",
                             "Email", "customer@gymcore.local",
-                            "Phone", "0900000004"
+                            "Phone", "0900000004",
+                            "QrCodeToken", "qr-5"
                     )), 0);
                 });
+        when(membershipStates.resolveFresh(5)).thenReturn(membershipState(5,
+                membership(11, "CANCELLED", LocalDate.of(2026, 2, 1), LocalDate.of(2026, 8, 1),
+                        "Gym + Coach - 6 Months", "GYM_PLUS_COACH")));
 
-        when(jdbcTemplate.query(contains("cm.Status = 'ACTIVE'"), any(RowMapper.class), eq(5)))
-                .thenReturn(List.of());
-        when(jdbcTemplate.query(contains("cm.Status = 'SCHEDULED'"), any(RowMapper.class), eq(5)))
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("reception-scan-checkin", Map.of(
+                        "authorizationHeader", "Bearer ok",
+                        "customerId", 5
+                )));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertTrue(String.valueOf(exception.getReason()).contains("was cancelled"));
+        verify(passCache).invalidateCustomer(5);
+        verify(passCache, never()).put(anyLong(), any());
+    }
+
+    @Test
+    void receptionScanCheckin_shouldReturnBadRequestWhenMembershipScheduled() throws Exception {
+        when(authService.requireAuthContext("Bearer ok"))
+                .thenReturn(new AuthService.AuthContext(2, "RECEPTIONIST", "Receptionist GymCore", "reception@gymcore.local"));
+
+        when(jdbcTemplate.queryForObject(contains("WHERE u.UserID = ?"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
                     @SuppressWarnings("unchecked")
                     RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 12,
-                            "Status", "SCHEDULED",
-                            "StartDate", LocalDate.of(2026, 8, 2),
-                            "EndDate", LocalDate.of(2026, 9, 1),
-                            "PlanName", "Gym Only - 1 Month",
-                            "PlanType", "GYM_ONLY"
-                    )), 0));
+                    return mapper.mapRow(resultSet(Map.of(
+                            "UserID", 5,
+                            "FullName", "Customer Minh",
+                            "Email", "customer@gymcore.local",
+                            "Phone", "0900000004"
+                    )), 0);
                 });
 
+        when(membershipStates.resolveFresh(5)).thenReturn(membershipState(5,
+                membership(12, "SCHEDULED", LocalDate.of(2026, 8, 2), LocalDate.of(2026, 9, 1),
+                        "Gym Only - 1 Month", "GYM_ONLY")));
+
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
                 service.execute("reception-scan-checkin", Map.of(
                         "authorizationHeader", "Bearer ok",
@@ -147,7 +213,8 @@ class CheckinHealthServiceTest {
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
         assertNotNull(exception.getReason());
         assertTrue(exception.getReason().contains("not active yet"));
-        verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CheckIns"), any(), any(), any());
+        verify(jdbcTemplate, never()).queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                any(), any(), any());
     }
 
     @Test
@@ -167,11 +234,6 @@ class CheckinHealthServiceTest {
                     )), 0);
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = 'ACTIVE'"), any(RowMapper.class), eq(5))).thenReturn(List.of());
-        when(jdbcTemplate.query(contains("cm.Status = 'SCHEDULED'"), any(RowMapper.class), eq(5))).thenReturn(List.of());
-        when(jdbcTemplate.query(contains("cm.Status = 'EXPIRED'"), any(RowMapper.class), eq(5))).thenReturn(List.of());
-        when(jdbcTemplate.query(contains("cm.Status = 'PENDING'"), any(RowMapper.class), eq(5))).thenReturn(List.of());
-
         @SuppressWarnings("unchecked")
         Map<String, Object> data = service.execute("reception-validate-membership", Map.of(
                 "authorizationHeader", "Bearer ok",
@@ -182,6 +244,153 @@ class CheckinHealthServiceTest {
         assertEquals("Customer does not have a valid membership.", data.get("reason"));
     }
 
+    @Test
+    void receptionBatchCheckin_shouldValidateAtScanTimeAndInsertAcceptedScansInOneBatch() throws Exception {
+        when(authService.requireAuthContext("Bearer ok"))
+                .thenReturn(new AuthService.AuthContext(2, "RECEPTIONIST", "Receptionist GymCore", "reception@gymcore.local"));
+        when(schemaCapabilities.checkinScanIds()).thenReturn(true);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        String scannedYesterday = yesterday.atTime(6, 30).toString();
+
+        AtomicInteger recordedLookups = new AtomicInteger();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            if (recordedLookups.getAndIncrement() == 0) {
+                handler.processRow(resultSet(Map.of("ClientScanID", "scan-c", "CheckInID", 300,
+                        "CheckInTime", Timestamp.valueOf(yesterday.atTime(6, 0)), "CustomerID", 6)));
+            } else {
+                handler.processRow(resultSet(Map.of("ClientScanID", "scan-a", "CheckInID", 301,
+                        "CheckInTime", Timestamp.valueOf(yesterday.atTime(6, 30)), "CustomerID", 5)));
+                handler.processRow(resultSet(Map.of("ClientScanID", "scan-c", "CheckInID", 300,
+                        "CheckInTime", Timestamp.valueOf(yesterday.atTime(6, 0)), "CustomerID", 6)));
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT ClientScanID"), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet(Map.of("UserID", 5, "QrCodeToken", "qr-5")));
+            return null;
+        }).when(jdbcTemplate).query(contains("u.QrCodeToken IN"), any(RowCallbackHandler.class), any(Object[].class));
+        // Expired since the kiosk buffered the scan, but it covered the scan date.
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet(Map.of("CustomerMembershipID", 11, "CustomerID", 5, "Status", "EXPIRED",
+                    "StartDate", yesterday.minusDays(29), "EndDate", yesterday)));
+            return null;
+        }).when(jdbcTemplate).query(contains("cm.Status IN ('ACTIVE', 'EXPIRED')"), any(RowCallbackHandler.class),
+                any(Object[].class));
+        when(jdbcTemplate.batchUpdate(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), anyList()))
+                .thenReturn(new int[] {1});
+
+        List<Map<String, Object>> scans = new ArrayList<>();
+        scans.add(Map.of("scanId", "scan-a", "qrCodeToken", "qr-5", "scannedAt", scannedYesterday));
+        scans.add(Map.of("scanId", "scan-b", "qrCodeToken", "qr-unknown", "scannedAt", scannedYesterday));
+        scans.add(Map.of("scanId", "scan-c", "customerId", 6, "scannedAt", scannedYesterday));
+        scans.add(Map.of("scanId", "scan-a", "qrCodeToken", "qr-5", "scannedAt", scannedYesterday));
+        scans.add(Map.of("scanId", "scan-e", "customerId", 5,
+                "scannedAt", LocalDateTime.now().plusHours(1).toString()));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = service.execute("reception-batch-checkin", Map.of(
+                "authorizationHeader", "Bearer ok",
+                "scans", scans));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> items = (List<Map<String, Object>>) data.get("items");
+        assertEquals(5, items.size());
+        assertEquals("RECORDED", items.get(0).get("status"));
+        assertEquals(301, items.get(0).get("checkInId"));
+        assertEquals(false, items.get(0).get("duplicate"));
+        assertEquals("REJECTED", items.get(1).get("status"));
+        assertTrue(String.valueOf(items.get(1).get("reason")).contains("QR code is invalid"));
+        assertEquals("RECORDED", items.get(2).get("status"));
+        assertEquals(true, items.get(2).get("duplicate"));
+        assertEquals(300, items.get(2).get("checkInId"));
+        assertEquals("RECORDED", items.get(3).get("status"));
+        assertEquals(true, items.get(3).get("duplicate"));
+        assertEquals(301, items.get(3).get("checkInId"));
+        assertEquals("REJECTED", items.get(4).get("status"));
+        assertEquals("scannedAt is in the future.", items.get(4).get("reason"));
+        assertEquals(3, data.get("recorded"));
+        assertEquals(2, data.get("rejected"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        Object[] row = rows.getValue().getFirst();
+        assertEquals(5, row[0]);
+        assertEquals(11, row[1]);
+        assertEquals(2, row[2]);
+        assertEquals(Timestamp.valueOf(yesterday.atTime(6, 30)), row[3]);
+        assertEquals("scan-a", row[4]);
+        // Only the newly inserted scan counts towards occupancy.
+        verify(occupancyService).recordCheckin(yesterday.atTime(6, 30));
+    }
+
+    @Test
+    void receptionBatchCheckin_shouldMarkScanInsertedByConcurrentFlushAsDuplicate() throws Exception {
+        LocalDate yesterday = stubSingleBatchScan();
+        // Another flush of the same buffer inserted scan-a between the lookup and this insert.
+        when(jdbcTemplate.batchUpdate(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), anyList()))
+                .thenReturn(new int[] {0});
+
+        Map<String, Object> item = singleBatchItem();
+
+        assertEquals("RECORDED", item.get("status"));
+        assertEquals(true, item.get("duplicate"));
+        assertEquals(301, item.get("checkInId"));
+        verify(occupancyService, never()).recordCheckin(yesterday.atTime(6, 30));
+    }
+
+    @Test
+    void receptionBatchCheckin_shouldRejectOnlyScansTheMembershipTriggerBlocks() throws Exception {
+        stubSingleBatchScan();
+        UncategorizedSQLException triggerRejection = new UncategorizedSQLException("batch check-in",
+                CheckinHealthService.INSERT_BATCH_CHECKIN_SQL,
+                new SQLException("Check-in blocked: membership must be ACTIVE and valid for that date.", "S0001",
+                        CheckinHealthService.USER_RAISED_ERROR_CODE));
+        when(jdbcTemplate.batchUpdate(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), anyList()))
+                .thenThrow(triggerRejection);
+        when(jdbcTemplate.update(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), any(Object[].class)))
+                .thenThrow(triggerRejection);
+
+        Map<String, Object> item = singleBatchItem();
+
+        assertEquals("REJECTED", item.get("status"));
+        assertEquals("Membership was not valid for check-in at scan time.", item.get("reason"));
+        verify(occupancyService, never()).recordCheckin(any(LocalDateTime.class));
+    }
+
+    @Test
+    void receptionBatchCheckin_shouldFailRetryablyWhenInsertFailsForOtherReasons() throws Exception {
+        stubSingleBatchScan();
+        when(jdbcTemplate.batchUpdate(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), anyList()))
+                .thenThrow(new CannotAcquireLockException("deadlock victim"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, this::singleBatchItem);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verify(jdbcTemplate, never()).update(eq(CheckinHealthService.INSERT_BATCH_CHECKIN_SQL), any(Object[].class));
+        verify(occupancyService, never()).recordCheckin(any(LocalDateTime.class));
+    }
+
+    @Test
+    void receptionBatchCheckin_shouldRequireScanIdColumn() {
+        when(authService.requireAuthContext("Bearer ok"))
+                .thenReturn(new AuthService.AuthContext(2, "RECEPTIONIST", "Receptionist GymCore", "reception@gymcore.local"));
+        when(schemaCapabilities.checkinScanIds()).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("reception-batch-checkin", Map.of(
+                        "authorizationHeader", "Bearer ok",
+                        "scans", List.of(Map.of("scanId", "scan-a", "customerId", 5,
+                                "scannedAt", LocalDateTime.now().toString())))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
     @Test
     void receptionScanCheckin_shouldRejectWhenCustomerReferenceMissing() {
         when(authService.requireAuthContext("Bearer ok"))
@@ -347,7 +556,8 @@ class CheckinHealthServiceTest {
         assertEquals(Boolean.FALSE, followUp.get("customerCanWriteCoachNotes"));
         assertEquals("PREPARE_FOR_NEXT_PT_SESSION", followUp.get("recommendedFocus"));
         verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CustomerHealthHistory"), any(), any(), any());
-        verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CheckIns"), any(), any(), any());
+        verify(jdbcTemplate, never()).queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                any(), any(), any());
     }
 
     @Test
@@ -394,7 +604,8 @@ class CheckinHealthServiceTest {
         assertEquals(Boolean.FALSE, followUp.get("hasActivePt"));
         assertEquals("NONE", followUp.get("currentPtStatus"));
         verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CustomerHealthHistory"), any(), any(), any());
-        verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CheckIns"), any(), any(), any());
+        verify(jdbcTemplate, never()).queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                any(), any(), any());
     }
 
     @Test
@@ -468,7 +679,77 @@ class CheckinHealthServiceTest {
         assertTrue(aggregate.containsKey("latestNoteSignal"));
         assertTrue(aggregate.containsKey("latestProgressSignal"));
         verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CustomerHealthHistory"), any(), any(), any());
-        verify(jdbcTemplate, never()).update(contains("INSERT INTO dbo.CheckIns"), any(), any(), any());
+        verify(jdbcTemplate, never()).queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                any(), any(), any());
+    }
+
+    /** One new scan-a for customer 5 with an ACTIVE membership; the post-insert lookup finds CheckInID 301. */
+    private LocalDate stubSingleBatchScan() throws Exception {
+        when(authService.requireAuthContext("Bearer ok"))
+                .thenReturn(new AuthService.AuthContext(2, "RECEPTIONIST", "Receptionist GymCore", "reception@gymcore.local"));
+        when(schemaCapabilities.checkinScanIds()).thenReturn(true);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        AtomicInteger recordedLookups = new AtomicInteger();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            if (recordedLookups.getAndIncrement() > 0) {
+                handler.processRow(resultSet(Map.of("ClientScanID", "scan-a", "CheckInID", 301,
+                        "CheckInTime", Timestamp.valueOf(yesterday.atTime(6, 0)), "CustomerID", 5)));
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT ClientScanID"), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet(Map.of("CustomerMembershipID", 11, "CustomerID", 5, "Status", "ACTIVE",
+                    "StartDate", yesterday.minusDays(29), "EndDate", yesterday.plusDays(30))));
+            return null;
+        }).when(jdbcTemplate).query(contains("cm.Status IN ('ACTIVE', 'EXPIRED')"), any(RowCallbackHandler.class),
+                any(Object[].class));
+        return yesterday;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> singleBatchItem() {
+        Map<String, Object> data = service.execute("reception-batch-checkin", Map.of(
+                "authorizationHeader", "Bearer ok",
+                "scans", List.of(Map.of("scanId", "scan-a", "customerId", 5,
+                        "scannedAt", LocalDate.now().minusDays(1).atTime(6, 30).toString()))));
+        return ((List<Map<String, Object>>) data.get("items")).getFirst();
+    }
+
+    private void stubInsertCheckin(int customerId, int membershipId, int receptionistId, int checkInId) {
+        when(jdbcTemplate.queryForObject(eq(CheckinHealthService.INSERT_CHECKIN_SQL), any(RowMapper.class),
+                eq(customerId), eq(membershipId), eq(receptionistId)))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    RowMapper<Map<String, Object>> mapper = invocation.getArgument(1);
+                    return mapper.mapRow(resultSet(Map.of(
+                            "CheckInID", checkInId,
+                            "CheckInTime", Timestamp.from(Instant.parse("2026-02-17T10:00:00Z"))
+                    )), 0);
+                });
+    }
+
+    private MembershipStateResolver.MembershipState membershipState(int customerId,
+            MembershipStateResolver.Membership... memberships) {
+        return new MembershipStateResolver.MembershipState(customerId, List.of(memberships));
+    }
+
+    private MembershipStateResolver.Membership membership(int customerMembershipId, String status,
+            LocalDate startDate, LocalDate endDate, String planName, String planType) {
+        return new MembershipStateResolver.Membership(customerMembershipId, 1, status, startDate, endDate, planName,
+                planType, "GYM_PLUS_COACH".equals(planType));
+    }
+
+    private CheckinPassCache.Pass cachedPass() {
+        return new CheckinPassCache.Pass(5, "Customer Minh", "customer@gymcore.local", "0900000004", "qr-5", 11,
+                "Gym + Coach - 6 Months", "GYM_PLUS_COACH", LocalDate.of(2026, 2, 1), LocalDate.of(2026, 8, 1));
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
     }
 
     private ResultSet resultSet(Map<String, Object> values) throws Exception {
@@ -0,0 +1,180 @@
+package com.gymcore.backend.modules.checkin.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.web.server.ResponseStatusException;
+
+class CheckinOccupancyServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SchemaCapabilities schemaCapabilities;
+    private CheckinOccupancyService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        service = new CheckinOccupancyService(jdbcTemplate, schemaCapabilities);
+        setField(service, "dwellMinutes", 90);
+        setField(service, "capacity", 0);
+    }
+
+    @Test
+    void occupancy_shouldCountCheckinsWithinDwellTime() throws Exception {
+        setField(service, "capacity", 40);
+        LocalDateTime now = LocalDateTime.now();
+        service.recordCheckin(now);
+        service.recordCheckin(now);
+        service.recordCheckin(now.minusMinutes(30));
+        service.recordCheckin(now.minusMinutes(75));
+        service.recordCheckin(now.minusMinutes(120));
+        service.recordCheckin(now.plusMinutes(5));
+
+        Map<String, Object> data = service.occupancy();
+
+        assertEquals(4L, data.get("currentOccupancy"));
+        assertEquals(3L, data.get("checkinsLastHour"));
+        assertEquals(90, data.get("dwellMinutes"));
+        assertEquals(40, data.get("capacity"));
+        assertEquals(new BigDecimal("10.0"), data.get("utilizationPercent"));
+    }
+
+    @Test
+    void occupancy_shouldHideUtilizationWithoutCapacity() {
+        service.recordCheckin(LocalDateTime.now());
+
+        Map<String, Object> data = service.occupancy();
+
+        assertEquals(1L, data.get("currentOccupancy"));
+        assertNull(data.get("capacity"));
+        assertNull(data.get("utilizationPercent"));
+    }
+
+    @Test
+    void recordCheckin_shouldNotLoseCountsUnderConcurrentScans() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        service.recordCheckin(now);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(8_000L, service.occupancy().get("currentOccupancy"));
+    }
+
+    @Test
+    void seed_shouldLoadPerMinuteCountsOfLastDwellWindow() throws Exception {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(10);
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getTimestamp("CheckInMinute")).thenReturn(Timestamp.valueOf(minute));
+        when(rs.getInt("CheckInCount")).thenReturn(7);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(eq(CheckinOccupancyService.RECENT_CHECKINS_BY_MINUTE_SQL),
+                any(RowCallbackHandler.class), eq(90));
+
+        assertEquals(7L, service.seed());
+
+        assertEquals(7L, service.occupancy().get("currentOccupancy"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void heatmap_shouldAverageRollupByWeekdayAndHour() throws Exception {
+        when(schemaCapabilities.checkinHourlyRollup()).thenReturn(true);
+        LocalDate today = LocalDate.now();
+        LocalDate lastMonday = today.minusDays(1).with(DayOfWeek.MONDAY);
+        ResultSet first = rollupRow(lastMonday, 18, 12);
+        ResultSet second = rollupRow(lastMonday.minusWeeks(1), 18, 6);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(first);
+            handler.processRow(second);
+            return null;
+        }).when(jdbcTemplate).query(eq(CheckinOccupancyService.HOURLY_ROLLUP_SQL), any(RowCallbackHandler.class),
+                eq(Date.valueOf(today.minusWeeks(4))), eq(Date.valueOf(today)));
+
+        Map<String, Object> data = service.heatmap(4);
+
+        assertEquals(4, data.get("weeks"));
+        List<Map<String, Object>> days = (List<Map<String, Object>>) data.get("days");
+        assertEquals(7, days.size());
+        assertEquals("MONDAY", days.getFirst().get("dayOfWeek"));
+        assertEquals(18L, ((List<Long>) days.getFirst().get("totals")).get(18));
+        assertEquals(new BigDecimal("4.50"), ((List<BigDecimal>) days.getFirst().get("averages")).get(18));
+        Map<String, Object> peak = (Map<String, Object>) data.get("peak");
+        assertEquals("MONDAY", peak.get("dayOfWeek"));
+        assertEquals(18, peak.get("hour"));
+    }
+
+    @Test
+    void heatmap_shouldRequireRollupTableAndValidWeeks() {
+        when(schemaCapabilities.checkinHourlyRollup()).thenReturn(false);
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class, () -> service.heatmap(null));
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+
+        when(schemaCapabilities.checkinHourlyRollup()).thenReturn(true);
+        ResponseStatusException invalid = assertThrows(ResponseStatusException.class, () -> service.heatmap(53));
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+
+        verify(jdbcTemplate, never()).query(eq(CheckinOccupancyService.HOURLY_ROLLUP_SQL),
+                any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private ResultSet rollupRow(LocalDate date, int hour, int count) throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getDate("CheckInDate")).thenReturn(Date.valueOf(date));
+        when(rs.getInt("HourOfDay")).thenReturn(hour);
+        when(rs.getInt("CheckInCount")).thenReturn(count);
+        return rs;
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,99 @@
+package com.gymcore.backend.modules.checkin.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class CheckinPassCacheTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CheckinPassCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        cache = new CheckinPassCache(jdbcTemplate);
+        setField(cache, "ttlSeconds", 900L);
+    }
+
+    @Test
+    void warm_shouldIndexActivePassesByCustomerAndQrToken() throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getInt("UserID")).thenReturn(5);
+        when(rs.getString("FullName")).thenReturn("Customer Minh");
+        when(rs.getString("QrCodeToken")).thenReturn("qr-5");
+        when(rs.getInt("CustomerMembershipID")).thenReturn(11);
+        when(rs.getString("PlanName")).thenReturn("Gym Only - 1 Month");
+        when(rs.getDate("StartDate")).thenReturn(Date.valueOf(LocalDate.now().minusDays(3)));
+        when(rs.getDate("EndDate")).thenReturn(Date.valueOf(LocalDate.now().plusDays(27)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(eq(CheckinPassCache.WARM_SQL), any(RowCallbackHandler.class));
+
+        assertEquals(1, cache.warm());
+
+        assertEquals(11, cache.findByCustomerId(5).customerMembershipId());
+        assertEquals(5, cache.findByQrToken("qr-5").customerId());
+        assertNull(cache.findByQrToken("qr-other"));
+    }
+
+    @Test
+    void find_shouldMissOutsideMembershipDates() {
+        cache.put(cache.stamp(), pass(5, LocalDate.now().minusDays(30), LocalDate.now().minusDays(1)));
+        cache.put(cache.stamp(), pass(6, LocalDate.now().plusDays(1), LocalDate.now().plusDays(30)));
+
+        assertNull(cache.findByCustomerId(5));
+        assertNull(cache.findByCustomerId(6));
+    }
+
+    @Test
+    void invalidateCustomer_shouldDropPassAndRejectPutsFromOlderReads() {
+        long staleStamp = cache.stamp();
+        cache.put(staleStamp, pass(5, LocalDate.now(), LocalDate.now().plusDays(10)));
+
+        cache.invalidateCustomer(5);
+
+        assertNull(cache.findByCustomerId(5));
+        assertNull(cache.findByQrToken("qr-5"));
+        assertFalse(cache.put(staleStamp, pass(5, LocalDate.now(), LocalDate.now().plusDays(10))));
+        assertTrue(cache.put(cache.stamp(), pass(5, LocalDate.now(), LocalDate.now().plusDays(10))));
+        assertEquals(5, cache.findByQrToken("qr-5").customerId());
+    }
+
+    @Test
+    void put_shouldNotCacheWhenTtlIsZero() throws Exception {
+        setField(cache, "ttlSeconds", 0L);
+
+        assertFalse(cache.put(cache.stamp(), pass(5, LocalDate.now(), LocalDate.now().plusDays(10))));
+        assertNull(cache.findByCustomerId(5));
+        assertEquals(0, cache.warm());
+    }
+
+    private CheckinPassCache.Pass pass(int customerId, LocalDate startDate, LocalDate endDate) {
+        return new CheckinPassCache.Pass(customerId, "Customer " + customerId, null, null, "qr-" + customerId, 11,
+                "Gym Only - 1 Month", "GYM_ONLY", startDate, endDate);
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,133 @@
+package com.gymcore.backend.modules.coach.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Stubber;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+class CoachAvailabilityIndexServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CoachAvailabilityIndexService index;
+    private LocalDate monday;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        index = new CoachAvailabilityIndexService(jdbcTemplate);
+        monday = LocalDate.now().plusDays(8 - LocalDate.now().getDayOfWeek().getValue());
+        when(jdbcTemplate.query(eq(CoachAvailabilityIndexService.TIME_SLOT_IDS_SQL), any(RowMapper.class)))
+                .thenReturn(List.of(1, 2));
+    }
+
+    @Test
+    void viewCoaches_shouldLoadEveryCoachInOnePassAndServeLaterReadsFromMemory() {
+        feedRows(List.of(
+                Map.of("CoachID", 20, "DayOfWeek", 1, "TimeSlotID", 1),
+                Map.of("CoachID", 21, "DayOfWeek", 2, "TimeSlotID", 2)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.WEEKLY_AVAILABILITY_SQL),
+                        any(RowCallbackHandler.class));
+
+        index.viewCoaches(List.of(20, 21), monday, monday.plusDays(27));
+        Map<Integer, CoachAvailabilityIndexService.CoachSlotView> views =
+                index.viewCoaches(List.of(20, 21), monday, monday.plusDays(27));
+
+        assertTrue(views.get(20).isWeeklyAvailable(1, 1));
+        assertFalse(views.get(20).isWeeklyAvailable(2, 2));
+        assertEquals(List.of(2), views.get(21).availableTimeSlotIds(2));
+        verify(jdbcTemplate, times(1)).query(eq(CoachAvailabilityIndexService.WEEKLY_AVAILABILITY_SQL),
+                any(RowCallbackHandler.class));
+        verify(jdbcTemplate, Mockito.never()).query(anyString(), any(RowCallbackHandler.class), eq(20));
+    }
+
+    @Test
+    void viewCoach_shouldDefaultToFullWeekWhenCoachHasNoConfiguredRows() {
+        CoachAvailabilityIndexService.CoachSlotView view = index.viewCoach(30, monday, monday.plusDays(6));
+
+        assertEquals(List.of(1, 2), view.availableTimeSlotIds(7));
+        assertTrue(view.isWeeklyAvailable(4, 2));
+    }
+
+    @Test
+    void bookedSessions_shouldOnlyConflictInsideRequestedRangeAndFollowWrites() {
+        feedRows(List.of(Map.of("CoachID", 20, "DayOfWeek", 1, "TimeSlotID", 1)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.WEEKLY_AVAILABILITY_SQL),
+                        any(RowCallbackHandler.class));
+        feedRows(List.of(Map.of("CoachID", 20, "SessionDate", monday.plusWeeks(2), "TimeSlotID", 1)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.BOOKED_SESSIONS_SQL),
+                        any(RowCallbackHandler.class), any(LocalDate.class));
+
+        assertFalse(index.viewCoach(20, monday, monday.plusDays(6)).isBooked(1, 1));
+        assertTrue(index.viewCoach(20, monday, monday.plusWeeks(3)).isBooked(1, 1));
+
+        index.releaseSession(20, monday.plusWeeks(2), 1);
+        assertFalse(index.viewCoach(20, monday, monday.plusWeeks(3)).isBooked(1, 1));
+
+        index.markSessionBooked(20, monday, 2);
+        assertTrue(index.viewCoach(20, monday, monday).isBooked(1, 2));
+    }
+
+    @Test
+    void unavailableBlock_shouldMarkEveryWeekdayItCovers() {
+        index.viewCoach(20, monday, monday);
+        index.addUnavailableBlock(20, monday, monday.plusDays(1), null);
+
+        CoachAvailabilityIndexService.CoachSlotView view = index.viewCoach(20, monday, monday.plusDays(13));
+        assertTrue(view.isBooked(1, 1));
+        assertTrue(view.isBooked(2, 2));
+        assertFalse(view.isBooked(3, 1));
+    }
+
+    @Test
+    void replaceWeeklyAvailability_shouldSwapWeeklyBits() {
+        index.viewCoach(20, monday, monday);
+
+        index.replaceWeeklyAvailability(20, List.of(new int[] { 5, 2 }));
+
+        CoachAvailabilityIndexService.CoachSlotView view = index.viewCoach(20, monday, monday);
+        assertTrue(view.isWeeklyAvailable(5, 2));
+        assertFalse(view.isWeeklyAvailable(1, 1));
+    }
+
+    private Stubber feedRows(List<Map<String, Object>> rows) {
+        return doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map<String, Object> row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        });
+    }
+
+    private ResultSet resultSet(Map<String, Object> values) throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getInt(anyString())).thenAnswer(invocation -> {
+            Object value = values.get(invocation.getArgument(0));
+            return value == null ? 0 : ((Number) value).intValue();
+        });
+        when(rs.getDate(anyString())).thenAnswer(invocation -> {
+            Object value = values.get(invocation.getArgument(0));
+            return value instanceof LocalDate localDate ? java.sql.Date.valueOf(localDate) : null;
+        });
+        when(rs.wasNull()).thenReturn(false);
+        return rs;
+    }
+}
@@ -5,30 +5,43 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.RatingAggregateService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.AuthService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class CoachBookingServiceTest {
@@ -36,6 +49,9 @@ class CoachBookingServiceTest {
     private JdbcTemplate jdbcTemplate;
     private AuthService authService;
     private UserNotificationService notificationService;
+    private SchemaCapabilities schemaCapabilities;
+    private RatingAggregateService ratingAggregates;
+    private MembershipStateResolver membershipStates;
     private CoachBookingService service;
 
     @BeforeEach
@@ -43,7 +59,55 @@ class CoachBookingServiceTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         authService = Mockito.mock(AuthService.class);
         notificationService = Mockito.mock(UserNotificationService.class);
-        service = new CoachBookingService(jdbcTemplate, authService, notificationService);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        ratingAggregates = Mockito.mock(RatingAggregateService.class);
+        membershipStates = Mockito.mock(MembershipStateResolver.class);
+        when(membershipStates.resolveFresh(anyInt())).thenAnswer(invocation ->
+                new MembershipStateResolver.MembershipState(invocation.getArgument(0), List.of()));
+        CoachAvailabilityIndexService availabilityIndex = new CoachAvailabilityIndexService(jdbcTemplate);
+        service = new CoachBookingService(jdbcTemplate, authService, notificationService, availabilityIndex,
+                new PtSessionMaterializerService(jdbcTemplate, availabilityIndex),
+                Mockito.mock(GeminiCatalogSnapshotService.class), Mockito.mock(AdminDashboardSnapshotService.class),
+                schemaCapabilities, ratingAggregates,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), membershipStates);
+    }
+
+    @Test
+    void customerSubmitFeedback_shouldApplyRatingToCoachAggregate() {
+        when(authService.requireAuthContext("Bearer customer"))
+                .thenReturn(new AuthService.AuthContext(10, "CUSTOMER", "Customer Minh", "customer@gymcore.local"));
+        when(jdbcTemplate.query(contains("SELECT CoachID FROM dbo.PTSessions"), any(RowMapper.class), eq(77), eq(10)))
+                .thenReturn(List.of(20));
+        when(jdbcTemplate.update(contains("INSERT INTO dbo.CoachFeedback"), eq(77), eq(10), eq(20), eq(4), eq("Great")))
+                .thenReturn(1);
+
+        Map<String, Object> result = service.execute("customer-submit-feedback", Map.of(
+                "authorizationHeader", "Bearer customer",
+                "ptSessionId", 77,
+                "rating", 4,
+                "comment", "Great"));
+
+        assertEquals(4, result.get("rating"));
+        verify(ratingAggregates).applyCoachRating(20, 4, null);
+    }
+
+    @Test
+    void customerSubmitFeedback_shouldNotTouchAggregateWhenAlreadySubmitted() {
+        when(authService.requireAuthContext("Bearer customer"))
+                .thenReturn(new AuthService.AuthContext(10, "CUSTOMER", "Customer Minh", "customer@gymcore.local"));
+        when(jdbcTemplate.query(contains("SELECT CoachID FROM dbo.PTSessions"), any(RowMapper.class), eq(77), eq(10)))
+                .thenReturn(List.of(20));
+        when(jdbcTemplate.update(contains("INSERT INTO dbo.CoachFeedback"), eq(77), eq(10), eq(20), eq(4), eq(null)))
+                .thenThrow(new DuplicateKeyException("UQ_CoachFeedback_Session"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> service.execute(
+                "customer-submit-feedback", Map.of(
+                        "authorizationHeader", "Bearer customer",
+                        "ptSessionId", 77,
+                        "rating", 4)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(ratingAggregates, never()).applyCoachRating(20, 4, null);
     }
 
     @Test
@@ -81,31 +145,14 @@ class CoachBookingServiceTest {
         when(jdbcTemplate.query(contains("FROM dbo.PTRecurringRequests"), any(RowMapper.class), eq(10)))
                 .thenReturn(List.of());
 
-        when(jdbcTemplate.query(contains("UPPER(mp.PlanType) IN ('GYM_PLUS_COACH', 'GYM_COACH')"), any(RowMapper.class),
-                eq(10), eq(requestStart), eq(requestStart)))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    ResultSet rs = Mockito.mock(ResultSet.class);
-                    when(rs.getInt("CustomerMembershipID")).thenReturn(77);
-                    when(rs.getBoolean("AllowsCoachBooking")).thenReturn(true);
-                    when(rs.getDate("EndDate")).thenReturn(java.sql.Date.valueOf(requestEnd));
-                    return List.of(mapper.mapRow(rs, 0));
-                });
+        stubCoachMembership(10, 77, requestEnd);
 
         when(jdbcTemplate.query(eq("SELECT 1 FROM dbo.Coaches WHERE CoachID = ?"), any(RowMapper.class), eq(20)))
                 .thenReturn(List.of(1));
 
-        when(jdbcTemplate.query(contains("FROM dbo.CoachWeeklyAvailability"), any(RowMapper.class), eq(20)))
-                .thenReturn(List.of(Map.of("dayOfWeek", 1, "timeSlotId", 1)));
-
-        when(jdbcTemplate.query(
-                contains("WHERE s.CoachID = ? AND s.SessionDate >= ? AND s.SessionDate <= ?"),
-                any(RowMapper.class),
-                eq(20),
-                eq(requestStart),
-                eq(requestEnd)))
-                .thenReturn(List.of());
+        feedRows(List.of(Map.of("CoachID", 20, "DayOfWeek", 1, "TimeSlotID", 1)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.WEEKLY_AVAILABILITY_SQL + " WHERE c.CoachID = ?"),
+                        any(RowCallbackHandler.class), eq(20));
 
         when(jdbcTemplate.update(any(org.springframework.jdbc.core.PreparedStatementCreator.class), any(org.springframework.jdbc.support.KeyHolder.class)))
                 .thenReturn(1);
@@ -117,8 +164,7 @@ class CoachBookingServiceTest {
                 .thenReturn(List.of(901));
 
         when(jdbcTemplate.update(contains("INSERT INTO dbo.PTRequestSlots"), eq(901), eq(1), eq(1))).thenReturn(1);
-        when(jdbcTemplate.update(contains("INSERT INTO dbo.PTSessions"), eq(901), eq(10), eq(20), any(LocalDate.class), eq(1), eq(1)))
-                .thenReturn(1);
+        acceptMergedSessions();
 
         @SuppressWarnings("unchecked")
         Map<String, Object> result = (Map<String, Object>) service.execute("customer-create-instant-booking", Map.of(
@@ -417,10 +463,7 @@ class CoachBookingServiceTest {
                 contains("WHERE CoachID = ? AND DayOfWeek = ? AND TimeSlotID = ? AND IsAvailable = 1"),
                 eq(Integer.class), eq(20), eq(1), eq(2)))
                 .thenReturn(1);
-        when(jdbcTemplate.queryForObject(
-                contains("WHERE PTRequestID = ? AND SessionDate = ? AND TimeSlotID = ?"),
-                eq(Integer.class), eq(900), any(LocalDate.class), eq(2)))
-                .thenReturn(0);
+        List<Object[]> mergeCalls = acceptMergedSessions();
         when(jdbcTemplate.update(contains("DELETE FROM dbo.PTSessions"), eq(900), eq(LocalDate.now().plusDays(7))))
                 .thenReturn(2);
         when(jdbcTemplate.update(contains("DELETE FROM dbo.PTRequestSlots"), eq(900))).thenReturn(1);
@@ -439,8 +482,9 @@ class CoachBookingServiceTest {
 
         assertEquals("UPDATED", result.get("status"));
         verify(jdbcTemplate).update(contains("DELETE FROM dbo.PTRequestSlots"), eq(900));
-        verify(jdbcTemplate, atLeastOnce()).update(contains("INSERT INTO dbo.PTSessions"), eq(900), eq(10), eq(20),
-                any(LocalDate.class), eq(1), eq(2));
+        assertEquals(1, mergeCalls.size());
+        assertMergeTarget(mergeCalls.get(0), 900, 10, 20);
+        assertEquals(2, mergeCalls.get(0)[2]);
     }
 
     @Test
@@ -486,23 +530,7 @@ class CoachBookingServiceTest {
                 eq(renewalEndDate)))
                 .thenReturn(1);
 
-        when(jdbcTemplate.queryForObject(
-                contains("FROM dbo.PTSessions"),
-                eq(Integer.class),
-                eq(900),
-                any(LocalDate.class),
-                eq(1)))
-                .thenReturn(0);
-
-        when(jdbcTemplate.update(
-                contains("INSERT INTO dbo.PTSessions"),
-                eq(900),
-                eq(10),
-                eq(20),
-                any(LocalDate.class),
-                eq(renewalStartDate.getDayOfWeek().getValue()),
-                eq(1)))
-                .thenReturn(1);
+        List<Object[]> mergeCalls = acceptMergedSessions();
 
         service.extendApprovedPtCoverageIfNeeded(10, 901, renewalStartDate, renewalEndDate);
 
@@ -513,14 +541,11 @@ class CoachBookingServiceTest {
                 eq(900),
                 eq(10),
                 eq(renewalEndDate));
-        verify(jdbcTemplate, atLeastOnce()).update(
-                contains("INSERT INTO dbo.PTSessions"),
-                eq(900),
-                eq(10),
-                eq(20),
-                any(LocalDate.class),
-                eq(renewalStartDate.getDayOfWeek().getValue()),
-                eq(1));
+        assertEquals(1, mergeCalls.size());
+        assertMergeTarget(mergeCalls.get(0), 900, 10, 20);
+        assertEquals(renewalStartDate, mergeCalls.get(0)[0]);
+        assertEquals(renewalStartDate.getDayOfWeek().getValue(), mergeCalls.get(0)[1]);
+        assertEquals(1, mergeCalls.get(0)[2]);
     }
 
     @Test
@@ -644,10 +669,7 @@ class CoachBookingServiceTest {
                 eq(10)))
                 .thenReturn(List.of());
 
-        when(jdbcTemplate.queryForObject(
-                contains("COL_LENGTH('dbo.PTRecurringRequests', 'DenyReason')"),
-                eq(Integer.class)))
-                .thenReturn(1);
+        when(schemaCapabilities.ptRequestDenyReason()).thenReturn(true);
 
         when(jdbcTemplate.query(
                 contains("WHERE r.CustomerID = ? AND r.Status = 'DENIED'"),
@@ -1100,17 +1122,7 @@ class CoachBookingServiceTest {
         when(jdbcTemplate.query(contains("FROM dbo.PTRecurringRequests"), any(RowMapper.class), eq(10)))
                 .thenReturn(List.of());
 
-        when(jdbcTemplate.query(contains("UPPER(mp.PlanType) IN ('GYM_PLUS_COACH', 'GYM_COACH')"), any(RowMapper.class),
-                eq(10), any(LocalDate.class), any(LocalDate.class)))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    ResultSet rs = Mockito.mock(ResultSet.class);
-                    when(rs.getInt("CustomerMembershipID")).thenReturn(77);
-                    when(rs.getBoolean("AllowsCoachBooking")).thenReturn(true);
-                    when(rs.getDate("EndDate")).thenReturn(java.sql.Date.valueOf(LocalDate.now().plusDays(28)));
-                    return List.of(mapper.mapRow(rs, 0));
-                });
+        stubCoachMembership(10, 77, LocalDate.now().plusDays(28));
 
         when(jdbcTemplate.query(contains("FROM dbo.Coaches"), any(RowMapper.class)))
                 .thenReturn(List.of(
@@ -1121,28 +1133,12 @@ class CoachBookingServiceTest {
                                 "phone", "2", "avatarUrl", null, "experienceYears", 2, "bio", "partial",
                                 "averageRating", 4.5, "reviewCount", 7, "acceptingCustomers", true)));
 
-        when(jdbcTemplate.query(contains("FROM dbo.CoachWeeklyAvailability"), any(RowMapper.class), eq(501)))
-                .thenReturn(List.of(
-                        Map.of("dayOfWeek", 1, "timeSlotId", 1),
-                        Map.of("dayOfWeek", 3, "timeSlotId", 2)));
-        when(jdbcTemplate.query(contains("FROM dbo.CoachWeeklyAvailability"), any(RowMapper.class), eq(502)))
-                .thenReturn(List.of(
-                        Map.of("dayOfWeek", 1, "timeSlotId", 1)));
-
-        when(jdbcTemplate.query(
-                contains("FROM dbo.PTSessions"),
-                any(RowMapper.class),
-                eq(501),
-                any(LocalDate.class),
-                any(LocalDate.class)))
-                .thenReturn(List.of());
-        when(jdbcTemplate.query(
-                contains("FROM dbo.PTSessions"),
-                any(RowMapper.class),
-                eq(502),
-                any(LocalDate.class),
-                any(LocalDate.class)))
-                .thenReturn(List.of());
+        feedRows(List.of(
+                Map.of("CoachID", 501, "DayOfWeek", 1, "TimeSlotID", 1),
+                Map.of("CoachID", 501, "DayOfWeek", 3, "TimeSlotID", 2),
+                Map.of("CoachID", 502, "DayOfWeek", 1, "TimeSlotID", 1)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.WEEKLY_AVAILABILITY_SQL),
+                        any(RowCallbackHandler.class));
 
         @SuppressWarnings("unchecked")
         Map<String, Object> result = (Map<String, Object>) service.execute("customer-match-coaches", Map.of(
@@ -1161,8 +1157,60 @@ class CoachBookingServiceTest {
         assertEquals(501, fullMatches.getFirst().get("coachId"));
         assertEquals(1, partialMatches.size());
         assertEquals(502, partialMatches.getFirst().get("coachId"));
-        verify(jdbcTemplate).query(contains("UPPER(mp.PlanType) IN ('GYM_PLUS_COACH', 'GYM_COACH')"), any(RowMapper.class),
-                eq(10), any(LocalDate.class), any(LocalDate.class));
+        verify(membershipStates).resolveFresh(10);
+        verify(jdbcTemplate, never()).query(contains("FROM dbo.PTSessions"), any(RowMapper.class),
+                eq(501), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    void customerMatchCoaches_shouldTreatBookedSessionAndUnavailableBlockAsConflicts() {
+        LocalDate coverageEnd = LocalDate.now().plusDays(28);
+        LocalDate nextMonday = nextMonday(LocalDate.now().plusDays(1));
+        LocalDate nextWednesday = nextMonday.plusDays(2);
+
+        when(authService.requireAuthContext("Bearer customer"))
+                .thenReturn(new AuthService.AuthContext(10, "CUSTOMER", "Customer Minh", "customer@gymcore.local"));
+        when(jdbcTemplate.query(contains("FROM dbo.PTRecurringRequests"), any(RowMapper.class), eq(10)))
+                .thenReturn(List.of());
+        stubCoachMembership(10, 77, coverageEnd);
+        when(jdbcTemplate.query(contains("FROM dbo.Coaches"), any(RowMapper.class)))
+                .thenReturn(List.of(mapOfNullable("coachId", 501, "fullName", "Coach Busy", "email", "busy@gymcore.local",
+                        "phone", "1", "avatarUrl", null, "experienceYears", 3, "bio", "busy",
+                        "averageRating", 5.0, "reviewCount", 10, "acceptingCustomers", true)));
+        when(jdbcTemplate.query(eq(CoachAvailabilityIndexService.TIME_SLOT_IDS_SQL), any(RowMapper.class)))
+                .thenReturn(List.of(1, 2));
+        feedRows(List.of(
+                Map.of("CoachID", 501, "DayOfWeek", 1, "TimeSlotID", 1),
+                Map.of("CoachID", 501, "DayOfWeek", 1, "TimeSlotID", 2),
+                Map.of("CoachID", 501, "DayOfWeek", 3, "TimeSlotID", 2)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.WEEKLY_AVAILABILITY_SQL),
+                        any(RowCallbackHandler.class));
+        feedRows(List.of(Map.of("CoachID", 501, "SessionDate", nextMonday, "TimeSlotID", 1)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.BOOKED_SESSIONS_SQL),
+                        any(RowCallbackHandler.class), any(LocalDate.class));
+        feedRows(List.of(Map.of("CoachID", 501, "StartDate", nextWednesday, "EndDate", nextWednesday,
+                "TimeSlotID", 2)))
+                .when(jdbcTemplate).query(eq(CoachAvailabilityIndexService.ACTIVE_BLOCKS_SQL),
+                        any(RowCallbackHandler.class), any(LocalDate.class));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) service.execute("customer-match-coaches", Map.of(
+                "authorizationHeader", "Bearer customer",
+                "slots", List.of(
+                        Map.of("dayOfWeek", 1, "timeSlotId", 1),
+                        Map.of("dayOfWeek", 3, "timeSlotId", 2))));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> partialMatches = (List<Map<String, Object>>) result.get("partialMatches");
+        assertEquals(1, partialMatches.size());
+        Map<String, Object> coach = partialMatches.getFirst();
+        assertEquals(0, coach.get("exactMatchedSlots"));
+        assertEquals(1, coach.get("matchedSlots"));
+        assertEquals(1, coach.get("bookedConflictSlots"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> alternatives = (List<Map<String, Object>>) coach.get("alternativeSlots");
+        assertEquals(2, alternatives.getFirst().get("timeSlotId"));
+        assertEquals("BOOKED_IN_RANGE", alternatives.getFirst().get("reason"));
     }
 
     @Test
@@ -1352,6 +1400,12 @@ class CoachBookingServiceTest {
                 eq("PT_SESSION_CANCELLED_BY_COACH_333"));
     }
 
+    private void stubCoachMembership(int customerId, int customerMembershipId, LocalDate endDate) {
+        when(membershipStates.resolveFresh(customerId)).thenReturn(new MembershipStateResolver.MembershipState(
+                customerId, List.of(new MembershipStateResolver.Membership(customerMembershipId, 3, "ACTIVE",
+                        LocalDate.now().minusDays(2), endDate, "Gym + Coach - 1 Month", "GYM_PLUS_COACH", true))));
+    }
+
     private Map<String, Object> mapOfNullable(Object... keyValues) {
         Map<String, Object> map = new LinkedHashMap<>();
         for (int i = 0; i < keyValues.length; i += 2) {
@@ -1360,6 +1414,42 @@ class CoachBookingServiceTest {
         return map;
     }
 
+    /**
+     * Lets every planned session through the PT session MERGE and records the bound arguments
+     * of each call: (date, dayOfWeek, timeSlotId)* followed by the request/customer/coach ids.
+     */
+    private List<Object[]> acceptMergedSessions() {
+        List<Object[]> calls = new ArrayList<>();
+        when(jdbcTemplate.query(contains("MERGE dbo.PTSessions"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] args = (Object[]) invocation.getRawArguments()[2];
+                    calls.add(args);
+                    List<PtSessionMaterializerService.PlannedSession> inserted = new ArrayList<>();
+                    for (int i = 0; i + 5 < args.length; i += 3) {
+                        inserted.add(new PtSessionMaterializerService.PlannedSession((LocalDate) args[i],
+                                (Integer) args[i + 2]));
+                    }
+                    return inserted;
+                });
+        return calls;
+    }
+
+    private void assertMergeTarget(Object[] args, int ptRequestId, int customerId, int coachId) {
+        int tail = args.length - 5;
+        assertEquals(List.of(ptRequestId, coachId, ptRequestId, customerId, coachId),
+                List.of(args).subList(tail, args.length));
+    }
+
+    private org.mockito.stubbing.Stubber feedRows(List<Map<String, Object>> rows) {
+        return doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map<String, Object> row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        });
+    }
+
     private ResultSet resultSet(Map<String, Object> values) throws Exception {
         ResultSet rs = Mockito.mock(ResultSet.class);
         when(rs.getString(anyString())).thenAnswer(invocation -> {
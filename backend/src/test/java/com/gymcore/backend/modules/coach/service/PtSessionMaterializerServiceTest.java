@@ -0,0 +1,114 @@
+package com.gymcore.backend.modules.coach.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+class PtSessionMaterializerServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CoachAvailabilityIndexService availabilityIndex;
+    private PtSessionMaterializerService service;
+    private List<Object[]> mergeCalls;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        availabilityIndex = Mockito.mock(CoachAvailabilityIndexService.class);
+        service = new PtSessionMaterializerService(jdbcTemplate, availabilityIndex);
+        mergeCalls = new ArrayList<>();
+    }
+
+    @Test
+    void materialize_shouldBindRowsThenRequestCustomerAndCoach() {
+        LocalDate monday = LocalDate.of(2026, 3, 2);
+        stubMergeInserting(row -> true);
+
+        PtSessionMaterializerService.MaterializeResult result = service.materialize(900, 10, 20, List.of(
+                new PtSessionMaterializerService.PlannedSession(monday, 1),
+                new PtSessionMaterializerService.PlannedSession(monday.plusDays(2), 3)));
+
+        assertEquals(2, result.created());
+        assertEquals(0, result.skipped());
+        assertEquals(1, mergeCalls.size());
+        assertEquals(List.of(monday, 1, 1, monday.plusDays(2), 3, 3, 900, 20, 900, 10, 20),
+                List.of(mergeCalls.get(0)));
+        verify(availabilityIndex).markSessionBooked(20, monday, 1);
+        verify(availabilityIndex).markSessionBooked(20, monday.plusDays(2), 3);
+    }
+
+    @Test
+    void materialize_shouldCountRowsTheMergeDidNotInsertAsSkipped() {
+        LocalDate monday = LocalDate.of(2026, 3, 2);
+        stubMergeInserting(row -> row.timeSlotId() != 2);
+
+        PtSessionMaterializerService.MaterializeResult result = service.materialize(900, 10, 20, List.of(
+                new PtSessionMaterializerService.PlannedSession(monday, 1),
+                new PtSessionMaterializerService.PlannedSession(monday, 2),
+                new PtSessionMaterializerService.PlannedSession(monday, 1)));
+
+        assertEquals(1, result.created());
+        assertEquals(2, result.skipped());
+        assertEquals(2 * 3 + 5, mergeCalls.get(0).length);
+        verify(availabilityIndex, never()).markSessionBooked(20, monday, 2);
+    }
+
+    @Test
+    void materialize_shouldSplitLargeSchedulesUnderTheParameterLimit() {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        List<PtSessionMaterializerService.PlannedSession> planned = new ArrayList<>();
+        for (int day = 0; day < 400; day++) {
+            planned.add(new PtSessionMaterializerService.PlannedSession(start.plusDays(day), 1));
+            planned.add(new PtSessionMaterializerService.PlannedSession(start.plusDays(day), 2));
+        }
+        stubMergeInserting(row -> true);
+
+        PtSessionMaterializerService.MaterializeResult result = service.materialize(900, 10, 20, planned);
+
+        assertEquals(800, result.created());
+        assertEquals(2, mergeCalls.size());
+        for (Object[] args : mergeCalls) {
+            assertTrue(args.length <= 2100);
+        }
+        assertEquals(PtSessionMaterializerService.MAX_ROWS_PER_STATEMENT * 3 + 5, mergeCalls.get(0).length);
+        assertEquals(300 * 3 + 5, mergeCalls.get(1).length);
+    }
+
+    @Test
+    void materialize_shouldNotTouchTheDatabaseForAnEmptySchedule() {
+        PtSessionMaterializerService.MaterializeResult result = service.materialize(900, 10, 20, List.of());
+
+        assertEquals(0, result.created());
+        verify(jdbcTemplate, never()).query(startsWith("MERGE"), any(RowMapper.class), any(Object[].class));
+    }
+
+    private void stubMergeInserting(java.util.function.Predicate<PtSessionMaterializerService.PlannedSession> inserted) {
+        when(jdbcTemplate.query(startsWith("MERGE dbo.PTSessions"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Object[] args = (Object[]) invocation.getRawArguments()[2];
+                    mergeCalls.add(args);
+                    List<PtSessionMaterializerService.PlannedSession> rows = new ArrayList<>();
+                    for (int i = 0; i + 5 < args.length; i += 3) {
+                        PtSessionMaterializerService.PlannedSession row =
+                                new PtSessionMaterializerService.PlannedSession((LocalDate) args[i], (Integer) args[i + 2]);
+                        if (inserted.test(row)) {
+                            rows.add(row);
+                        }
+                    }
+                    return rows;
+                });
+    }
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
@@ -20,13 +22,15 @@ import org.springframework.web.server.ResponseStatusException;
 class ContentAdminServiceTest {
 
     private JdbcTemplate jdbcTemplate;
+    private GeminiCatalogSnapshotService catalogSnapshotService;
     private ContentAdminService service;
 
     @BeforeEach
     void setUp() {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         CurrentUserService currentUserService = Mockito.mock(CurrentUserService.class);
-        service = new ContentAdminService(jdbcTemplate, currentUserService);
+        catalogSnapshotService = Mockito.mock(GeminiCatalogSnapshotService.class);
+        service = new ContentAdminService(jdbcTemplate, currentUserService, catalogSnapshotService);
     }
 
     @Test
@@ -77,5 +81,16 @@ class ContentAdminServiceTest {
 
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
         assertEquals("Food not found.", exception.getReason());
+        verify(catalogSnapshotService, never()).invalidate(GeminiCatalogSnapshotService.Section.FOODS);
+    }
+
+    @Test
+    void archiveFood_shouldInvalidateFoodCatalogSnapshot() {
+        when(jdbcTemplate.update("UPDATE dbo.Foods SET IsActive = 0 WHERE FoodID = ?", 77)).thenReturn(1);
+
+        Map<String, Object> result = service.archiveFood("Bearer admin", 77);
+
+        assertEquals(false, result.get("active"));
+        verify(catalogSnapshotService).invalidate(GeminiCatalogSnapshotService.Section.FOODS);
     }
 }
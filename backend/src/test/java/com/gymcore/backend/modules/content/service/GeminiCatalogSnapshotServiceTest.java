@@ -0,0 +1,63 @@
+package com.gymcore.backend.modules.content.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+class GeminiCatalogSnapshotServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private GeminiCatalogSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        service = new GeminiCatalogSnapshotService(jdbcTemplate);
+    }
+
+    @Test
+    void current_shouldRenderEachSectionOnlyOnce() {
+        GeminiCatalogSnapshotService.CatalogSnapshot first = service.current();
+        GeminiCatalogSnapshotService.CatalogSnapshot second = service.current();
+
+        assertEquals(first, second);
+        assertEquals("- No active workouts in database.", second.workouts());
+        verify(jdbcTemplate, times(1)).query(eq(GeminiCatalogSnapshotService.WORKOUT_CATALOG_SQL), any(RowMapper.class));
+        verify(jdbcTemplate, times(1)).query(eq(GeminiCatalogSnapshotService.FOOD_CATALOG_SQL), any(RowMapper.class));
+        verify(jdbcTemplate, times(1)).query(eq(GeminiCatalogSnapshotService.COACH_CATALOG_SQL), any(RowMapper.class));
+        verify(jdbcTemplate, times(1)).query(eq(GeminiCatalogSnapshotService.PRODUCT_CATALOG_SQL), any(RowMapper.class));
+    }
+
+    @Test
+    void invalidate_shouldReRenderOnlyTheChangedSection() {
+        GeminiCatalogSnapshotService.CatalogSnapshot before = service.current();
+
+        service.invalidate(GeminiCatalogSnapshotService.Section.PRODUCTS);
+        GeminiCatalogSnapshotService.CatalogSnapshot after = service.current();
+
+        assertNotEquals(before.version(), after.version());
+        verify(jdbcTemplate, times(2)).query(eq(GeminiCatalogSnapshotService.PRODUCT_CATALOG_SQL), any(RowMapper.class));
+        verify(jdbcTemplate, times(1)).query(eq(GeminiCatalogSnapshotService.FOOD_CATALOG_SQL), any(RowMapper.class));
+    }
+
+    @Test
+    void current_shouldNotCacheSectionThatFailedToLoad() {
+        when(jdbcTemplate.query(eq(GeminiCatalogSnapshotService.COACH_CATALOG_SQL), any(RowMapper.class)))
+                .thenThrow(new RuntimeException("DB down"))
+                .thenReturn(List.of());
+
+        assertEquals("- Coach catalog unavailable.", service.current().coaches());
+        assertEquals("- No active coaches in database.", service.current().coaches());
+    }
+}
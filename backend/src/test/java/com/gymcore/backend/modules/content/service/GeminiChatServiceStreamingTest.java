@@ -0,0 +1,167 @@
+package com.gymcore.backend.modules.content.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Runs {@link GeminiChatService#streamChat} against a local stub of the Gemini REST API.
+ */
+class GeminiChatServiceStreamingTest {
+
+    private static final List<Map<String, Object>> MESSAGES = List.of(Map.of("role", "user", "content", "Hello"));
+
+    private HttpServer server;
+    private GeminiChatService service;
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        service = new GeminiChatService(new RestTemplate(),
+                new GeminiCatalogSnapshotService(Mockito.mock(JdbcTemplate.class)));
+        setField("apiKey", "test-key");
+        setField("model", "gemini-2.5-flash");
+        setField("baseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        service.shutdownStreams();
+    }
+
+    @Test
+    void streamChat_shouldForwardChunksInOrderAndReturnFullReply() throws Exception {
+        stub("/v1beta/models/gemini-2.5-flash:streamGenerateContent", exchange -> respond(exchange, 200,
+                "text/event-stream",
+                event("Squats ")
+                        + event("and ")
+                        + event("lunges.")
+                        + "data: {\"candidates\":[{\"finishReason\":\"STOP\"}]}\r\n\r\n"));
+        List<String> chunks = new CopyOnWriteArrayList<>();
+
+        String reply = service.streamChat(MESSAGES, Map.of(), chunks::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Squats ", "and ", "lunges."), chunks);
+        assertEquals("Squats and lunges.", reply);
+        assertTrue(requestedPaths.get(0).contains("alt=sse"));
+    }
+
+    @Test
+    void streamChat_shouldMapRateLimitToRetryHint() {
+        stub("/v1beta/models/gemini-2.5-flash:streamGenerateContent", exchange -> respond(exchange, 429,
+                "application/json",
+                "{\"error\":{\"details\":[{\"retryDelay\":\"17s\"}]}}"));
+
+        ResponseStatusException exception = awaitFailure();
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+        assertEquals("AI quota exceeded. Please retry in 17s.", exception.getReason());
+    }
+
+    @Test
+    void streamChat_shouldFallBackToDiscoveredModelWhenConfiguredModelIsMissing() throws Exception {
+        stub("/v1beta/models/gemini-2.5-flash:streamGenerateContent",
+                exchange -> respond(exchange, 404, "application/json", "{\"error\":{\"code\":404}}"));
+        stub("/v1/models", exchange -> respond(exchange, 200, "application/json", """
+                {"models":[{"name":"models/gemini-2.0-flash","supportedGenerationMethods":["generateContent"]}]}
+                """));
+        stub("/v1beta/models/gemini-2.0-flash:streamGenerateContent",
+                exchange -> respond(exchange, 200, "text/event-stream", event("From fallback.")));
+
+        String reply = service.streamChat(MESSAGES, Map.of(), chunk -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals("From fallback.", reply);
+    }
+
+    @Test
+    void streamChat_shouldFailWhenStreamCarriesNoText() {
+        stub("/v1beta/models/gemini-2.5-flash:streamGenerateContent", exchange -> respond(exchange, 200,
+                "text/event-stream", "data: {\"candidates\":[{\"finishReason\":\"SAFETY\"}]}\n\n"));
+
+        ResponseStatusException exception = awaitFailure();
+
+        assertEquals(HttpStatus.BAD_GATEWAY, exception.getStatusCode());
+    }
+
+    @Test
+    void streamChat_shouldRejectMissingApiKeyBeforeStarting() throws Exception {
+        setField("apiKey", "");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> service.streamChat(MESSAGES, Map.of(), chunk -> {
+                }));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertTrue(requestedPaths.isEmpty());
+    }
+
+    private ResponseStatusException awaitFailure() {
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> service.streamChat(MESSAGES, Map.of(), chunk -> {
+                }).join());
+        return assertInstanceOfStatus(failure.getCause());
+    }
+
+    private static ResponseStatusException assertInstanceOfStatus(Throwable cause) {
+        assertTrue(cause instanceof ResponseStatusException, "Unexpected failure: " + cause);
+        return (ResponseStatusException) cause;
+    }
+
+    private void stub(String path, StubHandler handler) {
+        server.createContext(path, exchange -> {
+            requestedPaths.add(exchange.getRequestURI().toString());
+            exchange.getRequestBody().readAllBytes();
+            handler.handle(exchange);
+        });
+    }
+
+    private static String event(String text) {
+        return "data: {\"candidates\":[{\"content\":{\"role\":\"model\",\"parts\":[{\"text\":\"" + text
+                + "\"}]}}]}\r\n\r\n";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private void setField(String name, String value) throws Exception {
+        Field field = GeminiChatService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+
+    @FunctionalInterface
+    private interface StubHandler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
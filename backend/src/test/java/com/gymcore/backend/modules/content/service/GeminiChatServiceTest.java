@@ -37,7 +37,7 @@ class GeminiChatServiceTest {
     void setUp() throws Exception {
         restTemplate = Mockito.mock(RestTemplate.class);
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
-        service = new GeminiChatService(restTemplate, jdbcTemplate);
+        service = new GeminiChatService(restTemplate, new GeminiCatalogSnapshotService(jdbcTemplate));
         setField("apiKey", "test-key");
         setField("model", "gemini-2.5-flash");
     }
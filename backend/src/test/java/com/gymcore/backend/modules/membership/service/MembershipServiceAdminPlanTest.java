@@ -11,7 +11,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.checkin.service.CheckinPassCache;
 import com.gymcore.backend.modules.coach.service.CoachBookingService;
 import com.gymcore.backend.modules.product.service.OrderInvoiceService;
 import com.gymcore.backend.modules.product.service.PayOsService;
@@ -53,7 +55,10 @@ class MembershipServiceAdminPlanTest {
                 payOsService,
                 notificationService,
                 orderInvoiceService,
-                coachBookingService);
+                coachBookingService,
+                Mockito.mock(AdminDashboardSnapshotService.class),
+                Mockito.mock(CheckinPassCache.class),
+                Mockito.mock(MembershipStateResolver.class));
     }
 
     @Test
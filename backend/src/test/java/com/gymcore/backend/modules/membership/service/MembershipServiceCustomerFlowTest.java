@@ -13,10 +13,15 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.scheduling.PendingCheckoutSweeper;
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.AuthService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import com.gymcore.backend.modules.checkin.service.CheckinHealthService;
+import com.gymcore.backend.modules.checkin.service.CheckinOccupancyService;
+import com.gymcore.backend.modules.checkin.service.CheckinPassCache;
 import com.gymcore.backend.modules.coach.service.CoachBookingService;
 import com.gymcore.backend.modules.product.service.OrderInvoiceService;
 import com.gymcore.backend.modules.product.service.PayOsService;
@@ -26,6 +31,7 @@ import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +39,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpHeaders;
@@ -40,6 +47,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class MembershipServiceCustomerFlowTest {
@@ -53,6 +62,8 @@ class MembershipServiceCustomerFlowTest {
     private CoachBookingService coachBookingService;
     private MembershipService membershipService;
     private CheckinHealthService checkinHealthService;
+    private CheckinPassCache checkinPassCache;
+    private MembershipStateResolver membershipStates;
 
     @BeforeEach
     void setUp() {
@@ -63,14 +74,21 @@ class MembershipServiceCustomerFlowTest {
         notificationService = Mockito.mock(UserNotificationService.class);
         orderInvoiceService = Mockito.mock(OrderInvoiceService.class);
         coachBookingService = Mockito.mock(CoachBookingService.class);
+        checkinPassCache = Mockito.mock(CheckinPassCache.class);
+        membershipStates = new MembershipStateResolver(jdbcTemplate);
         membershipService = new MembershipService(
                 jdbcTemplate,
                 currentUserService,
                 payOsService,
                 notificationService,
                 orderInvoiceService,
-                coachBookingService);
-        checkinHealthService = new CheckinHealthService(jdbcTemplate, authService, coachBookingService);
+                coachBookingService,
+                Mockito.mock(AdminDashboardSnapshotService.class),
+                checkinPassCache,
+                membershipStates);
+        checkinHealthService = new CheckinHealthService(jdbcTemplate, authService, coachBookingService, checkinPassCache,
+                Mockito.mock(CheckinOccupancyService.class), membershipStates, Mockito.mock(SchemaCapabilities.class),
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
     }
 
     @Test
@@ -100,8 +118,7 @@ class MembershipServiceCustomerFlowTest {
                 });
 
         // Customer has no ACTIVE/SCHEDULED memberships
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
+        stubMemberships(5, List.of());
 
         // Checkout contact
         when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
@@ -196,19 +213,12 @@ class MembershipServiceCustomerFlowTest {
                 });
 
         LocalDate activeEnd = LocalDate.now().plusDays(4);
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("ACTIVE")))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 111,
-                            "Status", "ACTIVE",
-                            "StartDate", LocalDate.now().minusDays(10),
-                            "EndDate", activeEnd
-                    )), 0));
-                });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("SCHEDULED")))
-                .thenReturn(List.of());
+        stubMemberships(5, List.of(
+                Map.of(
+                        "CustomerMembershipID", 111,
+                        "Status", "ACTIVE",
+                        "StartDate", LocalDate.now().minusDays(10),
+                        "EndDate", activeEnd)));
 
         when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
@@ -295,19 +305,12 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("ACTIVE")))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 121,
-                            "Status", "ACTIVE",
-                            "StartDate", LocalDate.now().minusDays(3),
-                            "EndDate", LocalDate.now().plusDays(20)
-                    )), 0));
-                });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("SCHEDULED")))
-                .thenReturn(List.of());
+        stubMemberships(5, List.of(
+                Map.of(
+                        "CustomerMembershipID", 121,
+                        "Status", "ACTIVE",
+                        "StartDate", LocalDate.now().minusDays(3),
+                        "EndDate", LocalDate.now().plusDays(20))));
 
         when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
@@ -393,22 +396,13 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("ACTIVE")))
-                .thenReturn(List.of());
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("SCHEDULED")))
-                .thenReturn(List.of());
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("EXPIRED")))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 611,
-                            "MembershipPlanID", 2,
-                            "Status", "EXPIRED",
-                            "StartDate", LocalDate.now().minusDays(30),
-                            "EndDate", LocalDate.now().minusDays(1)
-                    )), 0));
-                });
+        stubMemberships(5, List.of(
+                Map.of(
+                        "CustomerMembershipID", 611,
+                        "MembershipPlanID", 2,
+                        "Status", "EXPIRED",
+                        "StartDate", LocalDate.now().minusDays(30),
+                        "EndDate", LocalDate.now().minusDays(1))));
 
         when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
@@ -489,32 +483,19 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("ACTIVE")))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 111,
-                            "MembershipPlanID", 2,
-                            "Status", "ACTIVE",
-                            "StartDate", LocalDate.now().minusDays(5),
-                            "EndDate", LocalDate.now().plusDays(25)
-                    )), 0));
-                });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("SCHEDULED")))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 222,
-                            "MembershipPlanID", 3,
-                            "Status", "SCHEDULED",
-                            "StartDate", LocalDate.now().plusDays(26),
-                            "EndDate", LocalDate.now().plusDays(55)
-                    )), 0));
-                });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("EXPIRED")))
-                .thenReturn(List.of());
+        stubMemberships(5, List.of(
+                Map.of(
+                        "CustomerMembershipID", 111,
+                        "MembershipPlanID", 2,
+                        "Status", "ACTIVE",
+                        "StartDate", LocalDate.now().minusDays(5),
+                        "EndDate", LocalDate.now().plusDays(25)),
+                Map.of(
+                        "CustomerMembershipID", 222,
+                        "MembershipPlanID", 3,
+                        "Status", "SCHEDULED",
+                        "StartDate", LocalDate.now().plusDays(26),
+                        "EndDate", LocalDate.now().plusDays(55))));
 
         ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> membershipService.execute(
                 "customer-renew-membership",
@@ -548,9 +529,6 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
-
         when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
                     @SuppressWarnings("unchecked")
@@ -628,9 +606,6 @@ class MembershipServiceCustomerFlowTest {
         when(currentUserService.requireCustomer("Bearer customer"))
                 .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
 
-        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5), eq(5)))
-                .thenReturn(List.of());
-
         when(jdbcTemplate.query(contains("AND cm.Status = 'SCHEDULED'"), any(RowMapper.class), eq(5)))
                 .thenReturn(List.of());
 
@@ -691,9 +666,6 @@ class MembershipServiceCustomerFlowTest {
         when(currentUserService.requireCustomer("Bearer customer"))
                 .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
 
-        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5), eq(5)))
-                .thenReturn(List.of());
-
         when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
                     String sql = invocation.getArgument(0, String.class);
@@ -762,6 +734,10 @@ class MembershipServiceCustomerFlowTest {
         assertEquals("ACTIVE", membership.get("status"));
         assertEquals("SCHEDULED", queuedMembership.get("status"));
         assertEquals("Gym + Coach - 1 Month", ((Map<?, ?>) queuedMembership.get("plan")).get("name"));
+        // Stale checkouts are left to PendingCheckoutSweeper; viewing the page writes nothing.
+        verify(jdbcTemplate, never()).query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5),
+                eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
     }
 
     @Test
@@ -783,9 +759,6 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
-
         Map<String, Object> orderClaim = new LinkedHashMap<>();
         orderClaim.put("ClaimID", 88);
         orderClaim.put("ApplyTarget", "ORDER");
@@ -830,9 +803,6 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
-
         when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
                     @SuppressWarnings("unchecked")
@@ -947,7 +917,7 @@ class MembershipServiceCustomerFlowTest {
                     )), 0);
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = 'ACTIVE'"), any(RowMapper.class), eq(5)))
+        when(jdbcTemplate.query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL), any(RowMapper.class), eq(5)))
                 .thenAnswer(invocation -> {
                     if (!membershipActivated.get()) {
                         return List.of();
@@ -964,8 +934,7 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.update(contains("INSERT INTO dbo.CheckIns"), eq(5), eq(321), eq(2))).thenReturn(1);
-        when(jdbcTemplate.queryForObject(contains("FROM dbo.CheckIns ci"), any(RowMapper.class), eq(5), eq(321), eq(2)))
+        when(jdbcTemplate.queryForObject(contains("INSERT INTO dbo.CheckIns"), any(RowMapper.class), eq(5), eq(321), eq(2)))
                 .thenAnswer(invocation -> {
                     @SuppressWarnings("unchecked")
                     RowMapper<Map<String, Object>> mapper = invocation.getArgument(1);
@@ -1017,8 +986,12 @@ class MembershipServiceCustomerFlowTest {
         Map<String, Object> response = membershipService.execute("payment-webhook", null, payload);
 
         assertTrue(Boolean.TRUE.equals(response.get("handled")));
-        verify(jdbcTemplate).update(contains("SET Status = 'EXPIRED'"), eq(5), eq(9001));
-        verify(jdbcTemplate).update(contains("SET Status = 'ACTIVE'"), eq(9001));
+        // The pass cache is dropped only once the replaced membership is no longer ACTIVE.
+        InOrder order = Mockito.inOrder(jdbcTemplate, checkinPassCache);
+        order.verify(jdbcTemplate).update(contains("SET Status = 'EXPIRED'"), eq(5), eq(9001));
+        order.verify(jdbcTemplate).update(contains("SET Status = 'ACTIVE'"), eq(9001));
+        order.verify(checkinPassCache).invalidateCustomer(5);
+        verify(checkinPassCache).invalidateCustomer(5);
     }
 
     @Test
@@ -1128,7 +1101,8 @@ class MembershipServiceCustomerFlowTest {
                 .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
 
         // Stale-expiry query
-        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5), eq(5)))
+        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5),
+                eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES)))
                 .thenReturn(List.of());
 
         // Existing pending checkout query
@@ -1170,8 +1144,6 @@ class MembershipServiceCustomerFlowTest {
                             "AllowsCoachBooking", false
                     )), 0));
                 });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
 
         @SuppressWarnings("unchecked")
         Map<String, Object> response = membershipService.execute(
@@ -1192,7 +1164,8 @@ class MembershipServiceCustomerFlowTest {
                 .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
 
         // Stale-expiry query
-        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5), eq(5)))
+        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5),
+                eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES)))
                 .thenReturn(List.of());
 
         // Existing pending checkout is for another plan (planId 2)
@@ -1234,8 +1207,6 @@ class MembershipServiceCustomerFlowTest {
                             "AllowsCoachBooking", true
                     )), 0));
                 });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
 
         when(jdbcTemplate.update(contains("SET Status = 'CANCELLED'"), eq("CANCELLED"), eq(301))).thenReturn(1);
         when(jdbcTemplate.update(contains("WHERE CustomerMembershipID = ? AND Status = 'PENDING'"), eq(201))).thenReturn(1);
@@ -1299,12 +1270,121 @@ class MembershipServiceCustomerFlowTest {
         verify(jdbcTemplate).update(contains("WHERE CustomerMembershipID = ? AND Status = 'PENDING'"), eq(201));
     }
 
+    @Test
+    void customerPurchase_shouldLeaveAgedPendingCheckoutForSweeperAndCreateNewOne() throws Exception {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+
+        // Stale-expiry query
+        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5),
+                eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES)))
+                .thenReturn(List.of());
+
+        // Same plan, past the reuse window, but its PayOS link may still be paid.
+        when(jdbcTemplate.query(contains("cm.Status = 'PENDING'"), any(RowMapper.class), eq(5)))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    return List.of(mapper.mapRow(resultSet(Map.ofEntries(
+                            Map.entry("PaymentID", 301),
+                            Map.entry("PayOS_CheckoutUrl", "https://payos.vn/checkout/301"),
+                            Map.entry("PaymentMethod", "PAYOS"),
+                            Map.entry("OriginalAmount", new BigDecimal("1200000")),
+                            Map.entry("DiscountAmount", BigDecimal.ZERO),
+                            Map.entry("Amount", new BigDecimal("1200000")),
+                            Map.entry("PaymentCreatedAt", Timestamp.from(Instant.now().minusSeconds(10 * 60))),
+                            Map.entry("CustomerMembershipID", 201),
+                            Map.entry("StartDate", LocalDate.now()),
+                            Map.entry("EndDate", LocalDate.now().plusDays(29)),
+                            Map.entry("MembershipPlanID", 3),
+                            Map.entry("PlanName", "Gym + Coach - 1 Month"),
+                            Map.entry("PlanType", "GYM_PLUS_COACH"),
+                            Map.entry("Price", new BigDecimal("1200000")),
+                            Map.entry("DurationDays", 30),
+                            Map.entry("AllowsCoachBooking", true)
+                    )), 0));
+                });
+
+        when(jdbcTemplate.query(contains("WHERE mp.MembershipPlanID = ?"), any(RowMapper.class), eq(3)))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    return List.of(mapper.mapRow(resultSet(Map.of(
+                            "MembershipPlanID", 3,
+                            "PlanName", "Gym + Coach - 1 Month",
+                            "PlanType", "GYM_PLUS_COACH",
+                            "Price", new BigDecimal("1200000"),
+                            "DurationDays", 30,
+                            "AllowsCoachBooking", true
+                    )), 0));
+                });
+
+        when(jdbcTemplate.queryForObject(contains("SELECT FullName, Phone, Email"), any(RowMapper.class), eq(5)))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    return mapper.mapRow(resultSet(Map.of(
+                            "FullName", "Customer Minh",
+                            "Phone", "0900000004",
+                            "Email", "customer@gymcore.local"
+                    )), 0);
+                });
+
+        AtomicInteger insertSequence = new AtomicInteger(0);
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    KeyHolder keyHolder = invocation.getArgument(1);
+                    int call = insertSequence.incrementAndGet();
+                    Map<String, Object> keyMap = new LinkedHashMap<>();
+                    if (call == 1) {
+                        keyMap.put("CustomerMembershipID", 901);
+                    } else {
+                        keyMap.put("PaymentID", 902);
+                    }
+                    keyHolder.getKeyList().add(keyMap);
+                    return 1;
+                });
+
+        when(payOsService.createPaymentLink(
+                eq(902),
+                eq(new BigDecimal("1200000")),
+                contains("Membership"),
+                eq("Customer Minh"),
+                eq("0900000004"),
+                eq("customer@gymcore.local"),
+                eq("GymCore Membership"),
+                any(),
+                eq(null),
+                eq(null)))
+                .thenReturn(new PayOsService.PayOsLink("LINK-902", "https://payos.vn/checkout/902", "PENDING"));
+
+        when(jdbcTemplate.update(
+                contains("SET PayOS_PaymentLinkId = ?"),
+                eq("LINK-902"),
+                eq("https://payos.vn/checkout/902"),
+                eq("PENDING"),
+                eq(902)))
+                .thenReturn(1);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> response = membershipService.execute(
+                "customer-purchase-membership",
+                "Bearer customer",
+                Map.of("planId", 3, "paymentMethod", "PAYOS"));
+
+        assertEquals(902, response.get("paymentId"));
+        assertFalse(Boolean.TRUE.equals(response.get("reusedCheckout")));
+        verify(jdbcTemplate, never()).update(contains("SET Status = 'CANCELLED'"), anyString(), eq(301));
+        verify(jdbcTemplate, never()).update(contains("WHERE CustomerMembershipID = ? AND Status = 'PENDING'"), eq(201));
+    }
+
     @Test
     void customerPurchase_shouldNormalizeInvalidPendingDayPassBeforeCancellingIt() throws Exception {
         when(currentUserService.requireCustomer("Bearer customer"))
                 .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
 
-        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5), eq(5)))
+        when(jdbcTemplate.query(contains("p.CreatedAt < DATEADD"), any(RowMapper.class), eq(5),
+                eq(PendingCheckoutSweeper.SWEEP_AFTER_MINUTES)))
                 .thenReturn(List.of());
 
         when(jdbcTemplate.query(contains("cm.Status = 'PENDING'"), any(RowMapper.class), eq(5)))
@@ -1344,8 +1424,6 @@ class MembershipServiceCustomerFlowTest {
                             "AllowsCoachBooking", false
                     )), 0));
                 });
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
 
         when(jdbcTemplate.update(contains("SET cm.EndDate = cm.StartDate"), eq(601))).thenReturn(1);
         when(jdbcTemplate.update(contains("SET Status = 'CANCELLED'"), eq("CANCELLED"), eq(501))).thenReturn(1);
@@ -1432,9 +1510,6 @@ class MembershipServiceCustomerFlowTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), anyString()))
-                .thenReturn(List.of());
-
         Map<String, Object> membershipClaim = new LinkedHashMap<>();
         membershipClaim.put("ClaimID", 77);
         membershipClaim.put("ApplyTarget", "MEMBERSHIP");
@@ -1454,6 +1529,20 @@ class MembershipServiceCustomerFlowTest {
         assertTrue(String.valueOf(exception.getReason()).contains("Day Pass cannot use bonus membership months"));
     }
 
+    private void stubMemberships(int customerId, List<Map<String, Object>> rows) {
+        when(jdbcTemplate.query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL), any(RowMapper.class),
+                eq(customerId)))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> mapped = new ArrayList<>();
+                    for (Map<String, Object> row : rows) {
+                        mapped.add(mapper.mapRow(resultSet(row), mapped.size()));
+                    }
+                    return mapped;
+                });
+    }
+
     private ResultSet resultSet(Map<String, Object> values) throws Exception {
         ResultSet rs = Mockito.mock(ResultSet.class);
         when(rs.getString(anyString())).thenAnswer(invocation -> {
@@ -0,0 +1,158 @@
+package com.gymcore.backend.modules.membership.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class MembershipStateResolverTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private JdbcTemplate jdbcTemplate;
+    private MembershipStateResolver resolver;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        resolver = new MembershipStateResolver(jdbcTemplate);
+        setField(resolver, "cacheSeconds", 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void membershipState_shouldPickEachStatusFromOneLoad() {
+        MembershipStateResolver.MembershipState state = new MembershipStateResolver.MembershipState(5, List.of(
+                membership(10, "EXPIRED", TODAY.minusDays(90), TODAY.minusDays(60), "GYM_ONLY", false),
+                membership(11, "EXPIRED", TODAY.minusDays(60), TODAY.minusDays(30), "GYM_ONLY", false),
+                membership(12, "ACTIVE", TODAY.minusDays(5), TODAY.plusDays(25), "GYM_PLUS_COACH", true),
+                membership(14, "SCHEDULED", TODAY.plusDays(56), TODAY.plusDays(85), "GYM_ONLY", false),
+                membership(13, "SCHEDULED", TODAY.plusDays(26), TODAY.plusDays(55), "GYM_ONLY", false),
+                membership(15, "PENDING", null, null, "GYM_ONLY", false),
+                membership(16, "pending", null, null, "GYM_ONLY", false)));
+
+        assertEquals(12, state.active().customerMembershipId());
+        assertEquals(11, state.latest("EXPIRED").customerMembershipId());
+        assertEquals(14, state.latest("SCHEDULED").customerMembershipId());
+        assertEquals(13, state.nextStarting("SCHEDULED").customerMembershipId());
+        assertEquals(16, state.newest("PENDING").customerMembershipId());
+        assertNull(state.latest("CANCELLED"));
+    }
+
+    @Test
+    void coachBookingCoverage_shouldRequireActiveCoachPlanCoveringTheDate() {
+        MembershipStateResolver.MembershipState state = new MembershipStateResolver.MembershipState(5, List.of(
+                membership(20, "ACTIVE", TODAY.minusDays(5), TODAY.plusDays(25), "GYM_ONLY", false),
+                membership(21, "ACTIVE", TODAY.minusDays(5), TODAY.plusDays(40), "gym_plus_coach", true),
+                membership(22, "ACTIVE", TODAY.minusDays(5), TODAY.plusDays(30), "GYM_COACH", true),
+                membership(23, "SCHEDULED", TODAY.plusDays(41), TODAY.plusDays(70), "GYM_PLUS_COACH", true)));
+
+        assertEquals(22, state.coachBookingCoverage(TODAY).customerMembershipId());
+        assertEquals(21, state.coachBookingCoverage(TODAY.plusDays(35)).customerMembershipId());
+        assertNull(state.coachBookingCoverage(TODAY.plusDays(50)));
+    }
+
+    @Test
+    void resolve_shouldLoadOncePerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        stubMemberships(5, membership(12, "ACTIVE", TODAY.minusDays(5), TODAY.plusDays(25), "GYM_ONLY", false));
+
+        MembershipStateResolver.MembershipState first = resolver.resolve(5);
+
+        assertSame(first, resolver.resolve(5));
+        assertSame(first, resolver.resolveFresh(5));
+        verify(jdbcTemplate, times(1)).query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL),
+                any(RowMapper.class), eq(5));
+
+        resolver.invalidateCustomer(5);
+        resolver.resolveFresh(5);
+
+        verify(jdbcTemplate, times(2)).query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL),
+                any(RowMapper.class), eq(5));
+    }
+
+    @Test
+    void resolve_shouldReadThroughWhenCacheDisabledAndOutsideRequests() {
+        stubMemberships(5);
+
+        resolver.resolve(5);
+        resolver.resolve(5);
+
+        verify(jdbcTemplate, times(2)).query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL),
+                any(RowMapper.class), eq(5));
+    }
+
+    @Test
+    void resolve_shouldServeCachedStateUntilInvalidated() throws Exception {
+        setField(resolver, "cacheSeconds", 30L);
+        stubMemberships(5, membership(12, "ACTIVE", TODAY.minusDays(5), TODAY.plusDays(25), "GYM_ONLY", false));
+
+        MembershipStateResolver.MembershipState cached = resolver.resolve(5);
+        assertSame(cached, resolver.resolve(5));
+
+        resolver.resolveFresh(5);
+        verify(jdbcTemplate, times(2)).query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL),
+                any(RowMapper.class), eq(5));
+
+        resolver.invalidateAll();
+        resolver.resolve(5);
+        verify(jdbcTemplate, times(3)).query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL),
+                any(RowMapper.class), eq(5));
+    }
+
+    @Test
+    void resolve_shouldNotCacheStateReadBeforeAnInvalidation() throws Exception {
+        setField(resolver, "cacheSeconds", 30L);
+        when(jdbcTemplate.query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL), any(RowMapper.class), eq(5)))
+                .thenAnswer(invocation -> {
+                    // A membership write lands while this read is in flight.
+                    resolver.invalidateCustomer(5);
+                    return List.of();
+                });
+
+        resolver.resolve(5);
+        resolver.resolve(5);
+
+        verify(jdbcTemplate, times(2)).query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL),
+                any(RowMapper.class), eq(5));
+    }
+
+    private void stubMemberships(int customerId, MembershipStateResolver.Membership... memberships) {
+        when(jdbcTemplate.query(eq(MembershipStateResolver.CUSTOMER_MEMBERSHIPS_SQL), any(RowMapper.class),
+                eq(customerId)))
+                .thenReturn(List.of(memberships));
+    }
+
+    private MembershipStateResolver.Membership membership(int customerMembershipId, String status,
+            LocalDate startDate, LocalDate endDate, String planType, boolean allowsCoachBooking) {
+        return new MembershipStateResolver.Membership(customerMembershipId, 1, status, startDate, endDate,
+                "Plan " + customerMembershipId, planType, allowsCoachBooking);
+    }
+
+    private static void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
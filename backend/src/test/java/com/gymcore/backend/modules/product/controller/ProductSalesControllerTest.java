@@ -1,16 +1,21 @@
 package com.gymcore.backend.modules.product.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.common.api.ApiResponse;
+import com.gymcore.backend.modules.product.service.ProductCatalogSnapshotService;
 import com.gymcore.backend.modules.product.service.ProductSalesService;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
 
 class ProductSalesControllerTest {
@@ -24,6 +29,31 @@ class ProductSalesControllerTest {
         controller = new ProductSalesController(productSalesService);
     }
 
+    @Test
+    void getProducts_shouldServeCatalogWithStrongEtag() {
+        when(productSalesService.customerGetProductCatalog()).thenReturn(
+                new ProductCatalogSnapshotService.Catalog(Map.of("products", List.of()), "\"abc123\""));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = controller.getProducts(null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+        assertEquals(List.of(), response.getBody().data().get("products"));
+    }
+
+    @Test
+    void getProducts_shouldAnswerNotModifiedWhenEtagMatches() {
+        when(productSalesService.customerGetProductCatalog()).thenReturn(
+                new ProductCatalogSnapshotService.Catalog(Map.of("products", List.of()), "\"abc123\""));
+
+        ResponseEntity<ApiResponse<Map<String, Object>>> response = controller.getProducts("\"old\", W/\"abc123\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"abc123\"", response.getHeaders().getETag());
+    }
+
     @Test
     void getInvoices_shouldDelegateToAdminInvoiceAction() {
         when(productSalesService.execute("admin-get-invoices", "Bearer admin", null))
@@ -12,6 +12,9 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.EmailOutboxService;
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.product.service.OrderInvoiceMailService.InvoiceMailModel;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import java.math.BigDecimal;
@@ -35,6 +38,8 @@ class OrderInvoiceServiceTest {
     private JdbcTemplate jdbcTemplate;
     private CurrentUserService currentUserService;
     private OrderInvoiceMailService orderInvoiceMailService;
+    private EmailOutboxService emailOutboxService;
+    private SchemaCapabilities schemaCapabilities;
     private OrderInvoiceService orderInvoiceService;
 
     @BeforeEach
@@ -42,7 +47,10 @@ class OrderInvoiceServiceTest {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
         currentUserService = Mockito.mock(CurrentUserService.class);
         orderInvoiceMailService = Mockito.mock(OrderInvoiceMailService.class);
-        orderInvoiceService = new OrderInvoiceService(jdbcTemplate, currentUserService, orderInvoiceMailService);
+        emailOutboxService = Mockito.mock(EmailOutboxService.class);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        orderInvoiceService = new OrderInvoiceService(jdbcTemplate, currentUserService, orderInvoiceMailService,
+                emailOutboxService, Mockito.mock(AdminDashboardSnapshotService.class), schemaCapabilities);
     }
 
     @Test
@@ -102,7 +110,7 @@ class OrderInvoiceServiceTest {
     }
 
     @Test
-    void handleSuccessfulProductPayment_shouldCreateInvoiceAndRecordEmailFailure() throws Exception {
+    void handleSuccessfulProductPayment_shouldCreateInvoiceAndQueueEmailInsteadOfSending() throws Exception {
         when(jdbcTemplate.queryForObject(
                 contains("FROM dbo.OrderInvoices"),
                 eq(Integer.class),
@@ -187,15 +195,14 @@ class OrderInvoiceServiceTest {
                     return List.of(mapper.mapRow(resultSet(invoiceRow), 0));
                 });
 
-        doThrow(new RuntimeException("SMTP down")).when(orderInvoiceMailService).sendProductInvoice(any(InvoiceMailModel.class));
-
         Map<String, Object> response = orderInvoiceService.handleSuccessfulProductPayment(901);
 
         assertTrue(Boolean.TRUE.equals(response.get("invoiceCreated")));
         assertEquals(Boolean.FALSE, response.get("invoiceEmailSent"));
+        assertEquals(Boolean.TRUE, response.get("invoiceEmailQueued"));
         assertEquals("INV-202603071000-901", response.get("invoiceCode"));
-        assertEquals("SMTP down", response.get("invoiceError"));
-        verify(orderInvoiceMailService).sendProductInvoice(any(InvoiceMailModel.class));
+        verify(orderInvoiceMailService, never()).sendProductInvoice(any(InvoiceMailModel.class));
+        verify(emailOutboxService).enqueue("PRODUCT_INVOICE", 22);
         verify(jdbcTemplate).update(
                 contains("INSERT INTO dbo.OrderInvoiceItems"),
                 eq(22),
@@ -212,6 +219,30 @@ class OrderInvoiceServiceTest {
                 eq(2),
                 eq(new BigDecimal("1000")),
                 eq(new BigDecimal("2000")));
+    }
+
+    @Test
+    void deliver_shouldSendQueuedInvoiceAndStampEmailSentAt() throws Exception {
+        mockInvoiceEnvelope(22, "customer@gymcore.local", null);
+
+        orderInvoiceService.deliver(22);
+
+        verify(orderInvoiceMailService).sendProductInvoice(any(InvoiceMailModel.class));
+        verify(jdbcTemplate).update(
+                contains("UPDATE dbo.OrderInvoices"),
+                any(Timestamp.class),
+                eq(null),
+                eq(22));
+    }
+
+    @Test
+    void deliver_shouldRecordFailureAndRethrowSoOutboxRetries() throws Exception {
+        mockInvoiceEnvelope(22, "customer@gymcore.local", null);
+        doThrow(new RuntimeException("SMTP down")).when(orderInvoiceMailService).sendProductInvoice(any(InvoiceMailModel.class));
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> orderInvoiceService.deliver(22));
+
+        assertEquals("SMTP down", exception.getMessage());
         verify(jdbcTemplate).update(
                 contains("UPDATE dbo.OrderInvoices"),
                 eq(null),
@@ -219,6 +250,15 @@ class OrderInvoiceServiceTest {
                 eq(22));
     }
 
+    @Test
+    void deliver_shouldSkipInvoiceThatWasAlreadySent() throws Exception {
+        mockInvoiceEnvelope(22, "customer@gymcore.local", Timestamp.from(Instant.parse("2026-03-07T10:05:00Z")));
+
+        orderInvoiceService.deliver(22);
+
+        verify(orderInvoiceMailService, never()).sendProductInvoice(any(InvoiceMailModel.class));
+    }
+
     @Test
     void handleSuccessfulProductPayment_shouldSkipMailerWhenRecipientEmailMissing() throws Exception {
         when(jdbcTemplate.queryForObject(
@@ -313,11 +353,7 @@ class OrderInvoiceServiceTest {
 
     @Test
     void adminResendInvoiceEmail_shouldRetryWhenEmailFailed() throws Exception {
-        when(jdbcTemplate.queryForObject(
-                contains("FROM INFORMATION_SCHEMA.TABLES"),
-                eq(Integer.class),
-                eq("OrderInvoices")))
-                .thenReturn(1);
+        when(schemaCapabilities.invoiceTables()).thenReturn(true);
         when(jdbcTemplate.query(
                 contains("FROM dbo.OrderInvoices"),
                 any(RowMapper.class),
@@ -590,28 +626,37 @@ class OrderInvoiceServiceTest {
         return rs;
     }
 
+    private void mockInvoiceEnvelope(int invoiceId, String recipientEmail, Timestamp emailSentAt) {
+        when(jdbcTemplate.query(
+                contains("FROM dbo.OrderInvoices"),
+                any(RowMapper.class),
+                eq(invoiceId)))
+                .thenAnswer(invocation -> {
+                    @SuppressWarnings("unchecked")
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    Map<String, Object> invoiceRow = new LinkedHashMap<>();
+                    invoiceRow.put("InvoiceID", invoiceId);
+                    invoiceRow.put("InvoiceCode", "INV-202603071000-901");
+                    invoiceRow.put("OrderID", 18);
+                    invoiceRow.put("PaymentID", 901);
+                    invoiceRow.put("RecipientEmail", recipientEmail);
+                    invoiceRow.put("RecipientName", "Customer Minh");
+                    invoiceRow.put("ShippingPhone", "0900000004");
+                    invoiceRow.put("ShippingAddress", "123 Gym Street");
+                    invoiceRow.put("PaymentMethod", "PAYOS");
+                    invoiceRow.put("Subtotal", new BigDecimal("4000"));
+                    invoiceRow.put("DiscountAmount", new BigDecimal("400"));
+                    invoiceRow.put("TotalAmount", new BigDecimal("3600"));
+                    invoiceRow.put("PaidAt", Timestamp.from(Instant.parse("2026-03-07T10:00:00Z")));
+                    invoiceRow.put("EmailSentAt", emailSentAt);
+                    invoiceRow.put("EmailSendError", null);
+                    return List.of(mapper.mapRow(resultSet(invoiceRow), 0));
+                });
+    }
+
     private void mockInvoiceSchema(boolean invoicesTableExists, boolean invoiceItemsTableExists, boolean pickupTrackingAvailable) {
-        when(jdbcTemplate.queryForObject(
-                contains("FROM INFORMATION_SCHEMA.TABLES"),
-                eq(Integer.class),
-                eq("OrderInvoices")))
-                .thenReturn(invoicesTableExists ? 1 : 0);
-        when(jdbcTemplate.queryForObject(
-                contains("FROM INFORMATION_SCHEMA.TABLES"),
-                eq(Integer.class),
-                eq("OrderInvoiceItems")))
-                .thenReturn(invoiceItemsTableExists ? 1 : 0);
-        when(jdbcTemplate.queryForObject(
-                contains("FROM INFORMATION_SCHEMA.COLUMNS"),
-                eq(Integer.class),
-                eq("OrderInvoices"),
-                eq("PickedUpAt")))
-                .thenReturn(pickupTrackingAvailable ? 1 : 0);
-        when(jdbcTemplate.queryForObject(
-                contains("FROM INFORMATION_SCHEMA.COLUMNS"),
-                eq(Integer.class),
-                eq("OrderInvoices"),
-                eq("PickedUpByUserID")))
-                .thenReturn(pickupTrackingAvailable ? 1 : 0);
+        when(schemaCapabilities.invoiceTables()).thenReturn(invoicesTableExists);
+        when(schemaCapabilities.invoiceItemsTable()).thenReturn(invoiceItemsTableExists);
+        when(schemaCapabilities.pickupTracking()).thenReturn(pickupTrackingAvailable);
     }
 }
@@ -8,6 +8,7 @@ import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +38,7 @@ class PayOsServiceTest {
 
     @Test
     void createPaymentLink_shouldSendUniqueEncodedOrderCode() {
+        long createdAt = Instant.now().getEpochSecond();
         when(restTemplate.postForObject(
                 contains("/v2/payment-requests"),
                 any(HttpEntity.class),
@@ -72,6 +74,9 @@ class PayOsServiceTest {
         assertNotEquals(901L, orderCode);
         assertEquals(901, service.resolvePaymentIdFromPayOsOrderCode(orderCode));
         assertTrue(orderCode > 901L);
+        long expiredAt = ((Number) body.get("expiredAt")).longValue();
+        assertTrue(expiredAt >= createdAt + PayOsService.PAYMENT_LINK_LIFETIME_MINUTES * 60L);
+        assertTrue(expiredAt <= Instant.now().getEpochSecond() + PayOsService.PAYMENT_LINK_LIFETIME_MINUTES * 60L);
     }
 
     @Test
@@ -0,0 +1,111 @@
+package com.gymcore.backend.modules.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.common.service.RatingAggregateService;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ProductCatalogSnapshotServiceTest {
+
+    private static final String STATS_SQL = "SELECT ProductID FROM dbo.ProductRatingStats\n";
+    private static final String CATALOG_PRODUCTS_SQL =
+            ProductCatalogSnapshotService.CATALOG_PRODUCTS_SQL_TEMPLATE.formatted(STATS_SQL);
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductCatalogSnapshotService service;
+    private ResultSet product;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        RatingAggregateService ratingAggregates = Mockito.mock(RatingAggregateService.class);
+        when(ratingAggregates.productStatsSql()).thenReturn(STATS_SQL);
+        service = new ProductCatalogSnapshotService(jdbcTemplate, ratingAggregates);
+        ReflectionTestUtils.setField(service, "ttlSeconds", 300L);
+
+        product = Mockito.mock(ResultSet.class);
+        when(product.getInt("ProductID")).thenReturn(9);
+        when(product.getString("ProductName")).thenReturn("Whey Protein");
+        when(product.getBigDecimal("Price")).thenReturn(new BigDecimal("850000.00"));
+        when(product.getDouble("AverageRating")).thenReturn(4.5);
+        when(product.getInt("ReviewCount")).thenReturn(2);
+        when(product.getBoolean("IsActive")).thenReturn(true);
+        ResultSet category = Mockito.mock(ResultSet.class);
+        when(category.getInt("ProductID")).thenReturn(9);
+        when(category.getInt("ProductCategoryID")).thenReturn(3);
+        when(category.getString("CategoryName")).thenReturn("Supplements");
+        feed(CATALOG_PRODUCTS_SQL, product);
+        feed(ProductCatalogSnapshotService.CATALOG_PRODUCT_CATEGORIES_SQL, category);
+        when(jdbcTemplate.query(eq(ProductCatalogSnapshotService.ACTIVE_CATEGORIES_SQL), any(RowMapper.class)))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    void current_shouldServeRepeatedReadsFromOneImmutableSnapshot() {
+        ProductCatalogSnapshotService.Catalog first = service.current();
+        ProductCatalogSnapshotService.Catalog second = service.current();
+
+        assertEquals(first, second);
+        verify(jdbcTemplate, times(1)).query(eq(CATALOG_PRODUCTS_SQL),
+                any(RowCallbackHandler.class));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> products = (List<Map<String, Object>>) first.body().get("products");
+        assertEquals("Whey Protein", products.get(0).get("name"));
+        assertEquals(List.of(Map.of("productCategoryId", 3, "name", "Supplements")),
+                products.get(0).get("categories"));
+        assertThrows(UnsupportedOperationException.class, () -> products.get(0).put("price", BigDecimal.ONE));
+    }
+
+    @Test
+    void invalidate_shouldKeepEtagForUnchangedContentAndChangeItForNewContent() throws Exception {
+        String etag = service.current().etag();
+
+        service.invalidate();
+        assertEquals(etag, service.current().etag());
+
+        when(product.getInt("ReviewCount")).thenReturn(3);
+        service.invalidate();
+        assertNotEquals(etag, service.current().etag());
+        verify(jdbcTemplate, times(3)).query(eq(CATALOG_PRODUCTS_SQL),
+                any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void matches_shouldCompareIfNoneMatchListWeakly() {
+        ProductCatalogSnapshotService.Catalog catalog = new ProductCatalogSnapshotService.Catalog(Map.of(), "\"abc\"");
+
+        assertTrue(catalog.matches("\"abc\""));
+        assertTrue(catalog.matches("\"old\", W/\"abc\""));
+        assertTrue(catalog.matches("*"));
+        assertFalse(catalog.matches("\"abcd\""));
+        assertFalse(catalog.matches(null));
+    }
+
+    private void feed(String sql, ResultSet row) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(eq(sql), any(RowCallbackHandler.class));
+    }
+}
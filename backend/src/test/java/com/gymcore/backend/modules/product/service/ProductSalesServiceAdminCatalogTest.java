@@ -11,8 +11,11 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.RatingAggregateService;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
 import java.util.List;
 import java.util.Map;
 import java.nio.file.Files;
@@ -24,6 +27,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class ProductSalesServiceAdminCatalogTest {
@@ -44,7 +49,12 @@ class ProductSalesServiceAdminCatalogTest {
                 currentUserService,
                 payOsService,
                 notificationService,
-                orderInvoiceService);
+                orderInvoiceService,
+                Mockito.mock(GeminiCatalogSnapshotService.class),
+                Mockito.mock(AdminDashboardSnapshotService.class),
+                Mockito.mock(ProductCatalogSnapshotService.class),
+                Mockito.mock(RatingAggregateService.class),
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
         ReflectionTestUtils.setField(service, "productImageDir", "uploads/products-test");
         ReflectionTestUtils.setField(service, "productImageMaxBytes", 5_242_880L);
     }
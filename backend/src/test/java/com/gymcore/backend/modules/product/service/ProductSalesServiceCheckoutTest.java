@@ -12,8 +12,11 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.RatingAggregateService;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.util.HashMap;
@@ -28,6 +31,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class ProductSalesServiceCheckoutTest {
@@ -51,7 +56,12 @@ class ProductSalesServiceCheckoutTest {
                 currentUserService,
                 payOsService,
                 notificationService,
-                orderInvoiceService);
+                orderInvoiceService,
+                Mockito.mock(GeminiCatalogSnapshotService.class),
+                Mockito.mock(AdminDashboardSnapshotService.class),
+                Mockito.mock(ProductCatalogSnapshotService.class),
+                Mockito.mock(RatingAggregateService.class),
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
     }
 
     @Test
@@ -6,13 +6,18 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.gymcore.backend.common.service.RatingAggregateService;
 import com.gymcore.backend.common.service.UserNotificationService;
+import com.gymcore.backend.modules.admin.service.AdminDashboardSnapshotService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
 import java.sql.Timestamp;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -25,17 +30,21 @@ import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 class ProductSalesServiceReviewTest {
 
     private JdbcTemplate jdbcTemplate;
     private CurrentUserService currentUserService;
+    private RatingAggregateService ratingAggregates;
     private ProductSalesService service;
 
     @BeforeEach
     void setUp() {
         jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        ratingAggregates = Mockito.mock(RatingAggregateService.class);
         currentUserService = Mockito.mock(CurrentUserService.class);
         PayOsService payOsService = Mockito.mock(PayOsService.class);
         UserNotificationService notificationService = Mockito.mock(UserNotificationService.class);
@@ -45,7 +54,12 @@ class ProductSalesServiceReviewTest {
                 currentUserService,
                 payOsService,
                 notificationService,
-                orderInvoiceService);
+                orderInvoiceService,
+                Mockito.mock(GeminiCatalogSnapshotService.class),
+                Mockito.mock(AdminDashboardSnapshotService.class),
+                Mockito.mock(ProductCatalogSnapshotService.class),
+                ratingAggregates,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
     }
 
     @Test
@@ -58,6 +72,8 @@ class ProductSalesServiceReviewTest {
                 eq(5),
                 eq(9)))
                 .thenReturn(1);
+        when(jdbcTemplate.query(contains("WITH (UPDLOCK, HOLDLOCK)"), any(RowMapper.class), eq(9), eq(5)))
+                .thenReturn(List.of(2));
         when(jdbcTemplate.update(
                 contains("UPDATE dbo.ProductReviews"),
                 eq(4),
@@ -71,6 +87,7 @@ class ProductSalesServiceReviewTest {
                 "body", Map.of("rating", 4, "comment", "Better after second tub.")));
 
         assertEquals(Boolean.TRUE, response.get("updated"));
+        verify(ratingAggregates).applyProductRating(9, 4, 2);
     }
 
     @Test
@@ -173,12 +190,15 @@ class ProductSalesServiceReviewTest {
 
         assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
         assertTrue(String.valueOf(exception.getReason()).contains("already reviewed"));
+        verify(ratingAggregates, never()).applyProductRating(anyInt(), any(), any());
     }
 
     @Test
     void customerDeleteReview_shouldDeleteExistingReview() {
         when(currentUserService.requireCustomer("Bearer customer"))
                 .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(jdbcTemplate.query(contains("WITH (UPDLOCK, HOLDLOCK)"), any(RowMapper.class), eq(9), eq(5)))
+                .thenReturn(List.of(3));
         when(jdbcTemplate.update(
                 contains("DELETE FROM dbo.ProductReviews"),
                 eq(9),
@@ -188,6 +208,7 @@ class ProductSalesServiceReviewTest {
         Map<String, Object> response = service.execute("customer-delete-review", "Bearer customer", Map.of("productId", 9));
 
         assertEquals(Boolean.TRUE, response.get("deleted"));
+        verify(ratingAggregates).applyProductRating(9, null, 3);
     }
 
     @Test
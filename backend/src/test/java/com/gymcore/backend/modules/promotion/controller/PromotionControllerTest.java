@@ -5,7 +5,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.common.api.ApiResponse;
+import com.gymcore.backend.common.service.NotificationPushService;
 import com.gymcore.backend.modules.promotion.service.PromotionService;
+import java.util.HashMap;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,7 +26,7 @@ class PromotionControllerTest {
     @BeforeEach
     void setUp() {
         promotionService = Mockito.mock(PromotionService.class);
-        controller = new PromotionController(promotionService);
+        controller = new PromotionController(promotionService, Mockito.mock(NotificationPushService.class));
     }
 
     @Test
@@ -53,6 +55,22 @@ class PromotionControllerTest {
         verify(promotionService).deleteUploadedPromotionBanner("Bearer admin", "/uploads/promotions/banners/banner.png");
     }
 
+    @Test
+    void setCouponClaimCap_shouldMergePathIdIntoPayload() {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("maxClaims", null);
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("maxClaims", null);
+        expected.put("promotionId", 12);
+        when(promotionService.execute("admin-set-coupon-claim-cap", "Bearer admin", expected))
+                .thenReturn(Map.of("success", true));
+
+        ApiResponse<Map<String, Object>> response = controller.setCouponClaimCap("Bearer admin", 12, payload);
+
+        assertEquals("Coupon claim cap updated", response.message());
+        verify(promotionService).execute("admin-set-coupon-claim-cap", "Bearer admin", expected);
+    }
+
     @Test
     void createPost_shouldPassImportantFlagToService() {
         Map<String, Object> payload = Map.of(
@@ -120,6 +138,23 @@ class PromotionControllerTest {
                 Map.of("unreadOnly", true, "view", "actionable"));
     }
 
+    @Test
+    void getNotificationFeed_shouldPassCursorAndPageSizeThrough() {
+        Map<String, Object> payload = new java.util.LinkedHashMap<>();
+        payload.put("unreadOnly", false);
+        payload.put("view", "history");
+        payload.put("cursor", "abc");
+        payload.put("pageSize", 10);
+        when(promotionService.execute("customer-get-notification-feed", "Bearer customer", payload))
+                .thenReturn(Map.of("notifications", java.util.List.of(), "unreadCount", 3));
+
+        ApiResponse<Map<String, Object>> response =
+                controller.getNotificationFeed("Bearer customer", false, "history", "abc", 10);
+
+        assertEquals("Notification feed retrieved", response.message());
+        assertEquals(3, response.data().get("unreadCount"));
+    }
+
     @Test
     void handleResponseStatusException_shouldReturnApiErrorBody() {
         ResponseStatusException exception = new ResponseStatusException(HttpStatus.BAD_REQUEST, "Promotion banner file is required.");
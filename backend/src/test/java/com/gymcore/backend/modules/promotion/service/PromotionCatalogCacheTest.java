@@ -0,0 +1,132 @@
+package com.gymcore.backend.modules.promotion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gymcore.backend.common.service.SchemaCapabilities;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PromotionCatalogCacheTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SchemaCapabilities schemaCapabilities;
+    private MutableClock clock;
+    private PromotionCatalogCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        clock = new MutableClock(Instant.parse("2026-03-05T10:00:00Z"));
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        when(schemaCapabilities.promotionClaimCap()).thenReturn(true);
+        cache = new PromotionCatalogCache(jdbcTemplate, schemaCapabilities, clock);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+
+        ResultSet promotion = Mockito.mock(ResultSet.class);
+        when(promotion.getInt("PromotionID")).thenReturn(12);
+        when(promotion.getString("PromoCode")).thenReturn("FLASH50");
+        when(promotion.getString("ApplyTarget")).thenReturn("ORDER");
+        when(promotion.getObject("MaxClaims", Integer.class)).thenReturn(500);
+        ResultSet post = Mockito.mock(ResultSet.class);
+        when(post.getInt("PromotionID")).thenReturn(12);
+        when(post.getInt("PromotionPostID")).thenReturn(40);
+        when(post.getString("Title")).thenReturn("Flash sale");
+        feed(PromotionCatalogCache.livePromotionsSql(true), promotion);
+        feed(PromotionCatalogCache.LIVE_POSTS_SQL, post);
+    }
+
+    @Test
+    void findOffer_shouldServeRepeatedReadsFromOneLoad() {
+        assertTrue(cache.findOffer(12, 40).isPresent());
+        assertTrue(cache.findOffer(12, 41).isEmpty());
+        assertTrue(cache.findOffer(13, 40).isEmpty());
+        assertEquals(12, cache.findPromotionByCode(" flash50 ").orElseThrow().promotionId());
+        assertEquals(500, cache.findOffer(12, 40).orElseThrow().promotion().maxClaims());
+
+        verify(jdbcTemplate, times(1)).query(eq(PromotionCatalogCache.livePromotionsSql(true)),
+                any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void offers_shouldQueryTodayWithSargableDayBounds() {
+        cache.offers();
+
+        verify(jdbcTemplate).query(eq(PromotionCatalogCache.LIVE_POSTS_SQL), any(RowCallbackHandler.class),
+                eq(Timestamp.valueOf("2026-03-06 00:00:00")), eq(Timestamp.valueOf("2026-03-05 00:00:00")));
+    }
+
+    @Test
+    void invalidate_shouldReloadOnNextRead() {
+        cache.offers();
+        cache.invalidate();
+        cache.offers();
+
+        verify(jdbcTemplate, times(2)).query(eq(PromotionCatalogCache.livePromotionsSql(true)),
+                any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void offers_shouldReloadWhenTheDateChanges() {
+        cache.offers();
+        clock.now = Instant.parse("2026-03-06T00:00:01Z");
+        cache.offers();
+
+        verify(jdbcTemplate).query(eq(PromotionCatalogCache.LIVE_POSTS_SQL), any(RowCallbackHandler.class),
+                eq(Timestamp.valueOf("2026-03-07 00:00:00")), eq(Timestamp.valueOf("2026-03-06 00:00:00")));
+    }
+
+    @Test
+    void livePromotionsSql_shouldStandInForMissingClaimCapColumn() {
+        assertTrue(PromotionCatalogCache.livePromotionsSql(false).contains("CAST(NULL AS INT) AS MaxClaims"));
+        assertTrue(PromotionCatalogCache.livePromotionsSql(true).contains("ValidTo, MaxClaims"));
+    }
+
+    private void feed(String sql, ResultSet row) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(eq(sql), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.gymcore.backend.modules.promotion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+class PromotionClaimAdmissionTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AtomicLong nanos;
+    private PromotionClaimAdmission admission;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        nanos = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        admission = new PromotionClaimAdmission(jdbcTemplate, nanos::get);
+        ReflectionTestUtils.setField(admission, "ratePerSecond", 10.0);
+        ReflectionTestUtils.setField(admission, "burst", 2);
+        ReflectionTestUtils.setField(admission, "stripeCount", 1);
+    }
+
+    @Test
+    void admit_shouldRateLimitBurstAndRefillOverTime() {
+        PromotionCatalogCache.LivePromotion promotion = promotion(12, null);
+
+        assertSame(PromotionClaimAdmission.Reservation.NONE, admission.admit(promotion));
+        admission.admit(promotion);
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> admission.admit(promotion));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        admission.admit(promotion);
+        verify(jdbcTemplate, never()).queryForObject(eq(PromotionClaimAdmission.CLAIM_COUNT_SQL), eq(Integer.class),
+                eq(12));
+    }
+
+    @Test
+    void admit_shouldRejectOnceCapIsReachedWithoutRecounting() {
+        ReflectionTestUtils.setField(admission, "ratePerSecond", 0.0);
+        when(jdbcTemplate.queryForObject(PromotionClaimAdmission.CLAIM_COUNT_SQL, Integer.class, 12)).thenReturn(1);
+        PromotionCatalogCache.LivePromotion promotion = promotion(12, 2);
+
+        admission.admit(promotion).complete(true);
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> admission.admit(promotion));
+        assertThrows(ResponseStatusException.class, () -> admission.admit(promotion));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(jdbcTemplate, times(1)).queryForObject(PromotionClaimAdmission.CLAIM_COUNT_SQL, Integer.class, 12);
+        assertEquals(2L, admission.snapshot().get(0).get("rejectedFullyClaimed"));
+    }
+
+    @Test
+    void complete_shouldHandBackSlotWhenNothingWasClaimed() {
+        ReflectionTestUtils.setField(admission, "ratePerSecond", 0.0);
+        when(jdbcTemplate.queryForObject(PromotionClaimAdmission.CLAIM_COUNT_SQL, Integer.class, 12)).thenReturn(0);
+        PromotionCatalogCache.LivePromotion promotion = promotion(12, 1);
+
+        PromotionClaimAdmission.Reservation duplicate = admission.admit(promotion);
+        duplicate.complete(false);
+        duplicate.complete(false);
+        admission.admit(promotion).complete(true);
+
+        assertEquals(1, admission.snapshot().get(0).get("claimsTaken"));
+        assertEquals(0, admission.snapshot().get(0).get("inFlight"));
+    }
+
+    @Test
+    void reconcile_shouldFoldInClaimsTakenElsewhereAndDropIdleGates() {
+        ReflectionTestUtils.setField(admission, "ratePerSecond", 0.0);
+        when(jdbcTemplate.queryForObject(PromotionClaimAdmission.CLAIM_COUNT_SQL, Integer.class, 12))
+                .thenReturn(0, 5);
+        PromotionCatalogCache.LivePromotion promotion = promotion(12, 5);
+        admission.admit(promotion).complete(true);
+
+        admission.reconcile();
+        assertThrows(ResponseStatusException.class, () -> admission.admit(promotion));
+
+        nanos.addAndGet(PromotionClaimAdmission.IDLE_GATE_NANOS + 1);
+        admission.reconcile();
+        assertEquals(0, admission.snapshot().size());
+    }
+
+    static PromotionCatalogCache.LivePromotion promotion(int promotionId, Integer maxClaims) {
+        return new PromotionCatalogCache.LivePromotion(promotionId, "FLASH" + promotionId, "Flash sale", null, null,
+                "ORDER", 0, Timestamp.valueOf("2026-03-01 00:00:00"), Timestamp.valueOf("2026-03-10 23:59:59"),
+                maxClaims);
+    }
+}
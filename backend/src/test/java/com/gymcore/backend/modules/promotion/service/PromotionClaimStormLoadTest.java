@@ -0,0 +1,87 @@
+package com.gymcore.backend.modules.promotion.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Claim storm against {@link PromotionClaimAdmission}: many virtual-thread customers claim one capped
+ * promotion at the same instant, as after an important promotion broadcast. Each admitted claim holds its
+ * reservation for a simulated insert, a share of them turn out to be duplicates, and the test checks the
+ * cap is never exceeded.
+ *
+ * <p>Run with {@code ./mvnw test -Dtest=PromotionClaimStormLoadTest -Dgymcore.loadtest=true}; tune with
+ * {@code -Dgymcore.loadtest.claimers}, {@code .cap}, {@code .rate} and {@code .insert-ms}.
+ */
+@EnabledIfSystemProperty(named = "gymcore.loadtest", matches = "true")
+class PromotionClaimStormLoadTest {
+
+    private final int claimers = Integer.getInteger("gymcore.loadtest.claimers", 20000);
+    private final int cap = Integer.getInteger("gymcore.loadtest.cap", 500);
+    private final int rate = Integer.getInteger("gymcore.loadtest.rate", 2000);
+    private final int insertMillis = Integer.getInteger("gymcore.loadtest.insert-ms", 5);
+
+    @Test
+    void claimStorm_shouldNeverAdmitMoreClaimsThanTheCap() throws Exception {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(eq(PromotionClaimAdmission.CLAIM_COUNT_SQL), eq(Integer.class), anyInt()))
+                .thenReturn(0);
+        PromotionClaimAdmission admission = new PromotionClaimAdmission(jdbcTemplate);
+        ReflectionTestUtils.setField(admission, "ratePerSecond", (double) rate);
+        ReflectionTestUtils.setField(admission, "burst", rate);
+        ReflectionTestUtils.setField(admission, "stripeCount", 8);
+        PromotionCatalogCache.LivePromotion promotion = PromotionClaimAdmissionTest.promotion(12, cap);
+
+        AtomicInteger claimed = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger rateLimited = new AtomicInteger();
+        AtomicInteger fullyClaimed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        long startedAt;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < claimers; i++) {
+                boolean duplicate = i % 10 == 0;
+                executor.submit(() -> {
+                    start.await();
+                    PromotionClaimAdmission.Reservation reservation;
+                    try {
+                        reservation = admission.admit(promotion);
+                    } catch (ResponseStatusException exception) {
+                        (exception.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS ? rateLimited : fullyClaimed)
+                                .incrementAndGet();
+                        return null;
+                    }
+                    Thread.sleep(insertMillis);
+                    (duplicate ? duplicates : claimed).incrementAndGet();
+                    reservation.complete(!duplicate);
+                    return null;
+                });
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        System.out.printf("claim storm: %d claimers in %d ms, claimed=%d duplicates=%d rateLimited=%d "
+                + "fullyClaimed=%d%n", claimers, elapsedMillis, claimed.get(), duplicates.get(), rateLimited.get(),
+                fullyClaimed.get());
+        assertTrue(claimed.get() <= cap, "claims admitted beyond the cap");
+        assertEquals(claimers, claimed.get() + duplicates.get() + rateLimited.get() + fullyClaimed.get());
+        assertEquals(0, admission.snapshot().get(0).get("inFlight"));
+    }
+}
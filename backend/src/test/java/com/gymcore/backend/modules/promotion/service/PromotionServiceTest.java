@@ -5,23 +5,28 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.lenient;
 
+import com.gymcore.backend.common.service.SchemaCapabilities;
 import com.gymcore.backend.common.service.UserNotificationService;
 import com.gymcore.backend.modules.admin.service.ReportService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -37,6 +42,9 @@ class PromotionServiceTest {
     private CurrentUserService currentUserService;
     private ReportService reportService;
     private UserNotificationService notificationService;
+    private PromotionCatalogCache catalogCache;
+    private PromotionClaimAdmission claimAdmission;
+    private SchemaCapabilities schemaCapabilities;
     private PromotionService service;
 
     @BeforeEach
@@ -45,7 +53,12 @@ class PromotionServiceTest {
         currentUserService = Mockito.mock(CurrentUserService.class);
         reportService = Mockito.mock(ReportService.class);
         notificationService = Mockito.mock(UserNotificationService.class);
-        service = new PromotionService(jdbcTemplate, currentUserService, reportService, notificationService);
+        catalogCache = Mockito.mock(PromotionCatalogCache.class);
+        claimAdmission = Mockito.mock(PromotionClaimAdmission.class);
+        schemaCapabilities = Mockito.mock(SchemaCapabilities.class);
+        service = new PromotionService(jdbcTemplate, currentUserService, reportService, notificationService,
+                catalogCache, claimAdmission, schemaCapabilities);
+        lenient().when(claimAdmission.admit(any())).thenReturn(PromotionClaimAdmission.Reservation.NONE);
         ReflectionTestUtils.setField(service, "promotionImageDir", "uploads/promotions-test");
         ReflectionTestUtils.setField(service, "promotionImageMaxBytes", 5L * 1024 * 1024);
         lenient().when(jdbcTemplate.queryForList(contains("SELECT TOP (1) IsActive, ValidFrom, ValidTo"), eq(12)))
@@ -491,4 +504,194 @@ class PromotionServiceTest {
         verify(jdbcTemplate, never()).update(startsWith("INSERT INTO dbo.Promotions"), any(), any(), any(), any(),
                 any(), any(), any(), any(), any());
     }
+
+    @Test
+    void customerClaimCoupon_shouldRejectOfferMissingFromLiveCatalog() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("customer-claim-coupon", "Bearer customer",
+                        Map.of("promotionId", 12, "sourcePostId", 40)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(jdbcTemplate, never()).update(eq(PromotionService.CLAIM_PROMOTION_SQL), any(Object[].class));
+    }
+
+    @Test
+    void customerClaimCoupon_shouldClaimLiveOfferWithSingleMerge() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        PromotionCatalogCache.LiveOffer offer = liveOffer(12, 40);
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.of(offer));
+        when(catalogCache.offers()).thenReturn(List.of(offer));
+        when(jdbcTemplate.update(eq(PromotionService.CLAIM_PROMOTION_SQL), eq(5), eq(12), eq(40))).thenReturn(1);
+
+        Map<String, Object> response = service.execute("customer-claim-coupon", "Bearer customer",
+                Map.of("promotionId", 12, "sourcePostId", 40));
+
+        assertEquals("Coupon added to your wallet!", response.get("message"));
+        verify(notificationService).notifyUser(eq(5), eq("COUPON_CLAIMED"), any(), any(), any(), eq(12),
+                eq("COUPON_CLAIM_12"));
+        verify(jdbcTemplate, never()).queryForObject(contains("COUNT"), eq(Integer.class), any(Object[].class));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> claimableOffers = (List<Map<String, Object>>) response.get("claimableOffers");
+        assertEquals(40, claimableOffers.get(0).get("promotionPostId"));
+        assertEquals("CLAIMABLE", claimableOffers.get(0).get("walletState"));
+    }
+
+    @Test
+    void customerClaimCoupon_shouldReportExistingClaimWhenMergeInsertsNothing() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.of(liveOffer(12, 40)));
+        when(jdbcTemplate.update(eq(PromotionService.CLAIM_PROMOTION_SQL), eq(5), eq(12), eq(40))).thenReturn(0);
+
+        Map<String, Object> response = service.execute("customer-claim-coupon", "Bearer customer",
+                Map.of("promotionId", 12, "sourcePostId", 40));
+
+        assertEquals("You have already claimed this coupon!", response.get("message"));
+        verify(notificationService, never()).notifyUser(anyInt(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void customerClaimCouponCode_shouldResolveCodeFromLiveCatalog() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(catalogCache.findPromotionByCode("flash50")).thenReturn(Optional.of(liveOffer(12, 40).promotion()));
+        when(jdbcTemplate.update(eq(PromotionService.CLAIM_PROMOTION_SQL), eq(5), eq(12), isNull())).thenReturn(1);
+
+        Map<String, Object> response = service.execute("customer-claim-coupon-code", "Bearer customer",
+                Map.of("promoCode", "flash50"));
+
+        assertEquals("Coupon code added to your wallet!", response.get("message"));
+    }
+
+    @Test
+    void customerClaimCoupon_shouldSurfaceFullyClaimedWithoutInserting() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        PromotionCatalogCache.LiveOffer offer = liveOffer(12, 40);
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.of(offer));
+        when(claimAdmission.admit(offer.promotion()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "This promotion has been fully claimed."));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("customer-claim-coupon", "Bearer customer",
+                        Map.of("promotionId", 12, "sourcePostId", 40)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(jdbcTemplate, never()).update(eq(PromotionService.CLAIM_PROMOTION_SQL), any(Object[].class));
+    }
+
+    @Test
+    void customerClaimCoupon_shouldEnforceCapInClaimStatementForCappedPromotion() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(schemaCapabilities.promotionClaimCap()).thenReturn(true);
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.of(cappedOffer(12, 40, 100)));
+        when(jdbcTemplate.update(eq(PromotionService.CLAIM_CAPPED_PROMOTION_SQL), eq(5), eq(12), eq(40)))
+                .thenReturn(0);
+        when(jdbcTemplate.queryForObject(PromotionService.HAS_CLAIM_SQL, Integer.class, 5, 12)).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("customer-claim-coupon", "Bearer customer",
+                        Map.of("promotionId", 12, "sourcePostId", 40)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertTrue(PromotionService.CLAIM_CAPPED_PROMOTION_SQL.contains("< p.MaxClaims"));
+        verify(jdbcTemplate, never()).update(eq(PromotionService.CLAIM_PROMOTION_SQL), any(Object[].class));
+        verify(notificationService, never()).notifyUser(anyInt(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void customerClaimCoupon_shouldEnforceCapSetSinceCatalogWasCached() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(schemaCapabilities.promotionClaimCap()).thenReturn(true);
+        // The cached promotion predates the cap; the claim statement reads it from the promotion row.
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.of(liveOffer(12, 40)));
+        when(jdbcTemplate.update(eq(PromotionService.CLAIM_CAPPED_PROMOTION_SQL), eq(5), eq(12), eq(40)))
+                .thenReturn(0);
+        when(jdbcTemplate.queryForObject(PromotionService.HAS_CLAIM_SQL, Integer.class, 5, 12)).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("customer-claim-coupon", "Bearer customer",
+                        Map.of("promotionId", 12, "sourcePostId", 40)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertTrue(PromotionService.CLAIM_CAPPED_PROMOTION_SQL.contains("p.MaxClaims IS NULL"));
+        verify(jdbcTemplate, never()).update(eq(PromotionService.CLAIM_PROMOTION_SQL), any(Object[].class));
+    }
+
+    @Test
+    void customerClaimCoupon_shouldReportExistingClaimWhenCappedMergeInsertsNothing() {
+        when(currentUserService.requireCustomer("Bearer customer"))
+                .thenReturn(new CurrentUserService.UserInfo(5, "Customer", "CUSTOMER"));
+        when(schemaCapabilities.promotionClaimCap()).thenReturn(true);
+        when(catalogCache.findOffer(12, 40)).thenReturn(Optional.of(cappedOffer(12, 40, 100)));
+        when(jdbcTemplate.update(eq(PromotionService.CLAIM_CAPPED_PROMOTION_SQL), eq(5), eq(12), eq(40)))
+                .thenReturn(0);
+        when(jdbcTemplate.queryForObject(PromotionService.HAS_CLAIM_SQL, Integer.class, 5, 12)).thenReturn(1);
+
+        Map<String, Object> response = service.execute("customer-claim-coupon", "Bearer customer",
+                Map.of("promotionId", 12, "sourcePostId", 40));
+
+        assertEquals("You have already claimed this coupon!", response.get("message"));
+    }
+
+    @Test
+    void adminSetCouponClaimCap_shouldStoreCapAndInvalidateCatalog() {
+        when(currentUserService.requireAdmin("Bearer admin"))
+                .thenReturn(new CurrentUserService.UserInfo(1, "Admin", "ADMIN"));
+        when(schemaCapabilities.promotionClaimCap()).thenReturn(true);
+        when(jdbcTemplate.update(startsWith("UPDATE dbo.Promotions SET MaxClaims"), eq(500), eq(12))).thenReturn(1);
+
+        Map<String, Object> response = service.execute("admin-set-coupon-claim-cap", "Bearer admin",
+                Map.of("promotionId", 12, "maxClaims", "500"));
+
+        assertEquals(500, response.get("maxClaims"));
+        verify(catalogCache).invalidate();
+    }
+
+    @Test
+    void adminSetCouponClaimCap_shouldRejectNonPositiveCap() {
+        when(currentUserService.requireAdmin("Bearer admin"))
+                .thenReturn(new CurrentUserService.UserInfo(1, "Admin", "ADMIN"));
+        when(schemaCapabilities.promotionClaimCap()).thenReturn(true);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () ->
+                service.execute("admin-set-coupon-claim-cap", "Bearer admin",
+                        Map.of("promotionId", 12, "maxClaims", 0)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(catalogCache, never()).invalidate();
+    }
+
+    @Test
+    void adminDeleteCoupon_shouldInvalidateLiveCatalog() {
+        when(currentUserService.requireAdmin("Bearer admin"))
+                .thenReturn(new CurrentUserService.UserInfo(1, "Admin", "ADMIN"));
+
+        service.execute("admin-delete-coupon", "Bearer admin", Map.of("promotionId", 12));
+
+        verify(catalogCache).invalidate();
+    }
+
+    private static PromotionCatalogCache.LiveOffer cappedOffer(int promotionId, int postId, int maxClaims) {
+        PromotionCatalogCache.LivePromotion promotion = new PromotionCatalogCache.LivePromotion(promotionId,
+                "FLASH50", "Flash sale", new BigDecimal("50.00"), null, "ORDER", 0,
+                Timestamp.valueOf("2026-03-01 00:00:00"), Timestamp.valueOf("2026-03-10 23:59:59"), maxClaims);
+        return new PromotionCatalogCache.LiveOffer(promotion, postId, "Flash sale", "/flash.png",
+                Timestamp.valueOf("2026-03-01 00:00:00"), Timestamp.valueOf("2026-03-10 23:59:59"));
+    }
+
+    private static PromotionCatalogCache.LiveOffer liveOffer(int promotionId, int postId) {
+        PromotionCatalogCache.LivePromotion promotion = new PromotionCatalogCache.LivePromotion(promotionId,
+                "FLASH50", "Flash sale", new BigDecimal("50.00"), null, "ORDER", 0,
+                Timestamp.valueOf("2026-03-01 00:00:00"), Timestamp.valueOf("2026-03-10 23:59:59"), null);
+        return new PromotionCatalogCache.LiveOffer(promotion, postId, "Flash sale", "/flash.png",
+                Timestamp.valueOf("2026-03-01 00:00:00"), Timestamp.valueOf("2026-03-10 23:59:59"));
+    }
 }
@@ -14,6 +14,8 @@ import static org.mockito.Mockito.when;
 
 import com.gymcore.backend.modules.auth.service.AuthService;
 import com.gymcore.backend.modules.auth.service.CurrentUserService;
+import com.gymcore.backend.modules.content.service.GeminiCatalogSnapshotService;
+import com.gymcore.backend.modules.membership.service.MembershipStateResolver;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
@@ -35,6 +37,7 @@ class UserManagementServiceTest {
     private AuthService authService;
     private CurrentUserService currentUserService;
     private PasswordEncoder passwordEncoder;
+    private MembershipStateResolver membershipStates;
     private UserManagementService service;
 
     @BeforeEach
@@ -43,7 +46,9 @@ class UserManagementServiceTest {
         authService = Mockito.mock(AuthService.class);
         currentUserService = Mockito.mock(CurrentUserService.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
-        service = new UserManagementService(jdbcTemplate, authService, currentUserService, passwordEncoder);
+        membershipStates = Mockito.mock(MembershipStateResolver.class);
+        service = new UserManagementService(jdbcTemplate, authService, currentUserService, passwordEncoder,
+                Mockito.mock(GeminiCatalogSnapshotService.class), membershipStates);
     }
 
     @Test
@@ -112,23 +117,12 @@ class UserManagementServiceTest {
                     )), 0));
                 });
 
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("ACTIVE")))
-                .thenReturn(List.of());
-
         LocalDate scheduledStart = LocalDate.now().plusDays(4);
-        when(jdbcTemplate.query(contains("cm.Status = ?"), any(RowMapper.class), eq(5), eq("SCHEDULED")))
-                .thenAnswer(invocation -> {
-                    @SuppressWarnings("unchecked")
-                    RowMapper<Object> mapper = invocation.getArgument(1);
-                    return List.of(mapper.mapRow(resultSet(Map.of(
-                            "CustomerMembershipID", 12,
-                            "Status", "SCHEDULED",
-                            "StartDate", scheduledStart,
-                            "EndDate", scheduledStart.plusDays(29),
-                            "PlanName", "Gym Only - 1 Month",
-                            "PlanType", "GYM_ONLY"
-                    )), 0));
-                });
+        when(membershipStates.resolve(5)).thenReturn(new MembershipStateResolver.MembershipState(5, List.of(
+                new MembershipStateResolver.Membership(12, 1, "SCHEDULED", scheduledStart,
+                        scheduledStart.plusDays(29), "Gym Only - 1 Month", "GYM_ONLY", false),
+                new MembershipStateResolver.Membership(9, 1, "EXPIRED", LocalDate.now().minusDays(40),
+                        LocalDate.now().minusDays(10), "Gym Only - 1 Month", "GYM_ONLY", false))));
 
         @SuppressWarnings("unchecked")
         Map<String, Object> data = service.execute("reception-customer-membership", Map.of(